@@ -24,6 +24,7 @@ import org.apache.myfaces.extensions.cdi.core.api.util.ClassUtils;
 import org.apache.myfaces.extensions.cdi.core.impl.util.CodiUtils;
 
 import javax.annotation.PostConstruct;
+import java.io.Serializable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -35,12 +36,16 @@ public class AlternativeCodiCoreConfig extends CodiCoreConfig
 {
     private static final long serialVersionUID = -1471628272055334673L;
 
+    private transient volatile ConfigSnapshot configSnapshot;
+
     /**
      * Logs the activation of the config
      */
     @PostConstruct
     protected void init()
     {
+        this.configSnapshot = new ConfigSnapshot();
+
         Class configClass = AlternativeCodiCoreConfig.class; //don't use getClass - would lead to a proxy
 
         String moduleVersion = detectModuleVersion(configClass);
@@ -77,8 +82,7 @@ public class AlternativeCodiCoreConfig extends CodiCoreConfig
     @Override
     public boolean isAdvancedQualifierRequiredForDependencyInjection()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Boolean.class,
-                super.isAdvancedQualifierRequiredForDependencyInjection());
+        return getConfigSnapshot().advancedQualifierRequiredForDependencyInjection;
     }
 
     /**
@@ -87,8 +91,7 @@ public class AlternativeCodiCoreConfig extends CodiCoreConfig
     @Override
     public boolean isConfigurationLoggingEnabled()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Boolean.class,
-                super.isConfigurationLoggingEnabled());
+        return getConfigSnapshot().configurationLoggingEnabled;
     }
 
     /**
@@ -97,7 +100,51 @@ public class AlternativeCodiCoreConfig extends CodiCoreConfig
     @Override
     public boolean isInvalidBeanCreationEventEnabled()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Boolean.class,
-                super.isInvalidBeanCreationEventEnabled());
+        return getConfigSnapshot().invalidBeanCreationEventEnabled;
+    }
+
+    /**
+     * Resolves all configured values again (e.g. after a change of the underlying config-sources)
+     */
+    public void refreshConfigSnapshot()
+    {
+        CodiUtils.resetConfiguredValueCache();
+        this.configSnapshot = new ConfigSnapshot();
+    }
+
+    private ConfigSnapshot getConfigSnapshot()
+    {
+        ConfigSnapshot currentConfigSnapshot = this.configSnapshot;
+
+        if(currentConfigSnapshot == null)
+        {
+            currentConfigSnapshot = new ConfigSnapshot();
+            this.configSnapshot = currentConfigSnapshot;
+        }
+        return currentConfigSnapshot;
+    }
+
+    private static <T extends Serializable> T lookupConfig(String methodName, Class<T> targetType, T defaultValue)
+    {
+        return CodiUtils.lookupConfigFromEnvironment(
+                CodiUtils.createConfigKey(AlternativeCodiCoreConfig.class, methodName), targetType, defaultValue);
+    }
+
+    /**
+     * Immutable snapshot of the configured values - the keys are derived from the names of the config methods
+     */
+    private class ConfigSnapshot
+    {
+        private final boolean advancedQualifierRequiredForDependencyInjection =
+                lookupConfig("isAdvancedQualifierRequiredForDependencyInjection", Boolean.class,
+                        AlternativeCodiCoreConfig.super.isAdvancedQualifierRequiredForDependencyInjection());
+
+        private final boolean configurationLoggingEnabled =
+                lookupConfig("isConfigurationLoggingEnabled", Boolean.class,
+                        AlternativeCodiCoreConfig.super.isConfigurationLoggingEnabled());
+
+        private final boolean invalidBeanCreationEventEnabled =
+                lookupConfig("isInvalidBeanCreationEventEnabled", Boolean.class,
+                        AlternativeCodiCoreConfig.super.isInvalidBeanCreationEventEnabled());
     }
 }
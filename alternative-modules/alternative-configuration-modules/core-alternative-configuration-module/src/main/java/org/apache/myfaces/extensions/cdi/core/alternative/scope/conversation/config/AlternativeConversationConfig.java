@@ -24,6 +24,7 @@ import org.apache.myfaces.extensions.cdi.core.api.util.ClassUtils;
 import org.apache.myfaces.extensions.cdi.core.impl.util.CodiUtils;
 
 import javax.annotation.PostConstruct;
+import java.io.Serializable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -35,12 +36,16 @@ public class AlternativeConversationConfig extends ConversationConfig
 {
     private static final long serialVersionUID = 6346216228706018316L;
 
+    private transient volatile ConfigSnapshot configSnapshot;
+
     /**
      * Logs the activation of the config
      */
     @PostConstruct
     protected void init()
     {
+        this.configSnapshot = new ConfigSnapshot();
+
         Class configClass = AlternativeConversationConfig.class; //don't use getClass - would lead to a proxy
 
         String moduleVersion = detectModuleVersion(configClass);
@@ -77,8 +82,7 @@ public class AlternativeConversationConfig extends ConversationConfig
     @Override
     public int getConversationTimeoutInMinutes()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Integer.class,
-                        super.getConversationTimeoutInMinutes());
+        return getConfigSnapshot().conversationTimeoutInMinutes;
     }
 
     /**
@@ -87,8 +91,7 @@ public class AlternativeConversationConfig extends ConversationConfig
     @Override
     public boolean isScopeBeanEventEnabled()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Boolean.class,
-                super.isScopeBeanEventEnabled());
+        return getConfigSnapshot().scopeBeanEventEnabled;
     }
 
     /**
@@ -97,8 +100,7 @@ public class AlternativeConversationConfig extends ConversationConfig
     @Override
     public boolean isAccessBeanEventEnabled()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Boolean.class,
-                super.isAccessBeanEventEnabled());
+        return getConfigSnapshot().accessBeanEventEnabled;
     }
 
     /**
@@ -107,8 +109,7 @@ public class AlternativeConversationConfig extends ConversationConfig
     @Override
     public boolean isUnscopeBeanEventEnabled()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Boolean.class,
-                super.isUnscopeBeanEventEnabled());
+        return getConfigSnapshot().unscopeBeanEventEnabled;
     }
 
     /**
@@ -117,8 +118,7 @@ public class AlternativeConversationConfig extends ConversationConfig
     @Override
     public boolean isStartConversationEventEnabled()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Boolean.class,
-                super.isStartConversationEventEnabled());
+        return getConfigSnapshot().startConversationEventEnabled;
     }
 
     /**
@@ -127,8 +127,7 @@ public class AlternativeConversationConfig extends ConversationConfig
     @Override
     public boolean isCloseConversationEventEnabled()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Boolean.class,
-                super.isCloseConversationEventEnabled());
+        return getConfigSnapshot().closeConversationEventEnabled;
     }
 
     /**
@@ -137,8 +136,7 @@ public class AlternativeConversationConfig extends ConversationConfig
     @Override
     public boolean isRestartConversationEventEnabled()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Boolean.class,
-                super.isRestartConversationEventEnabled());
+        return getConfigSnapshot().restartConversationEventEnabled;
     }
 
     /**
@@ -147,7 +145,71 @@ public class AlternativeConversationConfig extends ConversationConfig
     @Override
     public boolean isConversationRequiredEnabled()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Boolean.class,
-                super.isConversationRequiredEnabled());
+        return getConfigSnapshot().conversationRequiredEnabled;
+    }
+
+    /**
+     * Resolves all configured values again (e.g. after a change of the underlying config-sources)
+     */
+    public void refreshConfigSnapshot()
+    {
+        CodiUtils.resetConfiguredValueCache();
+        this.configSnapshot = new ConfigSnapshot();
+    }
+
+    private ConfigSnapshot getConfigSnapshot()
+    {
+        ConfigSnapshot currentConfigSnapshot = this.configSnapshot;
+
+        if(currentConfigSnapshot == null)
+        {
+            currentConfigSnapshot = new ConfigSnapshot();
+            this.configSnapshot = currentConfigSnapshot;
+        }
+        return currentConfigSnapshot;
+    }
+
+    private static <T extends Serializable> T lookupConfig(String methodName, Class<T> targetType, T defaultValue)
+    {
+        return CodiUtils.lookupConfigFromEnvironment(
+                CodiUtils.createConfigKey(AlternativeConversationConfig.class, methodName), targetType, defaultValue);
+    }
+
+    /**
+     * Immutable snapshot of the configured values - the keys are derived from the names of the config methods
+     */
+    private class ConfigSnapshot
+    {
+        private final int conversationTimeoutInMinutes =
+                lookupConfig("getConversationTimeoutInMinutes", Integer.class,
+                        AlternativeConversationConfig.super.getConversationTimeoutInMinutes());
+
+        private final boolean scopeBeanEventEnabled =
+                lookupConfig("isScopeBeanEventEnabled", Boolean.class,
+                        AlternativeConversationConfig.super.isScopeBeanEventEnabled());
+
+        private final boolean accessBeanEventEnabled =
+                lookupConfig("isAccessBeanEventEnabled", Boolean.class,
+                        AlternativeConversationConfig.super.isAccessBeanEventEnabled());
+
+        private final boolean unscopeBeanEventEnabled =
+                lookupConfig("isUnscopeBeanEventEnabled", Boolean.class,
+                        AlternativeConversationConfig.super.isUnscopeBeanEventEnabled());
+
+        private final boolean startConversationEventEnabled =
+                lookupConfig("isStartConversationEventEnabled", Boolean.class,
+                        AlternativeConversationConfig.super.isStartConversationEventEnabled());
+
+        private final boolean closeConversationEventEnabled =
+                lookupConfig("isCloseConversationEventEnabled", Boolean.class,
+                        AlternativeConversationConfig.super.isCloseConversationEventEnabled());
+
+        private final boolean restartConversationEventEnabled =
+                lookupConfig("isRestartConversationEventEnabled", Boolean.class,
+                        AlternativeConversationConfig.super.isRestartConversationEventEnabled());
+
+        private final boolean conversationRequiredEnabled =
+                lookupConfig("isConversationRequiredEnabled", Boolean.class,
+                        AlternativeConversationConfig.super.isConversationRequiredEnabled());
     }
 }
@@ -24,6 +24,7 @@ import org.apache.myfaces.extensions.cdi.core.api.util.ClassUtils;
 import org.apache.myfaces.extensions.cdi.core.impl.util.CodiUtils;
 
 import javax.annotation.PostConstruct;
+import java.io.Serializable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -35,12 +36,16 @@ public class AlternativeWindowContextConfig extends WindowContextConfig
 {
     private static final long serialVersionUID = 8616591700809645827L;
 
+    private transient volatile ConfigSnapshot configSnapshot;
+
     /**
      * Logs the activation of the config
      */
     @PostConstruct
     protected void init()
     {
+        this.configSnapshot = new ConfigSnapshot();
+
         Class configClass = AlternativeWindowContextConfig.class; //don't use getClass - would lead to a proxy
 
         String moduleVersion = detectModuleVersion(configClass);
@@ -77,8 +82,7 @@ public class AlternativeWindowContextConfig extends WindowContextConfig
     @Override
     public boolean isUrlParameterSupported()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Boolean.class,
-                super.isUrlParameterSupported());
+        return getConfigSnapshot().urlParameterSupported;
     }
 
     /**
@@ -87,8 +91,7 @@ public class AlternativeWindowContextConfig extends WindowContextConfig
     @Override
     public boolean isUnknownWindowIdsAllowed()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Boolean.class,
-                        super.isUnknownWindowIdsAllowed());
+        return getConfigSnapshot().unknownWindowIdsAllowed;
     }
 
     /**
@@ -97,8 +100,7 @@ public class AlternativeWindowContextConfig extends WindowContextConfig
     @Override
     public boolean isAddWindowIdToActionUrlsEnabled()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Boolean.class,
-                        super.isAddWindowIdToActionUrlsEnabled());
+        return getConfigSnapshot().addWindowIdToActionUrlsEnabled;
     }
 
     /**
@@ -107,8 +109,7 @@ public class AlternativeWindowContextConfig extends WindowContextConfig
     @Override
     public int getWindowContextTimeoutInMinutes()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Integer.class,
-                        super.getWindowContextTimeoutInMinutes());
+        return getConfigSnapshot().windowContextTimeoutInMinutes;
     }
 
     /**
@@ -117,8 +118,7 @@ public class AlternativeWindowContextConfig extends WindowContextConfig
     @Override
     public int getMaxWindowContextCount()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Integer.class,
-                        super.getMaxWindowContextCount());
+        return getConfigSnapshot().maxWindowContextCount;
     }
 
     /**
@@ -127,8 +127,7 @@ public class AlternativeWindowContextConfig extends WindowContextConfig
     @Override
     public boolean isCloseEmptyWindowContextsEnabled()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Boolean.class,
-                        super.isCloseEmptyWindowContextsEnabled());
+        return getConfigSnapshot().closeEmptyWindowContextsEnabled;
     }
 
     /**
@@ -137,8 +136,16 @@ public class AlternativeWindowContextConfig extends WindowContextConfig
     @Override
     public boolean isEagerWindowContextDetectionEnabled()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Boolean.class,
-                        super.isEagerWindowContextDetectionEnabled());
+        return getConfigSnapshot().eagerWindowContextDetectionEnabled;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int getWindowContextCleanupPeriodInSeconds()
+    {
+        return getConfigSnapshot().windowContextCleanupPeriodInSeconds;
     }
 
     /**
@@ -147,8 +154,7 @@ public class AlternativeWindowContextConfig extends WindowContextConfig
     @Override
     public boolean isCreateWindowContextEventEnabled()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Boolean.class,
-                        super.isCreateWindowContextEventEnabled());
+        return getConfigSnapshot().createWindowContextEventEnabled;
     }
 
     /**
@@ -157,7 +163,79 @@ public class AlternativeWindowContextConfig extends WindowContextConfig
     @Override
     public boolean isCloseWindowContextEventEnabled()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Boolean.class,
-                        super.isCloseWindowContextEventEnabled());
+        return getConfigSnapshot().closeWindowContextEventEnabled;
+    }
+
+    /**
+     * Resolves all configured values again (e.g. after a change of the underlying config-sources)
+     */
+    public void refreshConfigSnapshot()
+    {
+        CodiUtils.resetConfiguredValueCache();
+        this.configSnapshot = new ConfigSnapshot();
+    }
+
+    private ConfigSnapshot getConfigSnapshot()
+    {
+        ConfigSnapshot currentConfigSnapshot = this.configSnapshot;
+
+        if(currentConfigSnapshot == null)
+        {
+            currentConfigSnapshot = new ConfigSnapshot();
+            this.configSnapshot = currentConfigSnapshot;
+        }
+        return currentConfigSnapshot;
+    }
+
+    private static <T extends Serializable> T lookupConfig(String methodName, Class<T> targetType, T defaultValue)
+    {
+        return CodiUtils.lookupConfigFromEnvironment(
+                CodiUtils.createConfigKey(AlternativeWindowContextConfig.class, methodName), targetType, defaultValue);
+    }
+
+    /**
+     * Immutable snapshot of the configured values - the keys are derived from the names of the config methods
+     */
+    private class ConfigSnapshot
+    {
+        private final boolean urlParameterSupported =
+                lookupConfig("isUrlParameterSupported", Boolean.class,
+                        AlternativeWindowContextConfig.super.isUrlParameterSupported());
+
+        private final boolean unknownWindowIdsAllowed =
+                lookupConfig("isUnknownWindowIdsAllowed", Boolean.class,
+                        AlternativeWindowContextConfig.super.isUnknownWindowIdsAllowed());
+
+        private final boolean addWindowIdToActionUrlsEnabled =
+                lookupConfig("isAddWindowIdToActionUrlsEnabled", Boolean.class,
+                        AlternativeWindowContextConfig.super.isAddWindowIdToActionUrlsEnabled());
+
+        private final int windowContextTimeoutInMinutes =
+                lookupConfig("getWindowContextTimeoutInMinutes", Integer.class,
+                        AlternativeWindowContextConfig.super.getWindowContextTimeoutInMinutes());
+
+        private final int maxWindowContextCount =
+                lookupConfig("getMaxWindowContextCount", Integer.class,
+                        AlternativeWindowContextConfig.super.getMaxWindowContextCount());
+
+        private final boolean closeEmptyWindowContextsEnabled =
+                lookupConfig("isCloseEmptyWindowContextsEnabled", Boolean.class,
+                        AlternativeWindowContextConfig.super.isCloseEmptyWindowContextsEnabled());
+
+        private final boolean eagerWindowContextDetectionEnabled =
+                lookupConfig("isEagerWindowContextDetectionEnabled", Boolean.class,
+                        AlternativeWindowContextConfig.super.isEagerWindowContextDetectionEnabled());
+
+        private final int windowContextCleanupPeriodInSeconds =
+                lookupConfig("getWindowContextCleanupPeriodInSeconds", Integer.class,
+                        AlternativeWindowContextConfig.super.getWindowContextCleanupPeriodInSeconds());
+
+        private final boolean createWindowContextEventEnabled =
+                lookupConfig("isCreateWindowContextEventEnabled", Boolean.class,
+                        AlternativeWindowContextConfig.super.isCreateWindowContextEventEnabled());
+
+        private final boolean closeWindowContextEventEnabled =
+                lookupConfig("isCloseWindowContextEventEnabled", Boolean.class,
+                        AlternativeWindowContextConfig.super.isCloseWindowContextEventEnabled());
     }
 }
@@ -22,10 +22,15 @@ import org.apache.myfaces.extensions.cdi.core.alternative.config.AlternativeCodi
 import org.apache.myfaces.extensions.cdi.core.alternative.scope.conversation.config.AlternativeConversationConfig;
 import org.apache.myfaces.extensions.cdi.core.alternative.scope.conversation.config.AlternativeWindowContextConfig;
 import org.apache.myfaces.extensions.cdi.core.api.config.CodiCoreConfig;
+import org.apache.myfaces.extensions.cdi.core.api.config.ConfigEntry;
 import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.config.ConversationConfig;
 import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.config.WindowContextConfig;
+import org.apache.myfaces.extensions.cdi.core.impl.util.CodiUtils;
 import org.testng.annotations.Test;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
 import static org.testng.Assert.assertEquals;
 
 public class CoreConfigTest
@@ -72,4 +77,102 @@ public class CoreConfigTest
         assertEquals(windowContextConfig.isCreateWindowContextEventEnabled(), false);
         assertEquals(windowContextConfig.isCloseWindowContextEventEnabled(), false);
     }
+
+    @Test
+    public void testRefreshOfAlternativeWindowContextConfig()
+    {
+        AlternativeWindowContextConfig windowContextConfig = new AlternativeWindowContextConfig();
+
+        assertEquals(windowContextConfig.getMaxWindowContextCount(), 64);
+
+        String key = "WindowContextConfig.max_window_context_count";
+        System.setProperty(key, "5");
+
+        try
+        {
+            //values are only resolved once
+            assertEquals(windowContextConfig.getMaxWindowContextCount(), 64);
+
+            windowContextConfig.refreshConfigSnapshot();
+            assertEquals(windowContextConfig.getMaxWindowContextCount(), 5);
+        }
+        finally
+        {
+            System.clearProperty(key);
+        }
+
+        windowContextConfig.refreshConfigSnapshot();
+        assertEquals(windowContextConfig.getMaxWindowContextCount(), 64);
+    }
+
+    @Test
+    public void testConfigSnapshotsCoverAllConfigEntries() throws Exception
+    {
+        assertConfigEntriesAreResolvedBySnapshot(new AlternativeCodiCoreConfig(), CodiCoreConfig.class);
+        assertConfigEntriesAreResolvedBySnapshot(new AlternativeConversationConfig(), ConversationConfig.class);
+        assertConfigEntriesAreResolvedBySnapshot(new AlternativeWindowContextConfig(), WindowContextConfig.class);
+    }
+
+    //the snapshot has to resolve every config entry with the key derived from the name of the config method
+    private static void assertConfigEntriesAreResolvedBySnapshot(Object config, Class configType) throws Exception
+    {
+        Class alternativeConfigClass = config.getClass();
+        Method refreshMethod = alternativeConfigClass.getMethod("refreshConfigSnapshot");
+
+        Constructor defaultConfigConstructor = configType.getDeclaredConstructor();
+        defaultConfigConstructor.setAccessible(true);
+        Object defaultConfig = defaultConfigConstructor.newInstance();
+
+        for (Method configMethod : configType.getMethods())
+        {
+            if (!configMethod.isAnnotationPresent(ConfigEntry.class))
+            {
+                continue;
+            }
+
+            String methodName = configMethod.getName();
+
+            assertEquals(alternativeConfigClass.getMethod(methodName).getDeclaringClass(), alternativeConfigClass,
+                    methodName + " isn't overridden");
+
+            Object currentValue = configMethod.invoke(config);
+
+            if (!currentValue.equals(configMethod.invoke(defaultConfig)))
+            {
+                //already changed via a config-source with a higher priority (e.g. myfaces-extcdi.properties)
+                continue;
+            }
+
+            Object changedValue;
+
+            if (currentValue instanceof Boolean)
+            {
+                changedValue = !((Boolean) currentValue);
+            }
+            else if (currentValue instanceof Integer)
+            {
+                changedValue = (Integer) currentValue + 1;
+            }
+            else
+            {
+                throw new IllegalStateException("type of " + methodName + " isn't supported");
+            }
+
+            String key = CodiUtils.createConfigKey(alternativeConfigClass, methodName);
+            System.setProperty(key, changedValue.toString());
+
+            try
+            {
+                refreshMethod.invoke(config);
+                assertEquals(configMethod.invoke(config), changedValue, key);
+            }
+            finally
+            {
+                System.clearProperty(key);
+            }
+
+            refreshMethod.invoke(config);
+            assertEquals(configMethod.invoke(config), currentValue, key);
+        }
+    }
 }
@@ -24,6 +24,7 @@ import org.apache.myfaces.extensions.cdi.core.impl.util.CodiUtils;
 import org.apache.myfaces.extensions.cdi.jsf.api.config.JsfModuleConfig;
 
 import javax.annotation.PostConstruct;
+import java.io.Serializable;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -35,12 +36,16 @@ public class AlternativeJsfModuleConfig extends JsfModuleConfig
 {
     private static final long serialVersionUID = 2385134740850201120L;
 
+    private transient volatile ConfigSnapshot configSnapshot;
+
     /**
      * Logs the activation of the config
      */
     @PostConstruct
     protected void init()
     {
+        this.configSnapshot = new ConfigSnapshot();
+
         Class configClass = AlternativeJsfModuleConfig.class; //don't use getClass - would lead to a proxy
 
         String moduleVersion = detectModuleVersion(configClass);
@@ -77,8 +82,7 @@ public class AlternativeJsfModuleConfig extends JsfModuleConfig
     @Override
     public boolean isInitialRedirectEnabled()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Boolean.class,
-                super.isInitialRedirectEnabled());
+        return getConfigSnapshot().initialRedirectEnabled;
     }
 
     /**
@@ -87,8 +91,7 @@ public class AlternativeJsfModuleConfig extends JsfModuleConfig
     @Override
     public boolean isUseViewConfigsAsNavigationCasesEnabled()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Boolean.class,
-                super.isUseViewConfigsAsNavigationCasesEnabled());
+        return getConfigSnapshot().useViewConfigsAsNavigationCasesEnabled;
     }
 
     /**
@@ -97,8 +100,7 @@ public class AlternativeJsfModuleConfig extends JsfModuleConfig
     @Override
     public boolean isInvalidValueAwareMessageInterpolatorEnabled()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Boolean.class,
-                super.isInvalidValueAwareMessageInterpolatorEnabled());
+        return getConfigSnapshot().invalidValueAwareMessageInterpolatorEnabled;
     }
 
     /**
@@ -107,7 +109,68 @@ public class AlternativeJsfModuleConfig extends JsfModuleConfig
     @Override
     public boolean isAlwaysKeepMessages()
     {
-        return CodiUtils.lookupConfigFromEnvironment(null, Boolean.class,
-                super.isAlwaysKeepMessages());
+        return getConfigSnapshot().alwaysKeepMessages;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isAlwaysUseNavigationHandlerOnSecurityViolation()
+    {
+        return getConfigSnapshot().alwaysUseNavigationHandlerOnSecurityViolation;
+    }
+
+    /**
+     * Resolves all configured values again (e.g. after a change of the underlying config-sources)
+     */
+    public void refreshConfigSnapshot()
+    {
+        CodiUtils.resetConfiguredValueCache();
+        this.configSnapshot = new ConfigSnapshot();
+    }
+
+    private ConfigSnapshot getConfigSnapshot()
+    {
+        ConfigSnapshot currentConfigSnapshot = this.configSnapshot;
+
+        if(currentConfigSnapshot == null)
+        {
+            currentConfigSnapshot = new ConfigSnapshot();
+            this.configSnapshot = currentConfigSnapshot;
+        }
+        return currentConfigSnapshot;
+    }
+
+    private static <T extends Serializable> T lookupConfig(String methodName, Class<T> targetType, T defaultValue)
+    {
+        return CodiUtils.lookupConfigFromEnvironment(
+                CodiUtils.createConfigKey(AlternativeJsfModuleConfig.class, methodName), targetType, defaultValue);
+    }
+
+    /**
+     * Immutable snapshot of the configured values - the keys are derived from the names of the config methods
+     */
+    private class ConfigSnapshot
+    {
+        private final boolean initialRedirectEnabled =
+                lookupConfig("isInitialRedirectEnabled", Boolean.class,
+                        AlternativeJsfModuleConfig.super.isInitialRedirectEnabled());
+
+        private final boolean useViewConfigsAsNavigationCasesEnabled =
+                lookupConfig("isUseViewConfigsAsNavigationCasesEnabled", Boolean.class,
+                        AlternativeJsfModuleConfig.super.isUseViewConfigsAsNavigationCasesEnabled());
+
+        private final boolean invalidValueAwareMessageInterpolatorEnabled =
+                lookupConfig("isInvalidValueAwareMessageInterpolatorEnabled", Boolean.class,
+                        AlternativeJsfModuleConfig.super.isInvalidValueAwareMessageInterpolatorEnabled());
+
+        private final boolean alwaysKeepMessages =
+                lookupConfig("isAlwaysKeepMessages", Boolean.class,
+                        AlternativeJsfModuleConfig.super.isAlwaysKeepMessages());
+
+        private final boolean alwaysUseNavigationHandlerOnSecurityViolation =
+                lookupConfig("isAlwaysUseNavigationHandlerOnSecurityViolation", Boolean.class,
+                        AlternativeJsfModuleConfig.super.isAlwaysUseNavigationHandlerOnSecurityViolation());
     }
 }
@@ -18,10 +18,15 @@
  */
 package org.apache.myfaces.extensions.cdi.jsf.test.alternative.config;
 
+import org.apache.myfaces.extensions.cdi.core.api.config.ConfigEntry;
+import org.apache.myfaces.extensions.cdi.core.impl.util.CodiUtils;
 import org.apache.myfaces.extensions.cdi.jsf.alternative.config.AlternativeJsfModuleConfig;
 import org.apache.myfaces.extensions.cdi.jsf.api.config.JsfModuleConfig;
 import org.testng.annotations.Test;
 
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
 import static org.testng.Assert.assertEquals;
 
 public class JsfModuleConfigTest
@@ -35,5 +40,75 @@ public class JsfModuleConfigTest
         assertEquals(jsfModuleConfig.isInitialRedirectEnabled(), true);
         assertEquals(jsfModuleConfig.isInvalidValueAwareMessageInterpolatorEnabled(), true);
         assertEquals(jsfModuleConfig.isUseViewConfigsAsNavigationCasesEnabled(), true);
+        assertEquals(jsfModuleConfig.isAlwaysUseNavigationHandlerOnSecurityViolation(), false);
+    }
+
+    @Test
+    public void testConfigSnapshotCoversAllConfigEntries() throws Exception
+    {
+        assertConfigEntriesAreResolvedBySnapshot(new AlternativeJsfModuleConfig(), JsfModuleConfig.class);
+    }
+
+    //the snapshot has to resolve every config entry with the key derived from the name of the config method
+    private static void assertConfigEntriesAreResolvedBySnapshot(Object config, Class configType) throws Exception
+    {
+        Class alternativeConfigClass = config.getClass();
+        Method refreshMethod = alternativeConfigClass.getMethod("refreshConfigSnapshot");
+
+        Constructor defaultConfigConstructor = configType.getDeclaredConstructor();
+        defaultConfigConstructor.setAccessible(true);
+        Object defaultConfig = defaultConfigConstructor.newInstance();
+
+        for (Method configMethod : configType.getMethods())
+        {
+            if (!configMethod.isAnnotationPresent(ConfigEntry.class))
+            {
+                continue;
+            }
+
+            String methodName = configMethod.getName();
+
+            assertEquals(alternativeConfigClass.getMethod(methodName).getDeclaringClass(), alternativeConfigClass,
+                    methodName + " isn't overridden");
+
+            Object currentValue = configMethod.invoke(config);
+
+            if (!currentValue.equals(configMethod.invoke(defaultConfig)))
+            {
+                //already changed via a config-source with a higher priority (e.g. myfaces-extcdi.properties)
+                continue;
+            }
+
+            Object changedValue;
+
+            if (currentValue instanceof Boolean)
+            {
+                changedValue = !((Boolean) currentValue);
+            }
+            else if (currentValue instanceof Integer)
+            {
+                changedValue = (Integer) currentValue + 1;
+            }
+            else
+            {
+                throw new IllegalStateException("type of " + methodName + " isn't supported");
+            }
+
+            String key = CodiUtils.createConfigKey(alternativeConfigClass, methodName);
+            System.setProperty(key, changedValue.toString());
+
+            try
+            {
+                refreshMethod.invoke(config);
+                assertEquals(configMethod.invoke(config), changedValue, key);
+            }
+            finally
+            {
+                System.clearProperty(key);
+            }
+
+            refreshMethod.invoke(config);
+            assertEquals(configMethod.invoke(config), currentValue, key);
+        }
     }
 }
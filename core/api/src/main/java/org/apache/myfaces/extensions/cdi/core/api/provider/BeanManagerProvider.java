@@ -31,10 +31,14 @@ import javax.enterprise.inject.spi.Extension;
 import javax.naming.InitialContext;
 import javax.naming.NamingException;
 import java.lang.annotation.Annotation;
+import java.lang.ref.WeakReference;
 import java.util.Arrays;
+import java.util.Collections;
 import java.util.Map;
 import java.util.Set;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * <p>This class provides access to the BeanManager
@@ -54,8 +58,23 @@ public class BeanManagerProvider implements Extension
 
     private static BeanManagerProvider bmp = null;
 
+    //a failed jndi lookup isn't repeated within this period
+    private static final long FAILED_JNDI_LOOKUP_TTL_IN_MS = 10000;
+
+    private static final AtomicLong JNDI_LOOKUP_COUNT = new AtomicLong();
+
     private volatile Map<ClassLoader, BeanManagerHolder> bms = new ConcurrentHashMap<ClassLoader, BeanManagerHolder>();
 
+    private final Map<ClassLoader, Long> failedJndiLookups = new ConcurrentHashMap<ClassLoader, Long>();
+
+    //the final bean-managers per classloader - weak keys, because the fast-path mustn't keep an undeployed
+    //application alive
+    private final Map<ClassLoader, ResolvedBeanManager> resolvedBeanManagers =
+            Collections.synchronizedMap(new WeakHashMap<ClassLoader, ResolvedBeanManager>());
+
+    //front-cache for the classloader which was used last - usually there is just one application
+    private volatile ResolvedBeanManager lastResolvedBeanManager;
+
     /**
      * Returns if the {@link BeanManagerProvider} has been initialized
      * @return true if the bean-manager-provider is ready to be used
@@ -98,12 +117,37 @@ public class BeanManagerProvider implements Extension
     {
         ClassLoader classLoader = ClassUtils.getClassLoader(null);
 
+        ResolvedBeanManager resolvedBeanManager = this.lastResolvedBeanManager;
+
+        if (resolvedBeanManager != null)
+        {
+            BeanManager cachedBeanManager = resolvedBeanManager.getBeanManager(classLoader);
+
+            if (cachedBeanManager != null)
+            {
+                return cachedBeanManager;
+            }
+        }
+
+        resolvedBeanManager = this.resolvedBeanManagers.get(classLoader);
+
+        if (resolvedBeanManager != null)
+        {
+            BeanManager cachedBeanManager = resolvedBeanManager.getBeanManager(classLoader);
+
+            if (cachedBeanManager != null)
+            {
+                this.lastResolvedBeanManager = resolvedBeanManager;
+                return cachedBeanManager;
+            }
+        }
+
         BeanManagerHolder resultHolder = bms.get(classLoader);
         BeanManager result;
 
         if (resultHolder == null)
         {
-            result = resolveBeanManagerViaJndi();
+            result = resolveBeanManagerViaJndi(classLoader);
 
             if(result != null)
             {
@@ -116,7 +160,8 @@ public class BeanManagerProvider implements Extension
 
             if (!(resultHolder instanceof RootBeanManagerHolder))
             {
-                BeanManager jndiBeanManager = resolveBeanManagerViaJndi();
+                //the root/jndi decision is done once - afterwards the holder is a RootBeanManagerHolder
+                BeanManager jndiBeanManager = resolveBeanManagerViaJndi(classLoader);
 
                 if (jndiBeanManager != null && /*same instance check:*/jndiBeanManager != result)
                 {
@@ -137,9 +182,24 @@ public class BeanManagerProvider implements Extension
                     "Please ensure that you configured the CDI implementation of your choice properly.");
         }
 
+        if (bms.get(classLoader) instanceof RootBeanManagerHolder)
+        {
+            resolvedBeanManager = new ResolvedBeanManager(classLoader, result);
+            this.resolvedBeanManagers.put(classLoader, resolvedBeanManager);
+            this.lastResolvedBeanManager = resolvedBeanManager;
+        }
         return result;
     }
 
+    /**
+     * Number of lookups of the {@link BeanManager} via JNDI (a diagnostic metric)
+     * @return number of jndi lookups since the start of the application server
+     */
+    public static long getJndiLookupCount()
+    {
+        return JNDI_LOOKUP_COUNT.get();
+    }
+
     /**
      * <p></p>Get a Contextual Reference by it's type and annotation.
      * You can use this method to get contextual references of a given type.
@@ -228,6 +288,8 @@ public class BeanManagerProvider implements Extension
      */
     BeanManager resolveBeanManagerViaJndi()
     {
+        JNDI_LOOKUP_COUNT.incrementAndGet();
+
         try
         {
             return (BeanManager) new InitialContext().lookup("java:comp/BeanManager");
@@ -239,6 +301,29 @@ public class BeanManagerProvider implements Extension
         }
     }
 
+    private BeanManager resolveBeanManagerViaJndi(ClassLoader classLoader)
+    {
+        Long failedLookupTimestamp = this.failedJndiLookups.get(classLoader);
+
+        if (failedLookupTimestamp != null &&
+                System.currentTimeMillis() - failedLookupTimestamp < FAILED_JNDI_LOOKUP_TTL_IN_MS)
+        {
+            return null;
+        }
+
+        BeanManager result = resolveBeanManagerViaJndi();
+
+        if (result == null)
+        {
+            this.failedJndiLookups.put(classLoader, System.currentTimeMillis());
+        }
+        else if (failedLookupTimestamp != null)
+        {
+            this.failedJndiLookups.remove(classLoader);
+        }
+        return result;
+    }
+
     /**
      * It basiscally doesn't matter which of the system events we use,
      * but basically we
@@ -261,6 +346,8 @@ public class BeanManagerProvider implements Extension
 
         ClassLoader cl = ClassUtils.getClassLoader(null);
 
+        bmpFirst.resetCachedBeanManager(cl);
+
         if (beanManagerHolder instanceof RootBeanManagerHolder ||
                 //the lat bm wins - as before, but don't replace a root-bmh with a normal bmh
                 (!(bmpFirst.bms.get(cl) instanceof RootBeanManagerHolder)))
@@ -283,7 +370,26 @@ public class BeanManagerProvider implements Extension
      */
     public void cleanupStoredBeanManagerOnShutdown(@Observes BeforeShutdown beforeShutdown)
     {
-        bms.remove(ClassUtils.getClassLoader(null));
+        ClassLoader classLoader = ClassUtils.getClassLoader(null);
+
+        bms.remove(classLoader);
+        resetCachedBeanManager(classLoader);
+
+        //the bean-managers are stored in the first provider
+        BeanManagerProvider bmpFirst = bmp;
+
+        if (bmpFirst != null && bmpFirst != this)
+        {
+            bmpFirst.bms.remove(classLoader);
+            bmpFirst.resetCachedBeanManager(classLoader);
+        }
+    }
+
+    private void resetCachedBeanManager(ClassLoader classLoader)
+    {
+        this.lastResolvedBeanManager = null;
+        this.resolvedBeanManagers.remove(classLoader);
+        this.failedJndiLookups.remove(classLoader);
     }
 
     /**
@@ -311,4 +417,26 @@ public class BeanManagerProvider implements Extension
     {
         testMode = true;
     }
+
+    //weak references - the cached entries mustn't keep an undeployed application alive
+    private static class ResolvedBeanManager
+    {
+        private final WeakReference<ClassLoader> classLoaderReference;
+        private final WeakReference<BeanManager> beanManagerReference;
+
+        private ResolvedBeanManager(ClassLoader classLoader, BeanManager beanManager)
+        {
+            this.classLoaderReference = new WeakReference<ClassLoader>(classLoader);
+            this.beanManagerReference = new WeakReference<BeanManager>(beanManager);
+        }
+
+        private BeanManager getBeanManager(ClassLoader classLoader)
+        {
+            if (this.classLoaderReference.get() != classLoader)
+            {
+                return null;
+            }
+            return this.beanManagerReference.get();
+        }
+    }
 }
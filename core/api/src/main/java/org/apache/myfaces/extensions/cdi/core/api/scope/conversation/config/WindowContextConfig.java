@@ -134,6 +134,20 @@ public class WindowContextConfig extends AbstractAttributeAware implements CodiC
         return true;
     }
 
+    /**
+     * Allows to activate the cleanup of expired window-contexts and timed out conversations of all windows
+     * of the session at the end of a request. Without it they are only removed lazily if the window gets
+     * used again (or as soon as the session gets destroyed).
+     * There is no background thread, because closing a window-context needs the contexts of a request.
+     *
+     * @return minimum period between two cleanups in seconds - values less than or equal to zero deactivate it
+     */
+    @ConfigEntry
+    public int getWindowContextCleanupPeriodInSeconds()
+    {
+        return 0;
+    }
+
     /*
      * event config
      */
@@ -21,8 +21,9 @@ package org.apache.myfaces.extensions.cdi.core.api.util;
 import javax.enterprise.inject.Typed;
 import java.io.IOException;
 import java.io.InputStream;
-import java.util.ArrayList;
 import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
@@ -41,8 +42,8 @@ public abstract class ConfigUtils
 
     private static final String FILE_NAME = "myfaces-extcdi";
 
-    private static Map<ClassLoader, Map<String, String>> propertyCache =
-            new ConcurrentHashMap<ClassLoader, Map<String, String>>();
+    private static Map<ClassLoader, ConfigSnapshot> configSnapshots =
+            new ConcurrentHashMap<ClassLoader, ConfigSnapshot>();
 
 
     private ConfigUtils()
@@ -51,39 +52,133 @@ public abstract class ConfigUtils
 
     public static List<String> getConfiguredValue(String key)
     {
-        List<String> result = new ArrayList<String>();
-        Map<String, String> cache = getPropertyCache();
+        String configuredValue = getConfigSnapshot().getConfiguredValue(key);
 
-        String configKey = key;
-
-        int endOfPrefixIndex = key.indexOf(".");
-        if(endOfPrefixIndex > -1)
+        if(configuredValue == null)
         {
-            configKey = key.substring(endOfPrefixIndex + 1);
+            return Collections.emptyList();
         }
-        else
+        return Collections.singletonList(configuredValue);
+    }
+
+    /**
+     * Drops the config snapshot of the current application.
+     * The property files get read again during the next lookup.
+     */
+    public static void reloadConfiguration()
+    {
+        configSnapshots.remove(ClassUtils.getClassLoader(null));
+    }
+
+    private static ConfigSnapshot getConfigSnapshot()
+    {
+        ClassLoader classLoader = ClassUtils.getClassLoader(null);
+        ConfigSnapshot configSnapshot = configSnapshots.get(classLoader);
+
+        if(configSnapshot == null)
         {
-            endOfPrefixIndex = 0;
+            configSnapshot = new ConfigSnapshot(classLoader);
+            configSnapshots.put(classLoader, configSnapshot);
         }
+        return configSnapshot;
+    }
 
-        String configuredValue = cache.get(key);
+    /**
+     * Load properties from a configuration file with the given resourceName.
+     *
+     * @param resourceName name of the resource
+     * @return Properties or <code>null</code> if the given property file doesn't exist
+     */
+    //TODO
+    public static Properties getProperties(String resourceName)
+    {
+        Properties properties = null;
+        ClassLoader classLoader = ClassUtils.getClassLoader(resourceName);
+        InputStream inputStream = classLoader.getResourceAsStream(resourceName);
 
-        if(configuredValue == null)
+        //fallback - see EXTCDI-268
+        if (inputStream == null)
         {
-            configuredValue = cache.get(configKey);
+            inputStream = ClassUtils.class.getClassLoader().getResourceAsStream(resourceName);
         }
 
-        if("".equals(configuredValue))
+        if (inputStream != null)
         {
-            return Collections.emptyList();
+            properties = new Properties();
+            try
+            {
+                properties.load(inputStream);
+            }
+            catch (IOException e)
+            {
+                return null;
+            }
         }
 
-        if(configuredValue != null)
+        return properties;
+    }
+
+    /**
+     * Content of the config files of an application. Every file gets read once and
+     * every resolved key (also unknown keys) is stored.
+     */
+    private static class ConfigSnapshot
+    {
+        //marker for keys without value
+        private static final String NO_VALUE = "";
+
+        private static final Map<String, String> MISSING_BUNDLE = Collections.unmodifiableMap(
+                new HashMap<String, String>());
+
+        private final ClassLoader classLoader;
+
+        private final Map<String, String> resolvedValues = new ConcurrentHashMap<String, String>();
+
+        private final Map<String, Map<String, String>> bundles = new ConcurrentHashMap<String, Map<String, String>>();
+
+        private volatile Map<String, String> defaultProperties;
+
+        private ConfigSnapshot(ClassLoader classLoader)
         {
-            result.add(configuredValue);
+            this.classLoader = classLoader;
         }
-        else
+
+        private String getConfiguredValue(String key)
         {
+            String configuredValue = this.resolvedValues.get(key);
+
+            if(configuredValue == null)
+            {
+                configuredValue = resolveConfiguredValue(key);
+
+                if(configuredValue == null)
+                {
+                    configuredValue = NO_VALUE;
+                }
+                this.resolvedValues.put(key, configuredValue);
+            }
+
+            if(NO_VALUE.equals(configuredValue))
+            {
+                return null;
+            }
+            return configuredValue;
+        }
+
+        private String resolveConfiguredValue(String key)
+        {
+            String configKey = key;
+
+            int endOfPrefixIndex = key.indexOf(".");
+            if(endOfPrefixIndex > -1)
+            {
+                configKey = key.substring(endOfPrefixIndex + 1);
+            }
+            else
+            {
+                endOfPrefixIndex = 0;
+            }
+
             String bundleName;
 
             //TODO
@@ -97,136 +192,104 @@ public abstract class ConfigUtils
                 bundleName = BASE_NAME + key.substring(0, endOfPrefixIndex);
             }
 
-            ResourceBundle resourceBundle;
+            Map<String, String> bundleValues = getBundle(bundleName, true);
 
-            try
+            if(bundleValues == MISSING_BUNDLE)
             {
-                try
-                {
-                    resourceBundle = ResourceBundle
-                            .getBundle(bundleName, Locale.getDefault(), ClassUtils.getClassLoader(null));
-                }
-                //fallback - see EXTCDI-268
-                catch (MissingResourceException e)
+                bundleValues = getBundle(FILE_NAME, false);
+            }
+
+            String configuredValue = bundleValues.get(configKey);
+
+            if(configuredValue == null)
+            {
+                configuredValue = getDefaultProperties().get(configKey);
+            }
+            return configuredValue;
+        }
+
+        private Map<String, String> getBundle(String bundleName, boolean useApplicationClassLoader)
+        {
+            Map<String, String> bundleValues = this.bundles.get(bundleName);
+
+            if(bundleValues == null)
+            {
+                ResourceBundle resourceBundle = null;
+
+                if(useApplicationClassLoader)
                 {
-                    try
-                    {
-                        resourceBundle = ResourceBundle
-                                .getBundle(bundleName, Locale.getDefault(), ConfigUtils.class.getClassLoader());
-                    }
-                    catch (MissingResourceException e2)
-                    {
-                        resourceBundle = null;
-                    }
+                    resourceBundle = loadBundle(bundleName, this.classLoader);
                 }
 
-                if (resourceBundle == null)
+                //fallback - see EXTCDI-268
+                if(resourceBundle == null)
                 {
-                    try
-                    {
-                        resourceBundle = ResourceBundle.getBundle(FILE_NAME);
-                    }
-                    //fallback - see EXTCDI-268
-                    catch (MissingResourceException e2)
-                    {
-                        try
-                        {
-                            resourceBundle = ResourceBundle
-                                    .getBundle(FILE_NAME, Locale.getDefault(), ConfigUtils.class.getClassLoader());
-                        }
-                        catch (MissingResourceException e3)
-                        {
-                            resourceBundle = null;
-                        }
-                    }
+                    resourceBundle = loadBundle(bundleName, ConfigUtils.class.getClassLoader());
                 }
 
-                if (resourceBundle != null)
+                if(resourceBundle == null)
                 {
-                    try
-                    {
-                        configuredValue = resourceBundle.getString(configKey);
-                        result.add(configuredValue);
-                        cache.put(configKey, configuredValue);
-                    }
-                    catch (MissingResourceException e)
-                    {
-                        resourceBundle = null;
-                    }
+                    bundleValues = MISSING_BUNDLE;
                 }
-
-                if (resourceBundle == null)
+                else
                 {
-                    Properties properties = getProperties("META-INF/" + FILE_NAME + ".properties");
+                    bundleValues = new HashMap<String, String>();
 
-                    if (properties != null)
+                    Enumeration<String> keys = resourceBundle.getKeys();
+                    String currentKey;
+                    Object currentValue;
+                    while(keys.hasMoreElements())
                     {
-                        configuredValue = properties.getProperty(configKey);
-                        result.add(configuredValue);
-                        cache.put(configKey, configuredValue);
-                    }
-                }
+                        currentKey = keys.nextElement();
+                        currentValue = resourceBundle.getObject(currentKey);
 
-                if (configuredValue == null)
-                {
-                    cache.put(configKey, "");
-                    return Collections.emptyList();
+                        if(currentValue instanceof String)
+                        {
+                            bundleValues.put(currentKey, (String)currentValue);
+                        }
+                    }
+                    bundleValues = Collections.unmodifiableMap(bundleValues);
                 }
+                this.bundles.put(bundleName, bundleValues);
             }
-            catch (Exception e)
-            {
-                cache.put(configKey, "");
-                return Collections.emptyList();
-            }
-        }
-        return result;
-    }
-
-    private static Map<String, String> getPropertyCache()
-    {
-        ClassLoader classLoader = ClassUtils.getClassLoader(null);
-        Map<String, String> cache = propertyCache.get(classLoader);
-
-        if(cache == null)
-        {
-            cache = new ConcurrentHashMap<String, String>();
-            propertyCache.put(classLoader, cache);
+            return bundleValues;
         }
-        return cache;
-    }
-
-    /**
-     * Load properties from a configuration file with the given resourceName.
-     *
-     * @param resourceName name of the resource
-     * @return Properties or <code>null</code> if the given property file doesn't exist
-     */
-    //TODO
-    public static Properties getProperties(String resourceName)
-    {
-        Properties properties = null;
-        ClassLoader classLoader = ClassUtils.getClassLoader(resourceName);
-        InputStream inputStream = classLoader.getResourceAsStream(resourceName);
 
-        //fallback - see EXTCDI-268
-        if (inputStream == null)
+        private ResourceBundle loadBundle(String bundleName, ClassLoader classLoader)
         {
-            inputStream = ClassUtils.class.getClassLoader().getResourceAsStream(resourceName);
-        }
-
-        if (inputStream != null)
-        {
-            properties = new Properties();
             try
             {
-                properties.load(inputStream);
+                return ResourceBundle.getBundle(bundleName, Locale.getDefault(), classLoader);
             }
-            catch (IOException e)
+            catch (MissingResourceException e)
             {
                 return null;
             }
         }
 
-        return properties;
+        private Map<String, String> getDefaultProperties()
+        {
+            Map<String, String> result = this.defaultProperties;
+
+            if(result == null)
+            {
+                result = new HashMap<String, String>();
+                Properties properties = getProperties("META-INF/" + FILE_NAME + ".properties");
+
+                if(properties != null)
+                {
+                    Enumeration<?> propertyNames = properties.propertyNames();
+                    String currentPropertyName;
+                    while(propertyNames.hasMoreElements())
+                    {
+                        currentPropertyName = (String)propertyNames.nextElement();
+                        result.put(currentPropertyName, properties.getProperty(currentPropertyName));
+                    }
+                }
+                result = Collections.unmodifiableMap(result);
+                this.defaultProperties = result;
+            }
+            return result;
+        }
     }
 }
@@ -0,0 +1,76 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.core.impl.logging;
+
+/**
+ * Defines how {@link DefaultLogger} resolves the source method of log records which are created via the
+ * convenience methods (e.g. {@link DefaultLogger#info(String)}).
+ * The default mode can be changed via the system property {@link #SYSTEM_PROPERTY_KEY}.
+ */
+public enum CallerInferenceMode
+{
+    /**
+     * The source method isn't resolved at all
+     */
+    OFF,
+
+    /**
+     * The source method is only resolved if a handler or formatter requests it.
+     * It has to be enabled explicitly, because the caller can't be resolved any longer if a handler processes the
+     * record later on (e.g. asynchronously) or within a different call-stack.
+     */
+    LAZY,
+
+    /**
+     * The source method is resolved for every enabled log call
+     * (that's the default and it was the only mode supported by previous versions)
+     */
+    STACK_TRACE;
+
+    public static final String SYSTEM_PROPERTY_KEY = CallerInferenceMode.class.getName();
+
+    private static final CallerInferenceMode DEFAULT_MODE = resolveDefaultMode();
+
+    /**
+     * Mode which is used if no mode was set explicitly
+     * @return configured mode or {@link #STACK_TRACE} if there is no (valid) configured mode
+     */
+    public static CallerInferenceMode getDefaultMode()
+    {
+        return DEFAULT_MODE;
+    }
+
+    private static CallerInferenceMode resolveDefaultMode()
+    {
+        String configuredMode = System.getProperty(SYSTEM_PROPERTY_KEY);
+
+        if(configuredMode != null)
+        {
+            try
+            {
+                return valueOf(configuredMode.trim().toUpperCase());
+            }
+            catch (IllegalArgumentException e)
+            {
+                //use the default
+            }
+        }
+        return STACK_TRACE;
+    }
+}
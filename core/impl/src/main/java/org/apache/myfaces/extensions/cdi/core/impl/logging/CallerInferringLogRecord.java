@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.core.impl.logging;
+
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+/**
+ * {@link LogRecord} which resolves the source method as soon as it gets requested the first time.
+ * Handlers which don't format the source method (or which don't publish the record at all)
+ * don't cause the overhead of inspecting the current stack.
+ */
+class CallerInferringLogRecord extends LogRecord
+{
+    private static final long serialVersionUID = -3316291316787462346L;
+
+    private final transient String loggerClassName;
+    private boolean sourceMethodNameResolved;
+
+    CallerInferringLogRecord(Level level, String message, String loggerClassName)
+    {
+        super(level, message);
+        this.loggerClassName = loggerClassName;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public String getSourceMethodName()
+    {
+        if(!this.sourceMethodNameResolved)
+        {
+            this.sourceMethodNameResolved = true;
+
+            //only works as long as the record gets published in the thread which created it
+            //(that's the case for the handlers provided by the jdk)
+            super.setSourceMethodName(DefaultLogger.findCallerMethodName(this.loggerClassName));
+        }
+        return super.getSourceMethodName();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setSourceMethodName(String sourceMethodName)
+    {
+        this.sourceMethodNameResolved = true;
+        super.setSourceMethodName(sourceMethodName);
+    }
+
+    private Object writeReplace()
+    {
+        //resolve it before the stack of the log call is gone
+        getSourceMethodName();
+        return this;
+    }
+}
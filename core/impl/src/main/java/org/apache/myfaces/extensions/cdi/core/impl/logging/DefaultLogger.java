@@ -41,6 +41,9 @@ public class DefaultLogger implements Logger
     private String resourceBundleName; //TODO add support at the injection point
     private boolean anonymous = false;
 
+    //null for instances which were serialized by previous versions
+    private CallerInferenceMode callerInferenceMode;
+
     protected DefaultLogger()
     {
         this.anonymous = true;
@@ -68,6 +71,28 @@ public class DefaultLogger implements Logger
         }
     }
 
+    /**
+     * Mode which is used for resolving the source method of log calls which don't provide it explicitly
+     * @return the mode set via {@link #setCallerInferenceMode} or {@link CallerInferenceMode#getDefaultMode()}
+     */
+    public CallerInferenceMode getCallerInferenceMode()
+    {
+        if(this.callerInferenceMode == null)
+        {
+            return CallerInferenceMode.getDefaultMode();
+        }
+        return this.callerInferenceMode;
+    }
+
+    /**
+     * Changes the mode for resolving the source method of log calls which don't provide it explicitly
+     * @param callerInferenceMode new mode or null for using the default mode
+     */
+    public void setCallerInferenceMode(CallerInferenceMode callerInferenceMode)
+    {
+        this.callerInferenceMode = callerInferenceMode;
+    }
+
     boolean isValid()
     {
         return !(!this.anonymous && this.loggerName == null && this.resourceBundleName == null);
@@ -134,7 +159,7 @@ public class DefaultLogger implements Logger
         {
             return;
         }
-        getWrapped().logp(level, this.loggerName, getMethodName(), s);
+        logInferringCaller(level, s, null, null);
     }
 
     /**
@@ -146,7 +171,7 @@ public class DefaultLogger implements Logger
         {
             return;
         }
-        getWrapped().logp(level, this.loggerName, getMethodName(), s, o);
+        logInferringCaller(level, s, new Object[] {o}, null);
     }
 
     /**
@@ -158,7 +183,7 @@ public class DefaultLogger implements Logger
         {
             return;
         }
-        getWrapped().logp(level, this.loggerName, getMethodName(), s, objects);
+        logInferringCaller(level, s, objects, null);
     }
 
     /**
@@ -170,7 +195,7 @@ public class DefaultLogger implements Logger
         {
             return;
         }
-        getWrapped().logp(level, this.loggerName, getMethodName(), s, throwable);
+        logInferringCaller(level, s, null, throwable);
     }
 
     /**
@@ -294,7 +319,7 @@ public class DefaultLogger implements Logger
         {
             return;
         }
-        getWrapped().logp(Level.SEVERE, this.loggerName, getMethodName(), s);
+        logInferringCaller(Level.SEVERE, s, null, null);
     }
 
     /**
@@ -306,7 +331,7 @@ public class DefaultLogger implements Logger
         {
             return;
         }
-        getWrapped().logp(Level.WARNING, this.loggerName, getMethodName(), s);
+        logInferringCaller(Level.WARNING, s, null, null);
     }
 
     /**
@@ -318,7 +343,7 @@ public class DefaultLogger implements Logger
         {
             return;
         }
-        getWrapped().logp(Level.INFO, this.loggerName, getMethodName(), s);
+        logInferringCaller(Level.INFO, s, null, null);
     }
 
     /**
@@ -338,7 +363,7 @@ public class DefaultLogger implements Logger
         {
             return;
         }
-        getWrapped().logp(Level.FINE, this.loggerName, getMethodName(), s);
+        logInferringCaller(Level.FINE, s, null, null);
     }
 
     /**
@@ -350,7 +375,7 @@ public class DefaultLogger implements Logger
         {
             return;
         }
-        getWrapped().logp(Level.FINER, this.loggerName, getMethodName(), s);
+        logInferringCaller(Level.FINER, s, null, null);
     }
 
     /**
@@ -362,7 +387,7 @@ public class DefaultLogger implements Logger
         {
             return;
         }
-        getWrapped().logp(Level.FINEST, this.loggerName, getMethodName(), s);
+        logInferringCaller(Level.FINEST, s, null, null);
     }
 
     /**
@@ -458,7 +483,7 @@ public class DefaultLogger implements Logger
      */
     public Factory getFactory()
     {
-        return new DefaultLoggerFactory();
+        return new DefaultLoggerFactory(this.callerInferenceMode);
     }
 
     private void lazyInitLogger()
@@ -487,16 +512,86 @@ public class DefaultLogger implements Logger
         }
     }
 
-    private String getMethodName()
+    private void logInferringCaller(Level level, String message, Object[] parameters, Throwable throwable)
+    {
+        CallerInferenceMode currentMode = getCallerInferenceMode();
+
+        if(CallerInferenceMode.LAZY.equals(currentMode))
+        {
+            LogRecord logRecord = new CallerInferringLogRecord(level, message, getClass().getName());
+
+            logRecord.setSourceClassName(this.loggerName);
+            logRecord.setParameters(parameters);
+            logRecord.setThrown(throwable);
+            logRecord.setLoggerName(getWrapped().getName());
+            addResourceBundle(logRecord);
+
+            getWrapped().log(logRecord);
+            return;
+        }
+
+        String sourceMethodName = null;
+
+        if(CallerInferenceMode.STACK_TRACE.equals(currentMode))
+        {
+            sourceMethodName = findCallerMethodName(getClass().getName());
+        }
+
+        if(throwable != null)
+        {
+            getWrapped().logp(level, this.loggerName, sourceMethodName, message, throwable);
+        }
+        else
+        {
+            getWrapped().logp(level, this.loggerName, sourceMethodName, message, parameters);
+        }
+    }
+
+    //java.util.logging.Logger#logp uses the resource-bundle of the first logger (in the hierarchy) which provides one
+    private void addResourceBundle(LogRecord logRecord)
+    {
+        java.util.logging.Logger currentLogger = getWrapped();
+
+        while(currentLogger != null)
+        {
+            if(currentLogger.getResourceBundleName() != null)
+            {
+                logRecord.setResourceBundleName(currentLogger.getResourceBundleName());
+                logRecord.setResourceBundle(currentLogger.getResourceBundle());
+                return;
+            }
+            currentLogger = currentLogger.getParent();
+        }
+    }
+
+    /**
+     * Resolves the name of the method which called the logger.
+     * The whole stack-trace gets created - a walk which stops at the caller would need java.lang.StackWalker
+     * which isn't available with the java version supported by CODI. Therefore the cost can only be avoided
+     * via {@link CallerInferenceMode#LAZY} or {@link CallerInferenceMode#OFF}.
+     * @param loggerClassName class-name of the logger (in case of a sub-class of {@link DefaultLogger})
+     * @return name of the calling method or an empty string if it can't be found
+     */
+    static String findCallerMethodName(String loggerClassName)
     {
         @SuppressWarnings({"ThrowableInstanceNeverThrown"})
         RuntimeException runtimeException = new RuntimeException();
 
         StackTraceElement[] stackTrace = runtimeException.getStackTrace();
 
-        for(int i = 2; i < stackTrace.length - 1; i++)
+        boolean loggerFrameFound = false;
+        String className;
+
+        //the first frame is this method
+        for(int i = 1; i < stackTrace.length; i++)
         {
-            if(!stackTrace[i].getClassName().equals(getClass().getName()))
+            className = stackTrace[i].getClassName();
+
+            if(className.equals(loggerClassName) || className.equals(DefaultLogger.class.getName()))
+            {
+                loggerFrameFound = true;
+            }
+            else if(loggerFrameFound)
             {
                 return stackTrace[i].getMethodName();
             }
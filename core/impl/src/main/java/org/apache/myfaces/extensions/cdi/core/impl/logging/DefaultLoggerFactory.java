@@ -30,12 +30,19 @@ class DefaultLoggerFactory implements Logger.Factory
 {
     private static final long serialVersionUID = -4149574697548186019L;
 
+    private final CallerInferenceMode callerInferenceMode;
+
+    DefaultLoggerFactory(CallerInferenceMode callerInferenceMode)
+    {
+        this.callerInferenceMode = callerInferenceMode;
+    }
+
     /**
      * {@inheritDoc}
      */
     public Logger getLogger(String s)
     {
-        return new DefaultLogger(s);
+        return configure(new DefaultLogger(s));
     }
 
     /**
@@ -43,7 +50,7 @@ class DefaultLoggerFactory implements Logger.Factory
      */
     public Logger getLogger(String s, String s1)
     {
-        return new DefaultLogger(s, s1, false);
+        return configure(new DefaultLogger(s, s1, false));
     }
 
     /**
@@ -51,7 +58,7 @@ class DefaultLoggerFactory implements Logger.Factory
      */
     public Logger getAnonymousLogger()
     {
-        return new DefaultLogger();
+        return configure(new DefaultLogger());
     }
 
     /**
@@ -59,6 +66,12 @@ class DefaultLoggerFactory implements Logger.Factory
      */
     public Logger getAnonymousLogger(String s)
     {
-        return new DefaultLogger(null, s, true);
+        return configure(new DefaultLogger(null, s, true));
+    }
+
+    private DefaultLogger configure(DefaultLogger logger)
+    {
+        logger.setCallerInferenceMode(this.callerInferenceMode);
+        return logger;
     }
 }
@@ -25,6 +25,7 @@ import org.apache.myfaces.extensions.cdi.core.api.resource.bundle.BundleValue;
 import org.apache.myfaces.extensions.cdi.core.api.resource.bundle.ResourceBundle;
 import org.apache.myfaces.extensions.cdi.core.api.util.ConfigUtils;
 import org.apache.myfaces.extensions.cdi.core.impl.projectstage.ProjectStageProducer;
+import org.apache.myfaces.extensions.cdi.core.impl.util.ResourceBundleUtils;
 import org.apache.myfaces.extensions.cdi.core.impl.util.StringUtils;
 
 import javax.enterprise.inject.Typed;
@@ -32,8 +33,9 @@ import javax.inject.Named;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Locale;
-import java.util.MissingResourceException;
+import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -45,6 +47,10 @@ class DefaultResourceBundle implements ResourceBundle
 {
     private static final long serialVersionUID = 117890966460274247L;
 
+    //the key-classes are resolved once - they don't change at runtime (the cache is removed before the shutdown)
+    private static Map<Class<? extends BundleKey>, ResolvedBundleKey> resolvedBundleKeys =
+            new ConcurrentHashMap<Class<? extends BundleKey>, ResolvedBundleKey>();
+
     private String bundleName;
     private Locale locale;
 
@@ -92,62 +98,16 @@ class DefaultResourceBundle implements ResourceBundle
      */
     public String getValue(Class<? extends BundleKey> key)
     {
-        //in case of an inner class
-        if("".equals(key.getSimpleName()) && BundleKey.class.isAssignableFrom(key.getSuperclass()))
-        {
-            key = (Class<? extends BundleKey>) key.getSuperclass();
-        }
-
-        Named named = key.getAnnotation(Named.class);
-
-        String resourceKey = null;
+        ResolvedBundleKey resolvedBundleKey = resolvedBundleKeys.get(key);
 
-        if(named != null)
+        if(resolvedBundleKey == null)
         {
-            resourceKey = named.value();
+            resolvedBundleKey = resolveBundleKey(key);
+            resolvedBundleKeys.put(key, resolvedBundleKey);
         }
 
-        if(resourceKey == null)
-        {
-            resourceKey = StringUtils.replaceUpperCaseCharactersWithUnderscores(
-                    key.getSimpleName().substring(0, 1).toLowerCase() + key.getSimpleName().substring(1));
-        }
-
-        Class<?> bundleClass = key.getSuperclass();
-        if(this.bundleName == null &&
-                !Object.class.getName().equals(bundleClass.getName()) &&
-                !BundleValue.class.isAssignableFrom(bundleClass))
-        {
-            useBundle(bundleClass);
-        }
-        else
-        {
-            List<Class> bundleClassCandidates = new ArrayList<Class>();
-
-            for(Class interfaceClass : key.getInterfaces())
-            {
-                if(interfaceClass.isAnnotationPresent(Bundle.class))
-                {
-                    useBundle(interfaceClass);
-                    break;
-                }
-                if(!BundleKey.class.isAssignableFrom(interfaceClass))
-                {
-                    bundleClassCandidates.add(interfaceClass);
-                }
-            }
-
-            if(this.bundleName == null && bundleClassCandidates.size() == 1)
-            {
-                useBundle(bundleClassCandidates.iterator().next());
-            }
-            else if(this.bundleName == null && bundleClassCandidates.size() > 1)
-            {
-                throw new IllegalStateException(key.getName() + " implements multiple custom interfaces and " +
-                        "non of them is annotated with @" + Bundle.class);
-            }
-        }
-        return getValue(resourceKey);
+        this.bundleName = resolvedBundleKey.getBundleName(this.bundleName);
+        return getValue(resolvedBundleKey.resourceKey);
     }
 
     /**
@@ -189,13 +149,124 @@ class DefaultResourceBundle implements ResourceBundle
             }
             return properties.getProperty(key);
         }
-        try
+        return ResourceBundleUtils.getValue(this.bundleName, this.locale, key);
+    }
+
+    /**
+     * Resets the resolved bundle-keys - the key-classes of all applications get resolved again on demand
+     */
+    static void reset()
+    {
+        resolvedBundleKeys.clear();
+    }
+
+    private static ResolvedBundleKey resolveBundleKey(Class<? extends BundleKey> key)
+    {
+        //in case of an inner class
+        if("".equals(key.getSimpleName()) && BundleKey.class.isAssignableFrom(key.getSuperclass()))
         {
-            return java.util.ResourceBundle.getBundle(this.bundleName, this.locale).getString(key);
+            key = (Class<? extends BundleKey>) key.getSuperclass();
         }
-        catch (MissingResourceException e)
+
+        Named named = key.getAnnotation(Named.class);
+
+        String resourceKey = null;
+
+        if(named != null)
         {
-            return null;
+            resourceKey = named.value();
+        }
+
+        if(resourceKey == null)
+        {
+            resourceKey = StringUtils.replaceUpperCaseCharactersWithUnderscores(
+                    key.getSimpleName().substring(0, 1).toLowerCase() + key.getSimpleName().substring(1));
+        }
+
+        ResolvedBundleKey result = new ResolvedBundleKey(resourceKey);
+
+        Class<?> bundleClass = key.getSuperclass();
+        if(!Object.class.getName().equals(bundleClass.getName()) &&
+                !BundleValue.class.isAssignableFrom(bundleClass))
+        {
+            result.superClassBundleName = createBundleName(bundleClass);
+        }
+
+        List<Class> bundleClassCandidates = new ArrayList<Class>();
+
+        for(Class interfaceClass : key.getInterfaces())
+        {
+            if(interfaceClass.isAnnotationPresent(Bundle.class))
+            {
+                result.interfaceBundleName = createBundleName(interfaceClass);
+                return result;
+            }
+            if(!BundleKey.class.isAssignableFrom(interfaceClass))
+            {
+                bundleClassCandidates.add(interfaceClass);
+            }
+        }
+
+        if(bundleClassCandidates.size() == 1)
+        {
+            result.candidateBundleName = createBundleName(bundleClassCandidates.iterator().next());
+        }
+        else if(bundleClassCandidates.size() > 1)
+        {
+            result.ambiguousBundleKey = key.getName();
+        }
+        return result;
+    }
+
+    private static String createBundleName(Class<?> bundleClass)
+    {
+        DefaultResourceBundle resourceBundle = new DefaultResourceBundle();
+        resourceBundle.useBundle(bundleClass);
+        return resourceBundle.bundleName;
+    }
+
+    /**
+     * Result of the (reflection based) analysis of a {@link BundleKey} - the bundle of the key can't be cached
+     * directly, because it depends on the bundle which is (optionally) configured for the current
+     * {@link ResourceBundle}
+     */
+    private static class ResolvedBundleKey
+    {
+        private final String resourceKey;
+
+        private String superClassBundleName;
+        private String interfaceBundleName;
+        private String candidateBundleName;
+        private String ambiguousBundleKey;
+
+        private ResolvedBundleKey(String resourceKey)
+        {
+            this.resourceKey = resourceKey;
+        }
+
+        private String getBundleName(String currentBundleName)
+        {
+            if(currentBundleName == null && this.superClassBundleName != null)
+            {
+                return this.superClassBundleName;
+            }
+
+            //the bundle of an annotated interface overrides the current bundle
+            if(this.interfaceBundleName != null)
+            {
+                return this.interfaceBundleName;
+            }
+
+            if(currentBundleName == null && this.candidateBundleName != null)
+            {
+                return this.candidateBundleName;
+            }
+            else if(currentBundleName == null && this.ambiguousBundleKey != null)
+            {
+                throw new IllegalStateException(this.ambiguousBundleKey + " implements multiple custom interfaces " +
+                        "and non of them is annotated with @" + Bundle.class);
+            }
+            return currentBundleName;
         }
     }
 }
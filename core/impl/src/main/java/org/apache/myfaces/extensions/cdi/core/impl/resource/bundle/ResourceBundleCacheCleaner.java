@@ -0,0 +1,37 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.core.impl.resource.bundle;
+
+import org.apache.myfaces.extensions.cdi.core.impl.util.ResourceBundleUtils;
+
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.BeforeShutdown;
+import javax.enterprise.inject.spi.Extension;
+
+/**
+ * Removes the resolved bundles and bundle-keys of the current application before the shutdown of the container.
+ */
+public class ResourceBundleCacheCleaner implements Extension
+{
+    protected void removeResolvedBundles(@Observes BeforeShutdown beforeShutdown)
+    {
+        ResourceBundleUtils.reset();
+        DefaultResourceBundle.reset();
+    }
+}
@@ -109,6 +109,13 @@ public abstract class AbstractGroupedConversationContext
     @SuppressWarnings({"UnnecessaryLocalVariable"})
     public <T> T resolve(Bean<T> bean)
     {
+        T cachedBeanInstance = resolveCachedBeanInstance(bean);
+
+        if(cachedBeanInstance != null)
+        {
+            return cachedBeanInstance;
+        }
+
         WindowContextManager windowContextManager = resolveWindowContextManager();
 
         T foundBeanInstance = resolveBeanInstance(windowContextManager, bean);
@@ -116,6 +123,18 @@ public abstract class AbstractGroupedConversationContext
         return foundBeanInstance;
     }
 
+    /**
+     * Allows to skip the resolution of the window-context, the conversation and the bean-entry for beans which were
+     * resolved already during the current request (e.g. multiple el-expressions which reference the same bean).
+     * @param bean current bean
+     * @param <T> type of the current bean
+     * @return the cached instance of the bean or null if there is no (valid) cached instance
+     */
+    protected <T> T resolveCachedBeanInstance(Bean<T> bean)
+    {
+        return null;
+    }
+
     /**
      * @return an instance of a custom or the default
      * {@link org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.spi.WindowContextManager}
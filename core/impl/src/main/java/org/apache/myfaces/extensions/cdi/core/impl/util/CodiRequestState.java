@@ -0,0 +1,377 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.core.impl.util;
+
+import javax.enterprise.inject.Typed;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Holds all values which are cached by CODI for the current request (or thread).
+ * Instead of a {@link ThreadLocal} per cache there is just one {@link ThreadLocal} which gets resolved once
+ * and the values are stored in plain fields of this state.
+ * The state gets bound at the beginning of a request (e.g. by the faces-context wrapper of the JSF module) and
+ * it gets removed at the end of the request. Without a bound state (e.g. outside of a request) it's created lazily
+ * and it gets removed as soon as the last value was reset.
+ * Modules define their own {@link Key}s for the values they have to store.
+ */
+@Typed()
+public final class CodiRequestState
+{
+    private static final ThreadLocal<CodiRequestState> CURRENT_REQUEST_STATE = new ThreadLocal<CodiRequestState>();
+
+    private static final int INITIAL_VALUE_COUNT = 16;
+
+    private Object[] values = new Object[Math.max(INITIAL_VALUE_COUNT, Key.getSlotCount())];
+
+    //the keys of the current values -> keeps the slot of a key reserved as long as there is a value
+    private Key<?>[] keys = new Key<?>[this.values.length];
+
+    private int valueCount;
+
+    //number of active (nested) requests on the current thread
+    private int requestDepth;
+
+    private CodiRequestState()
+    {
+    }
+
+    /**
+     * Binds the state to the request which gets started on the current thread.
+     * {@link #end()} has to be called at the end of the request.
+     * Calls can be nested (e.g. a nested faces-context) - only the end of the outermost request removes the values.
+     * @return the state of the current request
+     */
+    public static CodiRequestState begin()
+    {
+        CodiRequestState requestState = CURRENT_REQUEST_STATE.get();
+
+        if(requestState == null)
+        {
+            requestState = new CodiRequestState();
+            CURRENT_REQUEST_STATE.set(requestState);
+        }
+
+        //an existing state might contain values which aren't bound to a request (e.g. an active transaction)
+        requestState.requestDepth++;
+        return requestState;
+    }
+
+    /**
+     * Ends the current request and removes all values which are bound to the request, if it is the outermost request.
+     * Values of keys which aren't bound to a request (e.g. an active transaction of a filter) are kept until they get
+     * reset.
+     */
+    public static void end()
+    {
+        CodiRequestState requestState = CURRENT_REQUEST_STATE.get();
+
+        if(requestState == null)
+        {
+            return;
+        }
+
+        if(requestState.requestDepth > 0)
+        {
+            requestState.requestDepth--;
+
+            //the end of a nested request mustn't remove the values of the outer request
+            if(requestState.requestDepth > 0)
+            {
+                return;
+            }
+        }
+
+        requestState.resetRequestValues();
+        requestState.removeIfUnused();
+    }
+
+    /**
+     * Exposes the state of the current thread and creates it if there is none
+     * @return state of the current request (or thread)
+     */
+    public static CodiRequestState getCurrentRequestState()
+    {
+        CodiRequestState requestState = CURRENT_REQUEST_STATE.get();
+
+        if(requestState == null)
+        {
+            requestState = new CodiRequestState();
+            CURRENT_REQUEST_STATE.set(requestState);
+        }
+        return requestState;
+    }
+
+    /**
+     * Exposes the state of the current thread without creating it
+     * @return state of the current request (or thread) or null if there is no state
+     */
+    public static CodiRequestState getExistingRequestState()
+    {
+        return CURRENT_REQUEST_STATE.get();
+    }
+
+    /**
+     * @return true if the state is bound to a request via {@link #begin()}, false otherwise
+     */
+    public boolean isRequestActive()
+    {
+        return this.requestDepth > 0;
+    }
+
+    /**
+     * Exposes the value of the given key without creating a state
+     * @param key key of the value
+     * @param <T> type of the value
+     * @return current value or null if there is no value (or no state)
+     */
+    public static <T> T getValue(Key<T> key)
+    {
+        CodiRequestState requestState = CURRENT_REQUEST_STATE.get();
+
+        if(requestState == null)
+        {
+            return null;
+        }
+        return requestState.get(key);
+    }
+
+    /**
+     * Sets the value of the given key. Resetting a value (to null) doesn't create a state.
+     * @param key key of the value
+     * @param value new value or null to reset it
+     * @param <T> type of the value
+     */
+    public static <T> void setValue(Key<T> key, T value)
+    {
+        if(value == null)
+        {
+            CodiRequestState requestState = CURRENT_REQUEST_STATE.get();
+
+            if(requestState != null)
+            {
+                requestState.set(key, null);
+            }
+            return;
+        }
+        getCurrentRequestState().set(key, value);
+    }
+
+    /**
+     * @param key key of the value
+     * @param <T> type of the value
+     * @return current value or null if there is no value
+     */
+    public <T> T get(Key<T> key)
+    {
+        int index = key.index;
+
+        if(index >= this.values.length || this.keys[index] != key)
+        {
+            return null;
+        }
+
+        //noinspection unchecked
+        return (T)this.values[index];
+    }
+
+    /**
+     * @param key key of the value
+     * @param value new value or null to reset it
+     * @param <T> type of the value
+     */
+    public <T> void set(Key<T> key, T value)
+    {
+        int index = key.index;
+
+        if(index >= this.values.length)
+        {
+            if(value == null)
+            {
+                return;
+            }
+
+            Object[] newValues = new Object[Math.max(index + 1, this.values.length * 2)];
+            System.arraycopy(this.values, 0, newValues, 0, this.values.length);
+            this.values = newValues;
+
+            Key<?>[] newKeys = new Key<?>[newValues.length];
+            System.arraycopy(this.keys, 0, newKeys, 0, this.keys.length);
+            this.keys = newKeys;
+        }
+
+        Object oldValue = this.keys[index] == key ? this.values[index] : null;
+
+        if(oldValue == null && value == null)
+        {
+            return;
+        }
+
+        this.values[index] = value;
+        this.keys[index] = value != null ? key : null;
+
+        if(oldValue == null && value != null)
+        {
+            this.valueCount++;
+        }
+        else if(oldValue != null && value == null)
+        {
+            this.valueCount--;
+            removeIfUnused();
+        }
+    }
+
+    private void resetRequestValues()
+    {
+        Key<?>[] currentKeys = this.keys;
+
+        for(Key<?> key : currentKeys)
+        {
+            if(key != null && key.requestScoped)
+            {
+                set(key, null);
+            }
+        }
+    }
+
+    private void removeIfUnused()
+    {
+        //e.g. pooled threads shouldn't keep an empty state
+        if(this.valueCount == 0 && this.requestDepth == 0 && CURRENT_REQUEST_STATE.get() == this)
+        {
+            CURRENT_REQUEST_STATE.set(null);
+            CURRENT_REQUEST_STATE.remove();
+        }
+    }
+
+    /**
+     * Key of a value which is stored in the {@link CodiRequestState}.
+     * Keys should be stored in static fields because every key reserves a slot in every state.
+     * The slot of a key which isn't used any longer (e.g. after the undeployment of an application) gets reused
+     * by the next key.
+     * @param <T> type of the value
+     */
+    public static final class Key<T>
+    {
+        private static final ReferenceQueue<Key<?>> RELEASED_KEYS = new ReferenceQueue<Key<?>>();
+
+        //keeps the weak references of the registered keys
+        private static final Set<KeyReference> KEY_REFERENCES = new HashSet<KeyReference>();
+
+        private static final List<Integer> FREE_SLOTS = new ArrayList<Integer>();
+
+        private static volatile int slotCount;
+
+        private final int index;
+
+        private final String name;
+
+        private final boolean requestScoped;
+
+        /**
+         * Creates a key for a value which gets removed at the end of a request
+         * @param name name of the key (just for debugging)
+         */
+        public Key(String name)
+        {
+            this(name, true);
+        }
+
+        /**
+         * @param name name of the key (just for debugging)
+         * @param requestScoped true if the value should be removed at the end of a request,
+         * false if the value has to be reset manually
+         */
+        public Key(String name, boolean requestScoped)
+        {
+            this.index = reserveSlot(this);
+            this.name = name;
+            this.requestScoped = requestScoped;
+        }
+
+        private static synchronized int reserveSlot(Key<?> key)
+        {
+            releaseSlotsOfUnusedKeys();
+
+            int index;
+            if(FREE_SLOTS.isEmpty())
+            {
+                index = slotCount++;
+            }
+            else
+            {
+                index = FREE_SLOTS.remove(FREE_SLOTS.size() - 1);
+            }
+
+            KEY_REFERENCES.add(new KeyReference(key, index));
+            return index;
+        }
+
+        //a key is only collected if no state holds a value for it -> the slot is empty in every state
+        private static void releaseSlotsOfUnusedKeys()
+        {
+            Reference<? extends Key<?>> releasedKey;
+            while((releasedKey = RELEASED_KEYS.poll()) != null)
+            {
+                if(KEY_REFERENCES.remove(releasedKey))
+                {
+                    FREE_SLOTS.add(((KeyReference)releasedKey).index);
+                }
+            }
+        }
+
+        private static int getSlotCount()
+        {
+            return slotCount;
+        }
+
+        /**
+         * @return true if the value gets removed at the end of a request
+         */
+        public boolean isRequestScoped()
+        {
+            return requestScoped;
+        }
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public String toString()
+        {
+            return this.name;
+        }
+    }
+
+    private static final class KeyReference extends WeakReference<Key<?>>
+    {
+        private final int index;
+
+        private KeyReference(Key<?> key, int index)
+        {
+            super(key, Key.RELEASED_KEYS);
+            this.index = index;
+        }
+    }
+}
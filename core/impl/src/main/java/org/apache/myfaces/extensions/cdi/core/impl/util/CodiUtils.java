@@ -181,23 +181,22 @@ public abstract class CodiUtils
         return null;
     }
 
-    private static <T> Bean<T> getOrCreateBeanByClass(BeanManager beanManager,
-                                                      Class<T> targetClass,
-                                                      boolean optionalBeanAllowed,
-                                                      Annotation... qualifier)
+    /**
+     * Resolves the bean-descriptor for the given bean-class and qualifiers.
+     * After the deployment was validated the resolved bean is cached (see {@link ResolvedBeanCache}).
+     * @param beanManager current bean-manager
+     * @param targetClass class of the bean
+     * @param optionalBeanAllowed flag which indicates if it's an optional bean
+     * @param qualifier optional qualifiers
+     * @param <T> target type
+     * @return resolved bean if such a bean exists, null otherwise
+     */
+    public static <T> Bean<T> getOrCreateBeanByClass(BeanManager beanManager,
+                                                     Class<T> targetClass,
+                                                     boolean optionalBeanAllowed,
+                                                     Annotation... qualifier)
     {
-        Set<? extends Bean> foundBeans = beanManager.getBeans(targetClass, qualifier);
-
-        if(foundBeans.size() >= 1)
-        {
-            return (Bean<T>) beanManager.resolve((Set<Bean<? extends Object>>) foundBeans);
-        }
-
-        if(!optionalBeanAllowed)
-        {
-            throw new IllegalStateException("No bean found for type: " + targetClass.getName());
-        }
-        return null;
+        return ResolvedBeanCache.resolveBean(beanManager, targetClass, optionalBeanAllowed, qualifier);
     }
 
     /**
@@ -546,38 +545,23 @@ public abstract class CodiUtils
     {
         if(key == null)
         {
+            //fallback for custom configs - prefer #createConfigKey (the key gets derived from the stack)
             @SuppressWarnings({"ThrowableInstanceNeverThrown"})
             RuntimeException runtimeException = new RuntimeException();
 
-            String baseKey = runtimeException.getStackTrace()[1].getMethodName();
-
-            if(baseKey.startsWith("get"))
-            {
-                baseKey = baseKey.substring(3);
-            }
-            else if(baseKey.startsWith("is"))
-            {
-                baseKey = baseKey.substring(2);
-            }
-
-            baseKey = baseKey.substring(0, 1).toLowerCase() + baseKey.substring(1);
-
-            String className = runtimeException.getStackTrace()[1].getClassName();
+            StackTraceElement caller = runtimeException.getStackTrace()[1];
+            String className = caller.getClassName();
 
             Class configClass = ClassUtils.tryToLoadClassForName(className);
 
-            if(configClass != null && CodiConfig.class.isAssignableFrom(configClass.getSuperclass()))
+            if(configClass != null)
             {
-                //config class extends the default impl. -> use the name of the default impl.
-                className = configClass.getSuperclass().getSimpleName();
+                key = createConfigKey(configClass, caller.getMethodName());
             }
             else
             {
-                className = className.substring(className.lastIndexOf(".") + 1);
+                key = createConfigKey(className.substring(className.lastIndexOf(".") + 1), caller.getMethodName());
             }
-
-            String convertedKey = StringUtils.replaceUpperCaseCharactersWithUnderscores(baseKey);
-            key = className + "." + convertedKey;
         }
 
         String result = lookupFromEnvironment(key, String.class, null, null);
@@ -603,6 +587,57 @@ public abstract class CodiUtils
         throw new IllegalArgumentException(targetType.getName() + " isn't supported");
     }
 
+    /**
+     * Creates the key which is used by {@link #lookupConfigFromEnvironment} for the given config method,
+     * if no explicit key is provided. Example: method-name: getAbcXyz -> config-key: [class-name].abc_xyz
+     * If the given config class extends the default implementation of the config,
+     * the simple name of the default implementation is used as class-name.
+     *
+     * @param configClass class which declares the config method
+     * @param methodName name of the config method
+     * @return key for the given config method
+     */
+    public static String createConfigKey(Class configClass, String methodName)
+    {
+        Class superClass = configClass.getSuperclass();
+
+        if(superClass != null && CodiConfig.class.isAssignableFrom(superClass))
+        {
+            //config class extends the default impl. -> use the name of the default impl.
+            return createConfigKey(superClass.getSimpleName(), methodName);
+        }
+        String className = configClass.getName();
+        return createConfigKey(className.substring(className.lastIndexOf(".") + 1), methodName);
+    }
+
+    private static String createConfigKey(String simpleClassName, String methodName)
+    {
+        String baseKey = methodName;
+
+        if(baseKey.startsWith("get"))
+        {
+            baseKey = baseKey.substring(3);
+        }
+        else if(baseKey.startsWith("is"))
+        {
+            baseKey = baseKey.substring(2);
+        }
+
+        baseKey = baseKey.substring(0, 1).toLowerCase() + baseKey.substring(1);
+
+        return simpleClassName + "." + StringUtils.replaceUpperCaseCharactersWithUnderscores(baseKey);
+    }
+
+    /**
+     * Resets the cached values and artifacts which were resolved via {@link #lookupConfigFromEnvironment} and
+     * {@link #lookupFromEnvironment} for the current application (incl. the content of the config files).
+     * Values which get resolved afterwards reflect the current state of the config-sources.
+     */
+    public static void resetConfiguredValueCache()
+    {
+        ConfiguredArtifactUtils.resetConfiguredValueCache();
+    }
+
     /**
      * Resolves resources outside of CDI for the given key and class.
      * @param key key for identifying the resource which has to be resolved
@@ -635,11 +670,11 @@ public abstract class CodiUtils
 
             if(String.class.isAssignableFrom(targetType))
             {
-                ConfiguredArtifactUtils.processConfiguredArtifact(key, (List<String>)results);
+                results = (List<T>)ConfiguredArtifactUtils.processConfiguredArtifact(key, (List<String>)results);
             }
             else
             {
-                ConfiguredArtifactUtils.processFoundArtifact(key, targetType, results);
+                results = ConfiguredArtifactUtils.processFoundArtifact(key, targetType, results);
             }
         }
 
@@ -650,15 +685,15 @@ public abstract class CodiUtils
 
         if(aggregatable != null)
         {
-            for(T currentEntry : results)
+            for(int i = 0; i < results.size(); i++)
             {
-                aggregatable.add(currentEntry);
+                aggregatable.add(results.get(i));
             }
             return aggregatable.create();
         }
         else
         {
-            return results.iterator().next();
+            return results.get(0);
         }
     }
 
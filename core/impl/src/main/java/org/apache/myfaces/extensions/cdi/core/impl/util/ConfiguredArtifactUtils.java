@@ -22,6 +22,7 @@ import org.apache.myfaces.extensions.cdi.core.api.Advanced;
 import org.apache.myfaces.extensions.cdi.core.api.util.ClassUtils;
 import org.apache.myfaces.extensions.cdi.core.api.config.ConfiguredValueResolver;
 import org.apache.myfaces.extensions.cdi.core.api.config.ConfiguredValueDescriptor;
+import org.apache.myfaces.extensions.cdi.core.api.util.ConfigUtils;
 import org.apache.myfaces.extensions.cdi.core.api.tools.InvocationOrderComparator;
 import org.apache.myfaces.extensions.cdi.core.impl.provider.DefaultServiceProvider;
 
@@ -29,10 +30,8 @@ import javax.enterprise.inject.Typed;
 import java.lang.reflect.Field;
 import java.util.List;
 import java.util.ArrayList;
-import java.util.Set;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
-import java.util.HashMap;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.concurrent.ConcurrentHashMap;
@@ -46,11 +45,13 @@ import java.util.logging.Logger;
 @Typed()
 public abstract class ConfiguredArtifactUtils
 {
-    private static Map<ClassLoader, Map<ArtifactCacheKey<String>, Set<Serializable>>> apiToImplCache
-            = new ConcurrentHashMap<ClassLoader, Map<ArtifactCacheKey<String>, Set<Serializable>>>();
+    //the cached lists are immutable and already sorted -> they can be returned without copying them
+    //the lists are stored per type and key -> a lookup doesn't need a composite key
+    private static Map<ClassLoader, Map<Class<?>, Map<String, List<Serializable>>>> apiToImplCache
+            = new ConcurrentHashMap<ClassLoader, Map<Class<?>, Map<String, List<Serializable>>>>();
 
-    private static Map<ClassLoader, Map<String, Set<String>>> configuredValueCache
-            = new ConcurrentHashMap<ClassLoader, Map<String, Set<String>>>();
+    private static Map<ClassLoader, Map<Class<?>, Map<String, List<Serializable>>>> configuredValueCache
+            = new ConcurrentHashMap<ClassLoader, Map<Class<?>, Map<String, List<Serializable>>>>();
 
     //just for testing
     protected ConfiguredArtifactUtils()
@@ -64,50 +65,48 @@ public abstract class ConfiguredArtifactUtils
         configuredValueCache.clear();
     }
 
-    static <T extends Serializable> List<T> getCachedArtifact(String key, Class<T> targetClass)
+    static void resetConfiguredValueCache()
     {
         ClassLoader classLoader = ClassUtils.getClassLoader(null);
-        if(String.class.isAssignableFrom(targetClass))
-        {
-            Map<String, Set<String>> cachedValueMap = configuredValueCache.get(classLoader);
+        configuredValueCache.remove(classLoader);
+        apiToImplCache.remove(classLoader);
+        ConfigUtils.reloadConfiguration();
+    }
 
-            if(cachedValueMap != null)
-            {
-                List<String> result = new ArrayList<String>();
-                Set<String> cachedValues = cachedValueMap.get(key);
-                if (cachedValues != null && !cachedValues.isEmpty())
-                {
-                    result.addAll(cachedValues);
-                }
-                if(!result.isEmpty())
-                {
-                    return (List<T>)result;
-                }
-            }
-            return null;
-        }
+    /**
+     * @param key key of the artifact
+     * @param targetClass type of the artifact
+     * @param <T> current type
+     * @return the cached (immutable) list of artifacts, an empty list for a cached configured value which doesn't
+     * exist or null if there is no cache entry
+     */
+    static <T extends Serializable> List<T> getCachedArtifact(String key, Class<T> targetClass)
+    {
+        checkKey(key, targetClass);
 
-        Map<ArtifactCacheKey<String>, Set<Serializable>> artifactCache = apiToImplCache.get(classLoader);
+        Map<Class<?>, Map<String, List<Serializable>>> artifactCache;
+
+        if(isConfiguredValue(targetClass))
+        {
+            artifactCache = configuredValueCache.get(ClassUtils.getClassLoader(null));
+        }
+        else
+        {
+            artifactCache = apiToImplCache.get(ClassUtils.getClassLoader(null));
+        }
 
         if(artifactCache == null)
         {
             return null;
         }
 
-        List<T> result = new ArrayList<T>();
+        Map<String, List<Serializable>> artifactsOfType = artifactCache.get(targetClass);
 
-        Set<T> cachedInstances = (Set<T>)artifactCache.get(new ArtifactCacheKey<String>(key, targetClass));
-
-        if(cachedInstances == null)
+        if(artifactsOfType == null)
         {
             return null;
         }
-        for(T currentClass : cachedInstances)
-        {
-            result.add(currentClass);
-        }
-        Collections.sort(result, new InvocationOrderComparator<T>());
-        return result;
+        return (List<T>)artifactsOfType.get(key);
     }
 
     static <T> List<T> resolveFromEnvironment(final String key,
@@ -223,62 +222,88 @@ public abstract class ConfiguredArtifactUtils
         return resolvers;
     }
 
-    static void processConfiguredArtifact(String key, List<String> results)
+    static List<String> processConfiguredArtifact(String key, List<String> results)
     {
-        processFoundArtifact(key, String.class, results);
+        return processFoundArtifact(key, String.class, results);
     }
 
-    static <T extends Serializable> void processFoundArtifact(String key, Class<T> targetType, List<T> artifacts)
+    /**
+     * Caches the given artifacts as immutable and sorted list.
+     * @param key key of the artifact
+     * @param targetType type of the artifact
+     * @param artifacts found artifacts
+     * @param <T> current type
+     * @return the cached list or the given list, if it wasn't cached
+     */
+    static <T extends Serializable> List<T> processFoundArtifact(String key, Class<T> targetType, List<T> artifacts)
     {
-        for(T currentArtifact : artifacts)
+        //only configured values are cached as missing - artifacts (e.g. registered via system properties)
+        //might be added later on without resetting the cache
+        if(artifacts.isEmpty() && !isConfiguredValue(targetType))
+        {
+            return artifacts;
+        }
+
+        List<Serializable> cachedArtifacts = new ArrayList<Serializable>(new LinkedHashSet<Serializable>(artifacts));
+
+        if(!isConfiguredValue(targetType))
         {
-            cacheArtifact(key, currentArtifact);
+            Collections.sort(cachedArtifacts, new InvocationOrderComparator<Serializable>());
         }
+
+        cachedArtifacts = Collections.unmodifiableList(cachedArtifacts);
+        checkKey(key, targetType);
+        getArtifactMapping(targetType).put(key, cachedArtifacts);
+        return (List<T>)cachedArtifacts;
     }
 
-    private static <T extends Serializable> void cacheArtifact(String key, T artifact)
+    private static boolean isConfiguredValue(Class<?> targetType)
     {
-        ClassLoader classLoader = ClassUtils.getClassLoader(null);
+        return String.class.isAssignableFrom(targetType) ||
+                Boolean.class.isAssignableFrom(targetType) ||
+                Integer.class.isAssignableFrom(targetType);
+    }
 
-        if(String.class.isAssignableFrom(artifact.getClass()))
+    private static void checkKey(String key, Class<?> targetType)
+    {
+        if(key == null)
         {
-            Map<String, Set<String>> configuredValueMapping = configuredValueCache.get(classLoader);
-
-            if(configuredValueMapping == null)
-            {
-                configuredValueMapping = new HashMap<String, Set<String>>();
-                configuredValueCache.put(classLoader, configuredValueMapping);
-            }
+            //TODO
+            throw new IllegalStateException("Please provide a key for " + targetType);
+        }
+    }
 
-            Set<String> configuredValues = configuredValueMapping.get(key);
+    private static Map<String, List<Serializable>> getArtifactMapping(Class<?> targetType)
+    {
+        Map<ClassLoader, Map<Class<?>, Map<String, List<Serializable>>>> cache;
 
-            if(configuredValues == null)
-            {
-                configuredValues = new HashSet<String>();
-                configuredValueMapping.put(key, configuredValues);
-            }
-            configuredValues.add((String)artifact);
+        if(isConfiguredValue(targetType))
+        {
+            cache = configuredValueCache;
         }
         else
         {
-            Map<ArtifactCacheKey<String>, Set<Serializable>> configuredValueMapping = apiToImplCache.get(classLoader);
+            cache = apiToImplCache;
+        }
 
-            if(configuredValueMapping == null)
-            {
-                configuredValueMapping = new HashMap<ArtifactCacheKey<String>, Set<Serializable>>();
-                apiToImplCache.put(classLoader, configuredValueMapping);
-            }
+        ClassLoader classLoader = ClassUtils.getClassLoader(null);
 
-            ArtifactCacheKey<String> cacheKey = new ArtifactCacheKey<String>(key, artifact.getClass());
-            Set<Serializable> configuredValues = configuredValueMapping.get(cacheKey);
+        Map<Class<?>, Map<String, List<Serializable>>> artifactMapping = cache.get(classLoader);
 
-            if(configuredValues == null)
-            {
-                configuredValues = new HashSet<Serializable>();
-                configuredValueMapping.put(cacheKey, configuredValues);
-            }
-            configuredValues.add(artifact);
+        if(artifactMapping == null)
+        {
+            artifactMapping = new ConcurrentHashMap<Class<?>, Map<String, List<Serializable>>>();
+            cache.put(classLoader, artifactMapping);
+        }
+
+        Map<String, List<Serializable>> artifactsOfType = artifactMapping.get(targetType);
+
+        if(artifactsOfType == null)
+        {
+            artifactsOfType = new ConcurrentHashMap<String, List<Serializable>>();
+            artifactMapping.put(targetType, artifactsOfType);
         }
+        return artifactsOfType;
     }
 
     private static <T> void checkArtifacts(Class<T> targetType, List<T> results, boolean supportOfMultipleArtifacts)
@@ -0,0 +1,270 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.core.impl.util;
+
+import org.apache.myfaces.extensions.cdi.core.api.activation.Deactivatable;
+import org.apache.myfaces.extensions.cdi.core.api.util.ClassUtils;
+
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.AfterDeploymentValidation;
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.inject.spi.BeforeShutdown;
+import javax.enterprise.inject.spi.Extension;
+import java.lang.annotation.Annotation;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Caches the {@link Bean}s which get resolved by {@link CodiUtils#getContextualReferenceByClass} for a type and
+ * the given qualifiers. The set of beans doesn't change after the deployment was validated -
+ * therefore the cache (of the current application) gets activated after {@link AfterDeploymentValidation}
+ * and it gets removed before the shutdown of the container.
+ */
+public class ResolvedBeanCache implements Extension, Deactivatable
+{
+    private static final Map<ClassLoader, ResolvedBeans> RESOLVED_BEANS =
+            new ConcurrentHashMap<ClassLoader, ResolvedBeans>();
+
+    private static final Object NO_BEAN = new Object();
+
+    protected void activateCache(@Observes AfterDeploymentValidation afterDeploymentValidation,
+                                 BeanManager beanManager)
+    {
+        if(isActivated())
+        {
+            RESOLVED_BEANS.put(ClassUtils.getClassLoader(null), new ResolvedBeans(beanManager));
+        }
+    }
+
+    protected void removeCache(@Observes BeforeShutdown beforeShutdown)
+    {
+        RESOLVED_BEANS.remove(ClassUtils.getClassLoader(null));
+    }
+
+    /**
+     * Number of lookups of the current application which were answered by the cache
+     * @return number of cache hits or 0 if the cache isn't active
+     */
+    public static long getHitCount()
+    {
+        ResolvedBeans resolvedBeans = RESOLVED_BEANS.get(ClassUtils.getClassLoader(null));
+
+        if(resolvedBeans == null)
+        {
+            return 0;
+        }
+        return resolvedBeans.hitCount.get();
+    }
+
+    /**
+     * Number of lookups of the current application which had to be resolved via the {@link BeanManager}
+     * (while the cache was active)
+     * @return number of cache misses or 0 if the cache isn't active
+     */
+    public static long getMissCount()
+    {
+        ResolvedBeans resolvedBeans = RESOLVED_BEANS.get(ClassUtils.getClassLoader(null));
+
+        if(resolvedBeans == null)
+        {
+            return 0;
+        }
+        return resolvedBeans.missCount.get();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isActivated()
+    {
+        return ClassDeactivation.isClassActivated(getClass());
+    }
+
+    static <T> Bean<T> resolveBean(BeanManager beanManager,
+                                   Class<T> targetClass,
+                                   boolean optionalBeanAllowed,
+                                   Annotation... qualifier)
+    {
+        ResolvedBeans resolvedBeans = RESOLVED_BEANS.get(ClassUtils.getClassLoader(null));
+
+        //e.g. during the bootstrapping process or for a different bean-manager (of the same application)
+        if(resolvedBeans == null || resolvedBeans.beanManager != beanManager)
+        {
+            return checkBean(resolveBeanViaBeanManager(beanManager, targetClass, qualifier),
+                    targetClass, optionalBeanAllowed);
+        }
+
+        Object cachedBean = resolvedBeans.getBean(targetClass, qualifier);
+
+        if(cachedBean != null)
+        {
+            resolvedBeans.hitCount.increment();
+
+            if(cachedBean == NO_BEAN)
+            {
+                return checkBean(null, targetClass, optionalBeanAllowed);
+            }
+            //noinspection unchecked
+            return (Bean<T>) cachedBean;
+        }
+
+        resolvedBeans.missCount.increment();
+
+        Bean<T> resolvedBean = resolveBeanViaBeanManager(beanManager, targetClass, qualifier);
+
+        resolvedBeans.addBean(targetClass, qualifier, resolvedBean != null ? resolvedBean : NO_BEAN);
+
+        return checkBean(resolvedBean, targetClass, optionalBeanAllowed);
+    }
+
+    private static <T> Bean<T> resolveBeanViaBeanManager(BeanManager beanManager,
+                                                         Class<T> targetClass,
+                                                         Annotation... qualifier)
+    {
+        Set<? extends Bean> foundBeans = beanManager.getBeans(targetClass, qualifier);
+
+        if(foundBeans.size() >= 1)
+        {
+            return (Bean<T>) beanManager.resolve((Set<Bean<? extends Object>>) foundBeans);
+        }
+        return null;
+    }
+
+    private static <T> Bean<T> checkBean(Bean<T> bean, Class<T> targetClass, boolean optionalBeanAllowed)
+    {
+        if(bean == null && !optionalBeanAllowed)
+        {
+            throw new IllegalStateException("No bean found for type: " + targetClass.getName());
+        }
+        return bean;
+    }
+
+    private static class ResolvedBeans
+    {
+        private final BeanManager beanManager;
+
+        //lookups without qualifiers are the common case - they don't need a composite key
+        private final Map<Class<?>, Object> beansWithoutQualifier = new ConcurrentHashMap<Class<?>, Object>();
+
+        private final Map<ResolvedBeanKey, Object> beansWithQualifiers =
+                new ConcurrentHashMap<ResolvedBeanKey, Object>();
+
+        private final StripedCounter hitCount = new StripedCounter();
+        private final StripedCounter missCount = new StripedCounter();
+
+        private ResolvedBeans(BeanManager beanManager)
+        {
+            this.beanManager = beanManager;
+        }
+
+        private Object getBean(Class<?> targetClass, Annotation[] qualifiers)
+        {
+            if(qualifiers == null || qualifiers.length == 0)
+            {
+                return this.beansWithoutQualifier.get(targetClass);
+            }
+            return this.beansWithQualifiers.get(new ResolvedBeanKey(targetClass, qualifiers));
+        }
+
+        private void addBean(Class<?> targetClass, Annotation[] qualifiers, Object bean)
+        {
+            if(qualifiers == null || qualifiers.length == 0)
+            {
+                this.beansWithoutQualifier.put(targetClass, bean);
+            }
+            else
+            {
+                this.beansWithQualifiers.put(new ResolvedBeanKey(targetClass, qualifiers.clone()), bean);
+            }
+        }
+    }
+
+    /**
+     * Counter for the hot path - concurrent threads increment different slots (in different cache-lines)
+     * instead of a single shared value. Only reading the value has to sum up all slots.
+     */
+    private static class StripedCounter
+    {
+        //has to be a power of two
+        private static final int STRIPE_COUNT = 16;
+
+        //8 longs = 64 bytes -> every stripe uses its own cache-line
+        private static final int STRIPE_SIZE = 8;
+
+        private final AtomicLongArray counts = new AtomicLongArray(STRIPE_COUNT * STRIPE_SIZE);
+
+        private void increment()
+        {
+            int stripe = (int) (Thread.currentThread().getId() & (STRIPE_COUNT - 1));
+            this.counts.incrementAndGet(stripe * STRIPE_SIZE);
+        }
+
+        private long get()
+        {
+            long result = 0;
+
+            for (int i = 0; i < STRIPE_COUNT; i++)
+            {
+                result += this.counts.get(i * STRIPE_SIZE);
+            }
+            return result;
+        }
+    }
+
+    private static class ResolvedBeanKey
+    {
+        private final Class<?> targetClass;
+        private final Annotation[] qualifiers;
+        private final int hashCode;
+
+        private ResolvedBeanKey(Class<?> targetClass, Annotation[] qualifiers)
+        {
+            this.targetClass = targetClass;
+            this.qualifiers = qualifiers;
+            this.hashCode = 31 * targetClass.hashCode() + Arrays.hashCode(qualifiers);
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof ResolvedBeanKey))
+            {
+                return false;
+            }
+
+            ResolvedBeanKey that = (ResolvedBeanKey) o;
+
+            return this.targetClass.equals(that.targetClass) && Arrays.equals(this.qualifiers, that.qualifiers);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return this.hashCode;
+        }
+    }
+}
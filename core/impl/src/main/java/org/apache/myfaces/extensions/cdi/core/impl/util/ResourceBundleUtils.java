@@ -0,0 +1,198 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.core.impl.util;
+
+import org.apache.myfaces.extensions.cdi.core.api.util.ClassUtils;
+
+import javax.enterprise.inject.Typed;
+import java.util.Collections;
+import java.util.Enumeration;
+import java.util.HashMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.MissingResourceException;
+import java.util.ResourceBundle;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Helper for resolving values of {@link ResourceBundle}s.
+ * A bundle gets flattened (incl. the entries of its parent bundles) once per locale and application.
+ * Looking up a key which doesn't exist (or a bundle which doesn't exist) is just a miss in the resolved map and
+ * doesn't lead to a {@link MissingResourceException}.
+ * The resolved entries are kept until {@link #reset()} gets called or the container shuts down - therefore
+ * {@link ResourceBundle#clearCache()} has no effect on the entries which were resolved already.
+ */
+@Typed()
+public abstract class ResourceBundleUtils
+{
+    private static final Map<String, String> MISSING_BUNDLE = Collections.unmodifiableMap(
+            new HashMap<String, String>());
+
+    private static Map<ClassLoader, Map<BundleCacheKey, Map<String, String>>> resolvedBundles =
+            new ConcurrentHashMap<ClassLoader, Map<BundleCacheKey, Map<String, String>>>();
+
+    private ResourceBundleUtils()
+    {
+        // prevent instantiation
+    }
+
+    /**
+     * Resolves the value for the given key
+     * @param bundleName name of the bundle
+     * @param locale current locale
+     * @param key key of the entry
+     * @return the value of the entry or null if there is no such entry (or bundle)
+     */
+    public static String getValue(String bundleName, Locale locale, String key)
+    {
+        return getBundleEntries(bundleName, locale).get(key);
+    }
+
+    /**
+     * Exposes all string-entries of the given bundle (incl. the entries of the parent bundles)
+     * @param bundleName name of the bundle
+     * @param locale current locale
+     * @return immutable map with the entries of the bundle or an empty map if the bundle doesn't exist
+     */
+    public static Map<String, String> getBundleEntries(String bundleName, Locale locale)
+    {
+        ClassLoader classLoader = ClassUtils.getClassLoader(null);
+        Map<BundleCacheKey, Map<String, String>> bundles = resolvedBundles.get(classLoader);
+
+        if(bundles == null)
+        {
+            bundles = new ConcurrentHashMap<BundleCacheKey, Map<String, String>>();
+            resolvedBundles.put(classLoader, bundles);
+        }
+
+        BundleCacheKey bundleCacheKey = new BundleCacheKey(bundleName, locale);
+        Map<String, String> bundleEntries = bundles.get(bundleCacheKey);
+
+        if(bundleEntries == null)
+        {
+            bundleEntries = resolveBundleEntries(bundleName, locale, classLoader);
+            bundles.put(bundleCacheKey, bundleEntries);
+        }
+        return bundleEntries;
+    }
+
+    /**
+     * Resets the resolved bundles of the current application
+     */
+    public static void reset()
+    {
+        resolvedBundles.remove(ClassUtils.getClassLoader(null));
+    }
+
+    private static Map<String, String> resolveBundleEntries(String bundleName, Locale locale, ClassLoader classLoader)
+    {
+        ResourceBundle resourceBundle = loadBundle(bundleName, locale, classLoader);
+
+        //fallback - see EXTCDI-268
+        if(resourceBundle == null)
+        {
+            resourceBundle = loadBundle(bundleName, locale, ResourceBundleUtils.class.getClassLoader());
+        }
+
+        if(resourceBundle == null)
+        {
+            return MISSING_BUNDLE;
+        }
+
+        Map<String, String> bundleEntries = new HashMap<String, String>();
+
+        //the keys include the keys of the parent bundles
+        Enumeration<String> keys = resourceBundle.getKeys();
+        String currentKey;
+        Object currentValue;
+        while(keys.hasMoreElements())
+        {
+            currentKey = keys.nextElement();
+            currentValue = resourceBundle.getObject(currentKey);
+
+            if(currentValue instanceof String)
+            {
+                bundleEntries.put(currentKey, (String)currentValue);
+            }
+        }
+        return Collections.unmodifiableMap(bundleEntries);
+    }
+
+    private static ResourceBundle loadBundle(String bundleName, Locale locale, ClassLoader classLoader)
+    {
+        try
+        {
+            return ResourceBundle.getBundle(bundleName, locale, classLoader);
+        }
+        catch (MissingResourceException e)
+        {
+            return null;
+        }
+    }
+
+    private static class BundleCacheKey
+    {
+        private final String bundleName;
+        private final Locale locale;
+
+        private BundleCacheKey(String bundleName, Locale locale)
+        {
+            this.bundleName = bundleName;
+            this.locale = locale;
+        }
+
+        /*
+         * generated
+         */
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof BundleCacheKey))
+            {
+                return false;
+            }
+
+            BundleCacheKey that = (BundleCacheKey) o;
+
+            if (!bundleName.equals(that.bundleName))
+            {
+                return false;
+            }
+            //noinspection RedundantIfStatement
+            if (locale != null ? !locale.equals(that.locale) : that.locale != null)
+            {
+                return false;
+            }
+
+            return true;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = bundleName.hashCode();
+            result = 31 * result + (locale != null ? locale.hashCode() : 0);
+            return result;
+        }
+    }
+}
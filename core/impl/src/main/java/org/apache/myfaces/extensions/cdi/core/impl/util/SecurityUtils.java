@@ -68,45 +68,97 @@ public abstract class SecurityUtils
         AccessDecisionState voterState = AccessDecisionState.VOTE_IN_PROGRESS;
         try
         {
-            if(voterContext instanceof EditableAccessDecisionVoterContext)
-            {
-                ((EditableAccessDecisionVoterContext)voterContext).setState(voterState);
-            }
-
-            Set<SecurityViolation> violations;
+            setVoterState(voterContext, voterState);
 
-            AccessDecisionVoter voter;
             for(Class<? extends AccessDecisionVoter> voterClass : accessDecisionVoters)
             {
-                voter = CodiUtils.getContextualReferenceByClass(beanManager, voterClass);
+                checkPermission(invocationContext, voterContext,
+                        CodiUtils.getContextualReferenceByClass(beanManager, voterClass), errorView);
+            }
+        }
+        catch (AccessDeniedException e)
+        {
+            voterState = AccessDecisionState.VIOLATION_FOUND;
+            throw e;
+        }
+        finally
+        {
+            finishVoting(voterContext, voterState);
+        }
+    }
+
+    /**
+     * Helper for invoking the given (already resolved) {@link AccessDecisionVoter}s
+     * @param invocationContext current invocation-context (might be null in case of secured views)
+     * @param voterContext current access-decision-voter-context
+     * @param accessDecisionVoters current access-decision-voters
+     * @param errorView optional inline error view
+     */
+    public static void invokeVoters(InvocationContext invocationContext,
+                                    AccessDecisionVoterContext voterContext,
+                                    List<? extends AccessDecisionVoter> accessDecisionVoters,
+                                    Class<? extends ViewConfig> errorView)
+    {
+        if(accessDecisionVoters == null)
+        {
+            return;
+        }
 
-                violations = voter.checkPermission(invocationContext);
+        AccessDecisionState voterState = AccessDecisionState.VOTE_IN_PROGRESS;
+        try
+        {
+            setVoterState(voterContext, voterState);
 
-                if(violations != null && violations.size() > 0)
-                {
-                    if(voterContext instanceof EditableAccessDecisionVoterContext)
-                    {
-                        voterState = AccessDecisionState.VIOLATION_FOUND;
-                        for(SecurityViolation securityViolation : violations)
-                        {
-                            ((EditableAccessDecisionVoterContext) voterContext).addViolation(securityViolation);
-                        }
-                    }
-                    throw new AccessDeniedException(violations, errorView);
-                }
+            for(int i = 0; i < accessDecisionVoters.size(); i++)
+            {
+                checkPermission(invocationContext, voterContext, accessDecisionVoters.get(i), errorView);
             }
         }
+        catch (AccessDeniedException e)
+        {
+            voterState = AccessDecisionState.VIOLATION_FOUND;
+            throw e;
+        }
         finally
+        {
+            finishVoting(voterContext, voterState);
+        }
+    }
+
+    private static void checkPermission(InvocationContext invocationContext,
+                                        AccessDecisionVoterContext voterContext,
+                                        AccessDecisionVoter voter,
+                                        Class<? extends ViewConfig> errorView)
+    {
+        Set<SecurityViolation> violations = voter.checkPermission(invocationContext);
+
+        if(violations != null && violations.size() > 0)
         {
             if(voterContext instanceof EditableAccessDecisionVoterContext)
             {
-                if(AccessDecisionState.VOTE_IN_PROGRESS.equals(voterState))
+                for(SecurityViolation securityViolation : violations)
                 {
-                    voterState = AccessDecisionState.NO_VIOLATION_FOUND;
+                    ((EditableAccessDecisionVoterContext) voterContext).addViolation(securityViolation);
                 }
-
-                ((EditableAccessDecisionVoterContext)voterContext).setState(voterState);
             }
+            throw new AccessDeniedException(violations, errorView);
+        }
+    }
+
+    private static void finishVoting(AccessDecisionVoterContext voterContext, AccessDecisionState voterState)
+    {
+        if(AccessDecisionState.VOTE_IN_PROGRESS.equals(voterState))
+        {
+            voterState = AccessDecisionState.NO_VIOLATION_FOUND;
+        }
+        setVoterState(voterContext, voterState);
+    }
+
+    private static void setVoterState(AccessDecisionVoterContext voterContext, AccessDecisionState voterState)
+    {
+        if(voterContext instanceof EditableAccessDecisionVoterContext)
+        {
+            ((EditableAccessDecisionVoterContext)voterContext).setState(voterState);
         }
     }
 }
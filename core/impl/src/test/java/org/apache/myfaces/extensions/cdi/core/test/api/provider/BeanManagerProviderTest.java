@@ -26,6 +26,11 @@ import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import javax.enterprise.inject.spi.BeanManager;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.net.URL;
+import java.net.URLClassLoader;
 
 public class BeanManagerProviderTest
 {
@@ -53,4 +58,132 @@ public class BeanManagerProviderTest
             cdiContainer.shutdownContainer();
         }
     }
+
+    @Test
+    public void testJndiLookupIsNotRepeated() throws Exception
+    {
+        CdiTestContainer cdiContainer = CdiTestContainerLoader.getCdiContainer();
+        cdiContainer.bootContainer();
+        try
+        {
+            BeanManagerProvider bmp = BeanManagerProvider.getInstance();
+            BeanManager bm = bmp.getBeanManager();
+
+            long jndiLookupCount = BeanManagerProvider.getJndiLookupCount();
+
+            for (int i = 0; i < 100; i++)
+            {
+                Assert.assertSame(bmp.getBeanManager(), bm);
+            }
+
+            Assert.assertEquals(BeanManagerProvider.getJndiLookupCount(), jndiLookupCount);
+        }
+        finally
+        {
+            cdiContainer.shutdownContainer();
+        }
+    }
+
+    @Test
+    public void testFailedJndiLookupIsNotRepeated() throws Exception
+    {
+        CdiTestContainer cdiContainer = CdiTestContainerLoader.getCdiContainer();
+        cdiContainer.bootContainer();
+
+        Thread currentThread = Thread.currentThread();
+        ClassLoader originalClassLoader = currentThread.getContextClassLoader();
+        try
+        {
+            BeanManagerProvider bmp = BeanManagerProvider.getInstance();
+
+            //a classloader without bean-manager
+            currentThread.setContextClassLoader(new URLClassLoader(new URL[0], originalClassLoader));
+
+            assertMissingBeanManager(bmp);
+            long jndiLookupCount = BeanManagerProvider.getJndiLookupCount();
+
+            assertMissingBeanManager(bmp);
+            Assert.assertEquals(BeanManagerProvider.getJndiLookupCount(), jndiLookupCount);
+        }
+        finally
+        {
+            currentThread.setContextClassLoader(originalClassLoader);
+            cdiContainer.shutdownContainer();
+        }
+    }
+
+    @Test
+    public void testJndiLookupIsNotRepeatedForMultipleApplications() throws Exception
+    {
+        CdiTestContainer cdiContainer = CdiTestContainerLoader.getCdiContainer();
+        cdiContainer.bootContainer();
+
+        Thread currentThread = Thread.currentThread();
+        ClassLoader originalClassLoader = currentThread.getContextClassLoader();
+        ClassLoader otherApplicationClassLoader = new URLClassLoader(new URL[0], originalClassLoader);
+        try
+        {
+            BeanManagerProvider bmp = BeanManagerProvider.getInstance();
+            BeanManager bm = bmp.getBeanManager();
+
+            //the bean-manager of a second application
+            currentThread.setContextClassLoader(otherApplicationClassLoader);
+            BeanManager otherBm = createBeanManager();
+            bmp.setRootBeanManager(otherBm);
+            Assert.assertSame(bmp.getBeanManager(), otherBm);
+
+            long jndiLookupCount = BeanManagerProvider.getJndiLookupCount();
+
+            for (int i = 0; i < 100; i++)
+            {
+                currentThread.setContextClassLoader(originalClassLoader);
+                Assert.assertSame(bmp.getBeanManager(), bm);
+
+                currentThread.setContextClassLoader(otherApplicationClassLoader);
+                Assert.assertSame(bmp.getBeanManager(), otherBm);
+            }
+
+            Assert.assertEquals(BeanManagerProvider.getJndiLookupCount(), jndiLookupCount);
+
+            bmp.cleanupStoredBeanManagerOnShutdown(null);
+        }
+        finally
+        {
+            currentThread.setContextClassLoader(originalClassLoader);
+            cdiContainer.shutdownContainer();
+        }
+    }
+
+    private BeanManager createBeanManager()
+    {
+        return (BeanManager) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{BeanManager.class},
+                new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        if ("hashCode".equals(method.getName()))
+                        {
+                            return System.identityHashCode(proxy);
+                        }
+                        if ("equals".equals(method.getName()))
+                        {
+                            return proxy == args[0];
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private void assertMissingBeanManager(BeanManagerProvider bmp)
+    {
+        try
+        {
+            bmp.getBeanManager();
+            Assert.fail("bean-manager found for an unknown classloader");
+        }
+        catch (IllegalStateException e)
+        {
+            //expected
+        }
+    }
 }
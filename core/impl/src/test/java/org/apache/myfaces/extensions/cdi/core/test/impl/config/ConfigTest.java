@@ -136,6 +136,29 @@ public class ConfigTest
         assertEquals(CodiUtils.lookupFromEnvironment("ext.test.CustomValue", String.class), "test");
     }
 
+    @Test
+    public void testCachedMissingConfiguredValue()
+    {
+        System.getProperties().remove("org.apache.myfaces.extensions.cdi.UnknownValue");
+        assertNull(CodiUtils.lookupFromEnvironment("UnknownValue", String.class));
+
+        try
+        {
+            System.setProperty("org.apache.myfaces.extensions.cdi.UnknownValue", "test");
+
+            //the missing value is cached until the cache gets reset explicitly
+            assertNull(CodiUtils.lookupFromEnvironment("UnknownValue", String.class));
+
+            CodiUtils.resetConfiguredValueCache();
+
+            assertEquals(CodiUtils.lookupFromEnvironment("UnknownValue", String.class), "test");
+        }
+        finally
+        {
+            System.getProperties().remove("org.apache.myfaces.extensions.cdi.UnknownValue");
+        }
+    }
+
     @Test
     public void testCustomArtifact()
     {
@@ -158,6 +181,14 @@ public class ConfigTest
         assertEquals(CodiUtils.lookupFromEnvironment(TestInterface.class).getValue(), "TestImpl");
     }
 
+    @Test
+    public void testCachedArtifactOfInterface()
+    {
+        //the artifact is cached for the requested type and not for the type of the implementation
+        assertSame(CodiUtils.lookupFromEnvironment(TestInterface.class),
+                CodiUtils.lookupFromEnvironment(TestInterface.class));
+    }
+
     @Test
     public void testLookupConfigByConvention()
     {
@@ -0,0 +1,161 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.core.test.impl.logging;
+
+import org.apache.myfaces.extensions.cdi.core.api.logging.Logger;
+import org.apache.myfaces.extensions.cdi.core.impl.logging.CallerInferenceMode;
+import org.apache.myfaces.extensions.cdi.core.impl.logging.DefaultLogger;
+import static org.testng.Assert.*;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.logging.Handler;
+import java.util.logging.Level;
+import java.util.logging.LogRecord;
+
+public class CallerInferenceTest
+{
+    @Test
+    public void testLazyCallerInference()
+    {
+        RecordingHandler handler = new RecordingHandler(true);
+        SimpleTestLogger logger = createLogger("lazy", handler, CallerInferenceMode.LAZY);
+
+        logger.info("msg");
+        logger.log(Level.WARNING, "msg {0}", "param");
+
+        assertEquals(handler.getSourceMethodNames().size(), 2);
+        assertEquals(handler.getSourceMethodNames().get(0), "testLazyCallerInference");
+        assertEquals(handler.getSourceMethodNames().get(1), "testLazyCallerInference");
+        assertEquals(handler.getRecords().get(0).getSourceClassName(), logger.getName());
+        assertEquals(handler.getRecords().get(1).getParameters()[0], "param");
+    }
+
+    @Test
+    public void testLazyCallerInferenceWithoutFormatting()
+    {
+        RecordingHandler handler = new RecordingHandler(false);
+        SimpleTestLogger logger = createLogger("lazy_unformatted", handler, CallerInferenceMode.LAZY);
+
+        logger.info("msg");
+
+        assertEquals(handler.getRecords().size(), 1);
+        //the stack of the log call is gone -> the caller isn't resolved any longer
+        assertEquals(handler.getRecords().get(0).getSourceMethodName(), "");
+    }
+
+    @Test
+    public void testStackTraceCallerInference()
+    {
+        RecordingHandler handler = new RecordingHandler(false);
+        SimpleTestLogger logger = createLogger("stack_trace", handler, CallerInferenceMode.STACK_TRACE);
+
+        logger.severe("msg");
+
+        assertEquals(handler.getRecords().get(0).getSourceMethodName(), "testStackTraceCallerInference");
+    }
+
+    @Test
+    public void testDisabledCallerInference()
+    {
+        RecordingHandler handler = new RecordingHandler(true);
+        SimpleTestLogger logger = createLogger("off", handler, CallerInferenceMode.OFF);
+
+        logger.log(Level.INFO, "msg", new IllegalStateException());
+
+        assertNull(handler.getSourceMethodNames().get(0));
+        assertTrue(handler.getRecords().get(0).getThrown() instanceof IllegalStateException);
+    }
+
+    @Test
+    public void testFactoryKeepsCallerInferenceMode()
+    {
+        SimpleTestLogger logger = new SimpleTestLogger(CallerInferenceTest.class.getName());
+        logger.setCallerInferenceMode(CallerInferenceMode.OFF);
+
+        Logger createdLogger = logger.getFactory().getLogger("factory");
+
+        assertEquals(((DefaultLogger) createdLogger).getCallerInferenceMode(), CallerInferenceMode.OFF);
+    }
+
+    @Test
+    public void testStackTraceIsTheDefaultMode()
+    {
+        if (System.getProperty(CallerInferenceMode.SYSTEM_PROPERTY_KEY) == null)
+        {
+            assertEquals(CallerInferenceMode.getDefaultMode(), CallerInferenceMode.STACK_TRACE);
+        }
+
+        assertEquals(new SimpleTestLogger(CallerInferenceTest.class.getName() + ".default").getCallerInferenceMode(),
+                CallerInferenceMode.getDefaultMode());
+    }
+
+    private SimpleTestLogger createLogger(String name, Handler handler, CallerInferenceMode callerInferenceMode)
+    {
+        SimpleTestLogger logger = new SimpleTestLogger(CallerInferenceTest.class.getName() + "." + name);
+        logger.setCallerInferenceMode(callerInferenceMode);
+        logger.setUseParentHandlers(false);
+        logger.addHandler(handler);
+        return logger;
+    }
+
+    private static class RecordingHandler extends Handler
+    {
+        private final boolean formatSourceMethod;
+        private final List<LogRecord> records = new ArrayList<LogRecord>();
+        private final List<String> sourceMethodNames = new ArrayList<String>();
+
+        private RecordingHandler(boolean formatSourceMethod)
+        {
+            this.formatSourceMethod = formatSourceMethod;
+        }
+
+        @Override
+        public void publish(LogRecord record)
+        {
+            this.records.add(record);
+
+            if(this.formatSourceMethod)
+            {
+                this.sourceMethodNames.add(record.getSourceMethodName());
+            }
+        }
+
+        @Override
+        public void flush()
+        {
+        }
+
+        @Override
+        public void close()
+        {
+        }
+
+        List<LogRecord> getRecords()
+        {
+            return records;
+        }
+
+        List<String> getSourceMethodNames()
+        {
+            return sourceMethodNames;
+        }
+    }
+}
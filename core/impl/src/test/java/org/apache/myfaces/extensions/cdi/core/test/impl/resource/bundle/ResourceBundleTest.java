@@ -19,11 +19,15 @@
 package org.apache.myfaces.extensions.cdi.core.test.impl.resource.bundle;
 
 import org.apache.myfaces.extensions.cdi.core.api.resource.bundle.ResourceBundle;
+import org.apache.myfaces.extensions.cdi.core.impl.resource.bundle.ResourceBundleCacheCleaner;
 import org.apache.myfaces.extensions.cdi.core.impl.resource.bundle.ResourceBundleProducer;
+import org.apache.myfaces.extensions.cdi.core.impl.util.ResourceBundleUtils;
 import org.testng.Assert;
 import org.testng.annotations.Test;
 
 import javax.enterprise.inject.spi.InjectionPoint;
+import java.util.Locale;
+import java.util.Map;
 
 public class ResourceBundleTest
 {
@@ -42,6 +46,38 @@ public class ResourceBundleTest
         Assert.assertEquals(resourceBundle.getValue(Testbundle.MyValue1.class), "2.2");
     }
 
+    @Test
+    public void testMissingBundleKey() throws Exception
+    {
+        ResourceBundle resourceBundle = getTestResourceBundle();
+        Assert.assertNull(resourceBundle.useBundle(getClass().getPackage().getName() + ".testbundle")
+                .getValue("unknown"));
+        Assert.assertNull(resourceBundle.useBundle(getClass().getPackage().getName() + ".unknown").getValue("value1"));
+    }
+
+    @Test
+    public void testBundleOfAnnotatedInterfaceOverridesTheCurrentBundle() throws Exception
+    {
+        ResourceBundle resourceBundle = getTestResourceBundle()
+                .useBundle(getClass().getPackage().getName() + ".testbundle");
+
+        Assert.assertEquals(resourceBundle.getValue(AnnotatedTestbundle.MyValue.class), "4.1");
+    }
+
+    @Test
+    public void testLocalizedBundleWithFallback() throws Exception
+    {
+        ResourceBundle resourceBundle = getTestResourceBundle()
+                .useBundle(getClass().getPackage().getName() + ".testbundle").useLocale(Locale.GERMAN);
+
+        Assert.assertEquals(resourceBundle.getValue("value1"), "eins");
+        //resolved via the parent bundle
+        Assert.assertEquals(resourceBundle.getValue(Testbundle.MyValue1.class), "2.2");
+
+        Assert.assertEquals(getTestResourceBundle().useLocale(Locale.ENGLISH)
+                .getValue(Testbundle.MyValue1.class), "2.2");
+    }
+
     @Test
     public void testTypesafeBundleValue() throws Exception
     {
@@ -61,6 +97,26 @@ public class ResourceBundleTest
         }.toString(), "3.2");
     }
 
+    @Test
+    public void testResolvedBundlesAreRemovedBeforeShutdown() throws Exception
+    {
+        String bundleName = getClass().getPackage().getName() + ".testbundle";
+        Map<String, String> bundleEntries = ResourceBundleUtils.getBundleEntries(bundleName, Locale.ENGLISH);
+
+        Assert.assertSame(ResourceBundleUtils.getBundleEntries(bundleName, Locale.ENGLISH), bundleEntries);
+
+        new ResourceBundleCacheCleaner()
+        {
+            {
+                removeResolvedBundles(null);
+            }
+        };
+
+        Assert.assertNotSame(ResourceBundleUtils.getBundleEntries(bundleName, Locale.ENGLISH), bundleEntries);
+        Assert.assertEquals(ResourceBundleUtils.getBundleEntries(bundleName, Locale.ENGLISH), bundleEntries);
+        Assert.assertEquals(getTestResourceBundle().getValue(Testbundle.MyValue.class), "2.1");
+    }
+
     private ResourceBundle getTestResourceBundle()
     {
         return new ResourceBundleProducer()
@@ -30,6 +30,8 @@ import org.apache.myfaces.extensions.cdi.core.impl.config.ServiceLoaderResolver;
 import org.apache.myfaces.extensions.cdi.core.impl.config.SystemPropertyResolver;
 import org.apache.myfaces.extensions.cdi.core.impl.provider.SimpleServiceProvider;
 import org.apache.myfaces.extensions.cdi.core.impl.provider.SimpleServiceProviderContext;
+import org.apache.myfaces.extensions.cdi.core.impl.resource.bundle.ResourceBundleCacheCleaner;
+import org.apache.myfaces.extensions.cdi.core.impl.util.ResolvedBeanCache;
 import org.apache.myfaces.extensions.cdi.core.test.impl.config.PropertyFileResolverForProjectStage;
 import org.apache.myfaces.extensions.cdi.core.test.impl.config.TestConfiguredValueResolver;
 import org.apache.myfaces.extensions.cdi.core.test.impl.config.TestInterface;
@@ -47,7 +49,7 @@ public class ServiceProviderTest
     public void testExtensionsWithDefaultServiceProvider()
     {
         List<Extension> extensionList = ServiceProvider.loadServices(Extension.class);
-        Assert.assertEquals(extensionList.size(), 3);
+        Assert.assertEquals(extensionList.size(), 5);
 
         Iterator<Extension> iterator = extensionList.iterator();
 
@@ -57,7 +59,9 @@ public class ServiceProviderTest
             extension = iterator.next();
             Assert.assertTrue(extension instanceof ActivationExtension ||
                 extension instanceof BeanManagerProvider ||
-                extension instanceof CodiDeactivatorExtension);
+                extension instanceof CodiDeactivatorExtension ||
+                extension instanceof ResolvedBeanCache ||
+                extension instanceof ResourceBundleCacheCleaner);
 
             iterator.remove();
         }
@@ -71,7 +75,7 @@ public class ServiceProviderTest
     {
         List<Extension> extensionList =
                 ServiceProvider.loadServices(Extension.class, new SimpleServiceProviderContext());
-        Assert.assertEquals(extensionList.size(), 3);
+        Assert.assertEquals(extensionList.size(), 5);
 
         Iterator<Extension> iterator = extensionList.iterator();
 
@@ -81,7 +85,9 @@ public class ServiceProviderTest
             extension = iterator.next();
             Assert.assertTrue(extension instanceof ActivationExtension ||
                 extension instanceof BeanManagerProvider ||
-                extension instanceof CodiDeactivatorExtension);
+                extension instanceof CodiDeactivatorExtension ||
+                extension instanceof ResolvedBeanCache ||
+                extension instanceof ResourceBundleCacheCleaner);
 
             iterator.remove();
         }
@@ -100,7 +106,7 @@ public class ServiceProviderTest
                 return super.loadServiceImplementations();
             }
         }.loadServiceImplementations();
-        Assert.assertEquals(extensionList.size(), 3);
+        Assert.assertEquals(extensionList.size(), 5);
 
         Iterator<Extension> iterator = extensionList.iterator();
 
@@ -110,7 +116,9 @@ public class ServiceProviderTest
             extension = iterator.next();
             Assert.assertTrue(extension instanceof ActivationExtension ||
                 extension instanceof BeanManagerProvider ||
-                extension instanceof CodiDeactivatorExtension);
+                extension instanceof CodiDeactivatorExtension ||
+                extension instanceof ResolvedBeanCache ||
+                extension instanceof ResourceBundleCacheCleaner);
 
             iterator.remove();
         }
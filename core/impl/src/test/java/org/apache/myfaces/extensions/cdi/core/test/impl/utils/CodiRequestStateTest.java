@@ -0,0 +1,153 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.core.test.impl.utils;
+
+import org.apache.myfaces.extensions.cdi.core.impl.util.CodiRequestState;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import java.lang.ref.WeakReference;
+
+import static org.testng.Assert.*;
+
+public class CodiRequestStateTest
+{
+    private static final CodiRequestState.Key<String> REQUEST_VALUE_KEY =
+            new CodiRequestState.Key<String>("request value");
+
+    private static final CodiRequestState.Key<String> MANUAL_VALUE_KEY =
+            new CodiRequestState.Key<String>("manual value", false);
+
+    @AfterMethod
+    public void cleanup()
+    {
+        CodiRequestState.end();
+        CodiRequestState.setValue(MANUAL_VALUE_KEY, null);
+    }
+
+    @Test
+    public void testRequestValuesAreRemovedAtTheEndOfTheRequest()
+    {
+        CodiRequestState requestState = CodiRequestState.begin();
+        requestState.set(REQUEST_VALUE_KEY, "value");
+
+        assertSame(CodiRequestState.getCurrentRequestState(), requestState);
+        assertEquals(CodiRequestState.getValue(REQUEST_VALUE_KEY), "value");
+
+        CodiRequestState.end();
+
+        assertNull(CodiRequestState.getValue(REQUEST_VALUE_KEY));
+        assertNull(CodiRequestState.getExistingRequestState());
+    }
+
+    @Test
+    public void testNestedRequestKeepsTheValuesOfTheOuterRequest()
+    {
+        CodiRequestState requestState = CodiRequestState.begin();
+        requestState.set(REQUEST_VALUE_KEY, "value");
+
+        assertSame(CodiRequestState.begin(), requestState);
+        CodiRequestState.end();
+
+        assertEquals(CodiRequestState.getValue(REQUEST_VALUE_KEY), "value");
+
+        CodiRequestState.end();
+
+        assertNull(CodiRequestState.getValue(REQUEST_VALUE_KEY));
+        assertNull(CodiRequestState.getExistingRequestState());
+    }
+
+    @Test
+    public void testManualValuesSurviveTheEndOfTheRequest()
+    {
+        CodiRequestState.setValue(MANUAL_VALUE_KEY, "transaction");
+
+        CodiRequestState.begin();
+        CodiRequestState.setValue(REQUEST_VALUE_KEY, "value");
+        CodiRequestState.end();
+
+        assertNull(CodiRequestState.getValue(REQUEST_VALUE_KEY));
+        assertEquals(CodiRequestState.getValue(MANUAL_VALUE_KEY), "transaction");
+
+        CodiRequestState.setValue(MANUAL_VALUE_KEY, null);
+
+        assertNull(CodiRequestState.getExistingRequestState());
+    }
+
+    @Test
+    public void testLazilyCreatedStateIsRemovedAfterTheLastReset()
+    {
+        CodiRequestState.setValue(REQUEST_VALUE_KEY, "value");
+        assertNotNull(CodiRequestState.getExistingRequestState());
+
+        CodiRequestState.setValue(REQUEST_VALUE_KEY, null);
+        assertNull(CodiRequestState.getExistingRequestState());
+
+        //resetting a value doesn't create a state
+        CodiRequestState.setValue(REQUEST_VALUE_KEY, null);
+        assertNull(CodiRequestState.getExistingRequestState());
+    }
+
+    @Test
+    public void testBoundStateIsKeptWithoutValues()
+    {
+        CodiRequestState requestState = CodiRequestState.begin();
+
+        CodiRequestState.setValue(REQUEST_VALUE_KEY, "value");
+        CodiRequestState.setValue(REQUEST_VALUE_KEY, null);
+
+        assertSame(CodiRequestState.getExistingRequestState(), requestState);
+    }
+
+    @Test
+    public void testUnusedKeysAreReleased() throws Exception
+    {
+        CodiRequestState requestState = CodiRequestState.begin();
+
+        CodiRequestState.Key<String> key = new CodiRequestState.Key<String>("temporary value");
+        requestState.set(key, "value");
+
+        WeakReference<CodiRequestState.Key<String>> keyReference =
+                new WeakReference<CodiRequestState.Key<String>>(key);
+        //noinspection UnusedAssignment
+        key = null;
+
+        //the slot of a key stays reserved as long as a state holds a value for it
+        collectGarbage(keyReference);
+        assertNotNull(keyReference.get());
+
+        CodiRequestState.end();
+
+        collectGarbage(keyReference);
+        assertNull(keyReference.get());
+
+        //a new key doesn't see the values of previous keys
+        CodiRequestState.Key<String> newKey = new CodiRequestState.Key<String>("new value");
+        assertNull(CodiRequestState.getCurrentRequestState().get(newKey));
+    }
+
+    private static void collectGarbage(WeakReference<?> reference) throws InterruptedException
+    {
+        for (int i = 0; i < 10 && reference.get() != null; i++)
+        {
+            System.gc();
+            Thread.sleep(10);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.core.test.impl.utils;
+
+import org.apache.myfaces.extensions.cdi.core.impl.util.CodiUtils;
+import org.apache.myfaces.extensions.cdi.core.impl.util.ResolvedBeanCache;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.util.AnnotationLiteral;
+import javax.inject.Qualifier;
+import java.lang.annotation.Retention;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+
+public class ResolvedBeanCacheTest
+{
+    private TestResolvedBeanCache resolvedBeanCache;
+
+    private BeanManager beanManager;
+
+    private Bean<?> bean;
+
+    private int beanLookupCount;
+
+    private boolean beanAvailable;
+
+    @BeforeMethod
+    public void init()
+    {
+        this.beanLookupCount = 0;
+        this.beanAvailable = true;
+        this.bean = createProxy(Bean.class);
+        this.beanManager = createProxy(BeanManager.class);
+        this.resolvedBeanCache = new TestResolvedBeanCache();
+    }
+
+    @AfterMethod
+    public void cleanup()
+    {
+        this.resolvedBeanCache.deactivate();
+    }
+
+    @Test
+    public void testNoCachingBeforeDeploymentValidation()
+    {
+        this.resolvedBeanCache.deactivate();
+
+        CodiUtils.getContextualReferenceByClass(this.beanManager, String.class);
+        CodiUtils.getContextualReferenceByClass(this.beanManager, String.class);
+
+        Assert.assertEquals(this.beanLookupCount, 2);
+        Assert.assertEquals(ResolvedBeanCache.getHitCount(), 0);
+        Assert.assertEquals(ResolvedBeanCache.getMissCount(), 0);
+    }
+
+    @Test
+    public void testCachedBeanWithoutQualifier()
+    {
+        this.resolvedBeanCache.activate(this.beanManager);
+
+        for (int i = 0; i < 10; i++)
+        {
+            Assert.assertEquals(CodiUtils.getContextualReferenceByClass(this.beanManager, String.class), "reference");
+        }
+
+        Assert.assertEquals(this.beanLookupCount, 1);
+        Assert.assertEquals(ResolvedBeanCache.getHitCount(), 9);
+        Assert.assertEquals(ResolvedBeanCache.getMissCount(), 1);
+    }
+
+    @Test
+    public void testCachedBeanWithQualifier()
+    {
+        this.resolvedBeanCache.activate(this.beanManager);
+
+        CodiUtils.getContextualReferenceByClass(this.beanManager, String.class, new TestQualifierLiteral());
+        CodiUtils.getContextualReferenceByClass(this.beanManager, String.class, new TestQualifierLiteral());
+        CodiUtils.getContextualReferenceByClass(this.beanManager, String.class);
+
+        Assert.assertEquals(this.beanLookupCount, 2);
+        Assert.assertEquals(ResolvedBeanCache.getHitCount(), 1);
+        Assert.assertEquals(ResolvedBeanCache.getMissCount(), 2);
+    }
+
+    @Test
+    public void testHitCountOfConcurrentLookups() throws Exception
+    {
+        this.resolvedBeanCache.activate(this.beanManager);
+
+        CodiUtils.getContextualReferenceByClass(this.beanManager, String.class);
+
+        Thread[] threads = new Thread[8];
+
+        for (int i = 0; i < threads.length; i++)
+        {
+            threads[i] = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    for (int i = 0; i < 1000; i++)
+                    {
+                        CodiUtils.getContextualReferenceByClass(beanManager, String.class);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+
+        for (Thread thread : threads)
+        {
+            thread.join(10000);
+        }
+
+        Assert.assertEquals(this.beanLookupCount, 1);
+        Assert.assertEquals(ResolvedBeanCache.getHitCount(), 8000);
+        Assert.assertEquals(ResolvedBeanCache.getMissCount(), 1);
+    }
+
+    @Test
+    public void testCachedMissingBean()
+    {
+        this.beanAvailable = false;
+        this.resolvedBeanCache.activate(this.beanManager);
+
+        Assert.assertNull(CodiUtils.getContextualReferenceByClass(this.beanManager, String.class, true));
+        Assert.assertNull(CodiUtils.getContextualReferenceByClass(this.beanManager, String.class, true));
+
+        try
+        {
+            CodiUtils.getContextualReferenceByClass(this.beanManager, String.class);
+            Assert.fail("missing bean not detected");
+        }
+        catch (IllegalStateException e)
+        {
+            //expected
+        }
+
+        Assert.assertEquals(this.beanLookupCount, 1);
+    }
+
+    @Test
+    public void testNoCachingForDifferentBeanManager()
+    {
+        this.resolvedBeanCache.activate(createProxy(BeanManager.class));
+
+        CodiUtils.getContextualReferenceByClass(this.beanManager, String.class);
+        CodiUtils.getContextualReferenceByClass(this.beanManager, String.class);
+
+        Assert.assertEquals(this.beanLookupCount, 2);
+    }
+
+    private <T> T createProxy(final Class<T> type)
+    {
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{type},
+                new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        if ("getBeans".equals(method.getName()))
+                        {
+                            beanLookupCount++;
+
+                            if (beanAvailable)
+                            {
+                                return new HashSet<Bean<?>>(Collections.<Bean<?>>singleton(bean));
+                            }
+                            return Collections.emptySet();
+                        }
+                        if ("resolve".equals(method.getName()))
+                        {
+                            return ((Set) args[0]).iterator().next();
+                        }
+                        if ("getReference".equals(method.getName()))
+                        {
+                            return "reference";
+                        }
+                        if ("hashCode".equals(method.getName()))
+                        {
+                            return System.identityHashCode(proxy);
+                        }
+                        if ("equals".equals(method.getName()))
+                        {
+                            return proxy == args[0];
+                        }
+                        return null;
+                    }
+                }));
+    }
+
+    private static class TestResolvedBeanCache extends ResolvedBeanCache
+    {
+        void activate(BeanManager beanManager)
+        {
+            activateCache(null, beanManager);
+        }
+
+        void deactivate()
+        {
+            removeCache(null);
+        }
+    }
+
+    @Retention(RUNTIME)
+    @Qualifier
+    public @interface TestQualifier
+    {
+    }
+
+    public static class TestQualifierLiteral extends AnnotationLiteral<TestQualifier> implements TestQualifier
+    {
+        private static final long serialVersionUID = -4374416437546406208L;
+    }
+}
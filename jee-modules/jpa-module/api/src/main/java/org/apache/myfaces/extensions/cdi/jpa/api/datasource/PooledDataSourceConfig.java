@@ -0,0 +1,86 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jpa.api.datasource;
+
+/**
+ * <h3>Optional pooling configuration for the DataSource.</h3>
+ * <p>If the {@link DataSourceConfig} of an application implements this interface and
+ * {@link #getMaxPoolSize(String)} returns a value greater than 0, the ConfigurableDataSource
+ * pools the connections of a configured javax.sql.Driver (instead of opening a new physical connection
+ * for every request). Pooling isn't used for DataSources which are looked up via JNDI or
+ * configured via the class name of a DataSource, because such DataSources typically provide
+ * their own pool.</p>
+ *
+ * <p>All durations are milliseconds.</p>
+ */
+public interface PooledDataSourceConfig extends DataSourceConfig
+{
+    /**
+     * @param connectionId used to distinguish between different databases.
+     *
+     * @return the max. number of open connections or a value less than 1 if pooling should be disabled
+     */
+    public int getMaxPoolSize(String connectionId);
+
+    /**
+     * @param connectionId used to distinguish between different databases.
+     *
+     * @return the number of connections which get opened during the initialization
+     *      and which aren't closed due to the {@link #getMaxIdleTime(String)}
+     */
+    public int getMinPoolSize(String connectionId);
+
+    /**
+     * @param connectionId used to distinguish between different databases.
+     *
+     * @return the max. time to wait for a free connection if all connections are in use
+     */
+    public long getMaxWaitTime(String connectionId);
+
+    /**
+     * @param connectionId used to distinguish between different databases.
+     *
+     * @return true if an idle connection should be validated before it gets used again
+     */
+    public boolean isValidateOnBorrow(String connectionId);
+
+    /**
+     * @param connectionId used to distinguish between different databases.
+     *
+     * @return query which gets used for validating a connection
+     *      or <code>null</code> if it's enough to check if the connection is still open
+     */
+    public String getValidationQuery(String connectionId);
+
+    /**
+     * @param connectionId used to distinguish between different databases.
+     *
+     * @return the time after which an unused connection gets closed
+     *      or a value less than 1 if idle connections shouldn't be closed
+     */
+    public long getMaxIdleTime(String connectionId);
+
+    /**
+     * @param connectionId used to distinguish between different databases.
+     *
+     * @return the time after which a connection which wasn't closed by the application
+     *      gets logged as possible leak or a value less than 1 if leaks shouldn't be detected
+     */
+    public long getLeakDetectionThreshold(String connectionId);
+}
@@ -18,6 +18,8 @@
  */
 package org.apache.myfaces.extensions.cdi.jpa.impl;
 
+import java.lang.reflect.Field;
+
 /**
  * Entry which stores information about a {@link javax.persistence.PersistenceContext}
  */
@@ -30,12 +32,27 @@ class PersistenceContextMetaEntry
     private String unitName;
     private boolean extended;
 
+    //resolved once - null if the entry doesn't represent a field
+    private final Field entityManagerField;
+
     PersistenceContextMetaEntry(Class sourceClass, String fieldName, String unitName, boolean extended)
     {
         this.sourceClass = sourceClass;
         this.fieldName = fieldName;
         this.unitName = unitName;
         this.extended = extended;
+        this.entityManagerField = null;
+    }
+
+    PersistenceContextMetaEntry(Field entityManagerField, String unitName, boolean extended)
+    {
+        this.sourceClass = entityManagerField.getDeclaringClass();
+        this.fieldName = entityManagerField.getName();
+        this.unitName = unitName;
+        this.extended = extended;
+
+        entityManagerField.setAccessible(true);
+        this.entityManagerField = entityManagerField;
     }
 
     Class getSourceClass()
@@ -57,4 +74,12 @@ class PersistenceContextMetaEntry
     {
         return extended;
     }
+
+    /**
+     * @return the accessible field of the injected entity-manager or null if there is no such field
+     */
+    Field getEntityManagerField()
+    {
+        return entityManagerField;
+    }
 }
@@ -28,6 +28,7 @@ import javax.persistence.PersistenceContextType;
 import java.lang.reflect.Field;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Helper which provides util methods for
@@ -39,7 +40,7 @@ public class PersistenceHelper
 {
     private static final String NO_FIELD_MARKER = PersistenceHelper.class.getName() + ":DEFAULT_FIELD";
 
-    private static transient volatile Map<ClassLoader, Map<String, PersistenceContextMetaEntry>>
+    private static transient volatile ConcurrentMap<ClassLoader, Map<String, PersistenceContextMetaEntry>>
             persistenceContextMetaEntries =
                 new ConcurrentHashMap<ClassLoader, Map<String, PersistenceContextMetaEntry>>();
 
@@ -70,9 +71,7 @@ public class PersistenceHelper
      */
     static EntityManagerEntry tryToFindEntityManagerEntryInTarget(Object target)
     {
-        Map<String, PersistenceContextMetaEntry> mapping = persistenceContextMetaEntries.get(getClassLoader());
-
-        mapping = initMapping(mapping);
+        Map<String, PersistenceContextMetaEntry> mapping = getMapping();
 
         String key = target.getClass().getName();
         PersistenceContextMetaEntry persistenceContextEntry = mapping.get(key);
@@ -96,19 +95,14 @@ public class PersistenceHelper
             mapping.put(key, persistenceContextEntry);
         }
 
-        Field entityManagerField;
-        try
-        {
-            entityManagerField = persistenceContextEntry.getSourceClass()
-                    .getDeclaredField(persistenceContextEntry.getFieldName());
-        }
-        catch (NoSuchFieldException e)
+        Field entityManagerField = persistenceContextEntry.getEntityManagerField();
+
+        if(entityManagerField == null)
         {
             //TODO add logging in case of project stage dev.
             return null;
         }
 
-        entityManagerField.setAccessible(true);
         try
         {
             EntityManager entityManager = (EntityManager)entityManagerField.get(target);
@@ -121,13 +115,23 @@ public class PersistenceHelper
         }
     }
 
-    private static synchronized Map<String, PersistenceContextMetaEntry> initMapping(
-            Map<String, PersistenceContextMetaEntry> mapping)
+    private static Map<String, PersistenceContextMetaEntry> getMapping()
     {
+        ClassLoader classLoader = getClassLoader();
+        Map<String, PersistenceContextMetaEntry> mapping = persistenceContextMetaEntries.get(classLoader);
+
         if(mapping == null)
         {
             mapping = new ConcurrentHashMap<String, PersistenceContextMetaEntry>();
-            persistenceContextMetaEntries.put(getClassLoader(), mapping);
+
+            //no lock needed - all threads use the mapping which was stored first
+            Map<String, PersistenceContextMetaEntry> existingMapping =
+                    persistenceContextMetaEntries.putIfAbsent(classLoader, mapping);
+
+            if(existingMapping != null)
+            {
+                mapping = existingMapping;
+            }
         }
         return mapping;
     }
@@ -145,8 +149,7 @@ public class PersistenceHelper
                 if(persistenceContext != null)
                 {
                     return new PersistenceContextMetaEntry(
-                                   currentParamClass,
-                                   currentField.getName(),
+                                   currentField,
                                    persistenceContext.unitName(),
                                    PersistenceContextType.EXTENDED.equals(persistenceContext.type()));
                 }
@@ -21,6 +21,7 @@ package org.apache.myfaces.extensions.cdi.jpa.impl.datasource;
 import org.apache.myfaces.extensions.cdi.core.api.provider.BeanManagerProvider;
 import org.apache.myfaces.extensions.cdi.core.impl.util.JndiUtils;
 import org.apache.myfaces.extensions.cdi.jpa.api.datasource.DataSourceConfig;
+import org.apache.myfaces.extensions.cdi.jpa.api.datasource.PooledDataSourceConfig;
 
 import javax.sql.DataSource;
 import java.io.PrintWriter;
@@ -44,6 +45,11 @@ import java.util.logging.Logger;
  * To distinguish different databases, users can specify a
  * <code>connectionId</code>. If no <code>connectionId</code> is set,
  * the String <code>default</code> will be used</p>
+ *
+ * <p>Connections of a configured JDBC Driver get pooled if the
+ * {@link DataSourceConfig} implements {@link PooledDataSourceConfig}.
+ * All ConfigurableDataSources of an application with the same <code>connectionId</code>
+ * share the pool (see {@link ConnectionPoolRegistry}).</p>
  */
 public class ConfigurableDataSource implements DataSource
 {
@@ -85,6 +91,10 @@ public class ConfigurableDataSource implements DataSource
      */
     private Driver wrappedJdbcDriver = null;
 
+    /**
+     *  The (shared) pool for the connections of the jdbcDriver if pooling is configured.
+     */
+    private ConnectionPool connectionPool = null;
 
     public ConfigurableDataSource()
     {
@@ -125,12 +135,32 @@ public class ConfigurableDataSource implements DataSource
         else if (wrappedJdbcDriver != null)
         {
             // if we got a native JDBC Driver class as underlying connector
+            if (connectionPool != null)
+            {
+                return connectionPool.getConnection();
+            }
             return wrappedJdbcDriver.connect(jdbcConnectionURL, connectionProperties);
         }
 
         return null;
     }
 
+    /**
+     * Releases the connection pool (if pooling is configured) - the next call of {@link #getConnection()}
+     * initializes the DataSource again.
+     * The pool is shared by all ConfigurableDataSources with the same <code>connectionId</code> and
+     * therefore it stays open. It's closed automatically before the shutdown of the container.
+     */
+    public synchronized void close()
+    {
+        if (connectionPool != null)
+        {
+            ConnectionPoolRegistry.releaseConnectionPool(connectionPool);
+        }
+
+        resetDataSource();
+        loaded = false;
+    }
 
     public PrintWriter getLogWriter() throws SQLException
     {
@@ -188,8 +218,14 @@ public class ConfigurableDataSource implements DataSource
         {
             return;
         }
+
+        // the flag is set after a successful initialization - otherwise the next call tries it again
+        loadDataSource();
         loaded = true;
+    }
 
+    private void loadDataSource() throws SQLException
+    {
         String jndiLookupName = dataSourceConfig.getJndiResourceName(connectionId);
         if (jndiLookupName != null && jndiLookupName.length() > 0)
         {
@@ -234,6 +270,7 @@ public class ConfigurableDataSource implements DataSource
                 }
 
                 wrappedJdbcDriver = (Driver) clazz.newInstance();
+                connectionPool = createConnectionPool();
             }
             else
             {
@@ -244,21 +281,50 @@ public class ConfigurableDataSource implements DataSource
         }
         catch (RuntimeException e)
         {
-            wrappedDataSource = null;
+            resetDataSource();
             throw e;
         }
         catch (SQLException e)
         {
-            wrappedDataSource = null;
+            resetDataSource();
             throw e;
         }
         catch (Exception e)
         {
-            wrappedDataSource = null;
+            resetDataSource();
             throw new RuntimeException(e);
         }
     }
 
+    private void resetDataSource()
+    {
+        wrappedDataSource = null;
+        wrappedJdbcDriver = null;
+        connectionPool = null;
+    }
+
+    /**
+     * @return the (shared) pool for the connections of the configured JDBC Driver
+     *      or <code>null</code> if pooling isn't configured for the current connectionId
+     */
+    protected ConnectionPool createConnectionPool() throws SQLException
+    {
+        if (!(dataSourceConfig instanceof PooledDataSourceConfig))
+        {
+            return null;
+        }
+
+        PooledDataSourceConfig poolConfig = (PooledDataSourceConfig) dataSourceConfig;
+
+        if (poolConfig.getMaxPoolSize(connectionId) < 1)
+        {
+            return null;
+        }
+
+        return ConnectionPoolRegistry.acquireConnectionPool(
+                wrappedJdbcDriver, jdbcConnectionURL, connectionProperties, connectionId, poolConfig);
+    }
+
     protected void setProperty(Object instance, String key, String value)
             throws InvocationTargetException, IllegalAccessException
     {
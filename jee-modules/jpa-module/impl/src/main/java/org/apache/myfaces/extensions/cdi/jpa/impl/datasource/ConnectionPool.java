@@ -0,0 +1,585 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jpa.impl.datasource;
+
+import org.apache.myfaces.extensions.cdi.jpa.api.datasource.PooledDataSourceConfig;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * <p>Simple bounded pool for the connections of a {@link Driver} which is used by the
+ * {@link ConfigurableDataSource} if it's configured via {@link PooledDataSourceConfig}.</p>
+ *
+ * <p>Borrowing and returning an idle connection doesn't need a lock. Only if all connections are in use,
+ * the caller has to wait (max. {@link PooledDataSourceConfig#getMaxWaitTime(String)}).
+ * There is no background thread - the eviction of idle connections and the leak detection are
+ * performed by the threads which use the pool (if the maintenance interval is over).</p>
+ */
+public class ConnectionPool implements ConnectionPoolMBean
+{
+    private static final Logger LOGGER = Logger.getLogger(ConnectionPool.class.getName());
+
+    private final Driver driver;
+    private final String jdbcConnectionURL;
+    private final Properties connectionProperties;
+    private final String connectionId;
+
+    private final int minPoolSize;
+    private final int maxPoolSize;
+    private final long maxWaitTime;
+    private final boolean validateOnBorrow;
+    private final String validationQuery;
+    private final long maxIdleTime;
+    private final long leakDetectionThreshold;
+    private final long maintenanceInterval;
+
+    private final Queue<PooledConnection> idleConnections = new ConcurrentLinkedQueue<PooledConnection>();
+
+    //only used for the leak detection
+    private final Map<PooledConnection, Boolean> borrowedConnections =
+            new ConcurrentHashMap<PooledConnection, Boolean>();
+
+    //one permit per connection which can be used by the application
+    private final Semaphore borrowPermits;
+
+    private final AtomicInteger openConnectionCount = new AtomicInteger();
+    private final AtomicInteger idleConnectionCount = new AtomicInteger();
+
+    private final AtomicLong borrowCount = new AtomicLong();
+    private final AtomicLong createdConnectionCount = new AtomicLong();
+    private final AtomicLong destroyedConnectionCount = new AtomicLong();
+    private final AtomicLong validationFailureCount = new AtomicLong();
+    private final AtomicLong waitTimeoutCount = new AtomicLong();
+    private final AtomicLong leakCount = new AtomicLong();
+
+    private final AtomicLong nextMaintenance = new AtomicLong();
+
+    private volatile boolean closed;
+
+    private ObjectName objectName;
+
+    public ConnectionPool(Driver driver,
+                          String jdbcConnectionURL,
+                          Properties connectionProperties,
+                          String connectionId,
+                          PooledDataSourceConfig poolConfig) throws SQLException
+    {
+        this.driver = driver;
+        this.jdbcConnectionURL = jdbcConnectionURL;
+        this.connectionProperties = connectionProperties;
+        this.connectionId = connectionId;
+
+        this.maxPoolSize = poolConfig.getMaxPoolSize(connectionId);
+
+        if (this.maxPoolSize < 1)
+        {
+            throw new IllegalArgumentException("the max. pool size for '" + connectionId + "' has to be > 0");
+        }
+
+        this.minPoolSize = Math.max(0, Math.min(poolConfig.getMinPoolSize(connectionId), this.maxPoolSize));
+        this.maxWaitTime = Math.max(0, poolConfig.getMaxWaitTime(connectionId));
+        this.validateOnBorrow = poolConfig.isValidateOnBorrow(connectionId);
+        this.validationQuery = poolConfig.getValidationQuery(connectionId);
+        this.maxIdleTime = poolConfig.getMaxIdleTime(connectionId);
+        this.leakDetectionThreshold = poolConfig.getLeakDetectionThreshold(connectionId);
+        this.maintenanceInterval = calculateMaintenanceInterval(this.maxIdleTime, this.leakDetectionThreshold);
+
+        this.borrowPermits = new Semaphore(this.maxPoolSize, true);
+
+        try
+        {
+            for (int i = 0; i < this.minPoolSize; i++)
+            {
+                addIdleConnection(createConnection());
+            }
+        }
+        catch (SQLException e)
+        {
+            //the connections which were created already aren't used by a pool
+            destroyIdleConnections();
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            destroyIdleConnections();
+            throw e;
+        }
+
+        this.nextMaintenance.set(System.currentTimeMillis() + this.maintenanceInterval);
+    }
+
+    private static long calculateMaintenanceInterval(long maxIdleTime, long leakDetectionThreshold)
+    {
+        long result = Long.MAX_VALUE;
+
+        if (maxIdleTime > 0)
+        {
+            result = maxIdleTime;
+        }
+        if (leakDetectionThreshold > 0)
+        {
+            result = Math.min(result, leakDetectionThreshold);
+        }
+
+        if (result == Long.MAX_VALUE)
+        {
+            return -1;
+        }
+        return Math.max(1, result / 2);
+    }
+
+    /**
+     * @return a handle for an idle or a new connection
+     * @throws SQLException if the pool is closed, if no connection was available within the max. wait time
+     * or if the driver failed to open a new connection
+     */
+    public Connection getConnection() throws SQLException
+    {
+        if (this.closed)
+        {
+            throw new SQLException("the connection pool of '" + this.connectionId + "' is closed");
+        }
+
+        acquireBorrowPermit();
+
+        PooledConnection pooledConnection;
+        try
+        {
+            pooledConnection = pollIdleConnection();
+
+            if (pooledConnection == null)
+            {
+                pooledConnection = createConnection();
+            }
+        }
+        catch (SQLException e)
+        {
+            this.borrowPermits.release();
+            throw e;
+        }
+        catch (RuntimeException e)
+        {
+            this.borrowPermits.release();
+            throw e;
+        }
+
+        this.borrowCount.incrementAndGet();
+
+        boolean leakDetectionEnabled = this.leakDetectionThreshold > 0;
+        Connection result = pooledConnection.borrow(leakDetectionEnabled);
+
+        if (leakDetectionEnabled)
+        {
+            this.borrowedConnections.put(pooledConnection, Boolean.TRUE);
+        }
+
+        performMaintenanceIfNeeded();
+        return result;
+    }
+
+    private void acquireBorrowPermit() throws SQLException
+    {
+        //fast path
+        if (this.borrowPermits.tryAcquire())
+        {
+            return;
+        }
+
+        try
+        {
+            if (this.borrowPermits.tryAcquire(this.maxWaitTime, TimeUnit.MILLISECONDS))
+            {
+                return;
+            }
+        }
+        catch (InterruptedException e)
+        {
+            Thread.currentThread().interrupt();
+            throw new SQLException("interrupted while waiting for a connection of '" + this.connectionId + "'");
+        }
+
+        this.waitTimeoutCount.incrementAndGet();
+        throw new SQLException("no connection of '" + this.connectionId + "' available within " +
+                this.maxWaitTime + " ms (max. pool size: " + this.maxPoolSize + ")");
+    }
+
+    private PooledConnection pollIdleConnection()
+    {
+        PooledConnection pooledConnection = this.idleConnections.poll();
+
+        while (pooledConnection != null)
+        {
+            this.idleConnectionCount.decrementAndGet();
+
+            if (!this.validateOnBorrow || isValid(pooledConnection))
+            {
+                return pooledConnection;
+            }
+
+            this.validationFailureCount.incrementAndGet();
+            destroyConnection(pooledConnection);
+
+            pooledConnection = this.idleConnections.poll();
+        }
+        return null;
+    }
+
+    private boolean isValid(PooledConnection pooledConnection)
+    {
+        Connection connection = pooledConnection.getPhysicalConnection();
+
+        try
+        {
+            if (connection.isClosed())
+            {
+                return false;
+            }
+
+            if (this.validationQuery != null)
+            {
+                Statement statement = connection.createStatement();
+                try
+                {
+                    statement.execute(this.validationQuery);
+                }
+                finally
+                {
+                    statement.close();
+                }
+            }
+            return true;
+        }
+        catch (SQLException e)
+        {
+            return false;
+        }
+    }
+
+    private PooledConnection createConnection() throws SQLException
+    {
+        Connection connection = this.driver.connect(this.jdbcConnectionURL, this.connectionProperties);
+
+        if (connection == null)
+        {
+            throw new SQLException("the driver of '" + this.connectionId + "' doesn't accept the connection URL " +
+                    this.jdbcConnectionURL);
+        }
+
+        this.openConnectionCount.incrementAndGet();
+        this.createdConnectionCount.incrementAndGet();
+
+        try
+        {
+            return new PooledConnection(this, connection);
+        }
+        catch (SQLException e)
+        {
+            destroyConnection(connection);
+            throw e;
+        }
+    }
+
+    /**
+     * Called by the handle of the connection
+     * @param pooledConnection connection which isn't used by the application any longer
+     */
+    void returnConnection(PooledConnection pooledConnection)
+    {
+        this.borrowedConnections.remove(pooledConnection);
+
+        try
+        {
+            //the pool might have been closed in the meantime
+            if (!this.closed && this.openConnectionCount.get() <= this.maxPoolSize && pooledConnection.reset())
+            {
+                addIdleConnection(pooledConnection);
+
+                if (this.closed)
+                {
+                    destroyIdleConnections();
+                }
+            }
+            else
+            {
+                destroyConnection(pooledConnection);
+            }
+        }
+        finally
+        {
+            this.borrowPermits.release();
+        }
+
+        performMaintenanceIfNeeded();
+    }
+
+    private void addIdleConnection(PooledConnection pooledConnection)
+    {
+        this.idleConnections.offer(pooledConnection);
+        this.idleConnectionCount.incrementAndGet();
+    }
+
+    private void performMaintenanceIfNeeded()
+    {
+        if (this.maintenanceInterval < 0)
+        {
+            return;
+        }
+
+        long now = System.currentTimeMillis();
+        long currentNextMaintenance = this.nextMaintenance.get();
+
+        //only one thread performs the maintenance
+        if (now < currentNextMaintenance ||
+                !this.nextMaintenance.compareAndSet(currentNextMaintenance, now + this.maintenanceInterval))
+        {
+            return;
+        }
+
+        if (this.maxIdleTime > 0)
+        {
+            evictIdleConnections(now);
+        }
+
+        if (this.leakDetectionThreshold > 0)
+        {
+            detectLeaks(now);
+        }
+    }
+
+    private void evictIdleConnections(long now)
+    {
+        for (PooledConnection pooledConnection : this.idleConnections)
+        {
+            if (this.openConnectionCount.get() <= this.minPoolSize)
+            {
+                return;
+            }
+
+            //remove fails if the connection was borrowed in the meantime
+            if (now - pooledConnection.getLastReturnTime() > this.maxIdleTime &&
+                    this.idleConnections.remove(pooledConnection))
+            {
+                this.idleConnectionCount.decrementAndGet();
+                destroyConnection(pooledConnection);
+            }
+        }
+    }
+
+    private void detectLeaks(long now)
+    {
+        for (PooledConnection pooledConnection : this.borrowedConnections.keySet())
+        {
+            long borrowDuration = now - pooledConnection.getBorrowTime();
+
+            if (borrowDuration > this.leakDetectionThreshold && pooledConnection.markLeakReported())
+            {
+                this.leakCount.incrementAndGet();
+
+                if (LOGGER.isLoggable(Level.WARNING))
+                {
+                    LOGGER.log(Level.WARNING, "a connection of '" + this.connectionId + "' is in use for " +
+                            borrowDuration + " ms - it might not have been closed",
+                            pooledConnection.getBorrowLocation());
+                }
+            }
+        }
+    }
+
+    private void destroyConnection(PooledConnection pooledConnection)
+    {
+        destroyConnection(pooledConnection.getPhysicalConnection());
+    }
+
+    private void destroyConnection(Connection connection)
+    {
+        this.openConnectionCount.decrementAndGet();
+        this.destroyedConnectionCount.incrementAndGet();
+
+        try
+        {
+            connection.close();
+        }
+        catch (SQLException e)
+        {
+            LOGGER.log(Level.FINE, "failed to close a connection of '" + this.connectionId + "'", e);
+        }
+    }
+
+    private void destroyIdleConnections()
+    {
+        PooledConnection pooledConnection = this.idleConnections.poll();
+
+        while (pooledConnection != null)
+        {
+            this.idleConnectionCount.decrementAndGet();
+            destroyConnection(pooledConnection);
+            pooledConnection = this.idleConnections.poll();
+        }
+    }
+
+    /**
+     * Closes all idle connections - the pool stays open and creates new connections on demand.
+     */
+    public void closeIdleConnections()
+    {
+        destroyIdleConnections();
+    }
+
+    /**
+     * Closes all idle connections. Connections which are in use get closed as soon as they are returned.
+     */
+    public void close()
+    {
+        this.closed = true;
+        destroyIdleConnections();
+        unregisterMBean();
+    }
+
+    boolean isClosed()
+    {
+        return this.closed;
+    }
+
+    /**
+     * Exposes the counters of the pool via the platform MBean server
+     */
+    public synchronized void registerMBean()
+    {
+        if (this.objectName != null)
+        {
+            return;
+        }
+
+        try
+        {
+            ObjectName newObjectName = new ObjectName("org.apache.myfaces.extensions.cdi:type=ConnectionPool," +
+                    "connectionId=" + ObjectName.quote(this.connectionId) + ",id=" + System.identityHashCode(this));
+            ManagementFactory.getPlatformMBeanServer().registerMBean(this, newObjectName);
+            this.objectName = newObjectName;
+        }
+        catch (Exception e)
+        {
+            LOGGER.log(Level.WARNING, "failed to register the connection pool of '" + this.connectionId + "'", e);
+        }
+    }
+
+    private synchronized void unregisterMBean()
+    {
+        if (this.objectName == null)
+        {
+            return;
+        }
+
+        try
+        {
+            MBeanServer mBeanServer = ManagementFactory.getPlatformMBeanServer();
+
+            if (mBeanServer.isRegistered(this.objectName))
+            {
+                mBeanServer.unregisterMBean(this.objectName);
+            }
+        }
+        catch (Exception e)
+        {
+            LOGGER.log(Level.FINE, "failed to unregister the connection pool of '" + this.connectionId + "'", e);
+        }
+        this.objectName = null;
+    }
+
+    /*
+     * methods of ConnectionPoolMBean
+     */
+
+    public String getConnectionId()
+    {
+        return this.connectionId;
+    }
+
+    public int getMinPoolSize()
+    {
+        return this.minPoolSize;
+    }
+
+    public int getMaxPoolSize()
+    {
+        return this.maxPoolSize;
+    }
+
+    public int getOpenConnectionCount()
+    {
+        return this.openConnectionCount.get();
+    }
+
+    public int getIdleConnectionCount()
+    {
+        return this.idleConnectionCount.get();
+    }
+
+    public int getActiveConnectionCount()
+    {
+        return this.maxPoolSize - this.borrowPermits.availablePermits();
+    }
+
+    public long getBorrowCount()
+    {
+        return this.borrowCount.get();
+    }
+
+    public long getCreatedConnectionCount()
+    {
+        return this.createdConnectionCount.get();
+    }
+
+    public long getDestroyedConnectionCount()
+    {
+        return this.destroyedConnectionCount.get();
+    }
+
+    public long getValidationFailureCount()
+    {
+        return this.validationFailureCount.get();
+    }
+
+    public long getWaitTimeoutCount()
+    {
+        return this.waitTimeoutCount.get();
+    }
+
+    public long getLeakCount()
+    {
+        return this.leakCount.get();
+    }
+}
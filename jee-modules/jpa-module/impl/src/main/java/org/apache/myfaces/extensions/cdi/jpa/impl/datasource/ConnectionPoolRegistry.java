@@ -0,0 +1,164 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jpa.impl.datasource;
+
+import org.apache.myfaces.extensions.cdi.core.api.util.ClassUtils;
+import org.apache.myfaces.extensions.cdi.jpa.api.datasource.PooledDataSourceConfig;
+
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.BeforeShutdown;
+import javax.enterprise.inject.spi.Extension;
+import java.sql.Driver;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps one {@link ConnectionPool} per connectionId and application - all {@link ConfigurableDataSource}s
+ * with the same connectionId share the pool. The registry counts the data-sources which use a pool.
+ * A data-source which gets closed just releases the pool - the pools (of the current application) get closed
+ * before the shutdown of the container.
+ */
+public class ConnectionPoolRegistry implements Extension
+{
+    private static final Map<ClassLoader, Map<String, RegisteredConnectionPool>> CONNECTION_POOLS =
+            new ConcurrentHashMap<ClassLoader, Map<String, RegisteredConnectionPool>>();
+
+    protected void closeConnectionPools(@Observes BeforeShutdown beforeShutdown)
+    {
+        Map<String, RegisteredConnectionPool> connectionPools =
+                CONNECTION_POOLS.remove(ClassUtils.getClassLoader(null));
+
+        if (connectionPools == null)
+        {
+            return;
+        }
+
+        synchronized (connectionPools)
+        {
+            for (RegisteredConnectionPool registeredConnectionPool : connectionPools.values())
+            {
+                registeredConnectionPool.connectionPool.close();
+            }
+            connectionPools.clear();
+        }
+    }
+
+    /**
+     * @param driver driver which is used for creating a new pool
+     * @param jdbcConnectionURL connection URL which is used for creating a new pool
+     * @param connectionProperties connection properties which are used for creating a new pool
+     * @param connectionId id of the configured connection
+     * @param poolConfig config which is used for creating a new pool
+     * @return the pool of the current application for the given connectionId - it has to be released via
+     * {@link #releaseConnectionPool} as soon as the caller doesn't use it any longer
+     * @throws SQLException if a new pool can't be created
+     */
+    public static ConnectionPool acquireConnectionPool(Driver driver,
+                                                       String jdbcConnectionURL,
+                                                       Properties connectionProperties,
+                                                       String connectionId,
+                                                       PooledDataSourceConfig poolConfig) throws SQLException
+    {
+        Map<String, RegisteredConnectionPool> connectionPools = getConnectionPools();
+
+        synchronized (connectionPools)
+        {
+            RegisteredConnectionPool registeredConnectionPool = connectionPools.get(connectionId);
+
+            if (registeredConnectionPool == null || registeredConnectionPool.connectionPool.isClosed())
+            {
+                ConnectionPool connectionPool = new ConnectionPool(
+                        driver, jdbcConnectionURL, connectionProperties, connectionId, poolConfig);
+                connectionPool.registerMBean();
+
+                registeredConnectionPool = new RegisteredConnectionPool(connectionPool);
+                connectionPools.put(connectionId, registeredConnectionPool);
+            }
+
+            registeredConnectionPool.referenceCount++;
+            return registeredConnectionPool.connectionPool;
+        }
+    }
+
+    /**
+     * Releases a pool which was acquired via {@link #acquireConnectionPool}. The pool itself stays open
+     * (until the shutdown of the container) - if it isn't used any longer, its idle connections get closed.
+     *
+     * @param connectionPool pool which isn't used by the caller any longer
+     * @return the number of callers which still use the pool
+     */
+    public static int releaseConnectionPool(ConnectionPool connectionPool)
+    {
+        Map<String, RegisteredConnectionPool> connectionPools = getConnectionPools();
+
+        synchronized (connectionPools)
+        {
+            RegisteredConnectionPool registeredConnectionPool =
+                    connectionPools.get(connectionPool.getConnectionId());
+
+            //the pool was closed and replaced in the meantime
+            if (registeredConnectionPool == null || registeredConnectionPool.connectionPool != connectionPool)
+            {
+                return 0;
+            }
+
+            if (registeredConnectionPool.referenceCount > 0)
+            {
+                registeredConnectionPool.referenceCount--;
+            }
+
+            if (registeredConnectionPool.referenceCount == 0)
+            {
+                connectionPool.closeIdleConnections();
+            }
+            return registeredConnectionPool.referenceCount;
+        }
+    }
+
+    private static synchronized Map<String, RegisteredConnectionPool> getConnectionPools()
+    {
+        ClassLoader classLoader = ClassUtils.getClassLoader(null);
+        Map<String, RegisteredConnectionPool> connectionPools = CONNECTION_POOLS.get(classLoader);
+
+        if (connectionPools == null)
+        {
+            connectionPools = new HashMap<String, RegisteredConnectionPool>();
+            CONNECTION_POOLS.put(classLoader, connectionPools);
+        }
+        return connectionPools;
+    }
+
+    /**
+     * A shared pool and the number of its users - guarded by the map of the pools
+     */
+    private static class RegisteredConnectionPool
+    {
+        private final ConnectionPool connectionPool;
+
+        private int referenceCount;
+
+        private RegisteredConnectionPool(ConnectionPool connectionPool)
+        {
+            this.connectionPool = connectionPool;
+        }
+    }
+}
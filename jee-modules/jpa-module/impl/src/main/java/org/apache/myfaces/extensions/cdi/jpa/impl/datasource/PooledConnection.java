@@ -0,0 +1,346 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jpa.impl.datasource;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.DatabaseMetaData;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * A physical connection of a {@link ConnectionPool}. The application only gets a handle for the connection.
+ * Statements, result-sets and the meta-data which are created via the handle are wrapped as well - they expose
+ * the handle instead of the physical connection. Closing the handle closes the statements and result-sets
+ * which are still open, returns the physical connection to the pool and invalidates all handles.
+ */
+class PooledConnection
+{
+    private static final Constructor<?> CONNECTION_HANDLE_CONSTRUCTOR;
+
+    static
+    {
+        try
+        {
+            CONNECTION_HANDLE_CONSTRUCTOR = Proxy.getProxyClass(PooledConnection.class.getClassLoader(),
+                    new Class[]{Connection.class}).getConstructor(InvocationHandler.class);
+        }
+        catch (NoSuchMethodException e)
+        {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private final ConnectionPool connectionPool;
+
+    private final Connection physicalConnection;
+
+    private final boolean initialAutoCommit;
+
+    private volatile long lastReturnTime;
+
+    private volatile long borrowTime;
+
+    private volatile Throwable borrowLocation;
+
+    private volatile boolean leakReported;
+
+    PooledConnection(ConnectionPool connectionPool, Connection physicalConnection) throws SQLException
+    {
+        this.connectionPool = connectionPool;
+        this.physicalConnection = physicalConnection;
+        this.initialAutoCommit = physicalConnection.getAutoCommit();
+        this.lastReturnTime = System.currentTimeMillis();
+    }
+
+    /**
+     * @param trackBorrowLocation true if the stack-trace of the caller should be stored for the leak detection
+     * @return a new handle for the physical connection
+     */
+    Connection borrow(boolean trackBorrowLocation)
+    {
+        this.borrowTime = System.currentTimeMillis();
+        this.leakReported = false;
+
+        if (trackBorrowLocation)
+        {
+            this.borrowLocation = new Throwable("location of the borrowed connection");
+        }
+
+        return (Connection) new JdbcObjectHandle(null, this.physicalConnection, Connection.class).proxy;
+    }
+
+    /**
+     * Resets the state which might have been changed by the application
+     * @return true if the connection can be re-used
+     */
+    boolean reset()
+    {
+        try
+        {
+            if (this.physicalConnection.isClosed())
+            {
+                return false;
+            }
+
+            if (!this.physicalConnection.getAutoCommit())
+            {
+                this.physicalConnection.rollback();
+            }
+
+            if (this.physicalConnection.getAutoCommit() != this.initialAutoCommit)
+            {
+                this.physicalConnection.setAutoCommit(this.initialAutoCommit);
+            }
+            this.physicalConnection.clearWarnings();
+        }
+        catch (SQLException e)
+        {
+            return false;
+        }
+
+        this.borrowLocation = null;
+        this.lastReturnTime = System.currentTimeMillis();
+        return true;
+    }
+
+    Connection getPhysicalConnection()
+    {
+        return this.physicalConnection;
+    }
+
+    long getLastReturnTime()
+    {
+        return this.lastReturnTime;
+    }
+
+    long getBorrowTime()
+    {
+        return this.borrowTime;
+    }
+
+    Throwable getBorrowLocation()
+    {
+        return this.borrowLocation;
+    }
+
+    /**
+     * @return true if the leak wasn't reported before
+     */
+    boolean markLeakReported()
+    {
+        if (this.leakReported)
+        {
+            return false;
+        }
+        this.leakReported = true;
+        return true;
+    }
+
+    /**
+     * Handle for the physical connection (without parent) or an object which was created via the connection
+     */
+    private class JdbcObjectHandle implements InvocationHandler
+    {
+        private final JdbcObjectHandle parent;
+
+        private final Object target;
+
+        private final Object proxy;
+
+        private final AtomicBoolean closed = new AtomicBoolean();
+
+        //the statements, result-sets,... which were created via this object and which aren't closed
+        private final Map<Object, JdbcObjectHandle> children = new IdentityHashMap<Object, JdbcObjectHandle>();
+
+        private JdbcObjectHandle(JdbcObjectHandle parent, Object target, Class<?> targetType)
+        {
+            this.parent = parent;
+            this.target = target;
+
+            if (targetType == Connection.class)
+            {
+                try
+                {
+                    this.proxy = CONNECTION_HANDLE_CONSTRUCTOR.newInstance(this);
+                }
+                catch (Exception e)
+                {
+                    throw new IllegalStateException(e);
+                }
+            }
+            else
+            {
+                this.proxy = Proxy.newProxyInstance(
+                        PooledConnection.class.getClassLoader(), new Class[]{targetType}, this);
+            }
+        }
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            String methodName = method.getName();
+
+            if ("close".equals(methodName))
+            {
+                close(true);
+                return null;
+            }
+            if ("isClosed".equals(methodName))
+            {
+                return this.closed.get() || (Boolean) invokeTarget(method, args);
+            }
+            if ("equals".equals(methodName))
+            {
+                return proxy == args[0];
+            }
+            if ("hashCode".equals(methodName))
+            {
+                return System.identityHashCode(proxy);
+            }
+            if ("toString".equals(methodName))
+            {
+                return "pooled " + (this.parent == null ? "connection" : "jdbc object") + " (" + this.target + ")";
+            }
+
+            if (this.closed.get())
+            {
+                throw new SQLException("the connection is already closed");
+            }
+
+            return wrap(invokeTarget(method, args), method.getReturnType());
+        }
+
+        private Object invokeTarget(Method method, Object[] args) throws Throwable
+        {
+            try
+            {
+                return method.invoke(this.target, args);
+            }
+            catch (InvocationTargetException e)
+            {
+                throw e.getCause();
+            }
+        }
+
+        /**
+         * @param result result of an invocation of the target
+         * @param resultType declared type of the result
+         * @return the handle instead of a physical object
+         */
+        private Object wrap(Object result, Class<?> resultType)
+        {
+            if (result == null || !resultType.isInterface())
+            {
+                return result;
+            }
+
+            //e.g. Statement#getConnection or ResultSet#getStatement
+            for (JdbcObjectHandle handle = this; handle != null; handle = handle.parent)
+            {
+                if (handle.target == result)
+                {
+                    return handle.proxy;
+                }
+            }
+
+            if (!(result instanceof Statement || result instanceof ResultSet || result instanceof DatabaseMetaData))
+            {
+                return result;
+            }
+
+            synchronized (this.children)
+            {
+                JdbcObjectHandle child = this.children.get(result);
+
+                if (child == null)
+                {
+                    child = new JdbcObjectHandle(this, result, resultType);
+                    this.children.put(result, child);
+                }
+                return child.proxy;
+            }
+        }
+
+        /**
+         * Closes the children and the target (or returns the connection to the pool)
+         * @param explicitClose true if the application closed the object, false if the parent gets closed
+         * @throws SQLException if the application closed the object and closing the target failed
+         */
+        private void close(boolean explicitClose) throws SQLException
+        {
+            //no-op if the object is closed already
+            if (!this.closed.compareAndSet(false, true))
+            {
+                return;
+            }
+
+            List<JdbcObjectHandle> openChildren;
+            synchronized (this.children)
+            {
+                openChildren = new ArrayList<JdbcObjectHandle>(this.children.values());
+                this.children.clear();
+            }
+
+            for (JdbcObjectHandle child : openChildren)
+            {
+                try
+                {
+                    child.close(false);
+                }
+                catch (SQLException e)
+                {
+                    //the state of the connection gets validated when it's returned
+                }
+            }
+
+            if (this.parent == null)
+            {
+                connectionPool.returnConnection(PooledConnection.this);
+                return;
+            }
+
+            if (explicitClose)
+            {
+                synchronized (this.parent.children)
+                {
+                    this.parent.children.remove(this.target);
+                }
+            }
+
+            if (this.target instanceof Statement)
+            {
+                ((Statement) this.target).close();
+            }
+            else if (this.target instanceof ResultSet)
+            {
+                ((ResultSet) this.target).close();
+            }
+        }
+    }
+}
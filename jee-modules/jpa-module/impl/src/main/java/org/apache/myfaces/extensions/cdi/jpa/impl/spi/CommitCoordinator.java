@@ -0,0 +1,43 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jpa.impl.spi;
+
+import javax.persistence.EntityManager;
+import java.io.Serializable;
+import java.util.Map;
+
+/**
+ * Allows to customize how the outermost &#064;{@link org.apache.myfaces.extensions.cdi.jpa.api.Transactional}
+ * interceptor flushes and commits the transactions of all entity-managers which took part in the transaction.
+ * The default implementation flushes and commits them sequentially.
+ * Other implementations have to be activated as alternative in the beans.xml.
+ */
+public interface CommitCoordinator extends Serializable
+{
+    /**
+     * Flushes all entity-managers with an active transaction and commits their transactions afterwards.
+     * If a flush or a commit fails, the remaining active transactions have to be rolled back before the exception
+     * gets thrown.
+     *
+     * @param entityManagers key=qualifier name, value=entity-manager - in the order in which the entity-managers
+     * joined the transaction (which is also the order for committing them)
+     * @throws Exception the exception which caused the rollback
+     */
+    void flushAndCommit(Map<String, EntityManager> entityManagers) throws Exception;
+}
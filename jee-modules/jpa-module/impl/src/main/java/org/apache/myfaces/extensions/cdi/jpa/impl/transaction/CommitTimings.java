@@ -0,0 +1,96 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jpa.impl.transaction;
+
+import java.io.Serializable;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Flush- and commit-statistics of the entity-manager of one transaction qualifier
+ * collected by {@link SequentialCommitCoordinator}
+ */
+public class CommitTimings implements Serializable
+{
+    private static final long serialVersionUID = 2849165934717604129L;
+
+    private final AtomicLong flushCount = new AtomicLong();
+    private final AtomicLong flushNanos = new AtomicLong();
+    private final AtomicLong commitCount = new AtomicLong();
+    private final AtomicLong commitNanos = new AtomicLong();
+    private final AtomicLong rollbackCount = new AtomicLong();
+
+    void recordFlush(long durationNanos)
+    {
+        this.flushCount.incrementAndGet();
+        this.flushNanos.addAndGet(durationNanos);
+    }
+
+    void recordCommit(long durationNanos)
+    {
+        this.commitCount.incrementAndGet();
+        this.commitNanos.addAndGet(durationNanos);
+    }
+
+    void recordRollback()
+    {
+        this.rollbackCount.incrementAndGet();
+    }
+
+    public long getFlushCount()
+    {
+        return this.flushCount.get();
+    }
+
+    /**
+     * @param timeUnit unit of the result
+     * @return total time spent in {@link javax.persistence.EntityManager#flush()}
+     */
+    public long getTotalFlushTime(TimeUnit timeUnit)
+    {
+        return timeUnit.convert(this.flushNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getCommitCount()
+    {
+        return this.commitCount.get();
+    }
+
+    /**
+     * @param timeUnit unit of the result
+     * @return total time spent in {@link javax.persistence.EntityTransaction#commit()}
+     */
+    public long getTotalCommitTime(TimeUnit timeUnit)
+    {
+        return timeUnit.convert(this.commitNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    public long getRollbackCount()
+    {
+        return this.rollbackCount.get();
+    }
+
+    @Override
+    public String toString()
+    {
+        return "flushes: " + getFlushCount() + " (" + getTotalFlushTime(TimeUnit.MILLISECONDS) + " ms), " +
+                "commits: " + getCommitCount() + " (" + getTotalCommitTime(TimeUnit.MILLISECONDS) + " ms), " +
+                "rollbacks: " + getRollbackCount();
+    }
+}
@@ -0,0 +1,287 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jpa.impl.transaction;
+
+import org.apache.myfaces.extensions.cdi.core.api.util.ClassUtils;
+import org.apache.myfaces.extensions.cdi.core.impl.util.CodiUtils;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Alternative;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * {@link org.apache.myfaces.extensions.cdi.jpa.impl.spi.CommitCoordinator} which flushes the entity-managers of
+ * multiple transaction qualifiers in parallel (with a bounded number of threads) and commits them sequentially
+ * in the order in which they joined the transaction.
+ * All flushes have to be finished before the transactions get committed or (if a flush failed) rolled back.
+ * It has to be activated as alternative in the beans.xml.
+ *
+ * Contextual references of entity-managers are bound to the current thread (e.g. for the request- or
+ * transaction-scope). Therefore the entity-managers get unwrapped via {@link EntityManager#getDelegate()}
+ * before they are flushed by other threads. Entity-managers which can't be unwrapped get flushed by the current
+ * thread.
+ *
+ * The number of flush threads can be configured via the key
+ * <code>ParallelFlushCommitCoordinator.max_flush_threads</code> (default: 4). Flushes which exceed the capacity of
+ * the (bounded) queue of the flush threads get executed by the current thread.
+ */
+@Alternative
+@ApplicationScoped
+public class ParallelFlushCommitCoordinator extends SequentialCommitCoordinator
+{
+    private static final long serialVersionUID = 5180945735364187046L;
+
+    private static final int DEFAULT_MAX_FLUSH_THREADS = 4;
+
+    private transient volatile ExecutorService executorService;
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected void flush(Map<String, EntityManager> entityManagers) throws Exception
+    {
+        List<Map.Entry<String, EntityManager>> activeEntityManagers =
+                new ArrayList<Map.Entry<String, EntityManager>>(entityManagers.size());
+
+        for (Map.Entry<String, EntityManager> entityManagerEntry : entityManagers.entrySet())
+        {
+            EntityTransaction transaction = entityManagerEntry.getValue().getTransaction();
+
+            if (transaction != null && transaction.isActive())
+            {
+                activeEntityManagers.add(entityManagerEntry);
+            }
+        }
+
+        if (activeEntityManagers.size() < 2)
+        {
+            super.flush(entityManagers);
+            return;
+        }
+
+        ExecutorService currentExecutorService = getExecutorService();
+        List<Future<?>> flushResults = new ArrayList<Future<?>>(activeEntityManagers.size() - 1);
+
+        //the first entity-manager gets flushed by the current thread
+        List<Map.Entry<String, EntityManager>> currentThreadFlushes =
+                new ArrayList<Map.Entry<String, EntityManager>>();
+        currentThreadFlushes.add(activeEntityManagers.get(0));
+
+        for (Map.Entry<String, EntityManager> entityManagerEntry : activeEntityManagers.subList(1,
+                activeEntityManagers.size()))
+        {
+            final String qualifierKey = entityManagerEntry.getKey();
+            final EntityManager entityManager = resolveFlushTarget(entityManagerEntry.getValue());
+
+            if (entityManager == null)
+            {
+                //bound to the current thread
+                currentThreadFlushes.add(entityManagerEntry);
+                continue;
+            }
+
+            flushResults.add(currentExecutorService.submit(new Callable<Object>()
+            {
+                public Object call() throws Exception
+                {
+                    flush(qualifierKey, entityManager);
+                    return null;
+                }
+            }));
+        }
+
+        Throwable firstException = null;
+
+        for (Map.Entry<String, EntityManager> entityManagerEntry : currentThreadFlushes)
+        {
+            try
+            {
+                flush(entityManagerEntry.getKey(), entityManagerEntry.getValue());
+            }
+            catch (Exception e)
+            {
+                //the transactions get rolled back -> the remaining entity-managers don't need a flush
+                firstException = e;
+                break;
+            }
+        }
+
+        Throwable flushException;
+        for (Future<?> flushResult : flushResults)
+        {
+            flushException = waitForFlush(flushResult);
+
+            if (firstException == null)
+            {
+                firstException = flushException;
+            }
+        }
+
+        if (firstException instanceof Error)
+        {
+            throw (Error) firstException;
+        }
+        if (firstException != null)
+        {
+            throw (Exception) firstException;
+        }
+    }
+
+    /**
+     * The entity-manager mustn't be used by the current thread as long as it gets flushed by an other thread.
+     * Therefore it has to be waited for every flush (even if the current thread gets interrupted).
+     */
+    private Throwable waitForFlush(Future<?> flushResult)
+    {
+        boolean interrupted = false;
+
+        try
+        {
+            while (true)
+            {
+                try
+                {
+                    flushResult.get();
+                    return null;
+                }
+                catch (InterruptedException e)
+                {
+                    interrupted = true;
+                }
+                catch (ExecutionException e)
+                {
+                    return e.getCause();
+                }
+            }
+        }
+        finally
+        {
+            if (interrupted)
+            {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * Resolves the entity-manager which can be flushed by an other thread
+     *
+     * @param entityManager entity-manager (or a contextual reference of it) of the current transaction
+     * @return the underlying entity-manager of the persistence provider if it's available, null otherwise
+     * (the given entity-manager has to be flushed by the current thread)
+     */
+    protected EntityManager resolveFlushTarget(EntityManager entityManager)
+    {
+        Object delegate = entityManager.getDelegate();
+
+        if (delegate instanceof EntityManager)
+        {
+            return (EntityManager) delegate;
+        }
+        return null;
+    }
+
+    /**
+     * Flushes are I/O bound - therefore the default isn't limited by the number of processors.
+     *
+     * @return max. number of threads which flush entity-managers in parallel
+     */
+    protected int getMaxFlushThreads()
+    {
+        return CodiUtils.lookupConfigFromEnvironment(
+                CodiUtils.createConfigKey(ParallelFlushCommitCoordinator.class, "getMaxFlushThreads"),
+                Integer.class, DEFAULT_MAX_FLUSH_THREADS);
+    }
+
+    /**
+     * @return max. number of flushes which wait for a flush thread - further flushes get executed by the
+     * current thread
+     */
+    protected int getMaxQueuedFlushes()
+    {
+        return getMaxFlushThreads() * 4;
+    }
+
+    private ExecutorService getExecutorService()
+    {
+        if (this.executorService == null)
+        {
+            createExecutorService();
+        }
+        return this.executorService;
+    }
+
+    private synchronized void createExecutorService()
+    {
+        if (this.executorService != null)
+        {
+            return;
+        }
+
+        final ClassLoader classLoader = ClassUtils.getClassLoader(null);
+        final AtomicInteger threadCount = new AtomicInteger();
+        int maxFlushThreads = Math.max(1, getMaxFlushThreads());
+
+        this.executorService = new ThreadPoolExecutor(maxFlushThreads, maxFlushThreads, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<Runnable>(Math.max(1, getMaxQueuedFlushes())), new ThreadFactory()
+        {
+            public Thread newThread(Runnable runnable)
+            {
+                Thread thread = new Thread(runnable, "CODI entity-manager flush " + threadCount.incrementAndGet());
+                thread.setDaemon(true);
+                thread.setContextClassLoader(classLoader);
+                return thread;
+            }
+        }, new RejectedExecutionHandler()
+        {
+            //unlike ThreadPoolExecutor.CallerRunsPolicy it also runs the flush after the shutdown - otherwise the
+            //current thread would wait for it forever
+            public void rejectedExecution(Runnable runnable, ThreadPoolExecutor threadPoolExecutor)
+            {
+                runnable.run();
+            }
+        });
+    }
+
+    @PreDestroy
+    protected synchronized void shutdown()
+    {
+        if (this.executorService != null)
+        {
+            this.executorService.shutdown();
+            this.executorService = null;
+        }
+    }
+}
@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jpa.impl.transaction;
+
+import org.apache.myfaces.extensions.cdi.jpa.impl.spi.CommitCoordinator;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Default {@link CommitCoordinator} which flushes all entity-managers one after the other and commits them afterwards
+ * in the order in which they joined the transaction.
+ * If a flush fails, the remaining entity-managers aren't flushed any more and all active transactions get rolled
+ * back. If a commit fails, all subsequent transactions get rolled back.
+ * The time spent for flushing and committing gets collected per transaction qualifier.
+ */
+@ApplicationScoped
+public class SequentialCommitCoordinator implements CommitCoordinator
+{
+    private static final long serialVersionUID = -3012584390185406373L;
+
+    /** key=qualifier name */
+    private final ConcurrentMap<String, CommitTimings> commitTimings = new ConcurrentHashMap<String, CommitTimings>();
+
+    /**
+     * {@inheritDoc}
+     */
+    public void flushAndCommit(Map<String, EntityManager> entityManagers) throws Exception
+    {
+        Exception firstException = null;
+
+        try
+        {
+            flush(entityManagers);
+        }
+        catch (Exception e)
+        {
+            firstException = e;
+        }
+
+        // will get set if we got an Exception while flushing or committing
+        // in this case, we rollback all later transactions too.
+        boolean commitFailed = firstException != null;
+
+        for (Map.Entry<String, EntityManager> entityManagerEntry : entityManagers.entrySet())
+        {
+            EntityTransaction transaction = entityManagerEntry.getValue().getTransaction();
+
+            if (transaction != null && transaction.isActive())
+            {
+                CommitTimings timings = getCommitTimings(entityManagerEntry.getKey());
+
+                try
+                {
+                    if (!commitFailed)
+                    {
+                        long start = System.nanoTime();
+                        try
+                        {
+                            transaction.commit();
+                        }
+                        finally
+                        {
+                            timings.recordCommit(System.nanoTime() - start);
+                        }
+                    }
+                    else
+                    {
+                        timings.recordRollback();
+                        transaction.rollback();
+                    }
+                }
+                catch (Exception e)
+                {
+                    firstException = e;
+                    commitFailed = true;
+                }
+            }
+        }
+
+        if (firstException != null)
+        {
+            throw firstException;
+        }
+    }
+
+    /**
+     * Flushes all entity-managers with an active transaction and stops at the first failure.
+     * Subclasses have to flush all entity-managers before the method returns (or throws an exception), because the
+     * transactions get committed or rolled back afterwards.
+     *
+     * @param entityManagers key=qualifier name, value=entity-manager
+     * @throws Exception the first exception thrown by a flush
+     */
+    protected void flush(Map<String, EntityManager> entityManagers) throws Exception
+    {
+        for (Map.Entry<String, EntityManager> entityManagerEntry : entityManagers.entrySet())
+        {
+            EntityManager entityManager = entityManagerEntry.getValue();
+            EntityTransaction transaction = entityManager.getTransaction();
+
+            if (transaction != null && transaction.isActive())
+            {
+                flush(entityManagerEntry.getKey(), entityManager);
+            }
+        }
+    }
+
+    /**
+     * Flushes the given entity-manager and records the duration
+     *
+     * @param qualifierKey qualifier name of the entity-manager
+     * @param entityManager entity-manager which should be flushed
+     */
+    protected void flush(String qualifierKey, EntityManager entityManager)
+    {
+        long start = System.nanoTime();
+        try
+        {
+            entityManager.flush();
+        }
+        finally
+        {
+            getCommitTimings(qualifierKey).recordFlush(System.nanoTime() - start);
+        }
+    }
+
+    /**
+     * @param qualifierKey qualifier name of the entity-manager
+     * @return statistics of the entity-manager with the given qualifier
+     */
+    public CommitTimings getCommitTimings(String qualifierKey)
+    {
+        CommitTimings timings = this.commitTimings.get(qualifierKey);
+
+        if (timings == null)
+        {
+            timings = new CommitTimings();
+            CommitTimings existingTimings = this.commitTimings.putIfAbsent(qualifierKey, timings);
+
+            if (existingTimings != null)
+            {
+                timings = existingTimings;
+            }
+        }
+        return timings;
+    }
+
+    /**
+     * @return statistics of all entity-managers (key=qualifier name)
+     */
+    public Map<String, CommitTimings> getCommitTimings()
+    {
+        return Collections.unmodifiableMap(this.commitTimings);
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jpa.impl.transaction;
+
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.persistence.EntityManager;
+import java.lang.annotation.Annotation;
+
+/**
+ * Transaction relevant information of a method which is intercepted by the {@link TransactionalInterceptor}.
+ * It's created once per method and class of the intercepted instance (see {@link TransactionMetaDataCache}).
+ * The {@link Bean} of the {@link EntityManager} is resolved once per {@link BeanManager}.
+ */
+class TransactionMetaData
+{
+    private final Class<? extends Annotation> qualifierClass;
+
+    private final String qualifierKey;
+
+    private volatile EntityManagerBeanEntry entityManagerBeanEntry;
+
+    TransactionMetaData(Class<? extends Annotation> qualifierClass)
+    {
+        this.qualifierClass = qualifierClass;
+        this.qualifierKey = qualifierClass.getName();
+    }
+
+    Class<? extends Annotation> getQualifierClass()
+    {
+        return this.qualifierClass;
+    }
+
+    String getQualifierKey()
+    {
+        return this.qualifierKey;
+    }
+
+    /**
+     * @param beanManager current bean-manager
+     * @return the resolved entity-manager bean for the given bean-manager or null if it wasn't resolved so far
+     */
+    EntityManagerBeanEntry getEntityManagerBeanEntry(BeanManager beanManager)
+    {
+        EntityManagerBeanEntry currentEntry = this.entityManagerBeanEntry;
+
+        //e.g. a different application (or a restarted container)
+        if (currentEntry == null || currentEntry.beanManager != beanManager)
+        {
+            return null;
+        }
+        return currentEntry;
+    }
+
+    EntityManagerBeanEntry setEntityManagerBean(BeanManager beanManager, Bean<EntityManager> entityManagerBean)
+    {
+        EntityManagerBeanEntry newEntry = new EntityManagerBeanEntry(beanManager, entityManagerBean);
+        this.entityManagerBeanEntry = newEntry;
+        return newEntry;
+    }
+
+    static class EntityManagerBeanEntry
+    {
+        private final BeanManager beanManager;
+
+        private final Bean<EntityManager> entityManagerBean;
+
+        //contextual references of normal-scoped beans are proxies which can be used by all threads
+        private final EntityManager cachedEntityManagerReference;
+
+        private EntityManagerBeanEntry(BeanManager beanManager, Bean<EntityManager> entityManagerBean)
+        {
+            this.beanManager = beanManager;
+            this.entityManagerBean = entityManagerBean;
+
+            if (entityManagerBean != null && beanManager.isNormalScope(entityManagerBean.getScope()))
+            {
+                this.cachedEntityManagerReference = createEntityManagerReference();
+            }
+            else
+            {
+                this.cachedEntityManagerReference = null;
+            }
+        }
+
+        /**
+         * @return true if there is a bean for the qualifier
+         */
+        boolean isEntityManagerBeanAvailable()
+        {
+            return this.entityManagerBean != null;
+        }
+
+        /**
+         * @return the cached reference of a normal-scoped entity-manager or null otherwise
+         */
+        EntityManager getCachedEntityManagerReference()
+        {
+            return this.cachedEntityManagerReference;
+        }
+
+        EntityManager createEntityManagerReference()
+        {
+            return (EntityManager) this.beanManager.getReference(this.entityManagerBean, EntityManager.class,
+                    this.beanManager.createCreationalContext(this.entityManagerBean));
+        }
+    }
+}
@@ -0,0 +1,89 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jpa.impl.transaction;
+
+import org.apache.myfaces.extensions.cdi.core.api.util.ClassUtils;
+
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.BeforeShutdown;
+import javax.enterprise.inject.spi.Extension;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the {@link TransactionMetaData} per application, class of the intercepted instance and method.
+ * The annotation might be inherited from the class of the intercepted instance - therefore the method alone isn't
+ * a sufficient key. The cache (of the current application) gets removed before the shutdown of the container.
+ */
+public class TransactionMetaDataCache implements Extension
+{
+    private static final Map<ClassLoader, Map<Class<?>, Map<Method, TransactionMetaData>>> TRANSACTION_META_DATA =
+            new ConcurrentHashMap<ClassLoader, Map<Class<?>, Map<Method, TransactionMetaData>>>();
+
+    protected void removeCache(@Observes BeforeShutdown beforeShutdown)
+    {
+        TRANSACTION_META_DATA.remove(ClassUtils.getClassLoader(null));
+    }
+
+    /**
+     * @param method intercepted method
+     * @param targetClass class of the intercepted instance
+     * @return the cached meta-data or null if there is no meta-data for the given method and class
+     */
+    static TransactionMetaData getTransactionMetaData(Method method, Class<?> targetClass)
+    {
+        Map<Class<?>, Map<Method, TransactionMetaData>> metaDataOfApplication =
+                TRANSACTION_META_DATA.get(ClassUtils.getClassLoader(null));
+
+        if (metaDataOfApplication == null)
+        {
+            return null;
+        }
+
+        Map<Method, TransactionMetaData> metaDataOfClass = metaDataOfApplication.get(targetClass);
+
+        if (metaDataOfClass == null)
+        {
+            return null;
+        }
+        return metaDataOfClass.get(method);
+    }
+
+    static void addTransactionMetaData(Method method, Class<?> targetClass, TransactionMetaData transactionMetaData)
+    {
+        ClassLoader classLoader = ClassUtils.getClassLoader(null);
+        Map<Class<?>, Map<Method, TransactionMetaData>> metaDataOfApplication = TRANSACTION_META_DATA.get(classLoader);
+
+        if (metaDataOfApplication == null)
+        {
+            metaDataOfApplication = new ConcurrentHashMap<Class<?>, Map<Method, TransactionMetaData>>();
+            TRANSACTION_META_DATA.put(classLoader, metaDataOfApplication);
+        }
+
+        Map<Method, TransactionMetaData> metaDataOfClass = metaDataOfApplication.get(targetClass);
+
+        if (metaDataOfClass == null)
+        {
+            metaDataOfClass = new ConcurrentHashMap<Method, TransactionMetaData>();
+            metaDataOfApplication.put(targetClass, metaDataOfClass);
+        }
+        metaDataOfClass.put(method, transactionMetaData);
+    }
+}
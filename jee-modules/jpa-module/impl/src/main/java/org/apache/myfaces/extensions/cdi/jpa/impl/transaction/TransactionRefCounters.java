@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jpa.impl.transaction;
+
+/**
+ * Reference counters of the &#064;Transactional layers per qualifier of the current thread.
+ * There are just a few qualifiers per transaction - therefore the counters are stored in plain arrays
+ * (without a map entry and a boxed counter per qualifier).
+ */
+final class TransactionRefCounters
+{
+    private static final int INITIAL_CAPACITY = 4;
+
+    private String[] qualifierKeys = new String[INITIAL_CAPACITY];
+
+    private int[] refCounters = new int[INITIAL_CAPACITY];
+
+    private int size;
+
+    /**
+     * @param qualifierKey name of the qualifier used for the DB
+     * @return the previous value of the refCounter
+     */
+    int increment(String qualifierKey)
+    {
+        int index = indexOf(qualifierKey);
+
+        if (index == -1)
+        {
+            if (this.size == this.qualifierKeys.length)
+            {
+                String[] newQualifierKeys = new String[this.size * 2];
+                System.arraycopy(this.qualifierKeys, 0, newQualifierKeys, 0, this.size);
+                this.qualifierKeys = newQualifierKeys;
+
+                int[] newRefCounters = new int[this.size * 2];
+                System.arraycopy(this.refCounters, 0, newRefCounters, 0, this.size);
+                this.refCounters = newRefCounters;
+            }
+
+            index = this.size++;
+            this.qualifierKeys[index] = qualifierKey;
+            this.refCounters[index] = 0;
+        }
+
+        return this.refCounters[index]++;
+    }
+
+    /**
+     * Decrements the refCounter and removes it as soon as it reaches 0
+     * @param qualifierKey name of the qualifier used for the DB
+     * @return the new value of the refCounter
+     */
+    int decrement(String qualifierKey)
+    {
+        int index = indexOf(qualifierKey);
+
+        if (index == -1)
+        {
+            return 0;
+        }
+
+        int layer = --this.refCounters[index];
+
+        if (layer == 0)
+        {
+            int movedCount = this.size - index - 1;
+
+            if (movedCount > 0)
+            {
+                System.arraycopy(this.qualifierKeys, index + 1, this.qualifierKeys, index, movedCount);
+                System.arraycopy(this.refCounters, index + 1, this.refCounters, index, movedCount);
+            }
+
+            this.size--;
+            this.qualifierKeys[this.size] = null;
+        }
+        return layer;
+    }
+
+    /**
+     * @return true if there is just one qualifier with one layer
+     */
+    boolean isOutermostLayer()
+    {
+        return this.size == 1 && this.refCounters[0] == 1;
+    }
+
+    boolean isEmpty()
+    {
+        return this.size == 0;
+    }
+
+    private int indexOf(String qualifierKey)
+    {
+        for (int i = 0; i < this.size; i++)
+        {
+            //noinspection StringEquality
+            if (this.qualifierKeys[i] == qualifierKey || this.qualifierKeys[i].equals(qualifierKey))
+            {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
@@ -21,6 +21,7 @@ package org.apache.myfaces.extensions.cdi.jpa.impl.transaction;
 import org.apache.myfaces.extensions.cdi.core.impl.util.AnyLiteral;
 import org.apache.myfaces.extensions.cdi.jpa.api.Transactional;
 import org.apache.myfaces.extensions.cdi.jpa.impl.PersistenceHelper;
+import org.apache.myfaces.extensions.cdi.jpa.impl.spi.CommitCoordinator;
 import org.apache.myfaces.extensions.cdi.jpa.impl.spi.PersistenceStrategy;
 import org.apache.myfaces.extensions.cdi.jpa.impl.transaction.context.TransactionBeanStorage;
 
@@ -33,11 +34,12 @@ import javax.interceptor.InvocationContext;
 import javax.persistence.EntityManager;
 import javax.persistence.EntityTransaction;
 import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -48,7 +50,8 @@ import java.util.logging.Logger;
  * <p>The outermost &#064;Transactional interceptor for the given
  * {@link javax.inject.Qualifier} will open an {@link javax.persistence.EntityTransaction}
  * and the outermost &#064;Transactional interceptor for <b>all</b>
- * EntityManagers will flush and subsequently close all open transactions.</p>
+ * EntityManagers will flush and subsequently close all open transactions.
+ * Flushing and committing is delegated to the {@link CommitCoordinator}.</p>
  *
  * <p>If an Exception occurs in flushing the EntityManagers or any other Exception
  * gets thrown inside the intercepted method chain and <i>not</i> gets catched
@@ -57,6 +60,10 @@ import java.util.logging.Logger;
  *
  * <p>If you like to implement your own PersistenceStrategy, then use the
  * standard CDI &#064;Alternative mechanism.</p>
+ *
+ * <p>The qualifier of an intercepted method and the resolved EntityManager bean are cached.
+ * Therefore subclasses have to return stable results in {@link #extractTransactionalAnnotation},
+ * {@link #getTransactionQualifier} and {@link #resolveEntityManagerBean}.</p>
  */
 @Dependent
 public class TransactionalInterceptorStrategy implements PersistenceStrategy
@@ -68,21 +75,22 @@ public class TransactionalInterceptorStrategy implements PersistenceStrategy
     @Inject
     private BeanManager beanManager;
 
-    /** key=qualifier name, value= reference counter */
-    private static transient ThreadLocal<HashMap<String, AtomicInteger>> refCounterMaps =
-            new ThreadLocal<HashMap<String, AtomicInteger>>();
+    @Inject
+    private CommitCoordinator commitCoordinator;
+
+    /** reference counters per qualifier name */
+    private static transient ThreadLocal<TransactionRefCounters> refCounters =
+            new ThreadLocal<TransactionRefCounters>();
 
-    /** key=qualifier name, value= EntityManager */
+    /** key=qualifier name, value= EntityManager (in the order in which they joined the transaction) */
     private static transient ThreadLocal<HashMap<String, EntityManager>> ems =
             new ThreadLocal<HashMap<String, EntityManager>>();
 
-
     public Object execute(InvocationContext invocationContext) throws Exception
     {
-        Transactional transactionalAnnotation = extractTransactionalAnnotation(invocationContext);
+        TransactionMetaData transactionMetaData = getTransactionMetaData(invocationContext);
 
-        Class<? extends Annotation> qualifierClass = getTransactionQualifier(transactionalAnnotation);
-        String qualifierKey = qualifierClass.getName();
+        String qualifierKey = transactionMetaData.getQualifierKey();
 
         // the 'layer' of the transactional invocation, aka the refCounter for the current qualifier
         int transactionLayer = incrementRefCounter(qualifierKey);
@@ -100,7 +108,7 @@ public class TransactionalInterceptorStrategy implements PersistenceStrategy
 
         String previousTransactionKey = TransactionBeanStorage.getStorage().activateTransactionScope(qualifierKey);
 
-        EntityManager entityManager = resolveEntityManagerForQualifier(qualifierClass);
+        EntityManager entityManager = resolveEntityManagerForQualifier(transactionMetaData, transactionLayer);
 
         if(entityManager == null)
         {
@@ -182,59 +190,23 @@ public class TransactionalInterceptorStrategy implements PersistenceStrategy
                 // them already
                 if (firstException == null)
                 {
-                    // but first try to flush all the transactions and write the updates to the database
-                    for (EntityManager em: ems.get().values())
+                    // flush all the transactions to write the updates to the database
+                    // and commit them afterwards (or rollback all of them if a flush fails)
+                    try
                     {
-                        transaction = em.getTransaction();
-                        if(transaction != null && transaction.isActive())
-                        {
-                            try
-                            {
-                                if (!commitFailed)
-                                {
-                                    em.flush();
-                                }
-                            }
-                            catch (Exception e)
-                            {
-                                firstException = e;
-                                commitFailed = true;
-                                break;
-                            }
-                        }
+                        getCommitCoordinator().flushAndCommit(ems.get());
                     }
-
-                    // and now either commit or rollback all transactions
-                    for (Map.Entry<String, EntityManager> emEntry: ems.get().entrySet())
+                    catch (Exception e)
                     {
-                        EntityManager em = emEntry.getValue();
-                        transaction = em.getTransaction();
-                        if(transaction != null && transaction.isActive())
-                        {
-                            try
-                            {
-                                if (!commitFailed)
-                                {
-                                    transaction.commit();
-                                }
-                                else
-                                {
-                                    transaction.rollback();
-                                }
-                            }
-                            catch (Exception e)
-                            {
-                                firstException = e;
-                                commitFailed = true;
-                            }
-                        }
+                        firstException = e;
+                        commitFailed = true;
                     }
 
                     ems.remove();
                     ems.set(null);
 
-                    refCounterMaps.set(null);
-                    refCounterMaps.remove();
+                    refCounters.set(null);
+                    refCounters.remove();
 
                     // and now we close all open transactionscopes and reset the storage
                     TransactionBeanStorage oldStorage = TransactionBeanStorage.getStorage();
@@ -242,6 +214,7 @@ public class TransactionalInterceptorStrategy implements PersistenceStrategy
 
                     // we do this delayed to allow new transactions in a PreDestroy method
                     oldStorage.endAllTransactionScopes();
+                    TransactionBeanStorage.recycleStorage(oldStorage);
                 }
             }
             else
@@ -261,29 +234,82 @@ public class TransactionalInterceptorStrategy implements PersistenceStrategy
         }
     }
 
-    private EntityManager resolveEntityManagerForQualifier(Class<? extends Annotation> qualifierClass)
+    private TransactionMetaData getTransactionMetaData(InvocationContext invocationContext)
+    {
+        Method method = invocationContext.getMethod();
+        Class<?> targetClass = invocationContext.getTarget().getClass();
+
+        TransactionMetaData transactionMetaData =
+                TransactionMetaDataCache.getTransactionMetaData(method, targetClass);
+
+        if (transactionMetaData == null)
+        {
+            Transactional transactionalAnnotation = extractTransactionalAnnotation(invocationContext);
+
+            transactionMetaData = new TransactionMetaData(getTransactionQualifier(transactionalAnnotation));
+            TransactionMetaDataCache.addTransactionMetaData(method, targetClass, transactionMetaData);
+        }
+        return transactionMetaData;
+    }
+
+    private EntityManager resolveEntityManagerForQualifier(TransactionMetaData transactionMetaData,
+                                                           int transactionLayer)
     {
-        Bean<EntityManager> entityManagerBean = resolveEntityManagerBean(qualifierClass);
+        TransactionMetaData.EntityManagerBeanEntry entityManagerBeanEntry =
+                transactionMetaData.getEntityManagerBeanEntry(beanManager);
+
+        if (entityManagerBeanEntry == null)
+        {
+            entityManagerBeanEntry = transactionMetaData.setEntityManagerBean(
+                    beanManager, resolveEntityManagerBean(transactionMetaData.getQualifierClass()));
+        }
 
-        if(entityManagerBean == null)
+        if (!entityManagerBeanEntry.isEntityManagerBeanAvailable())
         {
             return null;
         }
 
-        return (EntityManager) beanManager.getReference(entityManagerBean, EntityManager.class,
-                                                                beanManager.createCreationalContext(entityManagerBean));
+        EntityManager entityManager = entityManagerBeanEntry.getCachedEntityManagerReference();
+
+        if (entityManager != null)
+        {
+            return entityManager;
+        }
+
+        // a nested layer for the same qualifier uses the EntityManager of the outer layer
+        if (transactionLayer > 0 && ems.get() != null)
+        {
+            entityManager = ems.get().get(transactionMetaData.getQualifierKey());
+
+            if (entityManager != null)
+            {
+                return entityManager;
+            }
+        }
+
+        return entityManagerBeanEntry.createEntityManagerReference();
     }
 
     private void storeEntityManagerForQualifier(String qualifierKey, EntityManager entityManager)
     {
         if (ems.get() == null)
         {
-            ems.set(new HashMap<String, EntityManager>());
+            ems.set(new LinkedHashMap<String, EntityManager>());
         }
 
         ems.get().put(qualifierKey, entityManager);
     }
 
+    private CommitCoordinator getCommitCoordinator()
+    {
+        if (this.commitCoordinator == null)
+        {
+            //instance wasn't created by the container
+            this.commitCoordinator = new SequentialCommitCoordinator();
+        }
+        return this.commitCoordinator;
+    }
+
     /**
      * This method might get overridden in subclasses to supply better error messages.
      * This is useful if e.g. a JPA provider only provides a stubborn Exception for
@@ -301,9 +327,8 @@ public class TransactionalInterceptorStrategy implements PersistenceStrategy
      */
     private boolean isOutermostInterceptor()
     {
-        HashMap<String, AtomicInteger> refCounterMap = refCounterMaps.get();
-        return refCounterMap == null ||
-               (refCounterMap.size() == 1 && refCounterMap.values().iterator().next().get() == 1);
+        TransactionRefCounters currentRefCounters = refCounters.get();
+        return currentRefCounters == null || currentRefCounters.isOutermostLayer();
     }
 
     /**
@@ -314,58 +339,38 @@ public class TransactionalInterceptorStrategy implements PersistenceStrategy
      */
     private int incrementRefCounter(String qualifierKey)
     {
-        HashMap<String, AtomicInteger> refCounterMap = refCounterMaps.get();
+        TransactionRefCounters currentRefCounters = refCounters.get();
 
-        if (refCounterMap == null)
+        if (currentRefCounters == null)
         {
-            refCounterMap = new HashMap<String, AtomicInteger>();
-            refCounterMaps.set(refCounterMap);
+            currentRefCounters = new TransactionRefCounters();
+            refCounters.set(currentRefCounters);
         }
 
-        AtomicInteger refCounter = refCounterMap.get(qualifierKey);
-
-        if (refCounter == null)
-        {
-            refCounter = new AtomicInteger(0);
-            refCounterMap.put(qualifierKey, refCounter);
-        }
-
-        return refCounter.incrementAndGet() - 1;
+        return currentRefCounters.increment(qualifierKey);
     }
 
     /**
      * Decrement the reference counter for the given classifier and
-     * return the layer. Also cleans up the {@link #refCounterMaps}.
+     * return the layer. Also cleans up the {@link #refCounters}.
      *
      * @param qualifierKey
      * @return the layer number. 0 represents the outermost interceptor for the qualifier
      */
     private int decrementRefCounter(String qualifierKey)
     {
-        HashMap<String, AtomicInteger> refCounterMap = refCounterMaps.get();
-        if (refCounterMap == null)
+        TransactionRefCounters currentRefCounters = refCounters.get();
+        if (currentRefCounters == null)
         {
             return 0;
         }
 
-        AtomicInteger refCounter = refCounterMap.get(qualifierKey);
-
-        if (refCounter == null)
-        {
-            return 0;
-        }
-
-        int layer = refCounter.decrementAndGet();
-
-        if (layer == 0)
-        {
-            refCounterMap.remove(qualifierKey);
-        }
+        int layer = currentRefCounters.decrement(qualifierKey);
 
-        if (refCounterMap.size() == 0)
+        if (currentRefCounters.isEmpty())
         {
-            refCounterMaps.set(null);
-            refCounterMaps.remove();
+            refCounters.set(null);
+            refCounters.remove();
         }
 
         return layer;
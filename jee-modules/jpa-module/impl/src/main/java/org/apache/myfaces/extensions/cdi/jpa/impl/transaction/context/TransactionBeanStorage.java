@@ -18,11 +18,12 @@
  */
 package org.apache.myfaces.extensions.cdi.jpa.impl.transaction.context;
 
+import org.apache.myfaces.extensions.cdi.core.impl.util.CodiRequestState;
+
 import javax.enterprise.context.spi.Contextual;
 import javax.enterprise.inject.Typed;
-import java.util.HashMap;
+import java.util.IdentityHashMap;
 import java.util.Map;
-import java.util.Stack;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -42,7 +43,13 @@ public class TransactionBeanStorage
 {
     private static final Logger LOGGER = Logger.getLogger(TransactionBeanStorage.class.getName());
 
-    private static ThreadLocal<TransactionBeanStorage> currentStorage = new ThreadLocal<TransactionBeanStorage>();
+    //a transaction might be started before the request starts (e.g. in a filter) -> it isn't bound to the request
+    private static final CodiRequestState.Key<TransactionBeanStorage> CURRENT_STORAGE_KEY =
+            new CodiRequestState.Key<TransactionBeanStorage>("current transaction-bean-storage", false);
+
+    //a storage which isn't used any longer - it's re-used by the next (outermost) transaction of the request
+    private static final CodiRequestState.Key<TransactionBeanStorage> RECYCLED_STORAGE_KEY =
+            new CodiRequestState.Key<TransactionBeanStorage>("recycled transaction-bean-storage");
 
     private TransactionBeanStorage()
     {
@@ -53,46 +60,81 @@ public class TransactionBeanStorage
      */
     public static TransactionBeanStorage getStorage()
     {
-        return currentStorage.get();
+        return CodiRequestState.getValue(CURRENT_STORAGE_KEY);
     }
 
     /**
-     * Creates a new storage for the current thread
+     * Activates a new (or a recycled) storage for the current thread
      * @return the storage which was associated with the thread before - null if there was no storage
      */
     public static TransactionBeanStorage activateNewStorage()
     {
-        TransactionBeanStorage previousStorage = currentStorage.get();
-        currentStorage.set(new TransactionBeanStorage());
+        CodiRequestState requestState = CodiRequestState.getCurrentRequestState();
+        TransactionBeanStorage previousStorage = requestState.get(CURRENT_STORAGE_KEY);
+        TransactionBeanStorage newStorage = requestState.get(RECYCLED_STORAGE_KEY);
+
+        if (newStorage == null)
+        {
+            newStorage = new TransactionBeanStorage();
+        }
+
+        requestState.set(CURRENT_STORAGE_KEY, newStorage);
+        requestState.set(RECYCLED_STORAGE_KEY, null);
         return previousStorage;
     }
 
+    /**
+     * Allows to re-use a storage (which isn't the current storage any longer) for the next transaction of the
+     * current request. Outside of a request the storage isn't kept, because the state of the thread would be kept
+     * as well (e.g. for pooled threads).
+     * @param storage storage which isn't used any longer - all its transaction-scopes have to be ended
+     */
+    public static void recycleStorage(TransactionBeanStorage storage)
+    {
+        CodiRequestState requestState = CodiRequestState.getExistingRequestState();
+
+        if (requestState == null || !requestState.isRequestActive() ||
+                requestState.get(CURRENT_STORAGE_KEY) == storage || !storage.isUnused())
+        {
+            return;
+        }
+        requestState.set(RECYCLED_STORAGE_KEY, storage);
+    }
+
     /**
      * Removes the current storage
      */
     public static void resetStorage()
     {
-        currentStorage.remove();
-        currentStorage.set(null);
+        CodiRequestState.setValue(CURRENT_STORAGE_KEY, null);
     }
 
+    private static final int INITIAL_CAPACITY = 4;
+
     /**
      * This is the actual bean storage.
      * The structure is:
      * <ol>
      *     <li>transactioKey identifies the 'database qualifier'</li>
-     *     <li>transactionKey -> Stack: we need the Stack because of REQUIRES_NEW, etc</li>
-     *     <li>top Element in the Stack -> Context beans for the transactionKey</li>
+     *     <li>transactionKey -> stack: we need the stack because of REQUIRES_NEW, etc</li>
+     *     <li>top element in the stack -> Context beans for the transactionKey</li>
      * </ol>
      *
+     * There are just a few qualifiers per transaction. Therefore the stacks are stored in an array instead of a map.
+     * Stacks and the maps of their layers get recycled as long as the storage is in use.
+     * The maps use the identity of the {@link Contextual}, because the container passes its own bean instances.
      */
-    private Map<String, Stack<Map<Contextual, TransactionBeanEntry>>> storedTransactionContexts =
-            new HashMap<String, Stack<Map<Contextual, TransactionBeanEntry>>>();
+    private TransactionScopeStack[] storedTransactionContexts = new TransactionScopeStack[INITIAL_CAPACITY];
+
+    private int storedTransactionContextCount;
 
     private Map<Contextual, TransactionBeanEntry> activeTransactionContext;
 
     private String activeTransactionKey = null;
 
+    //used on the topmost stack-layer (outside of a transaction)
+    private Map<Contextual, TransactionBeanEntry> unboundTransactionContext;
+
     /**
      * Start the TransactionScope with the given qualifier
      * @param transactionKey
@@ -104,15 +146,22 @@ public class TransactionBeanStorage
             LOGGER.finer( "starting TransactionScope " + transactionKey);
         }
 
-        Stack<Map<Contextual, TransactionBeanEntry>> transStack = storedTransactionContexts.get(transactionKey);
+        TransactionScopeStack transStack = findTransactionScopeStack(transactionKey);
 
         if (transStack == null)
         {
-            transStack = new Stack<Map<Contextual, TransactionBeanEntry>>();
-            storedTransactionContexts.put(transactionKey, transStack);
+            transStack = new TransactionScopeStack(transactionKey);
+
+            if (this.storedTransactionContextCount == this.storedTransactionContexts.length)
+            {
+                TransactionScopeStack[] newStacks = new TransactionScopeStack[this.storedTransactionContextCount * 2];
+                System.arraycopy(this.storedTransactionContexts, 0, newStacks, 0, this.storedTransactionContextCount);
+                this.storedTransactionContexts = newStacks;
+            }
+            this.storedTransactionContexts[this.storedTransactionContextCount++] = transStack;
         }
 
-        transStack.push(new HashMap<Contextual, TransactionBeanEntry>());
+        transStack.push();
     }
 
     /**
@@ -129,14 +178,14 @@ public class TransactionBeanStorage
         }
 
         // drop the context from the storage
-        Stack<Map<Contextual, TransactionBeanEntry>> transStack = storedTransactionContexts.get(transactionKey);
-        Map<Contextual, TransactionBeanEntry> beans = transStack.pop();
-        destroyBeans(beans);
+        TransactionScopeStack transStack = findTransactionScopeStack(transactionKey);
 
-        if (transStack.size() == 0)
+        if (transStack == null || transStack.isEmpty())
         {
-            storedTransactionContexts.remove(transactionKey);
+            throw new IllegalStateException("Cannot end TransactionScope with key " + transactionKey);
         }
+
+        transStack.pop();
     }
 
     /**
@@ -159,9 +208,18 @@ public class TransactionBeanStorage
         //can be null on the topmost stack-layer
         if (transactionKey == null && this.activeTransactionKey == null)
         {
-            //TODO refactor it to a reset method
-            activeTransactionKey = null;
-            activeTransactionContext = new HashMap<Contextual, TransactionBeanEntry>();
+            //an empty context - instances created outside of a transaction aren't stored
+            if (this.unboundTransactionContext == null)
+            {
+                this.unboundTransactionContext =
+                        new IdentityHashMap<Contextual, TransactionBeanEntry>(INITIAL_CAPACITY);
+            }
+            else if (!this.unboundTransactionContext.isEmpty())
+            {
+                this.unboundTransactionContext.clear();
+            }
+
+            activeTransactionContext = this.unboundTransactionContext;
             return null;
         }
 
@@ -172,14 +230,14 @@ public class TransactionBeanStorage
             transactionKey = this.activeTransactionKey;
         }
 
-        Stack<Map<Contextual, TransactionBeanEntry>> transStack = storedTransactionContexts.get(transactionKey);
+        TransactionScopeStack transStack = findTransactionScopeStack(transactionKey);
 
-        if (transStack == null)
+        if (transStack == null || transStack.isEmpty())
         {
             throw new IllegalStateException("Cannot activate TransactionScope with key " + transactionKey);
         }
 
-        activeTransactionContext =  transStack.peek();
+        activeTransactionContext = transStack.peek();
         activeTransactionKey = transactionKey;
         return oldTransactionContextKey;
     }
@@ -200,22 +258,39 @@ public class TransactionBeanStorage
             LOGGER.finer( "destroying all TransactionScopes");
         }
 
-        for (Stack<Map<Contextual, TransactionBeanEntry>> transStack : storedTransactionContexts.values())
+        for (int i = 0; i < this.storedTransactionContextCount; i++)
         {
+            TransactionScopeStack transStack = this.storedTransactionContexts[i];
+
             while (!transStack.isEmpty())
             {
-                Map<Contextual, TransactionBeanEntry> beans = transStack.pop();
-                destroyBeans(beans);
+                transStack.pop();
             }
         }
 
         // we also need to clean our active context info
-        storedTransactionContexts.clear();
         activeTransactionContext = null;
         activeTransactionKey = null;
     }
 
 
+    private boolean isUnused()
+    {
+        if (this.activeTransactionContext != null)
+        {
+            return false;
+        }
+
+        for (int i = 0; i < this.storedTransactionContextCount; i++)
+        {
+            if (!this.storedTransactionContexts[i].isEmpty())
+            {
+                return false;
+            }
+        }
+        return true;
+    }
+
     /**
      * @return the Map which represents the currently active Context content.
      */
@@ -224,16 +299,98 @@ public class TransactionBeanStorage
         return activeTransactionContext;
     }
 
+    private TransactionScopeStack findTransactionScopeStack(String transactionKey)
+    {
+        for (int i = 0; i < this.storedTransactionContextCount; i++)
+        {
+            TransactionScopeStack transStack = this.storedTransactionContexts[i];
+
+            //noinspection StringEquality
+            if (transStack.transactionKey == transactionKey ||
+                    (transactionKey != null && transactionKey.equals(transStack.transactionKey)))
+            {
+                return transStack;
+            }
+        }
+        return null;
+    }
+
     /**
      * Properly destroy all the given beans.
      * @param activeBeans
      */
-    private void destroyBeans(Map<Contextual, TransactionBeanEntry> activeBeans)
+    private static void destroyBeans(Map<Contextual, TransactionBeanEntry> activeBeans)
     {
         for (TransactionBeanEntry beanBag : activeBeans.values())
         {
             beanBag.getBean().destroy(beanBag.getContextualInstance(), beanBag.getCreationalContext());
         }
     }
-}
 
+    /**
+     * Array based stack of the contexts of one transaction qualifier.
+     * The map of a layer gets cleared and re-used as soon as the layer gets pushed again.
+     */
+    private static final class TransactionScopeStack
+    {
+        private final String transactionKey;
+
+        private Map<Contextual, TransactionBeanEntry>[] layers = createLayers(INITIAL_CAPACITY);
+
+        private int size;
+
+        private TransactionScopeStack(String transactionKey)
+        {
+            this.transactionKey = transactionKey;
+        }
+
+        private void push()
+        {
+            if (this.size == this.layers.length)
+            {
+                Map<Contextual, TransactionBeanEntry>[] newLayers = createLayers(this.size * 2);
+                System.arraycopy(this.layers, 0, newLayers, 0, this.size);
+                this.layers = newLayers;
+            }
+
+            Map<Contextual, TransactionBeanEntry> layer = this.layers[this.size];
+
+            if (layer == null)
+            {
+                //just a few beans per transaction - the default capacity would allocate 64 slots
+                this.layers[this.size] = new IdentityHashMap<Contextual, TransactionBeanEntry>(INITIAL_CAPACITY);
+            }
+            else if (!layer.isEmpty())
+            {
+                //the beans of the layer couldn't be destroyed completely
+                layer.clear();
+            }
+            this.size++;
+        }
+
+        private Map<Contextual, TransactionBeanEntry> peek()
+        {
+            return this.layers[this.size - 1];
+        }
+
+        private void pop()
+        {
+            this.size--;
+            Map<Contextual, TransactionBeanEntry> beans = this.layers[this.size];
+
+            destroyBeans(beans);
+            beans.clear();
+        }
+
+        private boolean isEmpty()
+        {
+            return this.size == 0;
+        }
+
+        @SuppressWarnings({"unchecked"})
+        private static Map<Contextual, TransactionBeanEntry>[] createLayers(int capacity)
+        {
+            return new Map[capacity];
+        }
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jpa.test;
+
+import org.apache.myfaces.extensions.cdi.jpa.impl.PersistenceHelper;
+import org.testng.Assert;
+import org.testng.annotations.Test;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the lookup of entity-managers which are injected via &#064;PersistenceContext
+ */
+public class PersistenceHelperTest
+{
+    private static final int THREAD_COUNT = 8;
+
+    private static final int LOOKUPS_PER_THREAD = 20000;
+
+    @Test
+    public void testInjectedEntityManager()
+    {
+        EntityManager entityManager = createEntityManager();
+
+        Assert.assertSame(PersistenceHelper.tryToFindEntityManagerReference(new TestService(entityManager)),
+                entityManager);
+        Assert.assertSame(PersistenceHelper.tryToFindEntityManagerReference(new TestSubService(entityManager)),
+                entityManager);
+
+        //the cached field has to be used for other instances of the same class
+        EntityManager otherEntityManager = createEntityManager();
+        Assert.assertSame(PersistenceHelper.tryToFindEntityManagerReference(new TestService(otherEntityManager)),
+                otherEntityManager);
+    }
+
+    @Test
+    public void testWithoutInjectedEntityManager()
+    {
+        Assert.assertNull(PersistenceHelper.tryToFindEntityManagerReference(new Object()));
+        Assert.assertNull(PersistenceHelper.tryToFindEntityManagerReference(new Object()));
+    }
+
+    @Test
+    public void testConcurrentLookups() throws Exception
+    {
+        final EntityManager entityManager = createEntityManager();
+        final TestService testService = new TestService(entityManager);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(THREAD_COUNT);
+
+        try
+        {
+            List<Future<Boolean>> results = new CopyOnWriteArrayList<Future<Boolean>>();
+
+            for (int i = 0; i < THREAD_COUNT; i++)
+            {
+                results.add(executorService.submit(new Callable<Boolean>()
+                {
+                    public Boolean call() throws Exception
+                    {
+                        for (int i = 0; i < LOOKUPS_PER_THREAD; i++)
+                        {
+                            if (PersistenceHelper.tryToFindEntityManagerReference(testService) != entityManager)
+                            {
+                                return Boolean.FALSE;
+                            }
+                        }
+                        return Boolean.TRUE;
+                    }
+                }));
+            }
+
+            for (Future<Boolean> result : results)
+            {
+                Assert.assertTrue(result.get(30, TimeUnit.SECONDS));
+            }
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+    private EntityManager createEntityManager()
+    {
+        return (EntityManager) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{EntityManager.class},
+                new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        if ("hashCode".equals(method.getName()))
+                        {
+                            return System.identityHashCode(proxy);
+                        }
+                        if ("equals".equals(method.getName()))
+                        {
+                            return proxy == args[0];
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    //inner classes aren't managed beans
+    private class TestService
+    {
+        @PersistenceContext
+        private EntityManager entityManager;
+
+        private TestService(EntityManager entityManager)
+        {
+            this.entityManager = entityManager;
+        }
+    }
+
+    private class TestSubService extends TestService
+    {
+        private TestSubService(EntityManager entityManager)
+        {
+            super(entityManager);
+        }
+    }
+}
@@ -0,0 +1,735 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jpa.test.datasource;
+
+import org.apache.myfaces.extensions.cdi.jpa.api.datasource.PooledDataSourceConfig;
+import org.apache.myfaces.extensions.cdi.jpa.impl.datasource.ConnectionPool;
+import org.apache.myfaces.extensions.cdi.jpa.impl.datasource.ConnectionPoolRegistry;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.enterprise.inject.Typed;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.Driver;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.List;
+import java.util.Properties;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the {@link ConnectionPool} with a stand-in for a JDBC driver
+ */
+public class ConnectionPoolTest
+{
+    private static final int THREAD_COUNT = 8;
+
+    private static final int BORROWS_PER_THREAD = 5000;
+
+    private AtomicInteger physicalConnectionCount;
+
+    private AtomicInteger openPhysicalConnectionCount;
+
+    private List<Connection> physicalConnections;
+
+    private AtomicInteger openStatementCount;
+
+    private AtomicInteger openResultSetCount;
+
+    private int failingConnectAttempt;
+
+    private Driver driver;
+
+    @BeforeMethod
+    public void createDriver()
+    {
+        this.physicalConnectionCount = new AtomicInteger();
+        this.openPhysicalConnectionCount = new AtomicInteger();
+        this.physicalConnections = new CopyOnWriteArrayList<Connection>();
+        this.openStatementCount = new AtomicInteger();
+        this.openResultSetCount = new AtomicInteger();
+        this.failingConnectAttempt = -1;
+        this.driver = createTestDriver();
+    }
+
+    @Test
+    public void testConnectionReuse() throws Exception
+    {
+        ConnectionPool connectionPool = createConnectionPool(new TestPoolConfig());
+
+        for (int i = 0; i < 100; i++)
+        {
+            Connection connection = connectionPool.getConnection();
+            connection.setAutoCommit(false);
+            connection.close();
+        }
+
+        Assert.assertEquals(this.physicalConnectionCount.get(), 1);
+        Assert.assertEquals(connectionPool.getBorrowCount(), 100);
+        Assert.assertEquals(connectionPool.getIdleConnectionCount(), 1);
+        Assert.assertEquals(connectionPool.getActiveConnectionCount(), 0);
+
+        //the state changed by the application was reset
+        Assert.assertTrue(this.physicalConnections.get(0).getAutoCommit());
+
+        connectionPool.close();
+        Assert.assertEquals(this.openPhysicalConnectionCount.get(), 0);
+    }
+
+    @Test
+    public void testMinPoolSize() throws Exception
+    {
+        TestPoolConfig poolConfig = new TestPoolConfig();
+        poolConfig.minPoolSize = 2;
+        poolConfig.maxPoolSize = 3;
+
+        ConnectionPool connectionPool = createConnectionPool(poolConfig);
+
+        Assert.assertEquals(this.physicalConnectionCount.get(), 2);
+        Assert.assertEquals(connectionPool.getIdleConnectionCount(), 2);
+
+        connectionPool.close();
+    }
+
+    @Test
+    public void testClosedHandle() throws Exception
+    {
+        ConnectionPool connectionPool = createConnectionPool(new TestPoolConfig());
+
+        Connection connection = connectionPool.getConnection();
+        connection.close();
+        //no-op
+        connection.close();
+
+        Assert.assertTrue(connection.isClosed());
+        Assert.assertEquals(connectionPool.getIdleConnectionCount(), 1);
+
+        try
+        {
+            connection.getAutoCommit();
+            Assert.fail("the handle was closed");
+        }
+        catch (SQLException e)
+        {
+            //expected
+        }
+
+        connectionPool.close();
+    }
+
+    @Test
+    public void testMaxPoolSize() throws Exception
+    {
+        TestPoolConfig poolConfig = new TestPoolConfig();
+        poolConfig.maxPoolSize = 2;
+        poolConfig.maxWaitTime = 50;
+
+        ConnectionPool connectionPool = createConnectionPool(poolConfig);
+
+        Connection connection1 = connectionPool.getConnection();
+        Connection connection2 = connectionPool.getConnection();
+
+        try
+        {
+            connectionPool.getConnection();
+            Assert.fail("the pool is exhausted");
+        }
+        catch (SQLException e)
+        {
+            //expected
+        }
+
+        Assert.assertEquals(connectionPool.getWaitTimeoutCount(), 1);
+
+        connection1.close();
+        connectionPool.getConnection().close();
+        connection2.close();
+
+        Assert.assertEquals(this.physicalConnectionCount.get(), 2);
+        connectionPool.close();
+    }
+
+    @Test
+    public void testValidationOnBorrow() throws Exception
+    {
+        TestPoolConfig poolConfig = new TestPoolConfig();
+        poolConfig.validateOnBorrow = true;
+
+        ConnectionPool connectionPool = createConnectionPool(poolConfig);
+
+        connectionPool.getConnection().close();
+
+        //e.g. closed by the database
+        this.physicalConnections.get(0).close();
+
+        Connection connection = connectionPool.getConnection();
+        Assert.assertFalse(connection.isClosed());
+
+        Assert.assertEquals(connectionPool.getValidationFailureCount(), 1);
+        Assert.assertEquals(this.physicalConnectionCount.get(), 2);
+
+        connection.close();
+        connectionPool.close();
+    }
+
+    @Test
+    public void testIdleEviction() throws Exception
+    {
+        TestPoolConfig poolConfig = new TestPoolConfig();
+        poolConfig.minPoolSize = 1;
+        poolConfig.maxPoolSize = 3;
+        poolConfig.maxIdleTime = 20;
+
+        ConnectionPool connectionPool = createConnectionPool(poolConfig);
+
+        Connection connection1 = connectionPool.getConnection();
+        Connection connection2 = connectionPool.getConnection();
+        Connection connection3 = connectionPool.getConnection();
+        connection1.close();
+        connection2.close();
+        connection3.close();
+
+        Assert.assertEquals(connectionPool.getOpenConnectionCount(), 3);
+
+        Thread.sleep(100);
+
+        //triggers the maintenance
+        connectionPool.getConnection().close();
+
+        Assert.assertEquals(connectionPool.getOpenConnectionCount(), 1);
+        Assert.assertEquals(this.openPhysicalConnectionCount.get(), 1);
+
+        connectionPool.close();
+    }
+
+    @Test
+    public void testLeakDetection() throws Exception
+    {
+        TestPoolConfig poolConfig = new TestPoolConfig();
+        poolConfig.maxPoolSize = 2;
+        poolConfig.leakDetectionThreshold = 20;
+
+        ConnectionPool connectionPool = createConnectionPool(poolConfig);
+
+        Connection leakedConnection = connectionPool.getConnection();
+
+        Thread.sleep(100);
+
+        //triggers the maintenance
+        connectionPool.getConnection().close();
+
+        Assert.assertEquals(connectionPool.getLeakCount(), 1);
+
+        leakedConnection.close();
+        connectionPool.close();
+    }
+
+    @Test
+    public void testConcurrentUsage() throws Exception
+    {
+        TestPoolConfig poolConfig = new TestPoolConfig();
+        poolConfig.maxPoolSize = 4;
+        poolConfig.maxWaitTime = 10000;
+
+        final ConnectionPool connectionPool = createConnectionPool(poolConfig);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(THREAD_COUNT);
+
+        try
+        {
+            List<Future<Boolean>> results = new CopyOnWriteArrayList<Future<Boolean>>();
+
+            for (int i = 0; i < THREAD_COUNT; i++)
+            {
+                results.add(executorService.submit(new Callable<Boolean>()
+                {
+                    public Boolean call() throws Exception
+                    {
+                        for (int i = 0; i < BORROWS_PER_THREAD; i++)
+                        {
+                            Connection connection = connectionPool.getConnection();
+                            connection.getAutoCommit();
+                            connection.close();
+                        }
+                        return Boolean.TRUE;
+                    }
+                }));
+            }
+
+            for (Future<Boolean> result : results)
+            {
+                Assert.assertTrue(result.get(30, TimeUnit.SECONDS));
+            }
+
+            Assert.assertTrue(this.physicalConnectionCount.get() <= 4);
+            Assert.assertEquals(connectionPool.getBorrowCount(), THREAD_COUNT * BORROWS_PER_THREAD);
+            Assert.assertEquals(connectionPool.getActiveConnectionCount(), 0);
+        }
+        finally
+        {
+            executorService.shutdownNow();
+            connectionPool.close();
+        }
+    }
+
+    @Test
+    public void testConcurrentCloseOfHandle() throws Exception
+    {
+        TestPoolConfig poolConfig = new TestPoolConfig();
+        poolConfig.maxPoolSize = 2;
+
+        final ConnectionPool connectionPool = createConnectionPool(poolConfig);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(THREAD_COUNT);
+
+        try
+        {
+            for (int i = 0; i < 100; i++)
+            {
+                final Connection connection = connectionPool.getConnection();
+                final CountDownLatch startLatch = new CountDownLatch(1);
+
+                List<Future<Boolean>> results = new CopyOnWriteArrayList<Future<Boolean>>();
+
+                for (int j = 0; j < THREAD_COUNT; j++)
+                {
+                    results.add(executorService.submit(new Callable<Boolean>()
+                    {
+                        public Boolean call() throws Exception
+                        {
+                            startLatch.await();
+                            connection.close();
+                            return Boolean.TRUE;
+                        }
+                    }));
+                }
+
+                startLatch.countDown();
+
+                for (Future<Boolean> result : results)
+                {
+                    Assert.assertTrue(result.get(30, TimeUnit.SECONDS));
+                }
+
+                //the connection was returned once
+                Assert.assertEquals(connectionPool.getIdleConnectionCount(), 1);
+                Assert.assertEquals(connectionPool.getActiveConnectionCount(), 0);
+            }
+        }
+        finally
+        {
+            executorService.shutdownNow();
+            connectionPool.close();
+        }
+    }
+
+    @Test
+    public void testOpenStatementsAreClosedOnReturn() throws Exception
+    {
+        ConnectionPool connectionPool = createConnectionPool(new TestPoolConfig());
+
+        Connection connection = connectionPool.getConnection();
+
+        Statement statement = connection.createStatement();
+        statement.executeQuery("select 1");
+        PreparedStatement preparedStatement = connection.prepareStatement("select 2");
+        preparedStatement.executeQuery();
+
+        Statement closedStatement = connection.createStatement();
+        closedStatement.close();
+
+        Assert.assertEquals(this.openStatementCount.get(), 2);
+        Assert.assertEquals(this.openResultSetCount.get(), 2);
+
+        connection.close();
+
+        Assert.assertEquals(this.openStatementCount.get(), 0);
+        Assert.assertEquals(this.openResultSetCount.get(), 0);
+        Assert.assertTrue(statement.isClosed());
+
+        try
+        {
+            preparedStatement.executeQuery();
+            Assert.fail("the connection was closed");
+        }
+        catch (SQLException e)
+        {
+            //expected
+        }
+
+        connectionPool.close();
+    }
+
+    @Test
+    public void testPhysicalConnectionIsNotExposed() throws Exception
+    {
+        ConnectionPool connectionPool = createConnectionPool(new TestPoolConfig());
+
+        Connection connection = connectionPool.getConnection();
+
+        Statement statement = connection.createStatement();
+        ResultSet resultSet = statement.executeQuery("select 1");
+
+        Assert.assertSame(statement.getConnection(), connection);
+        Assert.assertSame(resultSet.getStatement(), statement);
+        Assert.assertSame(resultSet.getStatement().getConnection(), connection);
+
+        Connection leakedConnection = resultSet.getStatement().getConnection();
+
+        connection.close();
+
+        //the connection was returned - a leaked reference can't be used any longer
+        Assert.assertTrue(leakedConnection.isClosed());
+        Assert.assertFalse(this.physicalConnections.get(0).isClosed());
+
+        connectionPool.close();
+    }
+
+    @Test
+    public void testPartiallyCreatedConnectionsAreClosed() throws Exception
+    {
+        TestPoolConfig poolConfig = new TestPoolConfig();
+        poolConfig.minPoolSize = 3;
+        poolConfig.maxPoolSize = 3;
+
+        this.failingConnectAttempt = 2;
+
+        try
+        {
+            createConnectionPool(poolConfig);
+            Assert.fail("the driver failed to create a connection");
+        }
+        catch (SQLException e)
+        {
+            //expected
+        }
+
+        Assert.assertEquals(this.physicalConnectionCount.get(), 1);
+        Assert.assertEquals(this.openPhysicalConnectionCount.get(), 0);
+    }
+
+    @Test
+    public void testConnectionPoolIsSharedAndClosedBeforeShutdown() throws Exception
+    {
+        TestPoolConfig poolConfig = new TestPoolConfig();
+
+        ConnectionPool connectionPool = ConnectionPoolRegistry.acquireConnectionPool(
+                this.driver, "jdbc:test", new Properties(), "shared", poolConfig);
+
+        Assert.assertSame(ConnectionPoolRegistry.acquireConnectionPool(
+                this.driver, "jdbc:test", new Properties(), "shared", poolConfig), connectionPool);
+        Assert.assertNotSame(ConnectionPoolRegistry.acquireConnectionPool(
+                this.driver, "jdbc:test", new Properties(), "other", poolConfig), connectionPool);
+
+        connectionPool.getConnection().close();
+
+        Assert.assertEquals(getRegisteredConnectionPoolCount(), 2);
+
+        new ConnectionPoolRegistry()
+        {
+            {
+                closeConnectionPools(null);
+            }
+        };
+
+        Assert.assertEquals(this.openPhysicalConnectionCount.get(), 0);
+        Assert.assertEquals(getRegisteredConnectionPoolCount(), 0);
+
+        try
+        {
+            connectionPool.getConnection();
+            Assert.fail("the pool was closed");
+        }
+        catch (SQLException e)
+        {
+            //expected
+        }
+
+        //a new pool is created on demand
+        Assert.assertNotSame(ConnectionPoolRegistry.acquireConnectionPool(
+                this.driver, "jdbc:test", new Properties(), "shared", poolConfig), connectionPool);
+
+        new ConnectionPoolRegistry()
+        {
+            {
+                closeConnectionPools(null);
+            }
+        };
+    }
+
+    @Test
+    public void testReleasedConnectionPoolStaysOpen() throws Exception
+    {
+        TestPoolConfig poolConfig = new TestPoolConfig();
+
+        ConnectionPool connectionPool = ConnectionPoolRegistry.acquireConnectionPool(
+                this.driver, "jdbc:test", new Properties(), "released", poolConfig);
+        Assert.assertSame(ConnectionPoolRegistry.acquireConnectionPool(
+                this.driver, "jdbc:test", new Properties(), "released", poolConfig), connectionPool);
+
+        connectionPool.getConnection().close();
+
+        //e.g. ConfigurableDataSource#close of one of the data-sources
+        Assert.assertEquals(ConnectionPoolRegistry.releaseConnectionPool(connectionPool), 1);
+
+        Assert.assertEquals(connectionPool.getIdleConnectionCount(), 1);
+        connectionPool.getConnection().close();
+
+        //the last data-source was closed -> just the idle connections get closed
+        Assert.assertEquals(ConnectionPoolRegistry.releaseConnectionPool(connectionPool), 0);
+
+        Assert.assertEquals(this.openPhysicalConnectionCount.get(), 0);
+        Assert.assertEquals(connectionPool.getIdleConnectionCount(), 0);
+
+        //the pool is still registered and usable
+        Assert.assertSame(ConnectionPoolRegistry.acquireConnectionPool(
+                this.driver, "jdbc:test", new Properties(), "released", poolConfig), connectionPool);
+        connectionPool.getConnection().close();
+        Assert.assertEquals(this.openPhysicalConnectionCount.get(), 1);
+
+        new ConnectionPoolRegistry()
+        {
+            {
+                closeConnectionPools(null);
+            }
+        };
+
+        Assert.assertEquals(this.openPhysicalConnectionCount.get(), 0);
+    }
+
+    private int getRegisteredConnectionPoolCount() throws Exception
+    {
+        return ManagementFactory.getPlatformMBeanServer().queryNames(
+                new ObjectName("org.apache.myfaces.extensions.cdi:type=ConnectionPool,*"), null).size();
+    }
+
+    private ConnectionPool createConnectionPool(PooledDataSourceConfig poolConfig) throws SQLException
+    {
+        return new ConnectionPool(this.driver, "jdbc:test", new Properties(), "test", poolConfig);
+    }
+
+    private Driver createTestDriver()
+    {
+        return (Driver) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Driver.class},
+                new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        if ("connect".equals(method.getName()))
+                        {
+                            if (physicalConnectionCount.get() + 1 == failingConnectAttempt)
+                            {
+                                throw new SQLException("connection refused");
+                            }
+
+                            physicalConnectionCount.incrementAndGet();
+                            openPhysicalConnectionCount.incrementAndGet();
+
+                            Connection connection = createTestConnection();
+                            physicalConnections.add(connection);
+                            return connection;
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private Connection createTestConnection()
+    {
+        return (Connection) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Connection.class},
+                new InvocationHandler()
+                {
+                    private boolean closed;
+                    private boolean autoCommit = true;
+
+                    public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        String methodName = method.getName();
+
+                        if ("close".equals(methodName))
+                        {
+                            if (!this.closed)
+                            {
+                                this.closed = true;
+                                openPhysicalConnectionCount.decrementAndGet();
+                            }
+                            return null;
+                        }
+                        if ("isClosed".equals(methodName))
+                        {
+                            return this.closed;
+                        }
+                        if (this.closed)
+                        {
+                            throw new SQLException("closed");
+                        }
+                        if ("getAutoCommit".equals(methodName))
+                        {
+                            return this.autoCommit;
+                        }
+                        if ("setAutoCommit".equals(methodName))
+                        {
+                            this.autoCommit = (Boolean) args[0];
+                        }
+                        if ("createStatement".equals(methodName))
+                        {
+                            return createTestJdbcObject(Statement.class, (Connection) proxy, openStatementCount);
+                        }
+                        if ("prepareStatement".equals(methodName))
+                        {
+                            return createTestJdbcObject(
+                                    PreparedStatement.class, (Connection) proxy, openStatementCount);
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    /**
+     * @param type Statement, PreparedStatement or ResultSet
+     * @param parent connection of a statement or statement of a result-set
+     * @param openCount counter for the created objects which aren't closed
+     * @return a new statement or result-set
+     */
+    private <T> T createTestJdbcObject(final Class<T> type, final Object parent, final AtomicInteger openCount)
+    {
+        openCount.incrementAndGet();
+
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{type},
+                new InvocationHandler()
+                {
+                    private boolean closed;
+
+                    public synchronized Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        String methodName = method.getName();
+
+                        if ("close".equals(methodName))
+                        {
+                            if (!this.closed)
+                            {
+                                this.closed = true;
+                                openCount.decrementAndGet();
+                            }
+                            return null;
+                        }
+                        if ("isClosed".equals(methodName))
+                        {
+                            return this.closed;
+                        }
+                        if (this.closed)
+                        {
+                            throw new SQLException("closed");
+                        }
+                        if ("executeQuery".equals(methodName))
+                        {
+                            return createTestJdbcObject(ResultSet.class, proxy, openResultSetCount);
+                        }
+                        if ("getConnection".equals(methodName) || "getStatement".equals(methodName))
+                        {
+                            return parent;
+                        }
+                        return null;
+                    }
+                }));
+    }
+
+    @Typed()
+    private static class TestPoolConfig implements PooledDataSourceConfig
+    {
+        private static final long serialVersionUID = -2383718434541066387L;
+
+        private int minPoolSize = 0;
+        private int maxPoolSize = 1;
+        private long maxWaitTime = 0;
+        private boolean validateOnBorrow = false;
+        private long maxIdleTime = 0;
+        private long leakDetectionThreshold = 0;
+
+        public int getMaxPoolSize(String connectionId)
+        {
+            return this.maxPoolSize;
+        }
+
+        public int getMinPoolSize(String connectionId)
+        {
+            return this.minPoolSize;
+        }
+
+        public long getMaxWaitTime(String connectionId)
+        {
+            return this.maxWaitTime;
+        }
+
+        public boolean isValidateOnBorrow(String connectionId)
+        {
+            return this.validateOnBorrow;
+        }
+
+        public String getValidationQuery(String connectionId)
+        {
+            return null;
+        }
+
+        public long getMaxIdleTime(String connectionId)
+        {
+            return this.maxIdleTime;
+        }
+
+        public long getLeakDetectionThreshold(String connectionId)
+        {
+            return this.leakDetectionThreshold;
+        }
+
+        public String getJndiResourceName(String connectionId)
+        {
+            return null;
+        }
+
+        public String getConnectionClassName(String connectionId)
+        {
+            return null;
+        }
+
+        public Properties getConnectionProperties(String connectionId)
+        {
+            return new Properties();
+        }
+
+        public String getJdbcConnectionUrl(String connectionId)
+        {
+            return "jdbc:test";
+        }
+    }
+}
@@ -0,0 +1,378 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jpa.test.transaction;
+
+import org.apache.myfaces.extensions.cdi.jpa.impl.spi.CommitCoordinator;
+import org.apache.myfaces.extensions.cdi.jpa.impl.transaction.CommitTimings;
+import org.apache.myfaces.extensions.cdi.jpa.impl.transaction.ParallelFlushCommitCoordinator;
+import org.apache.myfaces.extensions.cdi.jpa.impl.transaction.SequentialCommitCoordinator;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.enterprise.inject.Typed;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import javax.persistence.PersistenceException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests the {@link CommitCoordinator} implementations with stub entity-managers which simulate the latency of
+ * a flush
+ */
+public class CommitCoordinatorTest
+{
+    private static final long FLUSH_LATENCY_MILLIS = 50;
+
+    private static final List<String> QUALIFIER_KEYS = Arrays.asList("q1", "q2", "q3", "q4");
+
+    private List<String> events;
+
+    private volatile CountDownLatch concurrentFlushLatch;
+
+    private List<Thread> flushThreads;
+
+    //simulates contextual references which can't be unwrapped
+    private boolean withoutDelegate;
+
+    @BeforeMethod
+    public void resetEvents()
+    {
+        this.events = Collections.synchronizedList(new ArrayList<String>());
+        this.concurrentFlushLatch = null;
+        this.flushThreads = Collections.synchronizedList(new ArrayList<Thread>());
+        this.withoutDelegate = false;
+    }
+
+    @Test
+    public void testSequentialFlushAndCommit() throws Exception
+    {
+        SequentialCommitCoordinator commitCoordinator = new SequentialCommitCoordinator();
+
+        commitCoordinator.flushAndCommit(createEntityManagers(0, null, null));
+
+        Assert.assertEquals(this.events, Arrays.asList(
+                "flush:q1", "flush:q2", "flush:q3", "flush:q4", "commit:q1", "commit:q2", "commit:q3", "commit:q4"));
+
+        for (String qualifierKey : QUALIFIER_KEYS)
+        {
+            CommitTimings commitTimings = commitCoordinator.getCommitTimings(qualifierKey);
+            Assert.assertEquals(commitTimings.getFlushCount(), 1);
+            Assert.assertEquals(commitTimings.getCommitCount(), 1);
+            Assert.assertEquals(commitTimings.getRollbackCount(), 0);
+        }
+    }
+
+    @Test
+    public void testSequentialFlushFailureRollsBackAllTransactions() throws Exception
+    {
+        SequentialCommitCoordinator commitCoordinator = new SequentialCommitCoordinator();
+
+        try
+        {
+            commitCoordinator.flushAndCommit(createEntityManagers(0, "q2", null));
+            Assert.fail("flush failure expected");
+        }
+        catch (PersistenceException e)
+        {
+            Assert.assertEquals(e.getMessage(), "flush failed: q2");
+        }
+
+        //the remaining entity-managers aren't flushed any more
+        Assert.assertEquals(this.events, Arrays.asList(
+                "flush:q1", "flush:q2", "rollback:q1", "rollback:q2", "rollback:q3", "rollback:q4"));
+        Assert.assertEquals(commitCoordinator.getCommitTimings("q3").getRollbackCount(), 1);
+    }
+
+    @Test
+    public void testCommitFailureRollsBackSubsequentTransactions() throws Exception
+    {
+        try
+        {
+            new SequentialCommitCoordinator().flushAndCommit(createEntityManagers(0, null, "q2"));
+            Assert.fail("commit failure expected");
+        }
+        catch (PersistenceException e)
+        {
+            Assert.assertEquals(e.getMessage(), "commit failed: q2");
+        }
+
+        Assert.assertEquals(this.events, Arrays.asList(
+                "flush:q1", "flush:q2", "flush:q3", "flush:q4", "commit:q1", "commit:q2", "rollback:q3", "rollback:q4"));
+    }
+
+    @Test
+    public void testParallelFlushCommitsInJoinOrder() throws Exception
+    {
+        TestParallelFlushCommitCoordinator commitCoordinator = new TestParallelFlushCommitCoordinator();
+
+        try
+        {
+            commitCoordinator.flushAndCommit(createEntityManagers(FLUSH_LATENCY_MILLIS, null, null));
+        }
+        finally
+        {
+            commitCoordinator.close();
+        }
+
+        Assert.assertEquals(this.events.size(), 8);
+        Assert.assertTrue(this.events.subList(0, 4).containsAll(
+                Arrays.asList("flush:q1", "flush:q2", "flush:q3", "flush:q4")));
+        Assert.assertEquals(this.events.subList(4, 8), Arrays.asList("commit:q1", "commit:q2", "commit:q3", "commit:q4"));
+        Assert.assertEquals(commitCoordinator.getCommitTimings().size(), 4);
+    }
+
+    @Test
+    public void testParallelFlushFailureRollsBackAllTransactions() throws Exception
+    {
+        TestParallelFlushCommitCoordinator commitCoordinator = new TestParallelFlushCommitCoordinator();
+
+        try
+        {
+            commitCoordinator.flushAndCommit(createEntityManagers(FLUSH_LATENCY_MILLIS, "q3", null));
+            Assert.fail("flush failure expected");
+        }
+        catch (PersistenceException e)
+        {
+            Assert.assertEquals(e.getMessage(), "flush failed: q3");
+        }
+        finally
+        {
+            commitCoordinator.close();
+        }
+
+        //all flushes are finished before the transactions get rolled back
+        Assert.assertEquals(this.events.size(), 8);
+        Assert.assertEquals(this.events.subList(4, 8),
+                Arrays.asList("rollback:q1", "rollback:q2", "rollback:q3", "rollback:q4"));
+    }
+
+    @Test
+    public void testParallelFlushesRunConcurrently() throws Exception
+    {
+        TestParallelFlushCommitCoordinator commitCoordinator = new TestParallelFlushCommitCoordinator();
+
+        //every flush waits until all flushes are started - that's only possible if they run concurrently
+        this.concurrentFlushLatch = new CountDownLatch(QUALIFIER_KEYS.size());
+
+        try
+        {
+            commitCoordinator.flushAndCommit(createEntityManagers(0, null, null));
+        }
+        finally
+        {
+            commitCoordinator.close();
+        }
+
+        Assert.assertEquals(this.concurrentFlushLatch.getCount(), 0);
+        Assert.assertEquals(this.events.subList(4, 8), Arrays.asList("commit:q1", "commit:q2", "commit:q3", "commit:q4"));
+
+        for (String qualifierKey : QUALIFIER_KEYS)
+        {
+            CommitTimings commitTimings = commitCoordinator.getCommitTimings(qualifierKey);
+            Assert.assertEquals(commitTimings.getFlushCount(), 1);
+            Assert.assertEquals(commitTimings.getCommitCount(), 1);
+        }
+    }
+
+    @Test
+    public void testEntityManagersWithoutDelegateAreFlushedByTheCurrentThread() throws Exception
+    {
+        TestParallelFlushCommitCoordinator commitCoordinator = new TestParallelFlushCommitCoordinator();
+        this.withoutDelegate = true;
+
+        try
+        {
+            commitCoordinator.flushAndCommit(createEntityManagers(0, null, null));
+        }
+        finally
+        {
+            commitCoordinator.close();
+        }
+
+        Assert.assertEquals(this.events, Arrays.asList(
+                "flush:q1", "flush:q2", "flush:q3", "flush:q4", "commit:q1", "commit:q2", "commit:q3", "commit:q4"));
+        Assert.assertEquals(this.flushThreads, Collections.nCopies(QUALIFIER_KEYS.size(), Thread.currentThread()));
+    }
+
+    @Test
+    public void testFlushesExceedingTheQueueAreExecutedByTheCurrentThread() throws Exception
+    {
+        TestParallelFlushCommitCoordinator commitCoordinator = new TestParallelFlushCommitCoordinator();
+        commitCoordinator.maxFlushThreads = 1;
+
+        try
+        {
+            commitCoordinator.flushAndCommit(createEntityManagers(FLUSH_LATENCY_MILLIS, null, null));
+        }
+        finally
+        {
+            commitCoordinator.close();
+        }
+
+        Assert.assertEquals(this.events.subList(4, 8), Arrays.asList("commit:q1", "commit:q2", "commit:q3", "commit:q4"));
+        //q1 + the rejected flush
+        Assert.assertEquals(Collections.frequency(this.flushThreads, Thread.currentThread()), 2);
+    }
+
+    private Map<String, EntityManager> createEntityManagers(long flushLatencyMillis,
+                                                            String failingFlushKey,
+                                                            String failingCommitKey)
+    {
+        Map<String, EntityManager> entityManagers = new LinkedHashMap<String, EntityManager>();
+
+        for (String qualifierKey : QUALIFIER_KEYS)
+        {
+            entityManagers.put(qualifierKey, createEntityManager(qualifierKey, flushLatencyMillis,
+                    qualifierKey.equals(failingFlushKey), qualifierKey.equals(failingCommitKey)));
+        }
+        return entityManagers;
+    }
+
+    private EntityManager createEntityManager(final String qualifierKey,
+                                              final long flushLatencyMillis,
+                                              final boolean failingFlush,
+                                              final boolean failingCommit)
+    {
+        final boolean[] transactionActive = new boolean[] {true};
+
+        final EntityTransaction transaction = (EntityTransaction) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class[]{EntityTransaction.class}, new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        String methodName = method.getName();
+
+                        if ("isActive".equals(methodName))
+                        {
+                            return transactionActive[0];
+                        }
+                        if ("commit".equals(methodName))
+                        {
+                            events.add("commit:" + qualifierKey);
+                            transactionActive[0] = false;
+
+                            if (failingCommit)
+                            {
+                                throw new PersistenceException("commit failed: " + qualifierKey);
+                            }
+                        }
+                        else if ("rollback".equals(methodName))
+                        {
+                            events.add("rollback:" + qualifierKey);
+                            transactionActive[0] = false;
+                        }
+                        return null;
+                    }
+                });
+
+        return (EntityManager) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{EntityManager.class},
+                new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        String methodName = method.getName();
+
+                        if ("getTransaction".equals(methodName))
+                        {
+                            return transaction;
+                        }
+                        if ("getDelegate".equals(methodName))
+                        {
+                            //the stub isn't bound to a thread
+                            return withoutDelegate ? null : proxy;
+                        }
+                        if ("flush".equals(methodName))
+                        {
+                            flushThreads.add(Thread.currentThread());
+                            awaitConcurrentFlushes();
+                            Thread.sleep(flushLatencyMillis);
+                            events.add("flush:" + qualifierKey);
+
+                            if (failingFlush)
+                            {
+                                throw new PersistenceException("flush failed: " + qualifierKey);
+                            }
+                        }
+                        if ("hashCode".equals(methodName))
+                        {
+                            return System.identityHashCode(proxy);
+                        }
+                        if ("equals".equals(methodName))
+                        {
+                            return proxy == args[0];
+                        }
+                        //no delegate
+                        return null;
+                    }
+                });
+    }
+
+    private void awaitConcurrentFlushes() throws InterruptedException
+    {
+        CountDownLatch latch = this.concurrentFlushLatch;
+
+        if (latch == null)
+        {
+            return;
+        }
+
+        latch.countDown();
+
+        if (!latch.await(10, TimeUnit.SECONDS))
+        {
+            throw new PersistenceException("the flushes don't run concurrently");
+        }
+    }
+
+    @Typed()
+    class TestParallelFlushCommitCoordinator extends ParallelFlushCommitCoordinator
+    {
+        private static final long serialVersionUID = -1264640839164383377L;
+
+        private int maxFlushThreads = QUALIFIER_KEYS.size();
+
+        @Override
+        protected int getMaxFlushThreads()
+        {
+            return this.maxFlushThreads;
+        }
+
+        @Override
+        protected int getMaxQueuedFlushes()
+        {
+            return 1;
+        }
+
+        void close()
+        {
+            shutdown();
+        }
+    }
+}
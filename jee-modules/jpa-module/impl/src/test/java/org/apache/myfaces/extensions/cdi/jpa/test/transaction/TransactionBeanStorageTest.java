@@ -0,0 +1,205 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jpa.test.transaction;
+
+import org.apache.myfaces.extensions.cdi.core.impl.util.CodiRequestState;
+import org.apache.myfaces.extensions.cdi.jpa.impl.transaction.context.TransactionBeanEntry;
+import org.apache.myfaces.extensions.cdi.jpa.impl.transaction.context.TransactionBeanStorage;
+import org.testng.Assert;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.enterprise.context.spi.Contextual;
+import javax.enterprise.context.spi.CreationalContext;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the layers of {@link TransactionBeanStorage} and the recycling of their maps
+ */
+public class TransactionBeanStorageTest
+{
+    private AtomicInteger destroyCount;
+
+    private TransactionBeanStorage storage;
+
+    @BeforeMethod
+    public void createStorage()
+    {
+        this.destroyCount = new AtomicInteger();
+
+        TransactionBeanStorage.activateNewStorage();
+        this.storage = TransactionBeanStorage.getStorage();
+    }
+
+    @AfterMethod
+    public void resetStorage()
+    {
+        TransactionBeanStorage.resetStorage();
+        Assert.assertNull(TransactionBeanStorage.getStorage());
+    }
+
+    @Test
+    public void testNestedTransactionScopesOfDifferentQualifiers()
+    {
+        this.storage.startTransactionScope("q1");
+        Assert.assertNull(this.storage.activateTransactionScope("q1"));
+        Map<Contextual, TransactionBeanEntry> q1Context = this.storage.getActiveTransactionContext();
+        storeBean(q1Context);
+
+        this.storage.startTransactionScope("q2");
+        Assert.assertEquals(this.storage.activateTransactionScope("q2"), "q1");
+        Map<Contextual, TransactionBeanEntry> q2Context = this.storage.getActiveTransactionContext();
+        storeBean(q2Context);
+        storeBean(q2Context);
+
+        Assert.assertNotSame(q2Context, q1Context);
+
+        //a lookup without a qualifier uses the active transaction-scope
+        Assert.assertEquals(this.storage.activateTransactionScope(null), "q2");
+        Assert.assertSame(this.storage.getActiveTransactionContext(), q2Context);
+
+        Assert.assertEquals(this.storage.activateTransactionScope("q1"), "q2");
+        Assert.assertSame(this.storage.getActiveTransactionContext(), q1Context);
+
+        this.storage.endAllTransactionScopes();
+
+        Assert.assertEquals(this.destroyCount.get(), 3);
+        Assert.assertNull(this.storage.getActiveTransactionContext());
+        Assert.assertNull(this.storage.getActiveTransactionKey());
+    }
+
+    @Test
+    public void testLayerMapsAreRecycled()
+    {
+        this.storage.startTransactionScope("q1");
+        this.storage.activateTransactionScope("q1");
+        Map<Contextual, TransactionBeanEntry> context = this.storage.getActiveTransactionContext();
+        storeBean(context);
+
+        this.storage.endTransactionScope("q1");
+        Assert.assertEquals(this.destroyCount.get(), 1);
+
+        try
+        {
+            this.storage.activateTransactionScope("q1");
+            Assert.fail("the transaction-scope was ended");
+        }
+        catch (IllegalStateException e)
+        {
+            //expected
+        }
+
+        this.storage.startTransactionScope("q1");
+        this.storage.activateTransactionScope("q1");
+
+        Assert.assertSame(this.storage.getActiveTransactionContext(), context);
+        Assert.assertTrue(context.isEmpty());
+    }
+
+    @Test
+    public void testContextOutsideOfTransaction()
+    {
+        Assert.assertNull(this.storage.activateTransactionScope(null));
+
+        Map<Contextual, TransactionBeanEntry> context = this.storage.getActiveTransactionContext();
+        storeBean(context);
+
+        //instances created outside of a transaction aren't stored
+        Assert.assertNull(this.storage.activateTransactionScope(null));
+        Assert.assertTrue(this.storage.getActiveTransactionContext().isEmpty());
+    }
+
+    @Test
+    public void testStorageIsRecycledWithinARequest()
+    {
+        TransactionBeanStorage.resetStorage();
+        CodiRequestState.begin();
+
+        try
+        {
+            TransactionBeanStorage.activateNewStorage();
+            TransactionBeanStorage requestStorage = TransactionBeanStorage.getStorage();
+            requestStorage.startTransactionScope("q1");
+            requestStorage.activateTransactionScope("q1");
+            storeBean(requestStorage.getActiveTransactionContext());
+
+            //the end of the outermost transaction
+            TransactionBeanStorage.resetStorage();
+            requestStorage.endAllTransactionScopes();
+            TransactionBeanStorage.recycleStorage(requestStorage);
+
+            Assert.assertEquals(this.destroyCount.get(), 1);
+            Assert.assertNull(TransactionBeanStorage.getStorage());
+
+            TransactionBeanStorage.activateNewStorage();
+            Assert.assertSame(TransactionBeanStorage.getStorage(), requestStorage);
+            Assert.assertNull(requestStorage.getActiveTransactionContext());
+
+            TransactionBeanStorage.resetStorage();
+            TransactionBeanStorage.recycleStorage(requestStorage);
+        }
+        finally
+        {
+            CodiRequestState.end();
+        }
+
+        //the recycled storage isn't kept after the request
+        Assert.assertNull(CodiRequestState.getExistingRequestState());
+    }
+
+    @Test
+    public void testStorageIsNotRecycledOutsideOfARequest()
+    {
+        TransactionBeanStorage.resetStorage();
+        this.storage.endAllTransactionScopes();
+        TransactionBeanStorage.recycleStorage(this.storage);
+
+        //the state of the thread isn't kept
+        Assert.assertNull(CodiRequestState.getExistingRequestState());
+
+        TransactionBeanStorage.activateNewStorage();
+        Assert.assertNotSame(TransactionBeanStorage.getStorage(), this.storage);
+    }
+
+    @Test(expectedExceptions = IllegalStateException.class)
+    public void testActivationOfUnknownTransactionScope()
+    {
+        this.storage.activateTransactionScope("unknown");
+    }
+
+    private void storeBean(Map<Contextual, TransactionBeanEntry> context)
+    {
+        Contextual<Object> bean = new Contextual<Object>()
+        {
+            public Object create(CreationalContext<Object> creationalContext)
+            {
+                return new Object();
+            }
+
+            public void destroy(Object instance, CreationalContext<Object> creationalContext)
+            {
+                destroyCount.incrementAndGet();
+            }
+        };
+
+        context.put(bean, new TransactionBeanEntry<Object>(bean, bean.create(null), null));
+    }
+}
@@ -0,0 +1,394 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jpa.test.transaction;
+
+import org.apache.myfaces.extensions.cdi.jpa.api.Transactional;
+import org.apache.myfaces.extensions.cdi.jpa.impl.transaction.TransactionMetaDataCache;
+import org.apache.myfaces.extensions.cdi.jpa.impl.transaction.TransactionalInterceptorStrategy;
+import org.apache.myfaces.extensions.cdi.jpa.impl.transaction.context.TransactionBeanStorage;
+import org.testng.Assert;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.enterprise.context.Dependent;
+import javax.enterprise.context.RequestScoped;
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.Default;
+import javax.enterprise.inject.Typed;
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.enterprise.util.AnnotationLiteral;
+import javax.interceptor.InvocationContext;
+import javax.persistence.EntityManager;
+import javax.persistence.EntityTransaction;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Tests the cached transaction meta-data of {@link TransactionalInterceptorStrategy} with a no-op
+ * {@link EntityManager}
+ */
+public class TransactionalInterceptorStrategyTest
+{
+    private static final int INVOCATIONS = 100;
+
+    private static final int NESTING_DEPTH = 10;
+
+    private AtomicInteger entityManagerLookupCount;
+
+    private AtomicInteger entityManagerReferenceCount;
+
+    private AtomicInteger beginCount;
+
+    private AtomicInteger commitCount;
+
+    private boolean transactionActive;
+
+    @BeforeMethod
+    public void resetCounters()
+    {
+        this.entityManagerLookupCount = new AtomicInteger();
+        this.entityManagerReferenceCount = new AtomicInteger();
+        this.beginCount = new AtomicInteger();
+        this.commitCount = new AtomicInteger();
+        this.transactionActive = false;
+    }
+
+    @Test
+    public void testEntityManagerBeanIsResolvedOnce() throws Exception
+    {
+        TransactionalInterceptorStrategy strategy = createStrategy(Dependent.class);
+        InvocationContext invocationContext = createInvocationContext(null);
+
+        for (int i = 0; i < 100; i++)
+        {
+            Assert.assertEquals(strategy.execute(invocationContext), "result");
+        }
+
+        Assert.assertEquals(this.entityManagerLookupCount.get(), 1);
+        //dependent entity-managers are created per (outermost) transaction
+        Assert.assertEquals(this.entityManagerReferenceCount.get(), 100);
+        Assert.assertEquals(this.commitCount.get(), 100);
+        Assert.assertNull(TransactionBeanStorage.getStorage());
+    }
+
+    @Test
+    public void testNormalScopedEntityManagerReferenceIsCached() throws Exception
+    {
+        TransactionalInterceptorStrategy strategy = createStrategy(RequestScoped.class);
+        InvocationContext invocationContext = createInvocationContext(null);
+
+        for (int i = 0; i < 100; i++)
+        {
+            strategy.execute(invocationContext);
+        }
+
+        Assert.assertEquals(this.entityManagerLookupCount.get(), 1);
+        Assert.assertEquals(this.entityManagerReferenceCount.get(), 1);
+        Assert.assertEquals(this.commitCount.get(), 100);
+    }
+
+    @Test
+    public void testNestedLayerUsesEntityManagerOfOuterLayer() throws Exception
+    {
+        TransactionalInterceptorStrategy strategy = createStrategy(Dependent.class);
+        InvocationContext innerInvocationContext = createInvocationContext(null);
+        InvocationContext outerInvocationContext = createInvocationContext(strategy, innerInvocationContext);
+
+        Assert.assertEquals(strategy.execute(outerInvocationContext), "result");
+
+        Assert.assertEquals(this.entityManagerReferenceCount.get(), 1);
+        Assert.assertEquals(this.beginCount.get(), 1);
+        Assert.assertEquals(this.commitCount.get(), 1);
+        Assert.assertNull(TransactionBeanStorage.getStorage());
+    }
+
+    @Test
+    public void testMetaDataIsCachedPerTargetClass() throws Exception
+    {
+        TransactionalInterceptorStrategy strategy = createStrategy(Dependent.class);
+        InvocationContext invocationContext = createInvocationContext(new TransactionalBean(), null, null);
+        InvocationContext subclassInvocationContext =
+                createInvocationContext(new TransactionalSubclassBean(), null, null);
+
+        for (int i = 0; i < 100; i++)
+        {
+            Assert.assertEquals(strategy.execute(invocationContext), "result");
+            Assert.assertEquals(strategy.execute(subclassInvocationContext), "result");
+        }
+
+        //one lookup per meta-data of the method and class
+        Assert.assertEquals(this.entityManagerLookupCount.get(), 2);
+        Assert.assertEquals(this.commitCount.get(), 200);
+    }
+
+    @Test
+    public void testMetaDataIsRemovedBeforeShutdown() throws Exception
+    {
+        TransactionalInterceptorStrategy strategy = createStrategy(Dependent.class);
+        InvocationContext invocationContext = createInvocationContext(null);
+
+        strategy.execute(invocationContext);
+        strategy.execute(invocationContext);
+
+        Assert.assertEquals(this.entityManagerLookupCount.get(), 1);
+
+        new TransactionMetaDataCache()
+        {
+            {
+                removeCache(null);
+            }
+        };
+
+        //the meta-data (incl. the resolved entity-manager bean) is created again
+        strategy.execute(invocationContext);
+
+        Assert.assertEquals(this.entityManagerLookupCount.get(), 2);
+    }
+
+    @Test
+    public void testDeeplyNestedInvocations() throws Exception
+    {
+        TransactionalInterceptorStrategy strategy = createStrategy(RequestScoped.class);
+
+        InvocationContext invocationContext = createInvocationContext(null);
+        for (int i = 1; i < NESTING_DEPTH; i++)
+        {
+            invocationContext = createInvocationContext(strategy, invocationContext);
+        }
+
+        for (int i = 0; i < INVOCATIONS; i++)
+        {
+            Assert.assertEquals(strategy.execute(invocationContext), "result");
+        }
+
+        //just the outermost layer begins and commits the transaction
+        Assert.assertEquals(this.beginCount.get(), INVOCATIONS);
+        Assert.assertEquals(this.commitCount.get(), INVOCATIONS);
+        Assert.assertEquals(this.entityManagerReferenceCount.get(), 1);
+        Assert.assertNull(TransactionBeanStorage.getStorage());
+    }
+
+    private TransactionalInterceptorStrategy createStrategy(Class<? extends Annotation> entityManagerScope)
+            throws Exception
+    {
+        TransactionalInterceptorStrategy strategy = new TransactionalInterceptorStrategy();
+
+        Field beanManagerField = TransactionalInterceptorStrategy.class.getDeclaredField("beanManager");
+        beanManagerField.setAccessible(true);
+        beanManagerField.set(strategy, createBeanManager(createEntityManagerBean(entityManagerScope)));
+        return strategy;
+    }
+
+    private InvocationContext createInvocationContext(final TransactionalInterceptorStrategy strategy,
+                                                      final InvocationContext nestedInvocationContext)
+            throws Exception
+    {
+        return createInvocationContext(new TransactionalBean(), strategy, nestedInvocationContext);
+    }
+
+    private InvocationContext createInvocationContext(final TransactionalBean target,
+                                                      final TransactionalInterceptorStrategy strategy,
+                                                      final InvocationContext nestedInvocationContext)
+            throws Exception
+    {
+        final Method method = TransactionalBean.class.getMethod("execute");
+        final Map<String, Object> contextData = new HashMap<String, Object>();
+
+        return (InvocationContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{InvocationContext.class}, new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method invokedMethod, Object[] args) throws Throwable
+                    {
+                        if ("proceed".equals(invokedMethod.getName()))
+                        {
+                            if (nestedInvocationContext != null)
+                            {
+                                return strategy.execute(nestedInvocationContext);
+                            }
+                            return method.invoke(target);
+                        }
+                        if ("getMethod".equals(invokedMethod.getName()))
+                        {
+                            return method;
+                        }
+                        if ("getTarget".equals(invokedMethod.getName()))
+                        {
+                            return target;
+                        }
+                        if ("getContextData".equals(invokedMethod.getName()))
+                        {
+                            return contextData;
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private InvocationContext createInvocationContext(InvocationContext nestedInvocationContext) throws Exception
+    {
+        return createInvocationContext(null, nestedInvocationContext);
+    }
+
+    private BeanManager createBeanManager(final Bean<?> entityManagerBean)
+    {
+        return (BeanManager) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{BeanManager.class},
+                new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        String methodName = method.getName();
+
+                        if ("getBeans".equals(methodName))
+                        {
+                            entityManagerLookupCount.incrementAndGet();
+                            return Collections.singleton(entityManagerBean);
+                        }
+                        if ("isNormalScope".equals(methodName))
+                        {
+                            return args[0] != Dependent.class;
+                        }
+                        if ("getReference".equals(methodName))
+                        {
+                            entityManagerReferenceCount.incrementAndGet();
+                            return createEntityManager();
+                        }
+                        if ("hashCode".equals(methodName))
+                        {
+                            return System.identityHashCode(proxy);
+                        }
+                        if ("equals".equals(methodName))
+                        {
+                            return proxy == args[0];
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private Bean<?> createEntityManagerBean(final Class<? extends Annotation> scope)
+    {
+        final Set<Annotation> qualifiers = new HashSet<Annotation>();
+        qualifiers.add(new AnnotationLiteral<Default>() {});
+        qualifiers.add(new AnnotationLiteral<Any>() {});
+
+        return (Bean<?>) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Bean.class},
+                new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        if ("getScope".equals(method.getName()))
+                        {
+                            return scope;
+                        }
+                        if ("getQualifiers".equals(method.getName()))
+                        {
+                            return qualifiers;
+                        }
+                        if ("hashCode".equals(method.getName()))
+                        {
+                            return System.identityHashCode(proxy);
+                        }
+                        if ("equals".equals(method.getName()))
+                        {
+                            return proxy == args[0];
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private EntityManager createEntityManager()
+    {
+        final EntityTransaction transaction = (EntityTransaction) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class[]{EntityTransaction.class}, new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        String methodName = method.getName();
+
+                        if ("isActive".equals(methodName))
+                        {
+                            return transactionActive;
+                        }
+                        if ("begin".equals(methodName))
+                        {
+                            beginCount.incrementAndGet();
+                            transactionActive = true;
+                        }
+                        else if ("commit".equals(methodName))
+                        {
+                            commitCount.incrementAndGet();
+                            transactionActive = false;
+                        }
+                        else if ("rollback".equals(methodName))
+                        {
+                            transactionActive = false;
+                        }
+                        return null;
+                    }
+                });
+
+        return (EntityManager) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{EntityManager.class},
+                new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        if ("getTransaction".equals(method.getName()))
+                        {
+                            return transaction;
+                        }
+                        if ("hashCode".equals(method.getName()))
+                        {
+                            return System.identityHashCode(proxy);
+                        }
+                        if ("equals".equals(method.getName()))
+                        {
+                            return proxy == args[0];
+                        }
+                        //no-op
+                        return null;
+                    }
+                });
+    }
+
+    @Typed()
+    public static class TransactionalBean
+    {
+        @Transactional
+        public String execute()
+        {
+            return "result";
+        }
+    }
+
+    @Typed()
+    public static class TransactionalSubclassBean extends TransactionalBean
+    {
+    }
+}
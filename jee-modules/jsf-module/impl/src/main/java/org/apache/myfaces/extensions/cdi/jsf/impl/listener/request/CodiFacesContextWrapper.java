@@ -20,6 +20,7 @@ package org.apache.myfaces.extensions.cdi.jsf.impl.listener.request;
 
 import org.apache.myfaces.extensions.cdi.core.api.config.CodiCoreConfig;
 import org.apache.myfaces.extensions.cdi.core.impl.util.ClassDeactivation;
+import org.apache.myfaces.extensions.cdi.core.impl.util.CodiRequestState;
 import org.apache.myfaces.extensions.cdi.core.impl.util.CodiUtils;
 import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.RedirectedConversationAwareExternalContext;
 import org.apache.myfaces.extensions.cdi.message.api.Message;
@@ -61,6 +62,8 @@ class CodiFacesContextWrapper extends FacesContext
                 new RedirectedConversationAwareExternalContext(wrappedFacesContext.getExternalContext());
 
         setCurrentInstance(this);
+
+        CodiRequestState.begin();
     }
 
     /**
@@ -80,8 +83,16 @@ class CodiFacesContextWrapper extends FacesContext
      */
     public void release()
     {
-        broadcastAfterFacesRequestEvent();
-        wrappedFacesContext.release();
+        try
+        {
+            broadcastAfterFacesRequestEvent();
+            wrappedFacesContext.release();
+        }
+        finally
+        {
+            //removes all caches of the request
+            CodiRequestState.end();
+        }
     }
 
     private void broadcastAfterFacesRequestEvent()
@@ -22,14 +22,15 @@ import org.apache.myfaces.extensions.cdi.message.api.MessageResolver;
 import org.apache.myfaces.extensions.cdi.message.api.MessageContext;
 import org.apache.myfaces.extensions.cdi.message.api.payload.MessagePayload;
 import org.apache.myfaces.extensions.cdi.jsf.impl.util.JsfUtils;
+import org.apache.myfaces.extensions.cdi.core.impl.util.ResourceBundleUtils;
 
+import javax.faces.application.FacesMessage;
 import java.util.Locale;
 import java.util.Map;
-import java.util.MissingResourceException;
-import java.util.ResourceBundle;
 
 /**
  * {@link MessageResolver} which uses the configured resource-bundle of a JSF application
+ * (and the default message-bundle of JSF as fallback)
  */
 class JsfAwareApplicationMessagesMessageResolver implements MessageResolver
 {
@@ -47,22 +48,28 @@ class JsfAwareApplicationMessagesMessageResolver implements MessageResolver
             return messageDescriptor;
         }
 
-        try
-        {
-            messageDescriptor = extractKey(messageDescriptor);
+        String key = extractKey(messageDescriptor);
+        Locale locale = messageContext.getLocale();
+
+        String bundleName = JsfUtils.getCustomFacesMessageBundleName();
 
-            ResourceBundle resourceBundle = JsfUtils.getCustomFacesMessageBundle(messageContext.getLocale());
+        String message = null;
+
+        if(bundleName != null)
+        {
+            message = ResourceBundleUtils.getValue(bundleName, locale, key);
+        }
 
-            if(resourceBundle == null)
-            {
-                return defaultFacesMessage(messageDescriptor, messageContext.getLocale());
-            }
-            return resourceBundle.getString(messageDescriptor);
+        if(message == null)
+        {
+            message = ResourceBundleUtils.getValue(FacesMessage.FACES_MESSAGES, locale, key);
         }
-        catch (MissingResourceException e)
+
+        if(message == null)
         {
-            return defaultFacesMessage(messageDescriptor, messageContext.getLocale());
+            return key;
         }
+        return message;
     }
 
     private boolean isKey(String key)
@@ -74,16 +81,4 @@ class JsfAwareApplicationMessagesMessageResolver implements MessageResolver
     {
         return key.substring(1, key.length() - 1);
     }
-
-    private String defaultFacesMessage(String messageDescriptor, Locale locale)
-    {
-        try
-        {
-            return JsfUtils.getDefaultFacesMessageBundle(locale).getString(messageDescriptor);
-        }
-        catch (MissingResourceException e)
-        {
-            return messageDescriptor;
-        }
-    }
 }
@@ -85,6 +85,21 @@ class BeanStorage implements Serializable
         return beanEntryToRemove;
     }
 
+    int getBeanCount()
+    {
+        int result = 0;
+
+        for (BeanEntry<Serializable> beanEntry : this.beanMap.values())
+        {
+            //entries of a reset storage don't have an instance
+            if(beanEntry.getBeanInstance() != null)
+            {
+                result++;
+            }
+        }
+        return result;
+    }
+
     //TODO don't reset window scoped beans
     void resetStorage()
     {
@@ -0,0 +1,104 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.ConversationSubGroup;
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.ConversationKey;
+import org.apache.myfaces.extensions.cdi.jsf.impl.util.ConversationUtils;
+
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+import java.lang.annotation.Annotation;
+import java.util.Set;
+
+import static org.apache.myfaces.extensions.cdi.jsf.impl.util.ConversationUtils.convertToScope;
+import static org.apache.myfaces.extensions.cdi.jsf.impl.util.ConversationUtils.convertToSubGroup;
+
+/**
+ * Pre-calculated information which is needed for resolving the conversation of a {@link Bean}.
+ * It's calculated once per bean (and not for every access of a scoped bean).
+ */
+class ConversationDescriptor
+{
+    private final Class<?> conversationGroup;
+
+    private final Annotation[] qualifiers;
+
+    private final Class<?>[] subGroups;
+
+    private final ConversationKey conversationKey;
+
+    ConversationDescriptor(BeanManager beanManager, Bean<?> bean)
+    {
+        this.conversationGroup = ConversationUtils.getConversationGroup(bean);
+
+        Set<Annotation> beanQualifiers = bean.getQualifiers();
+        this.qualifiers = beanQualifiers.toArray(new Annotation[beanQualifiers.size()]);
+
+        ConversationSubGroup conversationSubGroup = this.conversationGroup.getAnnotation(ConversationSubGroup.class);
+
+        Class<?> conversationGroupKey = this.conversationGroup;
+        if(conversationSubGroup != null)
+        {
+            this.subGroups = conversationSubGroup.subGroup();
+            conversationGroupKey = convertToSubGroup(conversationGroupKey);
+        }
+        else
+        {
+            this.subGroups = null;
+        }
+
+        Class<? extends Annotation> scopeType = convertToScope(beanManager, conversationGroupKey, this.qualifiers);
+
+        //shared by all window-contexts
+        this.conversationKey = new DefaultConversationKey(scopeType, conversationGroupKey, this.qualifiers);
+    }
+
+    /**
+     * @return conversation-group of the bean (before the resolution of a sub-group)
+     */
+    Class<?> getConversationGroup()
+    {
+        return conversationGroup;
+    }
+
+    /**
+     * @return qualifiers of the bean
+     */
+    Annotation[] getQualifiers()
+    {
+        return qualifiers;
+    }
+
+    /**
+     * @return sub-groups defined via {@link ConversationSubGroup} or null
+     */
+    Class<?>[] getSubGroups()
+    {
+        return subGroups;
+    }
+
+    /**
+     * @return key of the conversation which is used for the bean
+     */
+    ConversationKey getConversationKey()
+    {
+        return conversationKey;
+    }
+}
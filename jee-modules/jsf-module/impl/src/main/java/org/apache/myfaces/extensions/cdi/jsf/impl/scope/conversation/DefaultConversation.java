@@ -138,6 +138,7 @@ public class DefaultConversation implements EditableConversation
         fireRestartConversationEvent();
         touchConversation();
         this.beanStorage.resetStorage();
+        RequestCache.resetConversationCache();
     }
 
     /**
@@ -186,9 +187,16 @@ public class DefaultConversation implements EditableConversation
      */
     public <T> BeanEntry<T> removeBeanEntry(Class<T> type)
     {
+        //cached instances of the current request mustn't be used any longer
+        RequestCache.resetConversationCache();
         return (BeanEntry<T>) this.beanStorage.removeBean((Class<Serializable>) type);
     }
 
+    int getBeanCount()
+    {
+        return this.beanStorage.getBeanCount();
+    }
+
     private boolean isConversationExpired()
     {
         return this.expirationEvaluator.isExpired();
@@ -43,6 +43,9 @@ class DefaultConversationKey implements ConversationKey
     //HashSet due to Serializable warning in checkstyle rules
     private HashSet<Annotation> qualifiers;
 
+    //the key is used for every lookup of a conversation and the hash-code of annotations is expensive
+    private transient int hashCode;
+
     DefaultConversationKey(Class<? extends Annotation> scopeType,
                            Class<?> groupKey,
                            Annotation... qualifiers)
@@ -149,9 +152,15 @@ class DefaultConversationKey implements ConversationKey
     @Override
     public int hashCode()
     {
-        int result = scopeType.hashCode();
-        result = 31 * result + groupKey.hashCode();
-        result = 31 * result + (qualifiers != null ? qualifiers.hashCode() : 0);
+        int result = this.hashCode;
+
+        if(result == 0)
+        {
+            result = scopeType.hashCode();
+            result = 31 * result + groupKey.hashCode();
+            result = 31 * result + (qualifiers != null ? qualifiers.hashCode() : 0);
+            this.hashCode = result;
+        }
         return result;
     }
 
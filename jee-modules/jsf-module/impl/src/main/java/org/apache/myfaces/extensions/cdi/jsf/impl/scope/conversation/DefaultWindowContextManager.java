@@ -35,6 +35,7 @@ import static org.apache.myfaces.extensions.cdi.jsf.impl.util.ConversationUtils.
 import static org.apache.myfaces.extensions.cdi.jsf.impl.util.ExceptionUtils.windowContextNotEditableException;
 import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.EditableWindowContext;
 import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.EditableWindowContextManager;
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.IndexedWindowContextManager;
 import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.WindowContextFactory;
 import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.WindowContextQuotaHandler;
 import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.WindowHandler;
@@ -45,9 +46,17 @@ import javax.faces.component.UIComponent;
 import javax.faces.component.UIViewRoot;
 import javax.faces.context.ExternalContext;
 import javax.faces.context.FacesContext;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Date;
 import java.util.Iterator;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.PriorityQueue;
 import java.util.concurrent.ConcurrentHashMap;
 
 /**
@@ -55,7 +64,7 @@ import java.util.concurrent.ConcurrentHashMap;
  */
 @Typed()
 @SuppressWarnings({"UnusedDeclaration"})
-public class DefaultWindowContextManager implements EditableWindowContextManager
+public class DefaultWindowContextManager implements EditableWindowContextManager, IndexedWindowContextManager
 {
     private static final long serialVersionUID = 2872151847183166424L;
 
@@ -88,6 +97,46 @@ public class DefaultWindowContextManager implements EditableWindowContextManager
     //TODO add config + refactor DefaultWindowContextManager
     private static final int DEFAULT_WINDOW_KEY_LENGTH = 3;
 
+    //has to be a power of two
+    private static final int WINDOW_CONTEXT_LOCK_COUNT = 16;
+
+    /*
+     * the following fields are transient to stay compatible with sessions which were serialized by previous
+     * versions (without these fields) - they get re-created by #initTransientFields after the deserialization
+     */
+
+    //only the creation and the cleanup of a window-context with the same id have to be synchronized
+    private transient WindowContextLock[] windowContextLocks;
+
+    //minimum time between two cleanups of expired window-contexts (values <= 0 deactivate the cleanup)
+    private transient long cleanupPeriodInMs;
+
+    private transient long windowContextTimeoutInMs;
+
+    private transient long conversationTimeoutInMs;
+
+    //ordered by the next possible expiration - re-created lazily (e.g. after the deserialization of the session)
+    private transient PriorityQueue<WindowContextExpiration> expirationQueue;
+
+    private transient WindowContextLock expirationQueueLock;
+
+    //expiration time of the head of the queue - allows to skip the cleanup without a lock if nothing is due
+    //(0 after the deserialization of the session -> the next cleanup re-creates the queue)
+    private transient volatile long nextExpirationTime;
+
+    private transient volatile long nextCleanupTime;
+
+    //ordered by the last access (the least recently used window-context is the first entry)
+    private transient LinkedHashMap<String, EditableWindowContext> leastRecentlyUsedIndex;
+
+    //ordered by the creation (the oldest window-context is the first entry)
+    private transient LinkedHashMap<String, EditableWindowContext> creationIndex;
+
+    private transient WindowContextLock windowContextIndexLock;
+
+    //allows to skip the index update (and the lock) for subsequent requests of the same window
+    private transient volatile EditableWindowContext mostRecentlyUsedWindowContext;
+
     protected DefaultWindowContextManager(WindowContextConfig windowContextConfig,
                                           ConversationConfig conversationConfig,
                                           ProjectStage projectStage,
@@ -101,9 +150,40 @@ public class DefaultWindowContextManager implements EditableWindowContextManager
         this.createWindowContextEventEnable = windowContextConfig.isCreateWindowContextEventEnabled();
         this.closeWindowContextEventEnable = windowContextConfig.isCloseWindowContextEventEnabled();
 
+        initTransientFields();
         init();
     }
 
+    private void initTransientFields()
+    {
+        this.windowContextLocks = createWindowContextLocks();
+        this.expirationQueueLock = new WindowContextLock();
+        this.windowContextIndexLock = new WindowContextLock();
+
+        this.cleanupPeriodInMs = this.windowContextConfig.getWindowContextCleanupPeriodInSeconds() * 1000L;
+        this.windowContextTimeoutInMs = this.windowContextConfig.getWindowContextTimeoutInMinutes() * 60000L;
+        this.conversationTimeoutInMs = this.conversationConfig.getConversationTimeoutInMinutes() * 60000L;
+
+        this.leastRecentlyUsedIndex = new LinkedHashMap<String, EditableWindowContext>(16, 0.75f, true);
+        this.creationIndex = new LinkedHashMap<String, EditableWindowContext>();
+
+        //the creation order isn't known after the deserialization - the last access is the best approximation
+        List<EditableWindowContext> windowContexts =
+                new ArrayList<EditableWindowContext>(this.windowContextMap.values());
+        Collections.sort(windowContexts, new LastAccessComparator());
+
+        for(EditableWindowContext windowContext : windowContexts)
+        {
+            addToIndex(windowContext);
+        }
+    }
+
+    private void readObject(ObjectInputStream objectInputStream) throws IOException, ClassNotFoundException
+    {
+        objectInputStream.defaultReadObject();
+        initTransientFields();
+    }
+
     protected void init()
     {
         this.windowHandler = CodiUtils.getContextualReferenceByClass(WindowHandler.class);
@@ -179,25 +259,309 @@ public class DefaultWindowContextManager implements EditableWindowContextManager
     /**
      * {@inheritDoc}
      */
-    public synchronized WindowContext getWindowContext(String windowContextId)
+    public WindowContext getWindowContext(String windowContextId)
     {
         EditableWindowContext result = this.windowContextMap.get(windowContextId);
 
-        if(result != null && !result.isActive())
+        //fast path (without lock) for the common case of an existing and active window-context
+        if(result != null && result.isActive())
+        {
+            result.touch();
+
+            //re-check - a concurrent cleanup might have removed it before it was touched
+            if(this.windowContextMap.get(windowContextId) != result)
+            {
+                result = null;
+            }
+        }
+        else
         {
-            closeWindowContext(result);
             result = null;
         }
 
-        if (result == null)
+        if(result == null)
+        {
+            result = getOrCreateWindowContext(windowContextId);
+            result.touch();
+        }
+
+        if(result != this.mostRecentlyUsedWindowContext)
+        {
+            recordAccess(result);
+        }
+
+        return result;
+    }
+
+    private void recordAccess(EditableWindowContext windowContext)
+    {
+        synchronized (this.windowContextIndexLock)
+        {
+            //moves an indexed window-context to the end of the access order
+            this.leastRecentlyUsedIndex.get(windowContext.getId());
+        }
+        this.mostRecentlyUsedWindowContext = windowContext;
+    }
+
+    private void addToIndex(EditableWindowContext windowContext)
+    {
+        synchronized (this.windowContextIndexLock)
+        {
+            this.leastRecentlyUsedIndex.put(windowContext.getId(), windowContext);
+            this.creationIndex.put(windowContext.getId(), windowContext);
+        }
+    }
+
+    private void removeFromIndex(EditableWindowContext windowContext)
+    {
+        String windowContextId = windowContext.getId();
+
+        synchronized (this.windowContextIndexLock)
+        {
+            //don't remove a new window-context which was created for the same id in the meantime
+            if(this.creationIndex.get(windowContextId) == windowContext)
+            {
+                this.leastRecentlyUsedIndex.remove(windowContextId);
+                this.creationIndex.remove(windowContextId);
+            }
+        }
+
+        if(this.mostRecentlyUsedWindowContext == windowContext)
+        {
+            this.mostRecentlyUsedWindowContext = null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public EditableWindowContext getLeastRecentlyUsedWindowContext()
+    {
+        return getFirstWindowContext(this.leastRecentlyUsedIndex);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public EditableWindowContext getOldestWindowContext()
+    {
+        return getFirstWindowContext(this.creationIndex);
+    }
+
+    private EditableWindowContext getFirstWindowContext(LinkedHashMap<String, EditableWindowContext> index)
+    {
+        synchronized (this.windowContextIndexLock)
+        {
+            //iterating doesn't change the access order
+            Iterator<EditableWindowContext> windowContexts = index.values().iterator();
+            return windowContexts.hasNext() ? windowContexts.next() : null;
+        }
+    }
+
+    private EditableWindowContext getOrCreateWindowContext(String windowContextId)
+    {
+        synchronized (getWindowContextLock(windowContextId))
+        {
+            //re-check - another thread might have created (or closed) the window-context in the meantime
+            EditableWindowContext result = this.windowContextMap.get(windowContextId);
+
+            if(result != null && !result.isActive())
+            {
+                closeWindowContext(result);
+                result = null;
+            }
+
+            if (result == null)
+            {
+                result = createWindowContext(windowContextId);
+                //a new window-context is inactive until it gets touched -> touch it before other threads see it
+                result.touch();
+
+                this.windowContextMap.put(windowContextId, result);
+                addToIndex(result);
+
+                scheduleExpiration(result);
+            }
+            return result;
+        }
+    }
+
+    private void scheduleExpiration(EditableWindowContext windowContext)
+    {
+        if(this.cleanupPeriodInMs <= 0)
+        {
+            return;
+        }
+
+        synchronized (this.expirationQueueLock)
+        {
+            if(this.expirationQueue == null)
+            {
+                //contains the new window-context as well
+                getExpirationQueue();
+            }
+            else
+            {
+                this.expirationQueue.add(new WindowContextExpiration(windowContext,
+                        calculateExpirationTime(windowContext, ExpirationClock.currentTimeMillis())));
+            }
+            updateNextExpirationTime();
+        }
+    }
+
+    //has to be called with the lock of the queue
+    private PriorityQueue<WindowContextExpiration> getExpirationQueue()
+    {
+        if(this.expirationQueue == null)
+        {
+            this.expirationQueue = new PriorityQueue<WindowContextExpiration>();
+
+            for(EditableWindowContext existingWindowContext : this.windowContextMap.values())
+            {
+                //the next cleanup will calculate the real expiration time
+                this.expirationQueue.add(new WindowContextExpiration(existingWindowContext, 0));
+            }
+        }
+        return this.expirationQueue;
+    }
+
+    //has to be called with the lock of the queue
+    private void updateNextExpirationTime()
+    {
+        this.nextExpirationTime =
+                this.expirationQueue.isEmpty() ? Long.MAX_VALUE : this.expirationQueue.peek().expirationTime;
+    }
+
+    /**
+     * {@inheritDoc}
+     * It's called at the end of every request (see {@link ConversationUtils#postRenderCleanup}) and it's a no-op,
+     * if {@link WindowContextConfig#getWindowContextCleanupPeriodInSeconds()} is less than or equal to zero,
+     * if the period isn't over or if no window-context is due (checked without a lock).
+     * There is no background thread, because closing a window-context destroys beans and fires events which need
+     * the contexts of a request. Therefore a session without further requests keeps its window-contexts until
+     * the session gets destroyed.
+     * Only window-contexts which are due get evaluated, because they are ordered by the time of their next possible
+     * expiration (or the expiration of one of their conversations).
+     */
+    public void closeExpiredWindowContexts()
+    {
+        if(this.cleanupPeriodInMs <= 0)
         {
-            result = createWindowContext(windowContextId);
+            return;
+        }
+
+        long now = ExpirationClock.currentTimeMillis();
 
-            this.windowContextMap.put(windowContextId, result);
+        if(now < this.nextExpirationTime || now < this.nextCleanupTime)
+        {
+            return;
         }
 
-        result.touch();
+        this.nextCleanupTime = now + this.cleanupPeriodInMs;
+
+        List<WindowContextExpiration> dueExpirations = new ArrayList<WindowContextExpiration>();
+
+        synchronized (this.expirationQueueLock)
+        {
+            PriorityQueue<WindowContextExpiration> queue = getExpirationQueue();
+
+            while (!queue.isEmpty() && queue.peek().expirationTime <= now)
+            {
+                dueExpirations.add(queue.poll());
+            }
+            updateNextExpirationTime();
+        }
+
+        for(WindowContextExpiration expiration : dueExpirations)
+        {
+            EditableWindowContext windowContext = expiration.windowContext;
+
+            //skip window-contexts which were closed in the meantime
+            if(this.windowContextMap.get(windowContext.getId()) != windowContext ||
+                    closeExpiredWindowContext(windowContext))
+            {
+                continue;
+            }
+
+            expiration.expirationTime = calculateExpirationTime(windowContext, now);
+
+            synchronized (this.expirationQueueLock)
+            {
+                this.expirationQueue.add(expiration);
+                updateNextExpirationTime();
+            }
+        }
+    }
+
+    private boolean closeExpiredWindowContext(EditableWindowContext windowContext)
+    {
+        synchronized (getWindowContextLock(windowContext.getId()))
+        {
+            if(windowContext.isActive())
+            {
+                return false;
+            }
+
+            if(this.windowContextMap.remove(windowContext.getId(), windowContext))
+            {
+                //a request which passed the lock-free lookup touches the window-context before it checks the map
+                if(windowContext.isActive())
+                {
+                    this.windowContextMap.put(windowContext.getId(), windowContext);
+                    return false;
+                }
+
+                removeFromIndex(windowContext);
 
+                FacesContext facesContext = FacesContext.getCurrentInstance();
+
+                if(facesContext != null)
+                {
+                    removeExistingWindowId(facesContext.getExternalContext(), windowContext.getId());
+                }
+
+                //destroys all beans (incl. window scoped beans) and fires the CloseWindowContextEvent (if enabled)
+                windowContext.close();
+            }
+            return true;
+        }
+    }
+
+    private long calculateExpirationTime(EditableWindowContext windowContext, long now)
+    {
+        //conversations started after now can't time out earlier
+        long result = now + this.conversationTimeoutInMs;
+
+        Date lastAccess = windowContext.getLastAccess();
+
+        if(lastAccess != null)
+        {
+            result = Math.min(result, lastAccess.getTime() + this.windowContextTimeoutInMs);
+        }
+
+        if(windowContext instanceof JsfWindowContext)
+        {
+            result = Math.min(result, ((JsfWindowContext)windowContext).closeTimedOutConversations());
+        }
+        return result;
+    }
+
+    private WindowContextLock getWindowContextLock(String windowContextId)
+    {
+        int hashCode = windowContextId.hashCode();
+        //spread the higher bits to the lower bits which are used for the index
+        hashCode ^= (hashCode >>> 16);
+        return this.windowContextLocks[hashCode & (WINDOW_CONTEXT_LOCK_COUNT - 1)];
+    }
+
+    private static WindowContextLock[] createWindowContextLocks()
+    {
+        WindowContextLock[] result = new WindowContextLock[WINDOW_CONTEXT_LOCK_COUNT];
+
+        for (int i = 0; i < result.length; i++)
+        {
+            result[i] = new WindowContextLock();
+        }
         return result;
     }
 
@@ -333,7 +697,9 @@ public class DefaultWindowContextManager implements EditableWindowContextManager
         }
 
         JsfUtils.resetCaches();
-        this.windowContextMap.remove(editableWindowContext.getId());
+        //don't remove a new window-context which was created for the same id in the meantime
+        this.windowContextMap.remove(editableWindowContext.getId(), editableWindowContext);
+        removeFromIndex(editableWindowContext);
 
         FacesContext facesContext = FacesContext.getCurrentInstance();
         ExternalContext externalContext = facesContext.getExternalContext();
@@ -427,4 +793,50 @@ public class DefaultWindowContextManager implements EditableWindowContextManager
 
         return (EditableWindowContext)windowContext;
     }
+
+    private static class WindowContextLock
+    {
+    }
+
+    private static class LastAccessComparator implements Comparator<EditableWindowContext>
+    {
+        public int compare(EditableWindowContext windowContext1, EditableWindowContext windowContext2)
+        {
+            long lastAccess1 = getTime(windowContext1.getLastAccess());
+            long lastAccess2 = getTime(windowContext2.getLastAccess());
+
+            if(lastAccess1 < lastAccess2)
+            {
+                return -1;
+            }
+            return lastAccess1 == lastAccess2 ? 0 : 1;
+        }
+
+        private long getTime(Date date)
+        {
+            return date != null ? date.getTime() : 0;
+        }
+    }
+
+    private static class WindowContextExpiration implements Comparable<WindowContextExpiration>
+    {
+        private final EditableWindowContext windowContext;
+
+        private long expirationTime;
+
+        private WindowContextExpiration(EditableWindowContext windowContext, long expirationTime)
+        {
+            this.windowContext = windowContext;
+            this.expirationTime = expirationTime;
+        }
+
+        public int compareTo(WindowContextExpiration other)
+        {
+            if(this.expirationTime < other.expirationTime)
+            {
+                return -1;
+            }
+            return this.expirationTime == other.expirationTime ? 0 : 1;
+        }
+    }
 }
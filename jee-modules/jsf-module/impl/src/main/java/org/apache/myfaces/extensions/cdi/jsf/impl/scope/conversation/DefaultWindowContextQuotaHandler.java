@@ -21,6 +21,7 @@ package org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation;
 import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.WindowContextQuotaHandler;
 import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.EditableWindowContext;
 import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.EditableWindowContextManager;
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.WindowContextEvictionPolicy;
 import static org.apache.myfaces.extensions.cdi.jsf.impl.util.ExceptionUtils.tooManyOpenWindowException;
 import org.apache.myfaces.extensions.cdi.jsf.impl.util.ConversationUtils;
 import org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.spi.WindowContextManager;
@@ -28,8 +29,6 @@ import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.config.Wind
 
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
-import java.util.Collection;
-import java.util.Date;
 
 /**
  * {@inheritDoc}
@@ -41,6 +40,9 @@ public class DefaultWindowContextQuotaHandler implements WindowContextQuotaHandl
 
     private int maxWindowContextCount;
 
+    @Inject
+    private WindowContextEvictionPolicy windowContextEvictionPolicy;
+
     /**
      * Default constructor required by proxy libs
      */
@@ -87,11 +89,9 @@ public class DefaultWindowContextQuotaHandler implements WindowContextQuotaHandl
             EditableWindowContextManager editableWindowContextManager =
                     (EditableWindowContextManager)windowContextManager;
 
-            Collection<EditableWindowContext> activeWindowContexts = editableWindowContextManager.getWindowContexts();
-
-            int activeWindowContextCountBeforeCleanup = activeWindowContexts.size();
+            int activeWindowContextCountBeforeCleanup = editableWindowContextManager.getWindowContexts().size();
 
-            removeEldestWindowContext(editableWindowContextManager, activeWindowContexts);
+            removeWindowContext(editableWindowContextManager);
 
             if(activeWindowContextCountBeforeCleanup > editableWindowContextManager.getWindowContexts().size())
             {
@@ -101,10 +101,10 @@ public class DefaultWindowContextQuotaHandler implements WindowContextQuotaHandl
         return false;
     }
 
-    private void removeEldestWindowContext(EditableWindowContextManager editableWindowContextManager,
-                                           Collection<EditableWindowContext> activeWindowContexts)
+    private void removeWindowContext(EditableWindowContextManager editableWindowContextManager)
     {
-        EditableWindowContext windowContextToRemove = findEldestWindowContext(activeWindowContexts);
+        EditableWindowContext windowContextToRemove =
+                getWindowContextEvictionPolicy().selectWindowContextToEvict(editableWindowContextManager);
 
         if(windowContextToRemove != null)
         {
@@ -112,18 +112,13 @@ public class DefaultWindowContextQuotaHandler implements WindowContextQuotaHandl
         }
     }
 
-    private EditableWindowContext findEldestWindowContext(Collection<EditableWindowContext> activeWindowContexts)
+    private WindowContextEvictionPolicy getWindowContextEvictionPolicy()
     {
-        Date lastAccess = new Date();
-        EditableWindowContext result = null;
-        for(EditableWindowContext windowContext : activeWindowContexts)
+        if(this.windowContextEvictionPolicy == null)
         {
-            if(lastAccess.after(windowContext.getLastAccess()))
-            {
-                lastAccess = windowContext.getLastAccess();
-                result = windowContext;
-            }
+            //instance wasn't created by the container
+            this.windowContextEvictionPolicy = new LeastRecentlyUsedWindowContextEvictionPolicy();
         }
-        return result;
+        return this.windowContextEvictionPolicy;
     }
 }
@@ -25,6 +25,7 @@ import org.apache.myfaces.extensions.cdi.core.impl.projectstage.ProjectStageProd
 import org.apache.myfaces.extensions.cdi.core.impl.util.CodiUtils;
 import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.EditableWindowContext;
 import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.EditableWindowContextManager;
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.IndexedWindowContextManager;
 import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.WindowContextManagerFactory;
 import org.apache.myfaces.extensions.cdi.jsf.impl.util.RequestCache;
 
@@ -43,7 +44,7 @@ import static org.apache.myfaces.extensions.cdi.core.impl.CoreModuleBeanNames.WI
  */
 @SessionScoped
 @Named(WINDOW_CONTEXT_MANAGER_BEAN_NAME)
-public class EditableWindowContextManagerProxy implements EditableWindowContextManager
+public class EditableWindowContextManagerProxy implements EditableWindowContextManager, IndexedWindowContextManager
 {
     private static final long serialVersionUID = -7650399459577468233L;
 
@@ -197,4 +198,39 @@ public class EditableWindowContextManagerProxy implements EditableWindowContextM
     {
         return editableWindowContextManager.isWindowContextActive(windowContextId);
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    public EditableWindowContext getLeastRecentlyUsedWindowContext()
+    {
+        if(editableWindowContextManager instanceof IndexedWindowContextManager)
+        {
+            return ((IndexedWindowContextManager)editableWindowContextManager).getLeastRecentlyUsedWindowContext();
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public EditableWindowContext getOldestWindowContext()
+    {
+        if(editableWindowContextManager instanceof IndexedWindowContextManager)
+        {
+            return ((IndexedWindowContextManager)editableWindowContextManager).getOldestWindowContext();
+        }
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void closeExpiredWindowContexts()
+    {
+        if(editableWindowContextManager instanceof IndexedWindowContextManager)
+        {
+            ((IndexedWindowContextManager)editableWindowContextManager).closeExpiredWindowContexts();
+        }
+    }
 }
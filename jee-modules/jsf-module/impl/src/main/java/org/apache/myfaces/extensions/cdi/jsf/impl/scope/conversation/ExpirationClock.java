@@ -0,0 +1,45 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation;
+
+/**
+ * Clock used for the expiration of window-contexts and conversations.
+ * It's based on {@link System#nanoTime()} and therefore it isn't affected by adjustments of the system time
+ * (e.g. via NTP). The values are aligned to the wall-clock time of the first usage, so they can be converted to a
+ * {@link java.util.Date} (and they are still meaningful after a restart of the server).
+ */
+final class ExpirationClock
+{
+    private static final long START_TIME_IN_MS = System.currentTimeMillis();
+
+    private static final long START_TIME_IN_NS = System.nanoTime();
+
+    private ExpirationClock()
+    {
+    }
+
+    /**
+     * Exposes the current time without creating objects
+     * @return current time in ms
+     */
+    static long currentTimeMillis()
+    {
+        return START_TIME_IN_MS + ((System.nanoTime() - START_TIME_IN_NS) / 1000000L);
+    }
+}
@@ -0,0 +1,108 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.EditableConversation;
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.EditableWindowContext;
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.EditableWindowContextManager;
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.IndexedWindowContextManager;
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.WindowContextEvictionPolicy;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Alternative;
+
+/**
+ * {@link WindowContextEvictionPolicy} which selects the window-context with the fewest scoped beans
+ * (the least recently used one, if multiple window-contexts have the same count).
+ * It has to be activated as alternative in the beans.xml.
+ */
+@Alternative
+@ApplicationScoped
+public class FewestBeansWindowContextEvictionPolicy implements WindowContextEvictionPolicy
+{
+    private static final long serialVersionUID = -5367254416851577863L;
+
+    /**
+     * {@inheritDoc}
+     */
+    public EditableWindowContext selectWindowContextToEvict(EditableWindowContextManager windowContextManager)
+    {
+        EditableWindowContext result = null;
+        int fewestBeans = Integer.MAX_VALUE;
+
+        if(windowContextManager instanceof IndexedWindowContextManager)
+        {
+            //wins if other window-contexts have the same count
+            result = ((IndexedWindowContextManager)windowContextManager).getLeastRecentlyUsedWindowContext();
+
+            if(result != null)
+            {
+                fewestBeans = getBeanCount(result);
+            }
+        }
+
+        for(EditableWindowContext windowContext : windowContextManager.getWindowContexts())
+        {
+            if(windowContext == result)
+            {
+                continue;
+            }
+
+            int beanCount = getBeanCount(windowContext);
+
+            if(beanCount < fewestBeans || (beanCount == fewestBeans && isLessRecentlyUsed(windowContext, result)))
+            {
+                fewestBeans = beanCount;
+                result = windowContext;
+            }
+        }
+        return result;
+    }
+
+    private int getBeanCount(EditableWindowContext windowContext)
+    {
+        int result = 0;
+
+        for(EditableConversation conversation : windowContext.getConversations().values())
+        {
+            if(!conversation.getActiveState())
+            {
+                continue;
+            }
+
+            if(conversation instanceof DefaultConversation)
+            {
+                result += ((DefaultConversation)conversation).getBeanCount();
+            }
+            else
+            {
+                //the count isn't available for custom conversations
+                result++;
+            }
+        }
+        return result;
+    }
+
+    private boolean isLessRecentlyUsed(EditableWindowContext windowContext, EditableWindowContext currentResult)
+    {
+        return currentResult != null && windowContext.getLastAccess() != null &&
+                currentResult.getLastAccess() != null &&
+                windowContext.getLastAccess().before(currentResult.getLastAccess());
+    }
+}
@@ -29,7 +29,6 @@ import org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.spi.Window
 import org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.spi.BeanEntry;
 import org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.spi.BeanEntryFactory;
 import org.apache.myfaces.extensions.cdi.core.api.security.BeanCreationDecisionVoter;
-import org.apache.myfaces.extensions.cdi.jsf.impl.util.ConversationUtils;
 import org.apache.myfaces.extensions.cdi.jsf.impl.util.ExceptionUtils;
 import org.apache.myfaces.extensions.cdi.jsf.impl.util.RequestCache;
 import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.EditableWindowContext;
@@ -39,12 +38,12 @@ import org.apache.myfaces.extensions.cdi.jsf.impl.util.WeldCache;
 import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.inject.spi.BeanManager;
 import javax.faces.context.FacesContext;
-import java.lang.annotation.Annotation;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * jsf specific parts for managing grouped conversations
@@ -53,6 +52,10 @@ class GroupedConversationContext extends AbstractGroupedConversationContext
 {
     private List<BeanCreationDecisionVoter> beanCreationDecisionVoters;
 
+    //the qualifiers and the group of a bean don't change -> calculate the key of the conversation just once
+    private final ConcurrentHashMap<Bean<?>, ConversationDescriptor> conversationDescriptorCache =
+            new ConcurrentHashMap<Bean<?>, ConversationDescriptor>();
+
     GroupedConversationContext(BeanManager beanManager)
     {
         super(beanManager);
@@ -182,7 +185,21 @@ class GroupedConversationContext extends AbstractGroupedConversationContext
                 (EditableWindowContextManager)windowContextManager, beanDescriptor);
 
         //noinspection unchecked
-        return (T)foundConversation.getBean(beanClass);
+        T beanInstance = (T)foundConversation.getBean(beanClass);
+
+        //the conversation gets touched just for the first access during a request
+        RequestCache.setBeanInstance(beanDescriptor, foundConversation, beanInstance);
+        return beanInstance;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    protected <T> T resolveCachedBeanInstance(Bean<T> bean)
+    {
+        //noinspection unchecked
+        return (T)RequestCache.getBeanInstance(bean);
     }
 
     /**
@@ -200,6 +217,8 @@ class GroupedConversationContext extends AbstractGroupedConversationContext
                 getConversation((EditableWindowContextManager)windowContextManager, bean);
 
         foundConversation.addBean(beanEntry);
+
+        RequestCache.setBeanInstance(bean, foundConversation, beanEntry.getBeanInstance());
     }
 
     /**
@@ -212,9 +231,7 @@ class GroupedConversationContext extends AbstractGroupedConversationContext
 
     private EditableConversation getConversation(EditableWindowContextManager windowContextManager, Bean<?> bean)
     {
-        Class conversationGroup = ConversationUtils.getConversationGroup(bean);
-
-        Set<Annotation> qualifiers = bean.getQualifiers();
+        ConversationDescriptor conversationDescriptor = getConversationDescriptor(bean);
 
         EditableWindowContext editableWindowContext = (EditableWindowContext)RequestCache.getCurrentWindowContext();
 
@@ -225,6 +242,11 @@ class GroupedConversationContext extends AbstractGroupedConversationContext
             RequestCache.setCurrentWindowContext(editableWindowContext);
         }
 
+        if(editableWindowContext instanceof JsfWindowContext)
+        {
+            return ((JsfWindowContext)editableWindowContext).getConversation(conversationDescriptor);
+        }
+
         try
         {
             if(this.useFallback)
@@ -232,8 +254,9 @@ class GroupedConversationContext extends AbstractGroupedConversationContext
                 WeldCache.setBean(bean);
             }
 
-            return editableWindowContext
-                    .getConversation(conversationGroup, qualifiers.toArray(new Annotation[qualifiers.size()]));
+            //custom window-context
+            return editableWindowContext.getConversation(
+                    conversationDescriptor.getConversationGroup(), conversationDescriptor.getQualifiers());
         }
         finally
         {
@@ -243,4 +266,35 @@ class GroupedConversationContext extends AbstractGroupedConversationContext
             }
         }
     }
+
+    private ConversationDescriptor getConversationDescriptor(Bean<?> bean)
+    {
+        ConversationDescriptor conversationDescriptor = this.conversationDescriptorCache.get(bean);
+
+        if(conversationDescriptor != null)
+        {
+            return conversationDescriptor;
+        }
+
+        try
+        {
+            if(this.useFallback)
+            {
+                WeldCache.setBean(bean);
+            }
+
+            conversationDescriptor = new ConversationDescriptor(this.beanManager, bean);
+        }
+        finally
+        {
+            if(this.useFallback)
+            {
+                WeldCache.resetBean();
+            }
+        }
+
+        //it doesn't matter if it gets calculated in parallel
+        this.conversationDescriptorCache.put(bean, conversationDescriptor);
+        return conversationDescriptor;
+    }
 }
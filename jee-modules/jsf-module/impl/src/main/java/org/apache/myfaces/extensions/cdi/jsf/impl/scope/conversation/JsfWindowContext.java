@@ -149,6 +149,21 @@ class JsfWindowContext implements EditableWindowContext
         ConversationKey conversationKey =
                 new DefaultConversationKey(scopeType, conversationGroupKey, qualifiers);
 
+        return getConversation(conversationKey, subGroups);
+    }
+
+    /**
+     * Resolves the conversation for the given pre-calculated information of a bean
+     * @param conversationDescriptor descriptor which contains the key of the conversation
+     * @return existing or new conversation
+     */
+    EditableConversation getConversation(ConversationDescriptor conversationDescriptor)
+    {
+        return getConversation(conversationDescriptor.getConversationKey(), conversationDescriptor.getSubGroups());
+    }
+
+    private EditableConversation getConversation(ConversationKey conversationKey, Class<?>[] subGroups)
+    {
         EditableConversation conversation = RequestCache.getConversation(conversationKey);
 
         if(conversation == null)
@@ -164,7 +179,7 @@ class JsfWindowContext implements EditableWindowContext
 
             if (conversation == null)
             {
-                conversation = createConversation(conversationGroupKey, qualifiers);
+                conversation = createConversation(conversationKey);
                 this.groupedConversations.put(conversationKey, conversation);
             }
 
@@ -336,6 +351,11 @@ class JsfWindowContext implements EditableWindowContext
         ConversationKey conversationKey =
                 new DefaultConversationKey(scopeType, conversationGroupKey, qualifiers);
 
+        return createConversation(conversationKey);
+    }
+
+    private EditableConversation createConversation(ConversationKey conversationKey)
+    {
         ConversationFactory conversationFactory = CodiUtils.getContextualReferenceByClass(ConversationFactory.class);
         return conversationFactory.createConversation(conversationKey, this.conversationConfig);
     }
@@ -380,6 +400,51 @@ class JsfWindowContext implements EditableWindowContext
         this.expirationEvaluator.touch();
     }
 
+    /**
+     * Closes and removes conversations which are expired due to a timeout. Other conversations
+     * (e.g. view-access scoped conversations) are evaluated by the request-lifecycle.
+     * It gets called at the end of a request of the session, if the window-context is due
+     * (see {@link DefaultWindowContextManager#closeExpiredWindowContexts()}).
+     *
+     * @return the time (in ms) of the next timeout of one of the remaining conversations or Long.MAX_VALUE
+     */
+    synchronized long closeTimedOutConversations()
+    {
+        long nextExpirationTime = Long.MAX_VALUE;
+
+        for (Map.Entry<ConversationKey, EditableConversation> conversationEntry : this.groupedConversations.entrySet())
+        {
+            EditableConversation conversation = conversationEntry.getValue();
+
+            //new conversations aren't active before the first access and ended conversations don't contain beans
+            if(!(conversation instanceof DefaultConversation) || !conversation.getActiveState())
+            {
+                continue;
+            }
+
+            ConversationExpirationEvaluator expirationEvaluator =
+                    ((DefaultConversation)conversation).getExpirationEvaluator();
+
+            if(!(expirationEvaluator instanceof TimeoutConversationExpirationEvaluator))
+            {
+                continue;
+            }
+
+            if(expirationEvaluator.isExpired())
+            {
+                conversation.close();
+                //don't remove a new conversation which was created for the same key in the meantime
+                this.groupedConversations.remove(conversationEntry.getKey(), conversation);
+            }
+            else
+            {
+                nextExpirationTime = Math.min(nextExpirationTime,
+                        ((TimeoutExpirationEvaluator)expirationEvaluator).getExpirationTime());
+            }
+        }
+        return nextExpirationTime;
+    }
+
     /**
      * {@inheritDoc}
      */
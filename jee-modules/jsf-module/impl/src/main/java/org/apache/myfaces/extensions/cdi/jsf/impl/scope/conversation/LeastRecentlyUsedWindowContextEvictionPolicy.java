@@ -0,0 +1,75 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.EditableWindowContext;
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.EditableWindowContextManager;
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.IndexedWindowContextManager;
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.WindowContextEvictionPolicy;
+
+import javax.enterprise.context.ApplicationScoped;
+import java.util.Date;
+
+/**
+ * Default {@link WindowContextEvictionPolicy} which selects the least recently used window-context
+ */
+@ApplicationScoped
+public class LeastRecentlyUsedWindowContextEvictionPolicy implements WindowContextEvictionPolicy
+{
+    private static final long serialVersionUID = 6380432402316462213L;
+
+    /**
+     * {@inheritDoc}
+     */
+    public EditableWindowContext selectWindowContextToEvict(EditableWindowContextManager windowContextManager)
+    {
+        if(windowContextManager instanceof IndexedWindowContextManager)
+        {
+            EditableWindowContext result =
+                    ((IndexedWindowContextManager)windowContextManager).getLeastRecentlyUsedWindowContext();
+
+            if(result != null)
+            {
+                return result;
+            }
+        }
+
+        return findLeastRecentlyUsedWindowContext(windowContextManager);
+    }
+
+    //fallback for custom window-context-managers
+    static EditableWindowContext findLeastRecentlyUsedWindowContext(
+            EditableWindowContextManager windowContextManager)
+    {
+        Date lastAccess = null;
+        EditableWindowContext result = null;
+
+        for(EditableWindowContext windowContext : windowContextManager.getWindowContexts())
+        {
+            Date currentLastAccess = windowContext.getLastAccess();
+
+            if(currentLastAccess != null && (lastAccess == null || lastAccess.after(currentLastAccess)))
+            {
+                lastAccess = currentLastAccess;
+                result = windowContext;
+            }
+        }
+        return result;
+    }
+}
@@ -0,0 +1,58 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.EditableWindowContext;
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.EditableWindowContextManager;
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.IndexedWindowContextManager;
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.WindowContextEvictionPolicy;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Alternative;
+
+/**
+ * {@link WindowContextEvictionPolicy} which selects the window-context which was created first.
+ * It has to be activated as alternative in the beans.xml.
+ */
+@Alternative
+@ApplicationScoped
+public class OldestWindowContextEvictionPolicy implements WindowContextEvictionPolicy
+{
+    private static final long serialVersionUID = -1474604358009412307L;
+
+    /**
+     * {@inheritDoc}
+     */
+    public EditableWindowContext selectWindowContextToEvict(EditableWindowContextManager windowContextManager)
+    {
+        if(windowContextManager instanceof IndexedWindowContextManager)
+        {
+            EditableWindowContext result =
+                    ((IndexedWindowContextManager)windowContextManager).getOldestWindowContext();
+
+            if(result != null)
+            {
+                return result;
+            }
+        }
+
+        //the creation time isn't available for custom window-context-managers
+        return LeastRecentlyUsedWindowContextEvictionPolicy.findLeastRecentlyUsedWindowContext(windowContextManager);
+    }
+}
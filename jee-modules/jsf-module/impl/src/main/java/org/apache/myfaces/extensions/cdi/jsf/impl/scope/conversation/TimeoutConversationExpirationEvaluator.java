@@ -36,6 +36,6 @@ class TimeoutConversationExpirationEvaluator extends TimeoutExpirationEvaluator
      */
     public void expire()
     {
-        this.lastAccess = null;
+        resetLastAccess();
     }
 }
@@ -19,6 +19,8 @@
 package org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation;
 
 import java.util.Date;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
 
 /**
@@ -32,10 +34,26 @@ public class TimeoutExpirationEvaluator implements Serializable
 {
     private static final long serialVersionUID = -1132091879142732148L;
 
+    //marks a conversation which was never used or which was expired manually
+    private static final long NO_ACCESS = 0;
+
     private final long timeoutInMs;
 
+    /**
+     * @deprecated use {@link #touch()} and {@link #resetLastAccess()} - it isn't updated by {@link #touch()}
+     * any more, it's just synchronized with the internal timestamp before it gets exposed via
+     * {@link #getLastAccess()} or serialized. Changes by sub-classes are still taken into account.
+     */
+    @Deprecated
     protected Date lastAccess;
 
+    //touch gets called for every access of a bean -> a primitive value is used for the evaluation
+    private transient volatile long lastAccessTime = NO_ACCESS;
+
+    //the date which was assigned (or adopted) by this class -> allows to detect changes of #lastAccess by
+    //sub-classes (and the restored value after the deserialization)
+    private transient Date syncedLastAccess;
+
     protected TimeoutExpirationEvaluator(int timeoutInMinutes)
     {
         this.timeoutInMs = timeoutInMinutes * 60000;
@@ -47,8 +65,10 @@ public class TimeoutExpirationEvaluator implements Serializable
      */
     public boolean isExpired()
     {
-        return this.lastAccess == null ||
-                (this.lastAccess.getTime() + this.timeoutInMs) < System.currentTimeMillis();
+        long currentLastAccessTime = getLastAccessTime();
+
+        return currentLastAccessTime == NO_ACCESS ||
+                (currentLastAccessTime + this.timeoutInMs) < ExpirationClock.currentTimeMillis();
     }
 
     /**
@@ -56,11 +76,76 @@ public class TimeoutExpirationEvaluator implements Serializable
      */
     public void touch()
     {
-        this.lastAccess = new Date();
+        //adopts a date which was assigned by a sub-class - otherwise it would override the new timestamp later on
+        getLastAccessTime();
+
+        //touch gets called for every request -> the date is only created on demand (see #getLastAccess)
+        this.lastAccessTime = ExpirationClock.currentTimeMillis();
+    }
+
+    /**
+     * Marks the conversation as expired
+     */
+    protected void resetLastAccess()
+    {
+        this.syncedLastAccess = null;
+        this.lastAccess = null;
+        this.lastAccessTime = NO_ACCESS;
     }
 
     Date getLastAccess()
     {
-        return lastAccess;
+        long currentLastAccessTime = getLastAccessTime();
+
+        if(currentLastAccessTime == NO_ACCESS)
+        {
+            return null;
+        }
+
+        Date currentLastAccess = this.lastAccess;
+
+        if(currentLastAccess == null || currentLastAccess.getTime() != currentLastAccessTime)
+        {
+            currentLastAccess = new Date(currentLastAccessTime);
+            this.syncedLastAccess = currentLastAccess;
+            this.lastAccess = currentLastAccess;
+        }
+        return currentLastAccess;
+    }
+
+    /**
+     * Calculates the point in time at which the timeout will be reached (without further access)
+     * @return time in ms (see {@link ExpirationClock}) or 0 if it is already expired manually
+     */
+    long getExpirationTime()
+    {
+        long currentLastAccessTime = getLastAccessTime();
+
+        if(currentLastAccessTime == NO_ACCESS)
+        {
+            return 0;
+        }
+        return currentLastAccessTime + this.timeoutInMs;
+    }
+
+    private long getLastAccessTime()
+    {
+        long result = this.lastAccessTime;
+        Date currentLastAccess = this.lastAccess;
+
+        if(currentLastAccess != this.syncedLastAccess)
+        {
+            result = currentLastAccess != null ? currentLastAccess.getTime() : NO_ACCESS;
+            this.syncedLastAccess = currentLastAccess;
+            this.lastAccessTime = result;
+        }
+        return result;
+    }
+
+    private void writeObject(ObjectOutputStream objectOutputStream) throws IOException
+    {
+        //the serialized form contains the date of the last access
+        getLastAccess();
+        objectOutputStream.defaultWriteObject();
     }
 }
@@ -0,0 +1,44 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi;
+
+/**
+ * Optional interface for {@link EditableWindowContextManager}s which keep their window-contexts ordered.
+ * It allows to find a window-context which should be closed without iterating over all window-contexts.
+ */
+public interface IndexedWindowContextManager
+{
+    /**
+     * Exposes the window-context which wasn't used for the longest time
+     * @return least recently used window-context or null if there is no (known) window-context
+     */
+    EditableWindowContext getLeastRecentlyUsedWindowContext();
+
+    /**
+     * Exposes the window-context which was created first
+     * @return oldest window-context or null if there is no (known) window-context
+     */
+    EditableWindowContext getOldestWindowContext();
+
+    /**
+     * Closes the window-contexts and conversations of the session which are expired due to a timeout.
+     * It has to be called during a request, because closing a window-context destroys beans and fires events.
+     */
+    void closeExpiredWindowContexts();
+}
@@ -0,0 +1,35 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi;
+
+import java.io.Serializable;
+
+/**
+ * Allows to customize which window-context gets closed by the {@link WindowContextQuotaHandler},
+ * if the max. count of window-contexts is reached
+ */
+public interface WindowContextEvictionPolicy extends Serializable
+{
+    /**
+     * Selects the window-context which should be closed to free a slot for a new window-context
+     * @param windowContextManager window-context-manager of the current user(-session)
+     * @return window-context which should be closed or null if there is no window-context which can be closed
+     */
+    EditableWindowContext selectWindowContextToEvict(EditableWindowContextManager windowContextManager);
+}
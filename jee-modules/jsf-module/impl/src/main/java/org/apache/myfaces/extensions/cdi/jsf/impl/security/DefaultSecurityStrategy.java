@@ -22,8 +22,6 @@ import org.apache.myfaces.extensions.cdi.core.api.security.AccessDecisionVoterCo
 import org.apache.myfaces.extensions.cdi.core.impl.security.spi.EditableAccessDecisionVoterContext;
 import org.apache.myfaces.extensions.cdi.core.impl.util.CodiUtils;
 import org.apache.myfaces.extensions.cdi.jsf.impl.security.spi.SecurityStrategy;
-import org.apache.myfaces.extensions.cdi.core.api.security.Secured;
-import org.apache.myfaces.extensions.cdi.core.api.security.AccessDecisionVoter;
 import static org.apache.myfaces.extensions.cdi.core.impl.util.SecurityUtils.invokeVoters;
 
 import javax.inject.Inject;
@@ -31,10 +29,6 @@ import javax.enterprise.inject.spi.BeanManager;
 import javax.enterprise.context.Dependent;
 import javax.interceptor.InvocationContext;
 import java.lang.annotation.Annotation;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.lang.reflect.Method;
-import java.util.List;
 
 /**
  * {@inheritDoc}
@@ -53,66 +47,26 @@ public class DefaultSecurityStrategy implements SecurityStrategy
      */
     public Object execute(InvocationContext invocationContext) throws Exception
     {
+        SecurityMetaData securityMetaData = SecurityMetaDataCache.getSecurityMetaData(invocationContext.getMethod());
+
         AccessDecisionVoterContext voterContext =
                 CodiUtils.getContextualReferenceByClass(beanManager, AccessDecisionVoterContext.class, true);
 
-        Secured secured = null;
-
-        List<Annotation> annotatedTypeMetadata = extractMetadata(invocationContext);
-
-        for (Annotation annotation : annotatedTypeMetadata)
+        if(voterContext instanceof EditableAccessDecisionVoterContext)
         {
-            if(Secured.class.isAssignableFrom(annotation.annotationType()))
-            {
-                secured = (Secured)annotation;
-            }
-            else if(voterContext instanceof EditableAccessDecisionVoterContext)
+            for (Annotation annotation : securityMetaData.getMetaData())
             {
                 ((EditableAccessDecisionVoterContext)voterContext)
                         .addMetaData(annotation.annotationType().getName(), annotation);
             }
         }
 
-        if(secured != null)
+        if(securityMetaData.isSecured())
         {
-            Class<? extends AccessDecisionVoter>[] voterClasses = secured.value();
-
-            invokeVoters(invocationContext, this.beanManager, voterContext,
-                    Arrays.asList(voterClasses), secured.errorView());
+            invokeVoters(invocationContext, voterContext,
+                    securityMetaData.getAccessDecisionVoters(this.beanManager), securityMetaData.getErrorView());
         }
 
         return invocationContext.proceed();
     }
-
-    private List<Annotation> extractMetadata(InvocationContext invocationContext)
-    {
-        List<Annotation> result = new ArrayList<Annotation>();
-
-        Method method = invocationContext.getMethod();
-
-        result.addAll(getAllAnnotations(method.getAnnotations()));
-        result.addAll(getAllAnnotations(method.getDeclaringClass().getAnnotations()));
-
-        return result;
-    }
-
-    private List<Annotation> getAllAnnotations(Annotation[] annotations)
-    {
-        List<Annotation> result = new ArrayList<Annotation>();
-
-        String annotationName;
-        for(Annotation annotation : annotations)
-        {
-            annotationName = annotation.annotationType().getName();
-            if(annotationName.startsWith("java.") || annotationName.startsWith("javax."))
-            {
-                continue;
-            }
-
-            result.add(annotation);
-            result.addAll(getAllAnnotations(annotation.annotationType().getAnnotations()));
-        }
-
-        return result;
-    }
 }
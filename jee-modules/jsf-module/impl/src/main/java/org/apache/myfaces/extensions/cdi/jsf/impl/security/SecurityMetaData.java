@@ -0,0 +1,188 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jsf.impl.security;
+
+import org.apache.myfaces.extensions.cdi.core.api.config.view.ViewConfig;
+import org.apache.myfaces.extensions.cdi.core.api.security.AccessDecisionVoter;
+import org.apache.myfaces.extensions.cdi.core.api.security.Secured;
+import org.apache.myfaces.extensions.cdi.core.impl.util.CodiUtils;
+
+import javax.enterprise.inject.spi.BeanManager;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Security relevant information of a method which is intercepted by the {@link SecurityInterceptor}.
+ * The meta-data is extracted once per method. The beans of the {@link AccessDecisionVoter}s are resolved via
+ * {@link CodiUtils#getOrCreateBeanByClass} (and therefore cached after the deployment was validated).
+ * Contextual references of normal-scoped voters are proxies and therefore they get cached per {@link BeanManager} -
+ * instances of dependent voters are created for every invocation (as before).
+ */
+class SecurityMetaData
+{
+    private final List<Annotation> metaData;
+
+    private final Secured secured;
+
+    private volatile ResolvedVoters resolvedVoters;
+
+    private SecurityMetaData(List<Annotation> metaData, Secured secured)
+    {
+        this.metaData = metaData;
+        this.secured = secured;
+    }
+
+    static SecurityMetaData create(Method method)
+    {
+        List<Annotation> annotations = new ArrayList<Annotation>();
+
+        annotations.addAll(getAllAnnotations(method.getAnnotations()));
+        annotations.addAll(getAllAnnotations(method.getDeclaringClass().getAnnotations()));
+
+        List<Annotation> metaData = new ArrayList<Annotation>(annotations.size());
+        Secured secured = null;
+
+        for (Annotation annotation : annotations)
+        {
+            if(Secured.class.isAssignableFrom(annotation.annotationType()))
+            {
+                secured = (Secured)annotation;
+            }
+            else
+            {
+                metaData.add(annotation);
+            }
+        }
+        return new SecurityMetaData(Collections.unmodifiableList(metaData), secured);
+    }
+
+    private static List<Annotation> getAllAnnotations(Annotation[] annotations)
+    {
+        List<Annotation> result = new ArrayList<Annotation>();
+
+        String annotationName;
+        for(Annotation annotation : annotations)
+        {
+            annotationName = annotation.annotationType().getName();
+            if(annotationName.startsWith("java.") || annotationName.startsWith("javax."))
+            {
+                continue;
+            }
+
+            result.add(annotation);
+            result.addAll(getAllAnnotations(annotation.annotationType().getAnnotations()));
+        }
+
+        return result;
+    }
+
+    /**
+     * @return all annotations (and meta-annotations) of the method and its class except {@link Secured}
+     */
+    List<Annotation> getMetaData()
+    {
+        return this.metaData;
+    }
+
+    boolean isSecured()
+    {
+        return this.secured != null;
+    }
+
+    Class<? extends ViewConfig> getErrorView()
+    {
+        return this.secured.errorView();
+    }
+
+    /**
+     * @param beanManager current bean-manager
+     * @return the voters configured via {@link Secured}
+     */
+    List<AccessDecisionVoter> getAccessDecisionVoters(BeanManager beanManager)
+    {
+        ResolvedVoters currentResolvedVoters = this.resolvedVoters;
+
+        //e.g. a different application (or a restarted container)
+        if(currentResolvedVoters == null || currentResolvedVoters.beanManager != beanManager)
+        {
+            currentResolvedVoters = new ResolvedVoters(beanManager, this.secured.value());
+            this.resolvedVoters = currentResolvedVoters;
+        }
+        return currentResolvedVoters.getAccessDecisionVoters();
+    }
+
+    private static class ResolvedVoters
+    {
+        private final BeanManager beanManager;
+
+        private final Class<? extends AccessDecisionVoter>[] voterClasses;
+
+        //null if there is at least one dependent voter
+        private final List<AccessDecisionVoter> cachedVoters;
+
+        private ResolvedVoters(BeanManager beanManager, Class<? extends AccessDecisionVoter>[] voterClasses)
+        {
+            this.beanManager = beanManager;
+            this.voterClasses = voterClasses;
+
+            boolean normalScopedVotersOnly = true;
+
+            for(Class<? extends AccessDecisionVoter> voterClass : voterClasses)
+            {
+                if(!beanManager.isNormalScope(
+                        CodiUtils.getOrCreateBeanByClass(beanManager, voterClass, false).getScope()))
+                {
+                    normalScopedVotersOnly = false;
+                }
+            }
+
+            if(normalScopedVotersOnly)
+            {
+                this.cachedVoters = Collections.unmodifiableList(createAccessDecisionVoters());
+            }
+            else
+            {
+                this.cachedVoters = null;
+            }
+        }
+
+        private List<AccessDecisionVoter> getAccessDecisionVoters()
+        {
+            if(this.cachedVoters != null)
+            {
+                return this.cachedVoters;
+            }
+            return createAccessDecisionVoters();
+        }
+
+        private List<AccessDecisionVoter> createAccessDecisionVoters()
+        {
+            List<AccessDecisionVoter> result = new ArrayList<AccessDecisionVoter>(this.voterClasses.length);
+
+            for(Class<? extends AccessDecisionVoter> voterClass : this.voterClasses)
+            {
+                result.add(CodiUtils.getContextualReferenceByClass(this.beanManager, voterClass, false));
+            }
+            return result;
+        }
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jsf.impl.security;
+
+import org.apache.myfaces.extensions.cdi.core.api.util.ClassUtils;
+
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.BeforeShutdown;
+import javax.enterprise.inject.spi.Extension;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Caches the {@link SecurityMetaData} of the intercepted methods per application.
+ * The annotations of a method don't change - therefore the meta-data is shared by all
+ * {@link DefaultSecurityStrategy} instances. The cache (of the current application) gets removed before the shutdown
+ * of the container.
+ */
+public class SecurityMetaDataCache implements Extension
+{
+    private static final Map<ClassLoader, Map<Method, SecurityMetaData>> SECURITY_META_DATA =
+            new ConcurrentHashMap<ClassLoader, Map<Method, SecurityMetaData>>();
+
+    protected void removeCache(@Observes BeforeShutdown beforeShutdown)
+    {
+        SECURITY_META_DATA.remove(ClassUtils.getClassLoader(null));
+    }
+
+    static SecurityMetaData getSecurityMetaData(Method method)
+    {
+        ClassLoader classLoader = ClassUtils.getClassLoader(null);
+        Map<Method, SecurityMetaData> securityMetaDataCache = SECURITY_META_DATA.get(classLoader);
+
+        if(securityMetaDataCache == null)
+        {
+            securityMetaDataCache = new ConcurrentHashMap<Method, SecurityMetaData>();
+            SECURITY_META_DATA.put(classLoader, securityMetaDataCache);
+        }
+
+        SecurityMetaData securityMetaData = securityMetaDataCache.get(method);
+
+        if(securityMetaData == null)
+        {
+            securityMetaData = SecurityMetaData.create(method);
+            securityMetaDataCache.put(method, securityMetaData);
+        }
+        return securityMetaData;
+    }
+}
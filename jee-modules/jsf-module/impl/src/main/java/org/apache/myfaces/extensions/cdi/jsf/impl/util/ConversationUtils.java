@@ -37,6 +37,7 @@ import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.ViewAccessC
 import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.WindowHandler;
 import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.EditableWindowContextManager;
 import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.EditableWindowContext;
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.IndexedWindowContextManager;
 import org.apache.myfaces.extensions.cdi.message.api.Message;
 
 import javax.enterprise.context.ContextNotActiveException;
@@ -630,6 +631,8 @@ public abstract class ConversationUtils
 
     /**
      * alternative to {@link ConversationUtils#getExistingWindowIdSet} because it might be deactivated...
+     * Uses the keyed lookup of {@link EditableWindowContextManager#isWindowContextActive(String)} instead of
+     * iterating over all window-contexts, because it's called for every GET request.
      *
      * @param windowContextManager current windowContextManager
      * @param windowId windowId in question
@@ -637,19 +640,11 @@ public abstract class ConversationUtils
      */
     public static boolean isWindowActive(EditableWindowContextManager windowContextManager, String windowId)
     {
-        for (EditableWindowContext editableWindowContext : windowContextManager.getWindowContexts())
-        {
-            if (windowId.equals(editableWindowContext.getId()) && editableWindowContext.isActive())
-            {
-                return true;
-            }
-        }
-
-        return false;
+        return windowContextManager.isWindowContextActive(windowId);
     }
 
     /**
-     * Performs the cleanup of inactive and empty {@link WindowContext}s (if permitted) and resets caches
+     * Performs the cleanup of inactive, empty and expired {@link WindowContext}s (if permitted) and resets caches
      * @param facesContext current faces-context
      */
     //don't move it to an observer due to an unpredictable invocation order
@@ -685,6 +680,12 @@ public abstract class ConversationUtils
             {
                 cleanupInactiveWindowContexts(windowContextManager);
             }
+
+            if(windowContextManager instanceof IndexedWindowContextManager)
+            {
+                //closes expired window-contexts of other windows of the session (if activated)
+                ((IndexedWindowContextManager)windowContextManager).closeExpiredWindowContexts();
+            }
         }
         catch (ContextNotActiveException e)
         {
@@ -106,8 +106,7 @@ public abstract class JsfUtils
      */
     public static ResourceBundle getCustomFacesMessageBundle(Locale locale)
     {
-        FacesContext facesContext = FacesContext.getCurrentInstance();
-        String bundleName = facesContext.getApplication().getMessageBundle();
+        String bundleName = getCustomFacesMessageBundleName();
 
         if (bundleName == null)
         {
@@ -117,6 +116,15 @@ public abstract class JsfUtils
         return ResourceBundle.getBundle(bundleName, locale);
     }
 
+    /**
+     * Exposes the name of the (optional) custom message-bundle configured in the faces-config
+     * @return name of the custom message-bundle or null if there is no custom message-bundle
+     */
+    public static String getCustomFacesMessageBundleName()
+    {
+        return FacesContext.getCurrentInstance().getApplication().getMessageBundle();
+    }
+
     /**
      * Encodes the given value using URLEncoder.encode() with the charset returned
      * from ExternalContext.getResponseCharacterEncoding().
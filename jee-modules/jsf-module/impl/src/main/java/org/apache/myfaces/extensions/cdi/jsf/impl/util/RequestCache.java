@@ -20,31 +20,40 @@ package org.apache.myfaces.extensions.cdi.jsf.impl.util;
 
 import org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.spi.WindowContextManager;
 import org.apache.myfaces.extensions.cdi.core.impl.scope.conversation.spi.BeanEntryFactory;
+import org.apache.myfaces.extensions.cdi.core.impl.util.CodiRequestState;
 import org.apache.myfaces.extensions.cdi.core.impl.util.CodiUtils;
 import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.WindowContext;
 import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.ConversationKey;
 import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.EditableConversation;
 
 import javax.enterprise.inject.Typed;
+import javax.enterprise.inject.spi.Bean;
+import javax.faces.component.UIViewRoot;
+import javax.faces.context.FacesContext;
+import java.util.IdentityHashMap;
 import java.util.Map;
 import java.util.HashMap;
 
 /**
- * Caches information for a request
+ * Caches information for a request. All values are stored in the {@link CodiRequestState} of the current request.
  */
 @Typed()
 public class RequestCache
 {
-    private static ThreadLocal<WindowContext> windowContextCache = new ThreadLocal<WindowContext>();
+    private static final CodiRequestState.Key<WindowContext> WINDOW_CONTEXT_KEY
+            = new CodiRequestState.Key<WindowContext>("current window-context");
 
-    private static ThreadLocal<WindowContextManager> windowContextManagerCache
-            = new ThreadLocal<WindowContextManager>();
+    private static final CodiRequestState.Key<WindowContextManager> WINDOW_CONTEXT_MANAGER_KEY
+            = new CodiRequestState.Key<WindowContextManager>("current window-context-manager");
 
-    private static ThreadLocal<BeanEntryFactory> beanEntryFactoryCache
-            = new ThreadLocal<BeanEntryFactory>();
+    private static final CodiRequestState.Key<BeanEntryFactory> BEAN_ENTRY_FACTORY_KEY
+            = new CodiRequestState.Key<BeanEntryFactory>("current bean-entry-factory");
 
-    private static ThreadLocal<Map<ConversationKey, EditableConversation>> conversationCache
-            = new ThreadLocal<Map<ConversationKey, EditableConversation>>();
+    private static final CodiRequestState.Key<Map<ConversationKey, EditableConversation>> CONVERSATION_CACHE_KEY
+            = new CodiRequestState.Key<Map<ConversationKey, EditableConversation>>("conversation cache");
+
+    private static final CodiRequestState.Key<Map<Bean<?>, CachedBeanInstance>> BEAN_INSTANCE_CACHE_KEY
+            = new CodiRequestState.Key<Map<Bean<?>, CachedBeanInstance>>("bean-instance cache");
 
     protected RequestCache()
     {
@@ -55,16 +64,18 @@ public class RequestCache
      */
     public static void resetCache()
     {
-        windowContextManagerCache.set(null);
-        windowContextManagerCache.remove();
+        CodiRequestState requestState = CodiRequestState.getExistingRequestState();
 
-        beanEntryFactoryCache.set(null);
-        beanEntryFactoryCache.remove();
+        if(requestState == null)
+        {
+            return;
+        }
 
-        windowContextCache.set(null);
-        windowContextCache.remove();
+        requestState.set(WINDOW_CONTEXT_MANAGER_KEY, null);
+        requestState.set(BEAN_ENTRY_FACTORY_KEY, null);
+        requestState.set(WINDOW_CONTEXT_KEY, null);
 
-        resetConversationCache();
+        resetConversationCache(requestState);
     }
 
     /**
@@ -72,8 +83,18 @@ public class RequestCache
      */
     public static void resetConversationCache()
     {
-        conversationCache.set(null);
-        conversationCache.remove();
+        CodiRequestState requestState = CodiRequestState.getExistingRequestState();
+
+        if(requestState != null)
+        {
+            resetConversationCache(requestState);
+        }
+    }
+
+    private static void resetConversationCache(CodiRequestState requestState)
+    {
+        requestState.set(CONVERSATION_CACHE_KEY, null);
+        requestState.set(BEAN_INSTANCE_CACHE_KEY, null);
     }
 
     /**
@@ -82,12 +103,13 @@ public class RequestCache
      */
     public static WindowContextManager getWindowContextManager()
     {
-        WindowContextManager windowContextManager = windowContextManagerCache.get();
+        CodiRequestState requestState = CodiRequestState.getCurrentRequestState();
+        WindowContextManager windowContextManager = requestState.get(WINDOW_CONTEXT_MANAGER_KEY);
 
         if(windowContextManager == null)
         {
             windowContextManager = CodiUtils.getContextualReferenceByClass(WindowContextManager.class);
-            windowContextManagerCache.set(windowContextManager);
+            requestState.set(WINDOW_CONTEXT_MANAGER_KEY, windowContextManager);
         }
 
         return windowContextManager;
@@ -99,12 +121,13 @@ public class RequestCache
      */
     public static BeanEntryFactory getBeanEntryFactory()
     {
-        BeanEntryFactory beanEntryFactory = beanEntryFactoryCache.get();
+        CodiRequestState requestState = CodiRequestState.getCurrentRequestState();
+        BeanEntryFactory beanEntryFactory = requestState.get(BEAN_ENTRY_FACTORY_KEY);
 
         if(beanEntryFactory == null)
         {
             beanEntryFactory = CodiUtils.getContextualReferenceByClass(BeanEntryFactory.class);
-            beanEntryFactoryCache.set(beanEntryFactory);
+            requestState.set(BEAN_ENTRY_FACTORY_KEY, beanEntryFactory);
         }
 
         return beanEntryFactory;
@@ -116,7 +139,7 @@ public class RequestCache
      */
     public static WindowContext getCurrentWindowContext()
     {
-        return windowContextCache.get();
+        return CodiRequestState.getValue(WINDOW_CONTEXT_KEY);
     }
 
     /**
@@ -125,7 +148,7 @@ public class RequestCache
      */
     public static void setCurrentWindowContext(WindowContext windowContext)
     {
-        windowContextCache.set(windowContext);
+        CodiRequestState.setValue(WINDOW_CONTEXT_KEY, windowContext);
     }
 
     /**
@@ -136,7 +159,13 @@ public class RequestCache
      */
     public static EditableConversation getConversation(ConversationKey conversationKey)
     {
-        return getConversationCache().get(conversationKey);
+        Map<ConversationKey, EditableConversation> conversationMap = CodiRequestState.getValue(CONVERSATION_CACHE_KEY);
+
+        if(conversationMap == null)
+        {
+            return null;
+        }
+        return conversationMap.get(conversationKey);
     }
 
     /**
@@ -146,18 +175,97 @@ public class RequestCache
      */
     public static void setConversation(ConversationKey conversationKey, EditableConversation conversation)
     {
-        getConversationCache().put(conversationKey, conversation);
+        CodiRequestState requestState = CodiRequestState.getCurrentRequestState();
+        Map<ConversationKey, EditableConversation> conversationMap = requestState.get(CONVERSATION_CACHE_KEY);
+
+        if(conversationMap == null)
+        {
+            conversationMap = new HashMap<ConversationKey, EditableConversation>();
+            requestState.set(CONVERSATION_CACHE_KEY, conversationMap);
+        }
+        conversationMap.put(conversationKey, conversation);
     }
 
-    private static Map<ConversationKey, EditableConversation> getConversationCache()
+    /**
+     * Exposes the cached instance of the given conversation scoped {@link Bean}.
+     * A cached instance is only valid as long as its conversation is active and the view hasn't changed
+     * (otherwise e.g. view-access scoped beans wouldn't be touched for the new view).
+     * @param bean current bean
+     * @return cached bean-instance or null if there is no valid instance
+     */
+    public static Object getBeanInstance(Bean<?> bean)
     {
-        Map<ConversationKey, EditableConversation> conversationMap = conversationCache.get();
+        Map<Bean<?>, CachedBeanInstance> beanInstanceMap = CodiRequestState.getValue(BEAN_INSTANCE_CACHE_KEY);
 
-        if(conversationMap == null)
+        if(beanInstanceMap == null)
         {
-            conversationMap = new HashMap<ConversationKey, EditableConversation>();
-            conversationCache.set(conversationMap);
+            return null;
+        }
+
+        CachedBeanInstance cachedBeanInstance = beanInstanceMap.get(bean);
+
+        if(cachedBeanInstance == null)
+        {
+            return null;
+        }
+
+        if(!cachedBeanInstance.conversation.getActiveState() || cachedBeanInstance.viewRoot != getViewRoot())
+        {
+            beanInstanceMap.remove(bean);
+            return null;
+        }
+        return cachedBeanInstance.beanInstance;
+    }
+
+    /**
+     * Caches the given instance of a conversation scoped {@link Bean}
+     * @param bean current bean
+     * @param conversation conversation which contains the bean-instance
+     * @param beanInstance current bean-instance
+     */
+    public static void setBeanInstance(Bean<?> bean, EditableConversation conversation, Object beanInstance)
+    {
+        if(beanInstance == null)
+        {
+            return;
+        }
+
+        CodiRequestState requestState = CodiRequestState.getCurrentRequestState();
+        Map<Bean<?>, CachedBeanInstance> beanInstanceMap = requestState.get(BEAN_INSTANCE_CACHE_KEY);
+
+        if(beanInstanceMap == null)
+        {
+            //beans are compared by identity - it's faster and the container uses the same instances
+            beanInstanceMap = new IdentityHashMap<Bean<?>, CachedBeanInstance>();
+            requestState.set(BEAN_INSTANCE_CACHE_KEY, beanInstanceMap);
+        }
+        beanInstanceMap.put(bean, new CachedBeanInstance(conversation, beanInstance, getViewRoot()));
+    }
+
+    private static UIViewRoot getViewRoot()
+    {
+        FacesContext facesContext = FacesContext.getCurrentInstance();
+
+        if(facesContext == null)
+        {
+            return null;
+        }
+        return facesContext.getViewRoot();
+    }
+
+    private static class CachedBeanInstance
+    {
+        private final EditableConversation conversation;
+
+        private final Object beanInstance;
+
+        private final UIViewRoot viewRoot;
+
+        private CachedBeanInstance(EditableConversation conversation, Object beanInstance, UIViewRoot viewRoot)
+        {
+            this.conversation = conversation;
+            this.beanInstance = beanInstance;
+            this.viewRoot = viewRoot;
         }
-        return conversationMap;
     }
 }
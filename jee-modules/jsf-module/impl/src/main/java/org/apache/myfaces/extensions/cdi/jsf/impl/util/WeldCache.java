@@ -18,6 +18,8 @@
  */
 package org.apache.myfaces.extensions.cdi.jsf.impl.util;
 
+import org.apache.myfaces.extensions.cdi.core.impl.util.CodiRequestState;
+
 import javax.enterprise.inject.Typed;
 import javax.enterprise.inject.spi.Bean;
 
@@ -28,7 +30,8 @@ import javax.enterprise.inject.spi.Bean;
 @Typed()
 public class WeldCache
 {
-    private static ThreadLocal<Bean<?>> currentBean = new ThreadLocal<Bean<?>>();
+    private static final CodiRequestState.Key<Bean<?>> CURRENT_BEAN_KEY =
+            new CodiRequestState.Key<Bean<?>>("currently processed bean");
 
     private WeldCache()
     {
@@ -40,7 +43,7 @@ public class WeldCache
      */
     public static void setBean(Bean<?> bean)
     {
-        currentBean.set(bean);
+        CodiRequestState.setValue(CURRENT_BEAN_KEY, bean);
     }
 
     /**
@@ -48,7 +51,7 @@ public class WeldCache
      */
     static Bean<?> getBean()
     {
-        return currentBean.get();
+        return CodiRequestState.getValue(CURRENT_BEAN_KEY);
     }
 
     /**
@@ -56,7 +59,6 @@ public class WeldCache
      */
     public static void resetBean()
     {
-        currentBean.set(null);
-        currentBean.remove();
+        CodiRequestState.setValue(CURRENT_BEAN_KEY, null);
     }
 }
@@ -0,0 +1,681 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jsf.test.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.core.api.projectstage.ProjectStage;
+import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.WindowContext;
+import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.config.ConversationConfig;
+import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.config.WindowContextConfig;
+import org.apache.myfaces.extensions.cdi.core.api.scope.conversation.event.CloseWindowContextEvent;
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.DefaultWindowContextManager;
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.FewestBeansWindowContextEvictionPolicy;
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.LeastRecentlyUsedWindowContextEvictionPolicy;
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.OldestWindowContextEvictionPolicy;
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.EditableWindowContext;
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.WindowContextFactory;
+import org.apache.myfaces.extensions.cdi.jsf.impl.util.ConversationUtils;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.annotation.PreDestroy;
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.Serializable;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests the concurrent access to window-contexts of {@link DefaultWindowContextManager}
+ */
+public class DefaultWindowContextManagerTest
+{
+    private static final int THREAD_COUNT = 16;
+
+    private static final int LOOKUPS_PER_THREAD = 10000;
+
+    private AtomicInteger windowContextCreationCount;
+
+    private volatile CountDownLatch creationStarted;
+
+    private volatile CountDownLatch creationReleased;
+
+    private DefaultWindowContextManager windowContextManager;
+
+    //simulates the contexts of a request
+    private final ThreadLocal<Boolean> requestActive = new ThreadLocal<Boolean>();
+
+    private WindowContextFactory windowContextFactory;
+
+    private CloseWindowContextObserver closeWindowContextObserver;
+
+    @BeforeMethod
+    public void createWindowContextManager()
+    {
+        this.windowContextCreationCount = new AtomicInteger();
+        this.creationStarted = null;
+        this.creationReleased = null;
+        this.windowContextFactory = null;
+        this.closeWindowContextObserver = new CloseWindowContextObserver();
+
+        this.windowContextManager = createWindowContextManager(new WindowContextConfig() {});
+    }
+
+    @Test
+    public void testConcurrentCreationOfTheSameWindowContext() throws Exception
+    {
+        final CountDownLatch startSignal = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(THREAD_COUNT);
+
+        try
+        {
+            List<Future<WindowContext>> results = new CopyOnWriteArrayList<Future<WindowContext>>();
+
+            for (int i = 0; i < THREAD_COUNT; i++)
+            {
+                results.add(executorService.submit(new Callable<WindowContext>()
+                {
+                    public WindowContext call() throws Exception
+                    {
+                        startSignal.await();
+                        return windowContextManager.getWindowContext("1");
+                    }
+                }));
+            }
+
+            startSignal.countDown();
+
+            WindowContext windowContext = results.get(0).get(10, TimeUnit.SECONDS);
+            assertNotNull(windowContext);
+
+            for (Future<WindowContext> result : results)
+            {
+                assertSame(result.get(10, TimeUnit.SECONDS), windowContext);
+            }
+
+            assertEquals(this.windowContextCreationCount.get(), 1);
+            assertEquals(this.windowContextManager.getWindowContexts().size(), 1);
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testLookupOfExistingWindowContextsIsNotBlockedByCreation() throws Exception
+    {
+        final WindowContext existingWindowContext = this.windowContextManager.getWindowContext("existing");
+
+        this.creationStarted = new CountDownLatch(1);
+        this.creationReleased = new CountDownLatch(1);
+
+        ExecutorService executorService = Executors.newFixedThreadPool(THREAD_COUNT + 1);
+
+        try
+        {
+            //blocks within the creation of the new window-context until the lookups are finished
+            Future<WindowContext> blockedCreation = executorService.submit(new Callable<WindowContext>()
+            {
+                public WindowContext call() throws Exception
+                {
+                    return windowContextManager.getWindowContext("new");
+                }
+            });
+
+            assertTrue(this.creationStarted.await(10, TimeUnit.SECONDS));
+
+            List<Future<?>> lookups = new CopyOnWriteArrayList<Future<?>>();
+
+            for (int i = 0; i < THREAD_COUNT; i++)
+            {
+                lookups.add(executorService.submit(new Runnable()
+                {
+                    public void run()
+                    {
+                        for (int i = 0; i < LOOKUPS_PER_THREAD; i++)
+                        {
+                            assertSame(windowContextManager.getWindowContext("existing"), existingWindowContext);
+                        }
+                    }
+                }));
+            }
+
+            for (Future<?> lookup : lookups)
+            {
+                //with a global lock the lookups would wait for the blocked creation
+                lookup.get(10, TimeUnit.SECONDS);
+            }
+
+            assertFalse(blockedCreation.isDone());
+
+            this.creationReleased.countDown();
+
+            assertNotNull(blockedCreation.get(10, TimeUnit.SECONDS));
+            assertEquals(this.windowContextManager.getWindowContexts().size(), 2);
+        }
+        finally
+        {
+            this.creationReleased.countDown();
+            executorService.shutdownNow();
+        }
+    }
+
+    @Test
+    public void testWindowActivityCheck()
+    {
+        for (int i = 0; i < 64; i++)
+        {
+            this.windowContextManager.getWindowContext("window" + i);
+        }
+
+        assertTrue(ConversationUtils.isWindowActive(this.windowContextManager, "window0"));
+        assertTrue(ConversationUtils.isWindowActive(this.windowContextManager, "window63"));
+        assertFalse(ConversationUtils.isWindowActive(this.windowContextManager, "window64"));
+
+        //the check mustn't create a window-context
+        assertEquals(this.windowContextManager.getWindowContexts().size(), 64);
+    }
+
+    @Test
+    public void testCleanupOfExpiredWindowContexts() throws Exception
+    {
+        this.windowContextManager = createWindowContextManager(new WindowContextConfig()
+        {
+            private static final long serialVersionUID = -3262939003467592441L;
+
+            @Override
+            public int getWindowContextTimeoutInMinutes()
+            {
+                return 0;
+            }
+
+            @Override
+            public int getWindowContextCleanupPeriodInSeconds()
+            {
+                return 1;
+            }
+        });
+
+        for (int i = 0; i < 8; i++)
+        {
+            this.windowContextManager.getWindowContext("window" + i);
+        }
+
+        assertEquals(this.windowContextManager.getWindowContexts().size(), 8);
+
+        Thread.sleep(10);
+
+        //the check doesn't close expired window-contexts
+        assertFalse(this.windowContextManager.isWindowContextActive("window0"));
+        assertEquals(this.windowContextManager.getWindowContexts().size(), 8);
+
+        //done at the end of a request
+        this.windowContextManager.closeExpiredWindowContexts();
+
+        assertTrue(this.windowContextManager.getWindowContexts().isEmpty());
+
+        this.windowContextManager.getWindowContext("window8");
+        Thread.sleep(10);
+
+        //the period isn't over
+        this.windowContextManager.closeExpiredWindowContexts();
+
+        assertEquals(this.windowContextManager.getWindowContexts().size(), 1);
+    }
+
+    @Test
+    public void testExpiredWindowContextsAreClosedAtTheEndOfARequest() throws Exception
+    {
+        final ConversationBean conversationBean = new ConversationBean();
+        final BeanManager beanManager = createBeanManager();
+        final boolean[] windowContextActive = {true};
+
+        this.windowContextFactory = new WindowContextFactory()
+        {
+            private static final long serialVersionUID = 1740346417367406406L;
+
+            public EditableWindowContext createWindowContext(String windowContextId,
+                                                             WindowContextConfig windowContextConfig,
+                                                             ConversationConfig conversationConfig)
+            {
+                return createWindowContextWithBean(
+                        windowContextId, windowContextActive, conversationBean, beanManager);
+            }
+        };
+
+        this.windowContextManager = createWindowContextManager(new WindowContextConfig()
+        {
+            private static final long serialVersionUID = 4623460883409712342L;
+
+            @Override
+            public int getWindowContextCleanupPeriodInSeconds()
+            {
+                return 1;
+            }
+        }, beanManager);
+
+        this.requestActive.set(Boolean.TRUE);
+        EditableWindowContext windowContext =
+                (EditableWindowContext) this.windowContextManager.getWindowContext("expired");
+        this.requestActive.remove();
+
+        //expired after the request
+        windowContextActive[0] = false;
+
+        //the next request (of another window)
+        this.requestActive.set(Boolean.TRUE);
+        try
+        {
+            assertFalse(this.windowContextManager.isWindowContextActive("expired"));
+
+            assertFalse(conversationBean.destroyed);
+            assertNull(this.closeWindowContextObserver.closedWindowContext);
+            assertEquals(this.windowContextManager.getWindowContexts().size(), 1);
+
+            //done by ConversationUtils#postRenderCleanup
+            this.windowContextManager.closeExpiredWindowContexts();
+        }
+        finally
+        {
+            this.requestActive.remove();
+        }
+
+        assertTrue(conversationBean.destroyed);
+        assertSame(this.closeWindowContextObserver.closedWindowContext, windowContext);
+        assertTrue(this.windowContextManager.getWindowContexts().isEmpty());
+    }
+
+    @Test
+    public void testCleanupKeepsActiveWindowContexts() throws Exception
+    {
+        this.windowContextManager = createWindowContextManager(new WindowContextConfig()
+        {
+            private static final long serialVersionUID = 3580385233011725236L;
+
+            @Override
+            public int getWindowContextCleanupPeriodInSeconds()
+            {
+                return 1;
+            }
+        });
+
+        WindowContext windowContext = this.windowContextManager.getWindowContext("window");
+
+        this.windowContextManager.closeExpiredWindowContexts();
+
+        assertEquals(this.windowContextManager.getWindowContexts().size(), 1);
+        assertSame(this.windowContextManager.getWindowContext("window"), windowContext);
+    }
+
+    @Test
+    public void testLeastRecentlyUsedWindowContextEviction()
+    {
+        WindowContext windowContext1 = this.windowContextManager.getWindowContext("window1");
+        WindowContext windowContext2 = this.windowContextManager.getWindowContext("window2");
+        WindowContext windowContext3 = this.windowContextManager.getWindowContext("window3");
+
+        assertSame(this.windowContextManager.getLeastRecentlyUsedWindowContext(), windowContext1);
+
+        this.windowContextManager.getWindowContext("window1");
+        //subsequent access of the same window
+        this.windowContextManager.getWindowContext("window1");
+
+        assertSame(this.windowContextManager.getLeastRecentlyUsedWindowContext(), windowContext2);
+        assertSame(new LeastRecentlyUsedWindowContextEvictionPolicy()
+                .selectWindowContextToEvict(this.windowContextManager), windowContext2);
+
+        this.windowContextManager.getWindowContext("window2");
+
+        assertSame(this.windowContextManager.getLeastRecentlyUsedWindowContext(), windowContext3);
+    }
+
+    @Test
+    public void testOldestWindowContextEviction()
+    {
+        WindowContext windowContext1 = this.windowContextManager.getWindowContext("window1");
+        this.windowContextManager.getWindowContext("window2");
+
+        //the access doesn't change the creation order
+        this.windowContextManager.getWindowContext("window1");
+
+        assertSame(this.windowContextManager.getOldestWindowContext(), windowContext1);
+        assertSame(new OldestWindowContextEvictionPolicy()
+                .selectWindowContextToEvict(this.windowContextManager), windowContext1);
+    }
+
+    @Test
+    public void testFewestBeansWindowContextEviction()
+    {
+        //without beans the least recently used window-context is selected
+        WindowContext windowContext1 = this.windowContextManager.getWindowContext("window1");
+        this.windowContextManager.getWindowContext("window2");
+
+        assertSame(new FewestBeansWindowContextEvictionPolicy()
+                .selectWindowContextToEvict(this.windowContextManager), windowContext1);
+    }
+
+    @Test
+    public void testEvictionOfManyWindowContexts()
+    {
+        int windowContextCount = 10000;
+
+        for (int i = 0; i < windowContextCount; i++)
+        {
+            this.windowContextManager.getWindowContext("window" + i);
+        }
+
+        LeastRecentlyUsedWindowContextEvictionPolicy evictionPolicy =
+                new LeastRecentlyUsedWindowContextEvictionPolicy();
+
+        for (int i = 0; i < windowContextCount; i++)
+        {
+            //the quota-handler closes the selected window-context, afterwards the next one gets used
+            assertNotNull(evictionPolicy.selectWindowContextToEvict(this.windowContextManager));
+            this.windowContextManager.getWindowContext("window" + i);
+        }
+
+        assertSame(this.windowContextManager.getLeastRecentlyUsedWindowContext(),
+                this.windowContextManager.getWindowContext("window0"));
+        assertEquals(this.windowContextManager.getWindowContexts().size(), windowContextCount);
+    }
+
+    @Test
+    public void testDeserializedWindowContextManager() throws Exception
+    {
+        DefaultWindowContextManager windowContextManager = createSerializableWindowContextManager();
+
+        windowContextManager.getWindowContext("window1");
+        windowContextManager.getWindowContext("window2");
+
+        ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(outputStream);
+        objectOutputStream.writeObject(windowContextManager);
+        objectOutputStream.close();
+
+        windowContextManager = (DefaultWindowContextManager) new ObjectInputStream(
+                new ByteArrayInputStream(outputStream.toByteArray())).readObject();
+
+        //the indices, locks and timeouts are re-created
+        assertNotNull(windowContextManager.getLeastRecentlyUsedWindowContext());
+        assertNotNull(windowContextManager.getOldestWindowContext());
+
+        WindowContext windowContext1 = windowContextManager.getWindowContext("window1");
+        windowContextManager.getWindowContext("window2");
+        WindowContext windowContext3 = windowContextManager.getWindowContext("window3");
+
+        assertTrue(windowContextManager.isWindowContextActive("window1"));
+        assertSame(windowContextManager.getLeastRecentlyUsedWindowContext(), windowContext1);
+        assertEquals(windowContextManager.getWindowContexts().size(), 3);
+
+        windowContextManager.closeExpiredWindowContexts();
+
+        assertSame(windowContextManager.getWindowContext("window3"), windowContext3);
+        assertEquals(windowContextManager.getWindowContexts().size(), 3);
+    }
+
+    private DefaultWindowContextManager createWindowContextManager(WindowContextConfig windowContextConfig)
+    {
+        return createWindowContextManager(windowContextConfig, createBeanManager());
+    }
+
+    private DefaultWindowContextManager createWindowContextManager(WindowContextConfig windowContextConfig,
+                                                                   BeanManager beanManager)
+    {
+        return new DefaultWindowContextManager(windowContextConfig,
+                                               new ConversationConfig() {},
+                                               ProjectStage.UnitTest,
+                                               beanManager)
+        {
+            private static final long serialVersionUID = -4893584541733938125L;
+
+            @Override
+            protected void init()
+            {
+                //no cdi container available
+            }
+        };
+    }
+
+    private static DefaultWindowContextManager createSerializableWindowContextManager()
+    {
+        WindowContextConfig windowContextConfig = new WindowContextConfig()
+        {
+            private static final long serialVersionUID = -1529396577843264339L;
+
+            @Override
+            public int getWindowContextCleanupPeriodInSeconds()
+            {
+                return 1;
+            }
+        };
+
+        BeanManager beanManager = (BeanManager) Proxy.newProxyInstance(
+                DefaultWindowContextManagerTest.class.getClassLoader(), new Class[]{BeanManager.class},
+                new SerializableBeanManagerHandler());
+
+        return new SerializableWindowContextManager(windowContextConfig, beanManager);
+    }
+
+    private BeanManager createBeanManager()
+    {
+        return (BeanManager) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{BeanManager.class},
+                new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        //used for the lookup of the optional WindowContextFactory during the creation
+                        if ("getBeans".equals(method.getName()))
+                        {
+                            windowContextCreationCount.incrementAndGet();
+
+                            if (windowContextFactory != null)
+                            {
+                                return Collections.singleton(createWindowContextFactoryBean());
+                            }
+
+                            CountDownLatch started = creationStarted;
+                            CountDownLatch released = creationReleased;
+
+                            if (started != null && released != null)
+                            {
+                                started.countDown();
+                                released.await(10, TimeUnit.SECONDS);
+                            }
+                            return Collections.emptySet();
+                        }
+                        if ("resolve".equals(method.getName()))
+                        {
+                            return ((Set<?>) args[0]).iterator().next();
+                        }
+                        if ("getReference".equals(method.getName()))
+                        {
+                            return windowContextFactory;
+                        }
+                        if ("fireEvent".equals(method.getName()))
+                        {
+                            closeWindowContextObserver.onCloseWindowContext((CloseWindowContextEvent) args[0]);
+                            return null;
+                        }
+                        if ("hashCode".equals(method.getName()))
+                        {
+                            return System.identityHashCode(proxy);
+                        }
+                        if ("equals".equals(method.getName()))
+                        {
+                            return proxy == args[0];
+                        }
+                        return null;
+                    }
+                });
+    }
+    private Bean<?> createWindowContextFactoryBean()
+    {
+        return (Bean<?>) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Bean.class},
+                new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        if ("hashCode".equals(method.getName()))
+                        {
+                            return System.identityHashCode(proxy);
+                        }
+                        if ("equals".equals(method.getName()))
+                        {
+                            return proxy == args[0];
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private EditableWindowContext createWindowContextWithBean(final String windowContextId,
+                                                              final boolean[] windowContextActive,
+                                                              final ConversationBean conversationBean,
+                                                              final BeanManager beanManager)
+    {
+        return (EditableWindowContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{EditableWindowContext.class}, new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        String methodName = method.getName();
+
+                        if ("getId".equals(methodName))
+                        {
+                            return windowContextId;
+                        }
+                        if ("isActive".equals(methodName))
+                        {
+                            return windowContextActive[0];
+                        }
+                        if ("getLastAccess".equals(methodName))
+                        {
+                            //due for the next cleanup
+                            return new Date(0);
+                        }
+                        if ("close".equals(methodName))
+                        {
+                            //like JsfWindowContext#close
+                            beanManager.fireEvent(new CloseWindowContextEvent((EditableWindowContext) proxy));
+                            conversationBean.preDestroy();
+                            return null;
+                        }
+                        if ("hashCode".equals(methodName))
+                        {
+                            return System.identityHashCode(proxy);
+                        }
+                        if ("equals".equals(methodName))
+                        {
+                            return proxy == args[0];
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private static class SerializableWindowContextManager extends DefaultWindowContextManager
+    {
+        private static final long serialVersionUID = 5036129419924226471L;
+
+        private SerializableWindowContextManager(WindowContextConfig windowContextConfig, BeanManager beanManager)
+        {
+            super(windowContextConfig, new ConversationConfig() {}, ProjectStage.UnitTest, beanManager);
+        }
+
+        @Override
+        protected void init()
+        {
+            //no cdi container available
+        }
+    }
+
+    private static class SerializableBeanManagerHandler implements InvocationHandler, Serializable
+    {
+        private static final long serialVersionUID = -2770244390384958014L;
+
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+        {
+            //no WindowContextFactory
+            if ("getBeans".equals(method.getName()))
+            {
+                return Collections.emptySet();
+            }
+            if ("hashCode".equals(method.getName()))
+            {
+                return System.identityHashCode(proxy);
+            }
+            if ("equals".equals(method.getName()))
+            {
+                return proxy == args[0];
+            }
+            return null;
+        }
+    }
+
+    private void checkRequestActive()
+    {
+        if (!Boolean.TRUE.equals(this.requestActive.get()))
+        {
+            throw new IllegalStateException("no active request");
+        }
+    }
+
+    private class ConversationBean
+    {
+        private boolean destroyed;
+
+        @PreDestroy
+        protected void preDestroy()
+        {
+            checkRequestActive();
+            this.destroyed = true;
+        }
+    }
+
+    private class CloseWindowContextObserver
+    {
+        private WindowContext closedWindowContext;
+
+        protected void onCloseWindowContext(@Observes CloseWindowContextEvent closeWindowContextEvent)
+        {
+            checkRequestActive();
+            this.closedWindowContext = closeWindowContextEvent.getWindowContext();
+        }
+    }
+}
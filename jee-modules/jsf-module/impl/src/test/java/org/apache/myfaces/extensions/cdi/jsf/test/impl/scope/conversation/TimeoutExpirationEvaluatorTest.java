@@ -0,0 +1,181 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jsf.test.impl.scope.conversation;
+
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.TimeoutExpirationEvaluator;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.util.Date;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests the timeout handling and the serialized form of {@link TimeoutExpirationEvaluator}
+ */
+public class TimeoutExpirationEvaluatorTest
+{
+    @Test
+    public void testTimeout() throws Exception
+    {
+        TimeoutExpirationEvaluator expirationEvaluator = createExpirationEvaluator(1);
+
+        //never used
+        assertTrue(expirationEvaluator.isExpired());
+
+        expirationEvaluator.touch();
+        assertFalse(expirationEvaluator.isExpired());
+
+        expirationEvaluator = createExpirationEvaluator(0);
+        expirationEvaluator.touch();
+        Thread.sleep(10);
+        assertTrue(expirationEvaluator.isExpired());
+    }
+
+    @Test
+    public void testSerializedFormIsCompatible() throws Exception
+    {
+        ObjectStreamClass serializedForm = ObjectStreamClass.lookup(TimeoutExpirationEvaluator.class);
+
+        assertEquals(serializedForm.getSerialVersionUID(), -1132091879142732148L);
+        assertEquals(serializedForm.getField("lastAccess").getType(), Date.class);
+        assertEquals(serializedForm.getField("timeoutInMs").getType(), long.class);
+        assertEquals(serializedForm.getFields().length, 2);
+    }
+
+    @Test
+    public void testSerialization() throws Exception
+    {
+        TimeoutExpirationEvaluator expirationEvaluator = createExpirationEvaluator(1);
+        assertTrue(serializeAndDeserialize(expirationEvaluator).isExpired());
+
+        expirationEvaluator.touch();
+        assertFalse(serializeAndDeserialize(expirationEvaluator).isExpired());
+    }
+
+    @Test
+    public void testFrequentTouches() throws Exception
+    {
+        TestTimeoutExpirationEvaluator expirationEvaluator = new TestTimeoutExpirationEvaluator(1);
+
+        for (int i = 0; i < 1000; i++)
+        {
+            expirationEvaluator.touch();
+
+            assertFalse(expirationEvaluator.isExpired());
+            //touch doesn't create a date
+            assertNull(expirationEvaluator.getDeprecatedLastAccess());
+        }
+
+        expirationEvaluator.expire();
+        assertTrue(expirationEvaluator.isExpired());
+        assertNull(expirationEvaluator.getDeprecatedLastAccess());
+
+        expirationEvaluator.touch();
+        assertFalse(expirationEvaluator.isExpired());
+        assertFalse(serializeAndDeserialize(expirationEvaluator).isExpired());
+    }
+
+    @Test
+    public void testDeprecatedLastAccessIsSyncedForTheSerialization() throws Exception
+    {
+        TestTimeoutExpirationEvaluator expirationEvaluator = new TestTimeoutExpirationEvaluator(1);
+        assertNull(expirationEvaluator.getDeprecatedLastAccess());
+
+        long before = System.currentTimeMillis();
+        expirationEvaluator.touch();
+        assertNull(expirationEvaluator.getDeprecatedLastAccess());
+
+        TestTimeoutExpirationEvaluator deserializedExpirationEvaluator =
+                (TestTimeoutExpirationEvaluator) serializeAndDeserialize(expirationEvaluator);
+
+        Date lastAccess = expirationEvaluator.getDeprecatedLastAccess();
+
+        assertNotNull(lastAccess);
+        assertEquals(deserializedExpirationEvaluator.getDeprecatedLastAccess(), lastAccess);
+        //coarse check - the clock is based on System#nanoTime
+        assertTrue(Math.abs(lastAccess.getTime() - before) < 60000);
+
+        //changed by a sub-class like in previous versions
+        expirationEvaluator.setDeprecatedLastAccess(null);
+        assertTrue(expirationEvaluator.isExpired());
+
+        expirationEvaluator.setDeprecatedLastAccess(new Date(before - 120000));
+        assertTrue(expirationEvaluator.isExpired());
+
+        expirationEvaluator.setDeprecatedLastAccess(new Date(before + 1000));
+        assertFalse(expirationEvaluator.isExpired());
+
+        //a touch isn't overridden by the date of the sub-class
+        expirationEvaluator.setDeprecatedLastAccess(new Date(before - 120000));
+        expirationEvaluator.touch();
+        assertFalse(expirationEvaluator.isExpired());
+
+        serializeAndDeserialize(expirationEvaluator);
+        assertTrue(expirationEvaluator.getDeprecatedLastAccess().getTime() > before - 120000);
+    }
+
+    private TimeoutExpirationEvaluator serializeAndDeserialize(TimeoutExpirationEvaluator expirationEvaluator)
+            throws Exception
+    {
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        ObjectOutputStream objectOutputStream = new ObjectOutputStream(byteArrayOutputStream);
+        objectOutputStream.writeObject(expirationEvaluator);
+        objectOutputStream.close();
+
+        ObjectInputStream objectInputStream =
+                new ObjectInputStream(new ByteArrayInputStream(byteArrayOutputStream.toByteArray()));
+        return (TimeoutExpirationEvaluator) objectInputStream.readObject();
+    }
+
+    private TimeoutExpirationEvaluator createExpirationEvaluator(int timeoutInMinutes)
+    {
+        return new TestTimeoutExpirationEvaluator(timeoutInMinutes);
+    }
+
+    @SuppressWarnings({"deprecation"})
+    private static class TestTimeoutExpirationEvaluator extends TimeoutExpirationEvaluator
+    {
+        private static final long serialVersionUID = 2204451596519916577L;
+
+        private TestTimeoutExpirationEvaluator(int timeoutInMinutes)
+        {
+            super(timeoutInMinutes);
+        }
+
+        private Date getDeprecatedLastAccess()
+        {
+            return this.lastAccess;
+        }
+
+        private void setDeprecatedLastAccess(Date lastAccess)
+        {
+            this.lastAccess = lastAccess;
+        }
+
+        private void expire()
+        {
+            resetLastAccess();
+        }
+    }
+}
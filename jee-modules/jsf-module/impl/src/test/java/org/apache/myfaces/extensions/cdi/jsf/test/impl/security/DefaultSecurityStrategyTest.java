@@ -0,0 +1,323 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jsf.test.impl.security;
+
+import org.apache.myfaces.extensions.cdi.core.api.config.view.ViewConfig;
+import org.apache.myfaces.extensions.cdi.core.api.security.AccessDecisionVoter;
+import org.apache.myfaces.extensions.cdi.core.api.security.AccessDeniedException;
+import org.apache.myfaces.extensions.cdi.core.api.security.Secured;
+import org.apache.myfaces.extensions.cdi.core.api.security.SecurityViolation;
+import org.apache.myfaces.extensions.cdi.core.impl.util.ResolvedBeanCache;
+import org.apache.myfaces.extensions.cdi.jsf.impl.security.DefaultSecurityStrategy;
+import org.apache.myfaces.extensions.cdi.jsf.impl.security.SecurityMetaDataCache;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Dependent;
+import javax.enterprise.inject.spi.Bean;
+import javax.enterprise.inject.spi.BeanManager;
+import javax.interceptor.InvocationContext;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests the cached security meta-data of {@link DefaultSecurityStrategy}
+ */
+public class DefaultSecurityStrategyTest
+{
+    private TestResolvedBeanCache resolvedBeanCache;
+
+    private AtomicInteger voterLookupCount;
+
+    private AtomicInteger voterCreationCount;
+
+    private DefaultSecurityStrategy securityStrategy;
+
+    @BeforeMethod
+    public void createSecurityStrategy() throws Exception
+    {
+        this.voterLookupCount = new AtomicInteger();
+        this.voterCreationCount = new AtomicInteger();
+
+        this.securityStrategy = new DefaultSecurityStrategy();
+
+        BeanManager beanManager = createBeanManager();
+
+        Field beanManagerField = DefaultSecurityStrategy.class.getDeclaredField("beanManager");
+        beanManagerField.setAccessible(true);
+        beanManagerField.set(this.securityStrategy, beanManager);
+
+        //the beans are cached after the deployment was validated
+        this.resolvedBeanCache = new TestResolvedBeanCache();
+        this.resolvedBeanCache.activate(beanManager);
+    }
+
+    @AfterMethod
+    public void cleanup()
+    {
+        this.resolvedBeanCache.deactivate();
+    }
+
+    @Test
+    public void testPermittedInvocation() throws Exception
+    {
+        assertEquals(this.securityStrategy.execute(createInvocationContext("permittedMethod")), "result");
+    }
+
+    @Test
+    public void testDeniedInvocation() throws Exception
+    {
+        try
+        {
+            this.securityStrategy.execute(createInvocationContext("deniedMethod"));
+            fail("the access should have been denied");
+        }
+        catch (AccessDeniedException e)
+        {
+            assertEquals(e.getViolations().size(), 1);
+            assertEquals(e.getErrorView(), TestErrorView.class);
+        }
+    }
+
+    @Test
+    public void testVoterBeansAreResolvedOnce() throws Exception
+    {
+        for (int i = 0; i < 100; i++)
+        {
+            this.securityStrategy.execute(createInvocationContext("permittedMethod"));
+            this.securityStrategy.execute(createInvocationContext("methodWithDependentVoter"));
+        }
+
+        //one lookup per voter
+        assertEquals(this.voterLookupCount.get(), 2);
+
+        //the reference of the application-scoped voter is cached - dependent voters are created per invocation
+        assertEquals(this.voterCreationCount.get(), 1 + 100);
+    }
+
+    @Test
+    public void testSecurityMetaDataIsRemovedBeforeShutdown() throws Exception
+    {
+        this.securityStrategy.execute(createInvocationContext("permittedMethod"));
+        this.securityStrategy.execute(createInvocationContext("permittedMethod"));
+
+        assertEquals(this.voterCreationCount.get(), 1);
+
+        new SecurityMetaDataCache()
+        {
+            {
+                removeCache(null);
+            }
+        };
+
+        //the meta-data (incl. the cached reference of the voter) is created again
+        this.securityStrategy.execute(createInvocationContext("permittedMethod"));
+
+        assertEquals(this.voterCreationCount.get(), 2);
+    }
+
+    private InvocationContext createInvocationContext(String methodName) throws Exception
+    {
+        final SecuredBean target = new SecuredBean();
+        final Method method = SecuredBean.class.getMethod(methodName);
+        final Map<String, Object> contextData = new HashMap<String, Object>();
+
+        return (InvocationContext) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class[]{InvocationContext.class}, new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method invokedMethod, Object[] args) throws Throwable
+                    {
+                        if ("proceed".equals(invokedMethod.getName()))
+                        {
+                            return method.invoke(target);
+                        }
+                        if ("getMethod".equals(invokedMethod.getName()))
+                        {
+                            return method;
+                        }
+                        if ("getTarget".equals(invokedMethod.getName()))
+                        {
+                            return target;
+                        }
+                        if ("getContextData".equals(invokedMethod.getName()))
+                        {
+                            return contextData;
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private BeanManager createBeanManager()
+    {
+        return (BeanManager) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{BeanManager.class},
+                new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        String methodName = method.getName();
+
+                        if ("getBeans".equals(methodName))
+                        {
+                            if (args[0] == NoOpVoter.class)
+                            {
+                                voterLookupCount.incrementAndGet();
+                                return Collections.singleton(createBean(ApplicationScoped.class));
+                            }
+                            if (args[0] == DenyingVoter.class || args[0] == DependentVoter.class)
+                            {
+                                voterLookupCount.incrementAndGet();
+                                return Collections.singleton(createBean(Dependent.class));
+                            }
+                            //no AccessDecisionVoterContext available
+                            return Collections.emptySet();
+                        }
+                        if ("resolve".equals(methodName))
+                        {
+                            return ((Set) args[0]).iterator().next();
+                        }
+                        if ("isNormalScope".equals(methodName))
+                        {
+                            return args[0] == ApplicationScoped.class;
+                        }
+                        if ("getReference".equals(methodName))
+                        {
+                            voterCreationCount.incrementAndGet();
+                            return ((Class) args[1]).newInstance();
+                        }
+                        if ("hashCode".equals(methodName))
+                        {
+                            return System.identityHashCode(proxy);
+                        }
+                        if ("equals".equals(methodName))
+                        {
+                            return proxy == args[0];
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private Bean createBean(final Class<? extends Annotation> scope)
+    {
+        return (Bean) Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{Bean.class},
+                new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        if ("getScope".equals(method.getName()))
+                        {
+                            return scope;
+                        }
+                        if ("hashCode".equals(method.getName()))
+                        {
+                            return System.identityHashCode(proxy);
+                        }
+                        if ("equals".equals(method.getName()))
+                        {
+                            return proxy == args[0];
+                        }
+                        return null;
+                    }
+                });
+    }
+
+    private static class TestResolvedBeanCache extends ResolvedBeanCache
+    {
+        void activate(BeanManager beanManager)
+        {
+            activateCache(null, beanManager);
+        }
+
+        void deactivate()
+        {
+            removeCache(null);
+        }
+    }
+
+    public static class SecuredBean
+    {
+        @Secured(NoOpVoter.class)
+        public String permittedMethod()
+        {
+            return "result";
+        }
+
+        @Secured(value = DenyingVoter.class, errorView = TestErrorView.class)
+        public String deniedMethod()
+        {
+            return "result";
+        }
+
+        @Secured(DependentVoter.class)
+        public String methodWithDependentVoter()
+        {
+            return "result";
+        }
+    }
+
+    public static class NoOpVoter implements AccessDecisionVoter
+    {
+        private static final long serialVersionUID = -3546153366213567367L;
+
+        public Set<SecurityViolation> checkPermission(InvocationContext invocationContext)
+        {
+            return null;
+        }
+    }
+
+    public static class DependentVoter extends NoOpVoter
+    {
+        private static final long serialVersionUID = 6436417567404342871L;
+    }
+
+    public static class DenyingVoter implements AccessDecisionVoter
+    {
+        private static final long serialVersionUID = 2375407283582146185L;
+
+        public Set<SecurityViolation> checkPermission(InvocationContext invocationContext)
+        {
+            return Collections.<SecurityViolation>singleton(new SecurityViolation()
+            {
+                private static final long serialVersionUID = -1873414367402357519L;
+
+                public String getReason()
+                {
+                    return "denied";
+                }
+            });
+        }
+    }
+
+    public interface TestErrorView extends ViewConfig
+    {
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.jsf.test.impl.util;
+
+import org.apache.myfaces.extensions.cdi.jsf.impl.scope.conversation.spi.EditableConversation;
+import org.apache.myfaces.extensions.cdi.jsf.impl.util.RequestCache;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.Test;
+
+import javax.enterprise.inject.spi.Bean;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import static org.testng.Assert.*;
+
+/**
+ * Tests the request based cache of bean-instances in {@link RequestCache}
+ */
+public class RequestCacheTest
+{
+    private boolean conversationActive = true;
+
+    @AfterMethod
+    public void resetCache()
+    {
+        RequestCache.resetCache();
+    }
+
+    @Test
+    public void testCachedBeanInstance()
+    {
+        Bean<?> bean = createProxy(Bean.class);
+        Bean<?> otherBean = createProxy(Bean.class);
+        Object beanInstance = new Object();
+
+        assertNull(RequestCache.getBeanInstance(bean));
+
+        RequestCache.setBeanInstance(bean, createProxy(EditableConversation.class), beanInstance);
+
+        assertSame(RequestCache.getBeanInstance(bean), beanInstance);
+        assertNull(RequestCache.getBeanInstance(otherBean));
+    }
+
+    @Test
+    public void testResetOfCachedBeanInstances()
+    {
+        Bean<?> bean = createProxy(Bean.class);
+
+        RequestCache.setBeanInstance(bean, createProxy(EditableConversation.class), new Object());
+        RequestCache.resetConversationCache();
+
+        assertNull(RequestCache.getBeanInstance(bean));
+    }
+
+    @Test
+    public void testCachedBeanInstanceOfInactiveConversation()
+    {
+        Bean<?> bean = createProxy(Bean.class);
+
+        RequestCache.setBeanInstance(bean, createProxy(EditableConversation.class), new Object());
+        this.conversationActive = false;
+
+        assertNull(RequestCache.getBeanInstance(bean));
+    }
+
+    private <T> T createProxy(Class<T> type)
+    {
+        return type.cast(Proxy.newProxyInstance(getClass().getClassLoader(), new Class[]{type},
+                new InvocationHandler()
+                {
+                    public Object invoke(Object proxy, Method method, Object[] args) throws Throwable
+                    {
+                        if ("getActiveState".equals(method.getName()))
+                        {
+                            return conversationActive;
+                        }
+                        if ("hashCode".equals(method.getName()))
+                        {
+                            return System.identityHashCode(proxy);
+                        }
+                        if ("equals".equals(method.getName()))
+                        {
+                            return proxy == args[0];
+                        }
+                        return null;
+                    }
+                }));
+    }
+}
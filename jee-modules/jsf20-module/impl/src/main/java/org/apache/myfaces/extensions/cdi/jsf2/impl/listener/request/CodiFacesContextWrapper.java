@@ -20,6 +20,7 @@ package org.apache.myfaces.extensions.cdi.jsf2.impl.listener.request;
 
 import org.apache.myfaces.extensions.cdi.core.api.config.CodiCoreConfig;
 import org.apache.myfaces.extensions.cdi.core.impl.util.ClassDeactivation;
+import org.apache.myfaces.extensions.cdi.core.impl.util.CodiRequestState;
 import org.apache.myfaces.extensions.cdi.core.impl.util.CodiUtils;
 import org.apache.myfaces.extensions.cdi.jsf.impl.config.view.ViewConfigCache;
 import org.apache.myfaces.extensions.cdi.jsf.impl.listener.request.BeforeAfterFacesRequestBroadcaster;
@@ -68,6 +69,8 @@ class CodiFacesContextWrapper extends FacesContextWrapper
                 new RedirectedConversationAwareExternalContext(wrappedFacesContext.getExternalContext());
 
         setCurrentInstance(this);
+
+        CodiRequestState.begin();
     }
 
     /**
@@ -113,12 +116,21 @@ class CodiFacesContextWrapper extends FacesContextWrapper
     @Override
     public void release()
     {
-        if(!this.wrappedFacesContext.getApplication().getResourceHandler().isResourceRequest(this.wrappedFacesContext))
+        try
         {
-            broadcastAfterFacesRequestEvent();
-        }
+            if(!this.wrappedFacesContext.getApplication().getResourceHandler()
+                    .isResourceRequest(this.wrappedFacesContext))
+            {
+                broadcastAfterFacesRequestEvent();
+            }
 
-        wrappedFacesContext.release();
+            wrappedFacesContext.release();
+        }
+        finally
+        {
+            //removes all caches of the request
+            CodiRequestState.end();
+        }
     }
 
     private void broadcastAfterFacesRequestEvent()
@@ -23,6 +23,8 @@ import org.apache.myfaces.extensions.cdi.message.api.FormatterFactory;
 import org.apache.myfaces.extensions.cdi.message.api.GenericConfig;
 import org.apache.myfaces.extensions.cdi.message.impl.formatter.FormatterBuilder;
 
+import java.io.IOException;
+import java.io.ObjectInputStream;
 import java.util.List;
 import java.util.Collections;
 import java.util.Locale;
@@ -41,7 +43,9 @@ public class DefaultFormatterFactory implements FormatterFactory
     private static final Logger LOGGER = Logger.getLogger(DefaultFormatterFactory.class.getName());
 
     private CopyOnWriteArrayList<Formatter> formatters = new CopyOnWriteArrayList<Formatter>();
-    private ConcurrentHashMap<Class<?>, Formatter> formatterCache = null;
+    //transient - previous versions serialized it (lazily created) -> it gets re-created after the deserialization
+    private transient ConcurrentHashMap<Class<?>, Formatter> formatterCache =
+            new ConcurrentHashMap<Class<?>, Formatter>();
     private ConcurrentHashMap<FormatterConfigKey, GenericConfig> formatterConfigs =
             new ConcurrentHashMap<FormatterConfigKey, GenericConfig>();
 
@@ -53,10 +57,7 @@ public class DefaultFormatterFactory implements FormatterFactory
         if(!this.formatters.contains(formatter))
         {
             this.formatters.add(formatter);
-            if(this.formatterCache != null)
-            {
-                this.formatterCache.clear();
-            }
+            this.formatterCache.clear();
         }
         return this;
     }
@@ -68,6 +69,7 @@ public class DefaultFormatterFactory implements FormatterFactory
     {
         List<Formatter> oldFormatters = Collections.unmodifiableList(this.formatters);
         this.formatters.clear();
+        this.formatterCache.clear();
         return oldFormatters;
     }
 
@@ -76,17 +78,14 @@ public class DefaultFormatterFactory implements FormatterFactory
      */
     public Formatter findFormatter(Class<?> type)
     {
-        if (this.formatterCache != null && this.formatterCache.containsKey(type))
+        Formatter cachedFormatter = this.formatterCache.get(type);
+
+        if (cachedFormatter != null)
         {
-            return this.formatterCache.get(type);
+            return cachedFormatter;
         }
         else
         {
-            if (this.formatterCache == null)
-            {
-                this.formatterCache = new ConcurrentHashMap<Class<?>, Formatter>();
-            }
-
             Formatter found = findFormatterFor(type);
 
             if (found == null)
@@ -152,4 +151,10 @@ public class DefaultFormatterFactory implements FormatterFactory
     {
         return new FormatterConfigKey(type, locale);
     }
+
+    private void readObject(ObjectInputStream objectInputStream) throws IOException, ClassNotFoundException
+    {
+        objectInputStream.defaultReadObject();
+        this.formatterCache = new ConcurrentHashMap<Class<?>, Formatter>();
+    }
 }
@@ -20,6 +20,7 @@ package org.apache.myfaces.extensions.cdi.message.impl;
 
 import org.apache.myfaces.extensions.cdi.message.api.Message;
 import org.apache.myfaces.extensions.cdi.message.api.MessageContext;
+import org.apache.myfaces.extensions.cdi.message.api.MessageContextConfig;
 import org.apache.myfaces.extensions.cdi.message.api.MessageContextConfigAware;
 import org.apache.myfaces.extensions.cdi.message.api.MessageResolver;
 import org.apache.myfaces.extensions.cdi.message.api.MessageInterpolator;
@@ -73,7 +74,7 @@ class DefaultMessageBuilder implements MessageBuilder
     public DefaultMessageBuilder(MessageContext messageContext, MessageFactory messageFactory)
     {
         reset();
-        this.messageContext = new UnmodifiableMessageContext(messageContext.cloneContext());
+        this.messageContext = createUnmodifiableMessageContext(messageContext);
 
         if(messageFactory != null)
         {
@@ -85,6 +86,34 @@ class DefaultMessageBuilder implements MessageBuilder
         }
     }
 
+    private static MessageContext createUnmodifiableMessageContext(MessageContext messageContext)
+    {
+        //it can't be changed -> no copy needed
+        if (messageContext instanceof UnmodifiableMessageContext)
+        {
+            return messageContext;
+        }
+
+        //sub-classes might customize the copy (see #cloneContext)
+        if (messageContext.getClass() == DefaultMessageContext.class)
+        {
+            MessageContextConfig messageContextConfig = messageContext.config();
+
+            if (messageContextConfig instanceof UnmodifiableMessageContextConfig)
+            {
+                messageContextConfig =
+                        ((UnmodifiableMessageContextConfig) messageContextConfig).getWrappedMessageContextConfig();
+            }
+
+            if (messageContextConfig instanceof DefaultMessageContextConfig)
+            {
+                //copy on write - the snapshot is shared until the config gets changed
+                return ((DefaultMessageContextConfig) messageContextConfig).getUnmodifiableMessageContext();
+            }
+        }
+        return new UnmodifiableMessageContext(messageContext.cloneContext());
+    }
+
     /**
      * {@inheritDoc}
      */
@@ -45,6 +45,12 @@ class DefaultMessageContextConfig implements MessageContextConfig
     private LocaleResolver localeResolver;
     private FormatterFactory formatterFactory;
 
+    //read-only snapshot of this config which is shared by all message-builders until this config gets changed
+    private transient volatile MessageContextSnapshot messageContextSnapshot;
+
+    //incremented after every change - a snapshot is only valid for the version it was created for
+    private transient volatile int version;
+
     DefaultMessageContextConfig()
     {
         resetMessageContextConfig();
@@ -287,6 +293,41 @@ class DefaultMessageContextConfig implements MessageContextConfig
         };
     }
 
+    /**
+     * Creates a read-only {@link MessageContext} for the current state of this config.
+     * The snapshot is re-used until this config gets changed, because a changed config doesn't affect
+     * message-builders which were created before.
+     *
+     * @return read-only message-context which uses a copy of this config
+     */
+    MessageContext getUnmodifiableMessageContext()
+    {
+        //has to be read before the values get copied
+        int currentVersion = this.version;
+        MessageContextSnapshot currentSnapshot = this.messageContextSnapshot;
+
+        //a snapshot which was created concurrently to a change isn't used, because it might contain old values
+        if (currentSnapshot != null && currentSnapshot.version == currentVersion)
+        {
+            return currentSnapshot.messageContext;
+        }
+
+        DefaultMessageContextConfig configCopy = new DefaultMessageContextConfig(this);
+        MessageContext result = new UnmodifiableMessageContext(new DefaultMessageContext(configCopy));
+
+        //the copy is only reachable via the read-only context -> it can't be changed
+        configCopy.messageContextSnapshot = new MessageContextSnapshot(configCopy.version, result);
+        this.messageContextSnapshot = new MessageContextSnapshot(currentVersion, result);
+        return result;
+    }
+
+    //has to be called after the change
+    private synchronized void configChanged()
+    {
+        this.version++;
+        this.messageContextSnapshot = null;
+    }
+
     private void resetMessageContextConfig()
     {
         this.messageInterpolator = new DefaultMessageInterpolator();
@@ -294,10 +335,12 @@ class DefaultMessageContextConfig implements MessageContextConfig
         this.messageHandlers = new CopyOnWriteArraySet<MessageHandler>();
         this.localeResolver = new DefaultLocaleResolver();
         this.formatterFactory = new DefaultFormatterFactory();
+        configChanged();
     }
 
     private void clearMessageContextConfig()
     {
+        configChanged();
     }
 
     /**
@@ -343,36 +386,43 @@ class DefaultMessageContextConfig implements MessageContextConfig
     private void setMessageInterpolator(MessageInterpolator messageInterpolator)
     {
         this.messageInterpolator = messageInterpolator;
+        configChanged();
     }
 
     private void setMessageResolver(MessageResolver messageResolver)
     {
         this.messageResolver = messageResolver;
+        configChanged();
     }
 
     private void addNewFormatter(Formatter formatter)
     {
         this.formatterFactory.add(formatter);
+        configChanged();
     }
 
     private void addNewFormatterConfig(Class<?> type, GenericConfig config, Locale locale)
     {
         this.formatterFactory.addFormatterConfig(type, config, locale);
+        configChanged();
     }
 
     private void addNewMessageHandler(MessageHandler messageHandler)
     {
         this.messageHandlers.add(messageHandler);
+        configChanged();
     }
 
     private void setLocaleResolver(LocaleResolver localeResolver)
     {
         this.localeResolver = localeResolver;
+        configChanged();
     }
 
     private void setFormatterFactory(FormatterFactory formatterFactory)
     {
         this.formatterFactory = formatterFactory;
+        configChanged();
     }
 
     /**
@@ -505,4 +555,16 @@ class DefaultMessageContextConfig implements MessageContextConfig
         result = 31 * result + formatterFactory.hashCode();
         return result;
     }
+
+    private static class MessageContextSnapshot
+    {
+        private final int version;
+        private final MessageContext messageContext;
+
+        private MessageContextSnapshot(int version, MessageContext messageContext)
+        {
+            this.version = version;
+            this.messageContext = messageContext;
+        }
+    }
 }
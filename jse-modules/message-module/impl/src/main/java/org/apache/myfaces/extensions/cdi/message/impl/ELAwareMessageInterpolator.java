@@ -24,13 +24,14 @@ import org.apache.myfaces.extensions.cdi.message.impl.spi.ELProvider;
 import org.apache.myfaces.extensions.cdi.message.impl.spi.SimpleELContext;
 import org.apache.myfaces.extensions.cdi.message.impl.spi.ArgumentFilter;
 
+import javax.el.CompositeELResolver;
 import javax.el.ExpressionFactory;
 import javax.el.ValueExpression;
 import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.List;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Allows to use EL-expressions in messages
@@ -39,11 +40,17 @@ public class ELAwareMessageInterpolator extends AbstractFormatterAwareMessageInt
 {
     private static final long serialVersionUID = 3451979493272628741L;
 
-    private static final Pattern MESSAGE_ARGS_PATTERN = Pattern.compile("\\{([^\\}]+?)\\}");
+    private static final int MAX_CACHE_SIZE = 1000;
 
     private ELProvider elProvider;
     private ArgumentFilter argumentFilter;
 
+    //the interpolator is shared by all threads -> the expression-factory has to be thread-safe
+    private transient volatile ExpressionFactory expressionFactory;
+
+    //the named arguments aren't mapped as el-variables -> parsed expressions don't depend on a message
+    private transient volatile Map<String, ValueExpression> valueExpressionCache;
+
     /**
      * Constructor for creating an {@link org.apache.myfaces.extensions.cdi.message.api.MessageInterpolator}
      * which uses the given {@link ELProvider} for interpolating el-expressions in a message.
@@ -105,29 +112,27 @@ public class ELAwareMessageInterpolator extends AbstractFormatterAwareMessageInt
     }
 
     //TODO add warning for unused arguments,...
-    private synchronized String interpolateNamedArguments(MessageContext messageContext,
-                                                          String messageDescriptor,
-                                                          List<NamedArgument> namedArguments)
+    private String interpolateNamedArguments(MessageContext messageContext,
+                                             String messageDescriptor,
+                                             List<NamedArgument> namedArguments)
     {
-        ExpressionFactory factory = this.elProvider.createExpressionFactory();
-        SimpleELContext elContext = this.elProvider.createELContext(this.elProvider.createELResolver());
+        CompositeELResolver elResolver = new CompositeELResolver();
+        elResolver.add(new NamedArgumentELResolver(namedArguments));
+        elResolver.add(this.elProvider.createELResolver());
 
-        for (NamedArgument argument : namedArguments)
-        {
-            Serializable value = argument.getValue();
-            Class valueType = value != null ? value.getClass() : Object.class;
-            elContext.setVariable(argument.getName(), factory.createValueExpression(value, valueType));
-        }
+        //the el-context isn't thread-safe -> one per call
+        SimpleELContext elContext = this.elProvider.createELContext(elResolver);
+
+        MessageTemplate messageTemplate = MessageTemplateCache.getMessageTemplate(messageDescriptor);
+        StringBuilder buffer = messageTemplate.createBuilder();
+        buffer.append(messageTemplate.getLiteral(0));
 
-        Matcher matcher = MESSAGE_ARGS_PATTERN.matcher(messageDescriptor);
-        StringBuffer buffer = new StringBuffer();
-        while (matcher.find())
+        for (int i = 0; i < messageTemplate.getArgumentCount(); i++)
         {
             String resolvedArgumentValue;
-            String expression = matcher.group(1);
+            String expression = messageTemplate.getArgumentName(i);
 
-            ValueExpression valueExpression =
-                    factory.createValueExpression(elContext, "${" + expression + "}", Object.class);
+            ValueExpression valueExpression = getValueExpression(elContext, expression);
 
             Object value = valueExpression.getValue(elContext);
 
@@ -141,11 +146,45 @@ public class ELAwareMessageInterpolator extends AbstractFormatterAwareMessageInt
                 resolvedArgumentValue = this.argumentFilter.getDefaultValue(expression);
             }
 
-            matcher.appendReplacement(buffer, "");
             buffer.append(resolvedArgumentValue);
+            buffer.append(messageTemplate.getLiteral(i + 1));
         }
-        matcher.appendTail(buffer);
 
         return buffer.toString();
     }
+
+    private ValueExpression getValueExpression(SimpleELContext elContext, String expression)
+    {
+        Map<String, ValueExpression> cache = this.valueExpressionCache;
+
+        if (cache == null)
+        {
+            cache = new ConcurrentHashMap<String, ValueExpression>();
+            this.valueExpressionCache = cache;
+        }
+
+        ValueExpression valueExpression = cache.get(expression);
+
+        if (valueExpression == null)
+        {
+            valueExpression =
+                    getExpressionFactory().createValueExpression(elContext, "${" + expression + "}", Object.class);
+
+            if (cache.size() >= MAX_CACHE_SIZE)
+            {
+                cache.clear();
+            }
+            cache.put(expression, valueExpression);
+        }
+        return valueExpression;
+    }
+
+    private ExpressionFactory getExpressionFactory()
+    {
+        if (this.expressionFactory == null)
+        {
+            this.expressionFactory = this.elProvider.createExpressionFactory();
+        }
+        return this.expressionFactory;
+    }
 }
\ No newline at end of file
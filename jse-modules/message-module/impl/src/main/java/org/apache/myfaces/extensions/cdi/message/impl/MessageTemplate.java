@@ -0,0 +1,103 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.message.impl;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Pre-parsed message-text which consists of literal segments and argument slots ({name}).
+ * A slot is a '{' followed by at least one character which isn't a '}' and the closing '}'.
+ * Instances are immutable and therefore shared via {@link MessageTemplateCache}.
+ */
+final class MessageTemplate
+{
+    private final String messageText;
+
+    //literals.length == argumentNames.length + 1
+    private final String[] literals;
+    private final String[] argumentNames;
+
+    private MessageTemplate(String messageText, String[] literals, String[] argumentNames)
+    {
+        this.messageText = messageText;
+        this.literals = literals;
+        this.argumentNames = argumentNames;
+    }
+
+    static MessageTemplate compile(String messageText)
+    {
+        List<String> literals = new ArrayList<String>();
+        List<String> argumentNames = new ArrayList<String>();
+
+        int literalStart = 0;
+        int slotStart = messageText.indexOf('{');
+
+        while (slotStart != -1)
+        {
+            int slotEnd = messageText.indexOf('}', slotStart + 1);
+
+            if (slotEnd == -1)
+            {
+                break;
+            }
+
+            if (slotEnd == slotStart + 1)
+            {
+                //'{}' isn't a slot
+                slotStart = messageText.indexOf('{', slotEnd);
+                continue;
+            }
+
+            literals.add(messageText.substring(literalStart, slotStart));
+            argumentNames.add(messageText.substring(slotStart + 1, slotEnd));
+
+            literalStart = slotEnd + 1;
+            slotStart = messageText.indexOf('{', literalStart);
+        }
+        literals.add(messageText.substring(literalStart));
+
+        return new MessageTemplate(messageText,
+                literals.toArray(new String[literals.size()]),
+                argumentNames.toArray(new String[argumentNames.size()]));
+    }
+
+    int getArgumentCount()
+    {
+        return this.argumentNames.length;
+    }
+
+    String getArgumentName(int index)
+    {
+        return this.argumentNames[index];
+    }
+
+    String getLiteral(int index)
+    {
+        return this.literals[index];
+    }
+
+    /**
+     * @return a builder which is large enough for the message-text
+     */
+    StringBuilder createBuilder()
+    {
+        return new StringBuilder(this.messageText.length() + 16 * this.argumentNames.length);
+    }
+}
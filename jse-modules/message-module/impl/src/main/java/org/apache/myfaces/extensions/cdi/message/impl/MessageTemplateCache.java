@@ -0,0 +1,140 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.message.impl;
+
+import java.text.MessageFormat;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Bounded cache for parsed message-texts which is shared by all message-interpolators (and therefore by all
+ * message-context-configs). As soon as a cache exceeds the max. size, it gets cleared.
+ */
+final class MessageTemplateCache
+{
+    static final int MAX_CACHE_SIZE = 1000;
+
+    private static Map<String, MessageTemplate> messageTemplateCache =
+            new ConcurrentHashMap<String, MessageTemplate>();
+
+    private static Map<MessageFormatKey, MessageFormat> messageFormatCache =
+            new ConcurrentHashMap<MessageFormatKey, MessageFormat>();
+
+    private MessageTemplateCache()
+    {
+    }
+
+    /**
+     * @param messageText current message-text
+     * @return the (shared) pre-parsed message-text
+     */
+    static MessageTemplate getMessageTemplate(String messageText)
+    {
+        MessageTemplate messageTemplate = messageTemplateCache.get(messageText);
+
+        if (messageTemplate == null)
+        {
+            messageTemplate = MessageTemplate.compile(messageText);
+
+            if (messageTemplateCache.size() >= MAX_CACHE_SIZE)
+            {
+                messageTemplateCache.clear();
+            }
+            messageTemplateCache.put(messageText, messageTemplate);
+        }
+        return messageTemplate;
+    }
+
+    /**
+     * {@link MessageFormat} isn't thread-safe - therefore a copy of the cached instance gets returned
+     * (which is cheaper than parsing the message-text again).
+     *
+     * @param messageText current message-text
+     * @param locale current locale
+     * @return message-format for the given message-text and locale which can be used by the current thread
+     */
+    static MessageFormat getMessageFormat(String messageText, Locale locale)
+    {
+        MessageFormatKey key = new MessageFormatKey(messageText, locale);
+        MessageFormat messageFormat = messageFormatCache.get(key);
+
+        if (messageFormat == null)
+        {
+            messageFormat = new MessageFormat(messageText, locale);
+
+            if (messageFormatCache.size() >= MAX_CACHE_SIZE)
+            {
+                messageFormatCache.clear();
+            }
+            messageFormatCache.put(key, messageFormat);
+        }
+        return (MessageFormat)messageFormat.clone();
+    }
+
+    private static class MessageFormatKey
+    {
+        private final String messageText;
+        private final Locale locale;
+
+        private MessageFormatKey(String messageText, Locale locale)
+        {
+            this.messageText = messageText;
+            this.locale = locale;
+        }
+
+        /*
+         * generated
+         */
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof MessageFormatKey))
+            {
+                return false;
+            }
+
+            MessageFormatKey that = (MessageFormatKey) o;
+
+            if (locale != null ? !locale.equals(that.locale) : that.locale != null)
+            {
+                return false;
+            }
+            //noinspection RedundantIfStatement
+            if (!messageText.equals(that.messageText))
+            {
+                return false;
+            }
+
+            return true;
+        }
+
+        @Override
+        public int hashCode()
+        {
+            int result = messageText.hashCode();
+            result = 31 * result + (locale != null ? locale.hashCode() : 0);
+            return result;
+        }
+    }
+}
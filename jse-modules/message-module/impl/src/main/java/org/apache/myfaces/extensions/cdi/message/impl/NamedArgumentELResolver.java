@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.message.impl;
+
+import org.apache.myfaces.extensions.cdi.message.api.NamedArgument;
+
+import javax.el.ELContext;
+import javax.el.ELResolver;
+import javax.el.PropertyNotWritableException;
+import java.beans.FeatureDescriptor;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Read-only {@link ELResolver} which resolves the named arguments of the current message.
+ * Since the arguments aren't mapped as el-variables, parsed value-expressions don't depend on the arguments of
+ * a message and can be re-used for other messages.
+ */
+class NamedArgumentELResolver extends ELResolver
+{
+    private final List<NamedArgument> namedArguments;
+
+    NamedArgumentELResolver(List<NamedArgument> namedArguments)
+    {
+        this.namedArguments = namedArguments;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Object getValue(ELContext elContext, Object base, Object property)
+    {
+        NamedArgument namedArgument = findNamedArgument(base, property);
+
+        if (namedArgument == null)
+        {
+            return null;
+        }
+
+        elContext.setPropertyResolved(true);
+        return namedArgument.getValue();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Class<?> getType(ELContext elContext, Object base, Object property)
+    {
+        NamedArgument namedArgument = findNamedArgument(base, property);
+
+        if (namedArgument == null)
+        {
+            return null;
+        }
+
+        elContext.setPropertyResolved(true);
+        return namedArgument.getValue() != null ? namedArgument.getValue().getClass() : Object.class;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public void setValue(ELContext elContext, Object base, Object property, Object value)
+    {
+        if (findNamedArgument(base, property) != null)
+        {
+            throw new PropertyNotWritableException("the argument " + property + " is read-only");
+        }
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean isReadOnly(ELContext elContext, Object base, Object property)
+    {
+        if (findNamedArgument(base, property) == null)
+        {
+            return false;
+        }
+
+        elContext.setPropertyResolved(true);
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Iterator<FeatureDescriptor> getFeatureDescriptors(ELContext elContext, Object base)
+    {
+        return null;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public Class<?> getCommonPropertyType(ELContext elContext, Object base)
+    {
+        return base == null ? String.class : null;
+    }
+
+    private NamedArgument findNamedArgument(Object base, Object property)
+    {
+        if (base != null || !(property instanceof String))
+        {
+            return null;
+        }
+
+        NamedArgument result = null;
+
+        //the last argument wins (like a re-mapped el-variable)
+        for (NamedArgument namedArgument : this.namedArguments)
+        {
+            if (property.equals(namedArgument.getName()))
+            {
+                result = namedArgument;
+            }
+        }
+        return result;
+    }
+}
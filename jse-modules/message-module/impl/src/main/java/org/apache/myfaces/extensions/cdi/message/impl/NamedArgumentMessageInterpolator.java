@@ -24,8 +24,6 @@ import org.apache.myfaces.extensions.cdi.message.api.MessageInterpolator;
 import org.apache.myfaces.extensions.cdi.message.api.NamedArgument;
 
 import java.io.Serializable;
-import java.util.ArrayList;
-import java.util.List;
 
 /**
  * Allows to use names instead of ordinals as placeholder in messages
@@ -39,15 +37,30 @@ public class NamedArgumentMessageInterpolator implements MessageInterpolator
      */
     public String interpolate(MessageContext messageContext, String messageText, Serializable... arguments)
     {
-        NamedArgument[] namedArguments = extractNamedArguments(arguments);
+        if(arguments == null || arguments.length == 0)
+        {
+            return messageText;
+        }
+
+        MessageTemplate messageTemplate = MessageTemplateCache.getMessageTemplate(messageText);
+
+        if(messageTemplate.getArgumentCount() == 0)
+        {
+            return messageText;
+        }
+
+        StringBuilder result = messageTemplate.createBuilder();
+        result.append(messageTemplate.getLiteral(0));
 
         String name;
+        NamedArgument namedArgument;
         Serializable value;
-        for(NamedArgument namedArgument : namedArguments)
+        for(int i = 0; i < messageTemplate.getArgumentCount(); i++)
         {
-            name = "{" + namedArgument.getName() + "}";
+            name = messageTemplate.getArgumentName(i);
+            namedArgument = findNamedArgument(name, arguments);
 
-            if(messageText.contains(name))
+            if(namedArgument != null)
             {
                 value = namedArgument.getValue();
 
@@ -60,24 +73,27 @@ public class NamedArgumentMessageInterpolator implements MessageInterpolator
                     value = "null";
                 }
 
-                messageText = messageText.replace(name, value.toString());
+                result.append(value.toString());
+            }
+            else
+            {
+                //keep the placeholder
+                result.append('{').append(name).append('}');
             }
+            result.append(messageTemplate.getLiteral(i + 1));
         }
-        return messageText;
+        return result.toString();
     }
 
-    private NamedArgument[] extractNamedArguments(Serializable[] arguments)
+    private NamedArgument findNamedArgument(String name, Serializable[] arguments)
     {
-        List<NamedArgument> result = new ArrayList<NamedArgument>();
-
         for (Serializable argument : arguments)
         {
-            if (argument instanceof NamedArgument)
+            if (argument instanceof NamedArgument && name.equals(((NamedArgument)argument).getName()))
             {
-                result.add((NamedArgument)argument);
+                return (NamedArgument)argument;
             }
         }
-
-        return result.toArray(new NamedArgument[result.size()]);
+        return null;
     }
 }
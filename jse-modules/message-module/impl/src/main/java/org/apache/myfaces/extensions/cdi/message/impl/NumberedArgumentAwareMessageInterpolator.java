@@ -50,6 +50,11 @@ public class NumberedArgumentAwareMessageInterpolator extends AbstractFormatterA
 
     private Serializable[] extractNumberedArguments(Serializable[] arguments)
     {
+        if (!containsNamedArgument(arguments))
+        {
+            return arguments;
+        }
+
         List<Serializable> result = new ArrayList<Serializable>();
 
         for (Serializable argument : arguments)
@@ -63,6 +68,18 @@ public class NumberedArgumentAwareMessageInterpolator extends AbstractFormatterA
         return result.toArray(new Serializable[result.size()]);
     }
 
+    private boolean containsNamedArgument(Serializable[] arguments)
+    {
+        for (Serializable argument : arguments)
+        {
+            if (argument instanceof NamedArgument)
+            {
+                return true;
+            }
+        }
+        return false;
+    }
+
     //TODO add warning for unused arguments,...
     private String formatMessage(MessageContext messageContext, String messageDescriptor, Serializable[] arguments)
     {
@@ -86,7 +103,8 @@ public class NumberedArgumentAwareMessageInterpolator extends AbstractFormatterA
             }
         }
 
-        MessageFormat messageFormat = new MessageFormat(messageDescriptor, messageContext.getLocale());
+        MessageFormat messageFormat =
+                MessageTemplateCache.getMessageFormat(messageDescriptor, messageContext.getLocale());
 
         if (localizedArguments == null)
         {
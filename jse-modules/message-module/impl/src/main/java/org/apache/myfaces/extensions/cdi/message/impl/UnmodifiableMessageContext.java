@@ -35,6 +35,7 @@ class UnmodifiableMessageContext implements MessageContext
 {
     private static final long serialVersionUID = -4730350864157813259L;
     private MessageContext messageContext;
+    private transient volatile UnmodifiableMessageContextConfig unmodifiableMessageContextConfig;
 
     UnmodifiableMessageContext(MessageContext messageContext)
     {
@@ -46,7 +47,15 @@ class UnmodifiableMessageContext implements MessageContext
      */
     public MessageContextConfig config()
     {
-        return new UnmodifiableMessageContextConfig(messageContext.config());
+        MessageContextConfig messageContextConfig = messageContext.config();
+        UnmodifiableMessageContextConfig result = this.unmodifiableMessageContextConfig;
+
+        if (result == null || result.getWrappedMessageContextConfig() != messageContextConfig)
+        {
+            result = new UnmodifiableMessageContextConfig(messageContextConfig);
+            this.unmodifiableMessageContextConfig = result;
+        }
+        return result;
     }
 
     /**
@@ -100,4 +100,9 @@ class UnmodifiableMessageContextConfig implements MessageContextConfig
     {
         return messageContextConfig.getFormatterFactory();
     }
+
+    MessageContextConfig getWrappedMessageContextConfig()
+    {
+        return this.messageContextConfig;
+    }
 }
\ No newline at end of file
@@ -22,26 +22,36 @@ import org.apache.myfaces.extensions.cdi.message.api.Formatter;
 import org.apache.myfaces.extensions.cdi.message.api.GenericConfig;
 import org.apache.myfaces.extensions.cdi.message.api.MessageContext;
 
+import java.io.Serializable;
 import java.math.BigDecimal;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
-import java.text.NumberFormat;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
- * {@link Formatter} which is responsible for numbers
+ * {@link Formatter} which is responsible for numbers.
+ * The formatter itself is stateless - the formats for a locale and the values of the formatter-config are created
+ * once and re-used for the same locale and values.
  */
 class DefaultNumberFormatter implements Formatter<Number>
 {
     private static final long serialVersionUID = 1639250543559140704L;
 
-    private Character groupingSeparator = null;
-    private Character decimalSeparator = null;
-    private Integer minimumFractionDigits = null;
-    private Integer minimumIntegerDigits = null;
-    private Integer maximumFractionDigits = null;
-    private Integer maximumIntegerDigits = null;
-    private String exponentSeparator = null;
+    //a changed formatter-config leads to new entries -> the cache gets cleared if it gets too large
+    private static final int MAX_CACHED_FORMAT_COUNT = 128;
+
+    //formats for locales without formatter-config (the common case) - the lookup doesn't need a composite key
+    private final transient Map<Locale, CompiledNumberFormat> compiledDefaultNumberFormats =
+            new ConcurrentHashMap<Locale, CompiledNumberFormat>();
+
+    private final transient Map<NumberFormatConfig, CompiledNumberFormat> compiledCustomNumberFormats =
+            new ConcurrentHashMap<NumberFormatConfig, CompiledNumberFormat>();
+
+    //the last snapshot per formatter-config instance - allows to verify an unchanged config without a new snapshot
+    private final transient Map<GenericConfig, NumberFormatConfig> lastNumberFormatConfigs =
+            new ConcurrentHashMap<GenericConfig, NumberFormatConfig>();
 
     DefaultNumberFormatter()
     {
@@ -60,7 +70,7 @@ class DefaultNumberFormatter implements Formatter<Number>
      */
     public boolean isStateless()
     {
-        return false;
+        return true;
     }
 
     /**
@@ -73,191 +83,357 @@ class DefaultNumberFormatter implements Formatter<Number>
         GenericConfig formatterConfig = messageContext.config().getFormatterFactory()
                 .findFormatterConfig(Number.class, locale);
 
-        if (formatterConfig != null)
+        CompiledNumberFormat compiledNumberFormat;
+
+        if (formatterConfig == null)
         {
-            useCustomConfig(formatterConfig);
+            compiledNumberFormat = this.compiledDefaultNumberFormats.get(locale);
+
+            if (compiledNumberFormat == null)
+            {
+                compiledNumberFormat = getCompiledNumberFormat(
+                        this.compiledDefaultNumberFormats, locale, new NumberFormatConfig(locale, null));
+            }
+        }
+        else
+        {
+            compiledNumberFormat = getCompiledCustomNumberFormat(locale, formatterConfig);
         }
 
         if (valueToFormat instanceof BigDecimal || valueToFormat instanceof Double || valueToFormat instanceof Float)
         {
-            return getDecimalFormat(locale).format(valueToFormat);
+            return compiledNumberFormat.formatDecimal(valueToFormat);
         }
         else
         {
-            return getNumberFormat(locale).format(valueToFormat);
+            return compiledNumberFormat.formatNumber(valueToFormat);
         }
     }
 
-    private void useCustomConfig(GenericConfig formatterConfig)
+    private CompiledNumberFormat getCompiledCustomNumberFormat(Locale locale, GenericConfig formatterConfig)
     {
-        if (formatterConfig.containsProperty(NumberFormatterConfigKeys.GROUPING_SEPARATOR_KEY))
-        {
-            this.groupingSeparator = formatterConfig
-                    .getProperty(NumberFormatterConfigKeys.GROUPING_SEPARATOR_KEY, String.class).charAt(0);
-        }
+        NumberFormatConfig numberFormatConfig = this.lastNumberFormatConfigs.get(formatterConfig);
 
-        if (formatterConfig.containsProperty(NumberFormatterConfigKeys.DECIMAL_SEPARATOR_KEY))
+        //the formatter-config isn't immutable -> the current values have to be compared with the last snapshot
+        if (numberFormatConfig != null && numberFormatConfig.isSnapshotOf(locale, formatterConfig))
         {
-            this.decimalSeparator = formatterConfig
-                    .getProperty(NumberFormatterConfigKeys.DECIMAL_SEPARATOR_KEY, String.class).charAt(0);
+            return numberFormatConfig.compiledNumberFormat;
         }
 
-        if (formatterConfig.containsProperty(NumberFormatterConfigKeys.MINIMUM_FRACTION_DIGITS_KEY))
-        {
-            this.minimumFractionDigits = formatterConfig
-                    .getProperty(NumberFormatterConfigKeys.MINIMUM_FRACTION_DIGITS_KEY, Integer.class);
-        }
+        //the snapshot of the current values is used as key
+        numberFormatConfig = new NumberFormatConfig(locale, formatterConfig);
+        CompiledNumberFormat compiledNumberFormat = getCompiledNumberFormat(
+                this.compiledCustomNumberFormats, numberFormatConfig, numberFormatConfig);
+        numberFormatConfig.compiledNumberFormat = compiledNumberFormat;
 
-        if (formatterConfig.containsProperty(NumberFormatterConfigKeys.MINIMUM_INTEGER_DIGITS_KEY))
+        if (this.lastNumberFormatConfigs.size() >= MAX_CACHED_FORMAT_COUNT)
         {
-            this.minimumIntegerDigits = formatterConfig
-                    .getProperty(NumberFormatterConfigKeys.MINIMUM_INTEGER_DIGITS_KEY, Integer.class);
+            this.lastNumberFormatConfigs.clear();
         }
+        this.lastNumberFormatConfigs.put(formatterConfig, numberFormatConfig);
 
-        if (formatterConfig.containsProperty(NumberFormatterConfigKeys.MAXIMUM_FRACTION_DIGITS))
-        {
-            this.maximumFractionDigits = formatterConfig
-                    .getProperty(NumberFormatterConfigKeys.MAXIMUM_FRACTION_DIGITS, Integer.class);
-        }
+        return compiledNumberFormat;
+    }
 
-        if (formatterConfig.containsProperty(NumberFormatterConfigKeys.MAXIMUM_INTEGER_DIGITS))
-        {
-            this.maximumIntegerDigits = formatterConfig
-                    .getProperty(NumberFormatterConfigKeys.MAXIMUM_INTEGER_DIGITS, Integer.class);
-        }
+    private static <K> CompiledNumberFormat getCompiledNumberFormat(Map<K, CompiledNumberFormat> compiledNumberFormats,
+                                                                    K key,
+                                                                    NumberFormatConfig numberFormatConfig)
+    {
+        CompiledNumberFormat compiledNumberFormat = compiledNumberFormats.get(key);
 
-        if (formatterConfig.containsProperty(NumberFormatterConfigKeys.EXPONENT_SEPARATOR))
+        if (compiledNumberFormat == null)
         {
-            this.exponentSeparator = formatterConfig
-                    .getProperty(NumberFormatterConfigKeys.EXPONENT_SEPARATOR, String.class);
+            if (compiledNumberFormats.size() >= MAX_CACHED_FORMAT_COUNT)
+            {
+                compiledNumberFormats.clear();
+            }
+
+            compiledNumberFormat = new CompiledNumberFormat(numberFormatConfig);
+            compiledNumberFormats.put(key, compiledNumberFormat);
         }
+        return compiledNumberFormat;
     }
 
-    private NumberFormat getNumberFormat(Locale locale)
+    private Object readResolve()
     {
-        DecimalFormatSymbols symbols = new DecimalFormatSymbols(locale);
+        //the formatter is stateless - the formats get created again
+        return new DefaultNumberFormatter();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public boolean equals(Object o)
+    {
+        return this == o || o instanceof DefaultNumberFormatter;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public int hashCode()
+    {
+        return DefaultNumberFormatter.class.hashCode();
+    }
+
+    /**
+     * Immutable snapshot of the locale and the values of the formatter-config
+     */
+    private static class NumberFormatConfig
+    {
+        private final Locale locale;
+
+        private final Character groupingSeparator;
+        private final Character decimalSeparator;
+        private final Integer minimumFractionDigits;
+        private final Integer minimumIntegerDigits;
+        private final Integer maximumFractionDigits;
+        private final Integer maximumIntegerDigits;
+        private final String exponentSeparator;
+
+        private final int hashCode;
 
-        if (this.groupingSeparator != null)
+        //set for the last snapshot of a formatter-config
+        private volatile CompiledNumberFormat compiledNumberFormat;
+
+        private NumberFormatConfig(Locale locale, GenericConfig formatterConfig)
         {
-            symbols.setGroupingSeparator(this.groupingSeparator);
+            this.locale = locale;
+
+            if (formatterConfig == null)
+            {
+                this.groupingSeparator = null;
+                this.decimalSeparator = null;
+                this.minimumFractionDigits = null;
+                this.minimumIntegerDigits = null;
+                this.maximumFractionDigits = null;
+                this.maximumIntegerDigits = null;
+                this.exponentSeparator = null;
+            }
+            else
+            {
+                this.groupingSeparator =
+                        getCharacter(formatterConfig, NumberFormatterConfigKeys.GROUPING_SEPARATOR_KEY);
+                this.decimalSeparator =
+                        getCharacter(formatterConfig, NumberFormatterConfigKeys.DECIMAL_SEPARATOR_KEY);
+                this.minimumFractionDigits = getProperty(
+                        formatterConfig, NumberFormatterConfigKeys.MINIMUM_FRACTION_DIGITS_KEY, Integer.class);
+                this.minimumIntegerDigits = getProperty(
+                        formatterConfig, NumberFormatterConfigKeys.MINIMUM_INTEGER_DIGITS_KEY, Integer.class);
+                this.maximumFractionDigits =
+                        getProperty(formatterConfig, NumberFormatterConfigKeys.MAXIMUM_FRACTION_DIGITS, Integer.class);
+                this.maximumIntegerDigits =
+                        getProperty(formatterConfig, NumberFormatterConfigKeys.MAXIMUM_INTEGER_DIGITS, Integer.class);
+                this.exponentSeparator =
+                        getProperty(formatterConfig, NumberFormatterConfigKeys.EXPONENT_SEPARATOR, String.class);
+            }
+
+            this.hashCode = calculateHashCode();
         }
-        if (this.decimalSeparator != null)
+
+        private int calculateHashCode()
         {
-            symbols.setDecimalSeparator(this.decimalSeparator);
+            int result = hashCode(this.locale);
+            result = 31 * result + hashCode(this.groupingSeparator);
+            result = 31 * result + hashCode(this.decimalSeparator);
+            result = 31 * result + hashCode(this.minimumFractionDigits);
+            result = 31 * result + hashCode(this.minimumIntegerDigits);
+            result = 31 * result + hashCode(this.maximumFractionDigits);
+            result = 31 * result + hashCode(this.maximumIntegerDigits);
+            result = 31 * result + hashCode(this.exponentSeparator);
+            return result;
         }
-        if (this.exponentSeparator != null)
+
+        private static int hashCode(Object value)
         {
-            symbols.setExponentSeparator(this.exponentSeparator);
+            return value != null ? value.hashCode() : 0;
         }
-        return new DecimalFormat("", symbols);
-    }
 
-    private NumberFormat getDecimalFormat(Locale locale)
-    {
-        DecimalFormatSymbols symbols = new DecimalFormatSymbols(locale);
-
-        if (this.groupingSeparator != null)
+        /**
+         * Compares the snapshot with the current values of the given formatter-config without creating a new snapshot
+         * @param currentLocale current locale
+         * @param formatterConfig current formatter-config
+         * @return true if the snapshot contains the current values, false otherwise
+         */
+        private boolean isSnapshotOf(Locale currentLocale, GenericConfig formatterConfig)
         {
-            symbols.setGroupingSeparator(this.groupingSeparator);
+            return isEqual(this.locale, currentLocale) &&
+                    isEqualCharacter(this.groupingSeparator,
+                            formatterConfig, NumberFormatterConfigKeys.GROUPING_SEPARATOR_KEY) &&
+                    isEqualCharacter(this.decimalSeparator,
+                            formatterConfig, NumberFormatterConfigKeys.DECIMAL_SEPARATOR_KEY) &&
+                    isEqual(this.minimumFractionDigits, getProperty(
+                            formatterConfig, NumberFormatterConfigKeys.MINIMUM_FRACTION_DIGITS_KEY, Integer.class)) &&
+                    isEqual(this.minimumIntegerDigits, getProperty(
+                            formatterConfig, NumberFormatterConfigKeys.MINIMUM_INTEGER_DIGITS_KEY, Integer.class)) &&
+                    isEqual(this.maximumFractionDigits, getProperty(
+                            formatterConfig, NumberFormatterConfigKeys.MAXIMUM_FRACTION_DIGITS, Integer.class)) &&
+                    isEqual(this.maximumIntegerDigits, getProperty(
+                            formatterConfig, NumberFormatterConfigKeys.MAXIMUM_INTEGER_DIGITS, Integer.class)) &&
+                    isEqual(this.exponentSeparator, getProperty(
+                            formatterConfig, NumberFormatterConfigKeys.EXPONENT_SEPARATOR, String.class));
         }
-        if (this.decimalSeparator != null)
+
+        private static boolean isEqualCharacter(Character character, GenericConfig formatterConfig, String key)
         {
-            symbols.setDecimalSeparator(this.decimalSeparator);
+            String value = getProperty(formatterConfig, key, String.class);
+
+            if (value == null)
+            {
+                return character == null;
+            }
+            return character != null && character == value.charAt(0);
         }
-        if (this.exponentSeparator != null)
+
+        private static Character getCharacter(GenericConfig formatterConfig, String key)
         {
-            symbols.setExponentSeparator(this.exponentSeparator);
-        }
+            String value = getProperty(formatterConfig, key, String.class);
 
-        DecimalFormat format = new DecimalFormat("", symbols);
+            if (value == null)
+            {
+                return null;
+            }
+            return value.charAt(0);
+        }
 
-        if (this.minimumFractionDigits != null)
+        private static <T extends Serializable> T getProperty(GenericConfig formatterConfig,
+                                                              String key,
+                                                              Class<T> targetType)
         {
-            format.setMinimumFractionDigits(this.minimumFractionDigits);
+            if (!formatterConfig.containsProperty(key))
+            {
+                return null;
+            }
+            return formatterConfig.getProperty(key, targetType);
         }
-        if (this.minimumIntegerDigits != null)
+
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public boolean equals(Object o)
         {
-            format.setMinimumIntegerDigits(this.minimumIntegerDigits);//for 0.**
+            if (this == o)
+            {
+                return true;
+            }
+            if (!(o instanceof NumberFormatConfig))
+            {
+                return false;
+            }
+
+            NumberFormatConfig that = (NumberFormatConfig) o;
+
+            return this.hashCode == that.hashCode &&
+                    this.locale.equals(that.locale) &&
+                    isEqual(this.groupingSeparator, that.groupingSeparator) &&
+                    isEqual(this.decimalSeparator, that.decimalSeparator) &&
+                    isEqual(this.minimumFractionDigits, that.minimumFractionDigits) &&
+                    isEqual(this.minimumIntegerDigits, that.minimumIntegerDigits) &&
+                    isEqual(this.maximumFractionDigits, that.maximumFractionDigits) &&
+                    isEqual(this.maximumIntegerDigits, that.maximumIntegerDigits) &&
+                    isEqual(this.exponentSeparator, that.exponentSeparator);
         }
 
-        if (this.maximumFractionDigits != null)
+        /**
+         * {@inheritDoc}
+         */
+        @Override
+        public int hashCode()
         {
-            format.setMaximumFractionDigits(this.maximumFractionDigits);
+            return this.hashCode;
         }
 
-        if (this.maximumIntegerDigits != null)
+        private static boolean isEqual(Object value1, Object value2)
         {
-            format.setMaximumIntegerDigits(this.maximumIntegerDigits);
+            return value1 != null ? value1.equals(value2) : value2 == null;
         }
-        return format;
     }
 
     /**
-     * {@inheritDoc}
+     * Templates of the formats for a {@link NumberFormatConfig}
      */
-    @Override
-    public boolean equals(Object o)
+    private static class CompiledNumberFormat
     {
-        if (this == o)
-        {
-            return true;
-        }
-        if (!(o instanceof DefaultNumberFormatter))
-        {
-            return false;
-        }
+        //DecimalFormat isn't thread-safe -> every thread uses its own copy of the templates
+        private final DecimalFormat numberFormat;
+        private final DecimalFormat decimalFormat;
 
-        DefaultNumberFormatter that = (DefaultNumberFormatter) o;
+        private final ThreadLocal<DecimalFormat> threadNumberFormat = new ThreadLocal<DecimalFormat>();
+        private final ThreadLocal<DecimalFormat> threadDecimalFormat = new ThreadLocal<DecimalFormat>();
 
-        if (decimalSeparator != null ? !decimalSeparator.equals(that.decimalSeparator) :
-                that.decimalSeparator != null)
-        {
-            return false;
-        }
-        if (exponentSeparator != null ? !exponentSeparator.equals(that.exponentSeparator) :
-                that.exponentSeparator != null)
+        private CompiledNumberFormat(NumberFormatConfig numberFormatConfig)
         {
-            return false;
+            this.numberFormat = new DecimalFormat("", createSymbols(numberFormatConfig));
+            this.decimalFormat = createDecimalFormat(numberFormatConfig);
         }
-        if (groupingSeparator != null ? !groupingSeparator.equals(that.groupingSeparator) :
-                that.groupingSeparator != null)
+
+        String formatNumber(Number valueToFormat)
         {
-            return false;
+            return getFormat(this.threadNumberFormat, this.numberFormat).format(valueToFormat);
         }
-        if (maximumFractionDigits != null ? !maximumFractionDigits.equals(that.maximumFractionDigits) :
-                that.maximumFractionDigits != null)
+
+        String formatDecimal(Number valueToFormat)
         {
-            return false;
+            return getFormat(this.threadDecimalFormat, this.decimalFormat).format(valueToFormat);
         }
-        if (maximumIntegerDigits != null ? !maximumIntegerDigits.equals(that.maximumIntegerDigits) :
-                that.maximumIntegerDigits != null)
+
+        private static DecimalFormat getFormat(ThreadLocal<DecimalFormat> threadFormat, DecimalFormat template)
         {
-            return false;
+            DecimalFormat result = threadFormat.get();
+
+            if (result == null)
+            {
+                result = (DecimalFormat) template.clone();
+                threadFormat.set(result);
+            }
+            return result;
         }
-        if (minimumFractionDigits != null ? !minimumFractionDigits.equals(that.minimumFractionDigits) :
-                that.minimumFractionDigits != null)
+
+        private static DecimalFormatSymbols createSymbols(NumberFormatConfig numberFormatConfig)
         {
-            return false;
+            DecimalFormatSymbols symbols = new DecimalFormatSymbols(numberFormatConfig.locale);
+
+            if (numberFormatConfig.groupingSeparator != null)
+            {
+                symbols.setGroupingSeparator(numberFormatConfig.groupingSeparator);
+            }
+            if (numberFormatConfig.decimalSeparator != null)
+            {
+                symbols.setDecimalSeparator(numberFormatConfig.decimalSeparator);
+            }
+            if (numberFormatConfig.exponentSeparator != null)
+            {
+                symbols.setExponentSeparator(numberFormatConfig.exponentSeparator);
+            }
+            return symbols;
         }
-        if (minimumIntegerDigits != null ? !minimumIntegerDigits.equals(that.minimumIntegerDigits) :
-                that.minimumIntegerDigits != null)
+
+        private static DecimalFormat createDecimalFormat(NumberFormatConfig numberFormatConfig)
         {
-            return false;
-        }
+            DecimalFormat format = new DecimalFormat("", createSymbols(numberFormatConfig));
 
-        return true;
-    }
+            if (numberFormatConfig.minimumFractionDigits != null)
+            {
+                format.setMinimumFractionDigits(numberFormatConfig.minimumFractionDigits);
+            }
+            if (numberFormatConfig.minimumIntegerDigits != null)
+            {
+                format.setMinimumIntegerDigits(numberFormatConfig.minimumIntegerDigits);//for 0.**
+            }
 
-    /**
-     * {@inheritDoc}
-     */
-    @Override
-    public int hashCode()
-    {
-        int result = groupingSeparator != null ? groupingSeparator.hashCode() : 0;
-        result = 31 * result + (decimalSeparator != null ? decimalSeparator.hashCode() : 0);
-        result = 31 * result + (minimumFractionDigits != null ? minimumFractionDigits.hashCode() : 0);
-        result = 31 * result + (minimumIntegerDigits != null ? minimumIntegerDigits.hashCode() : 0);
-        return result;
+            if (numberFormatConfig.maximumFractionDigits != null)
+            {
+                format.setMaximumFractionDigits(numberFormatConfig.maximumFractionDigits);
+            }
+
+            if (numberFormatConfig.maximumIntegerDigits != null)
+            {
+                format.setMaximumIntegerDigits(numberFormatConfig.maximumIntegerDigits);
+            }
+            return format;
+        }
     }
 }
@@ -34,7 +34,10 @@ import org.junit.runners.Suite;
         ExtensibilityTest.class,
         MessageFilterTest.class,
         HelperTest.class,
-        SerializationTest.class})
+        SerializationTest.class,
+        MessageInterpolatorTest.class,
+        ELAwareMessageInterpolatorTest.class,
+        MessageContextConfigTest.class})
 public class AllTests extends TestCase
 {
 }
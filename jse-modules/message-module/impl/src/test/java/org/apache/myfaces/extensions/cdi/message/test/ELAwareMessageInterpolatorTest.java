@@ -0,0 +1,177 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.message.test;
+
+import org.apache.myfaces.extensions.cdi.message.api.MessageInterpolator;
+import org.apache.myfaces.extensions.cdi.message.impl.ELAwareMessageInterpolator;
+import org.apache.myfaces.extensions.cdi.message.impl.NamedArguments;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Tests for {@link ELAwareMessageInterpolator}
+ */
+public class ELAwareMessageInterpolatorTest extends AbstractMessageContextAwareTest
+{
+    private static final int THREAD_COUNT = 4;
+    private static final int ITERATIONS = 1000;
+
+    @Test
+    public void elExpressionTest()
+    {
+        MessageInterpolator messageInterpolator = new ELAwareMessageInterpolator(new TestELProvider());
+
+        assertEquals("Manfred greets Thomas (and {0})", messageInterpolator.interpolate(this.messageContext,
+                "{p1} greets {p2.name} (and {0})",
+                NamedArguments.add("p1", "Manfred").add("p2", new Person("Thomas")).create()));
+    }
+
+    @Test
+    public void cachedValueExpressionTest()
+    {
+        TestELProvider elProvider = new TestELProvider();
+        MessageInterpolator messageInterpolator = new ELAwareMessageInterpolator(elProvider);
+
+        assertEquals("hello Gerhard", messageInterpolator.interpolate(this.messageContext,
+                "hello {person.name}", NamedArguments.add("person", new Person("Gerhard")).create()));
+        assertEquals("hello Thomas", messageInterpolator.interpolate(this.messageContext,
+                "hello {person.name}", NamedArguments.add("person", new Person("Thomas")).create()));
+
+        //the parsed expression is re-used for the 2nd message
+        assertEquals(1, elProvider.getExpressionFactory().getCreatedValueExpressionCount());
+    }
+
+    @Test
+    public void concurrentInterpolationTest() throws Exception
+    {
+        final MessageInterpolator messageInterpolator = new ELAwareMessageInterpolator(new TestELProvider());
+
+        //all threads have to evaluate an expression at the same time - that isn't possible with a global lock
+        final CyclicBarrier barrier = new CyclicBarrier(THREAD_COUNT);
+
+        List<Callable<String>> interpolations = new ArrayList<Callable<String>>();
+        for (int i = 0; i < THREAD_COUNT; i++)
+        {
+            final Serializable[] arguments = NamedArguments.add("person", new Person("Thomas " + i)
+            {
+                private static final long serialVersionUID = -2203522815429454727L;
+
+                @Override
+                public String getName()
+                {
+                    try
+                    {
+                        barrier.await(10, TimeUnit.SECONDS);
+                    }
+                    catch (Exception e)
+                    {
+                        throw new IllegalStateException("expressions aren't evaluated concurrently", e);
+                    }
+                    return super.getName();
+                }
+            }).create();
+
+            interpolations.add(new Callable<String>()
+            {
+                public String call()
+                {
+                    return messageInterpolator.interpolate(messageContext, "hello {person.name}", arguments);
+                }
+            });
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(THREAD_COUNT);
+
+        try
+        {
+            List<Future<String>> results = executorService.invokeAll(interpolations);
+
+            for (int i = 0; i < THREAD_COUNT; i++)
+            {
+                assertEquals("hello Thomas " + i, results.get(i).get());
+            }
+
+            //the shared (cached) expressions don't mix up the arguments of concurrent interpolations
+            interpolateConcurrently(executorService, messageInterpolator);
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
+
+    private void interpolateConcurrently(ExecutorService executorService,
+                                         final MessageInterpolator messageInterpolator) throws Exception
+    {
+        List<Callable<String>> interpolations = new ArrayList<Callable<String>>();
+        for (int i = 0; i < THREAD_COUNT; i++)
+        {
+            final Serializable[] arguments = NamedArguments.add("person", new Person("Thomas " + i)).create();
+            final String expectedResult = "hello Thomas " + i;
+
+            interpolations.add(new Callable<String>()
+            {
+                public String call()
+                {
+                    for (int i = 0; i < ITERATIONS; i++)
+                    {
+                        assertEquals(expectedResult,
+                                messageInterpolator.interpolate(messageContext, "hello {person.name}", arguments));
+                    }
+                    return expectedResult;
+                }
+            });
+        }
+
+        for (Future<String> result : executorService.invokeAll(interpolations))
+        {
+            result.get(10, TimeUnit.SECONDS);
+        }
+    }
+
+    /**
+     * Bean for el-expressions
+     */
+    public static class Person implements Serializable
+    {
+        private static final long serialVersionUID = 7414281402564282306L;
+
+        private String name;
+
+        public Person(String name)
+        {
+            this.name = name;
+        }
+
+        public String getName()
+        {
+            return this.name;
+        }
+    }
+}
@@ -18,12 +18,24 @@
  */
 package org.apache.myfaces.extensions.cdi.message.test;
 
+import org.apache.myfaces.extensions.cdi.message.api.Formatter;
+import org.apache.myfaces.extensions.cdi.message.api.FormatterFactory;
+import org.apache.myfaces.extensions.cdi.message.api.GenericConfig;
+import org.apache.myfaces.extensions.cdi.message.api.MessageContext;
+import org.apache.myfaces.extensions.cdi.message.impl.DefaultFormatterFactory;
 import org.apache.myfaces.extensions.cdi.message.impl.NumberedArgumentAwareMessageInterpolator;
+import org.apache.myfaces.extensions.cdi.message.impl.formatter.NumberFormatterConfigKeys;
 import static org.junit.Assert.assertEquals;
 import org.junit.Test;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Locale;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Tests for formatters
@@ -63,4 +75,112 @@ public class FormattedMessageArgumentTest extends AbstractMessageContextAwareTes
 
         assertEquals("value: 7'654,321", messageText);
     }
+
+    @Test
+    public void changedFormatterConfigTest()
+    {
+        GenericConfig formatterConfig = new TestCustomNumberConfig();
+
+        MessageContext messageContext = this.messageContext.config().use()
+                .messageInterpolator(new NumberedArgumentAwareMessageInterpolator())
+                .localeResolver(new TestEnglishLocaleResolver())
+                .addFormatterConfig(Number.class, formatterConfig, Locale.ENGLISH)
+                .create();
+
+        assertEquals("value: 7'654,321",
+                messageContext.message().text("{formatted_number}").argument(new BigDecimal("7654.3210")).toText());
+
+        formatterConfig.addProperty(NumberFormatterConfigKeys.GROUPING_SEPARATOR_KEY, " ");
+
+        assertEquals("value: 7 654,321",
+                messageContext.message().text("{formatted_number}").argument(new BigDecimal("7654.3210")).toText());
+    }
+
+    @Test
+    public void differentFormatterConfigsForTheSameLocaleTest()
+    {
+        GenericConfig spaceFormatterConfig = new TestCustomNumberConfig();
+        spaceFormatterConfig.addProperty(NumberFormatterConfigKeys.GROUPING_SEPARATOR_KEY, " ");
+
+        //the same (stateless) formatter is used with different formatter-configs for the same locale
+        FormatterFactory defaultFormatterFactory = new DefaultFormatterFactory()
+                .addFormatterConfig(Number.class, new TestCustomNumberConfig(), Locale.ENGLISH);
+        Formatter numberFormatter = defaultFormatterFactory.findFormatter(BigDecimal.class);
+
+        FormatterFactory spaceFormatterFactory = new DefaultFormatterFactory().add(numberFormatter)
+                .addFormatterConfig(Number.class, spaceFormatterConfig, Locale.ENGLISH);
+
+        MessageContext defaultMessageContext = this.messageContext.config().use()
+                .messageInterpolator(new NumberedArgumentAwareMessageInterpolator())
+                .localeResolver(new TestEnglishLocaleResolver())
+                .formatterFactory(defaultFormatterFactory)
+                .create();
+
+        MessageContext spaceMessageContext = this.messageContext.config().use()
+                .messageInterpolator(new NumberedArgumentAwareMessageInterpolator())
+                .localeResolver(new TestEnglishLocaleResolver())
+                .formatterFactory(spaceFormatterFactory)
+                .create();
+
+        for (int i = 0; i < 2; i++)
+        {
+            assertEquals("value: 7'654,321", defaultMessageContext.message().text("{formatted_number}")
+                    .argument(new BigDecimal("7654.3210")).toText());
+
+            assertEquals("value: 7 654,321", spaceMessageContext.message().text("{formatted_number}")
+                    .argument(new BigDecimal("7654.3210")).toText());
+        }
+    }
+
+    @Test
+    public void concurrentFormattingTest() throws Exception
+    {
+        final MessageContext englishMessageContext = this.messageContext.config().use()
+                .messageInterpolator(new NumberedArgumentAwareMessageInterpolator())
+                .localeResolver(new TestEnglishLocaleResolver())
+                .create();
+
+        final MessageContext germanMessageContext = englishMessageContext.config().use()
+                .localeResolver(new TestGermanLocaleResolver())
+                .create();
+
+        List<Callable<Boolean>> formatTasks = new ArrayList<Callable<Boolean>>();
+
+        for (int i = 0; i < 8; i++)
+        {
+            final boolean english = i % 2 == 0;
+            final BigDecimal value = new BigDecimal(1000 + i + ".5");
+
+            formatTasks.add(new Callable<Boolean>()
+            {
+                public Boolean call()
+                {
+                    MessageContext messageContext = english ? englishMessageContext : germanMessageContext;
+                    String expectedValue = english ? "1,00" + value.intValue() % 10 + ".5" :
+                            "1.00" + value.intValue() % 10 + ",5";
+
+                    for (int j = 0; j < 1000; j++)
+                    {
+                        assertEquals("value: " + expectedValue, messageContext.message()
+                                .text("{formatted_number}").argument(value).toText());
+                    }
+                    return true;
+                }
+            });
+        }
+
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+
+        try
+        {
+            for (Future<Boolean> result : executorService.invokeAll(formatTasks))
+            {
+                assertEquals(Boolean.TRUE, result.get());
+            }
+        }
+        finally
+        {
+            executorService.shutdownNow();
+        }
+    }
 }
\ No newline at end of file
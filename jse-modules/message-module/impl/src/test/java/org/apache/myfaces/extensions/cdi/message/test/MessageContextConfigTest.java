@@ -0,0 +1,142 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.message.test;
+
+import org.apache.myfaces.extensions.cdi.message.api.Message;
+import org.apache.myfaces.extensions.cdi.message.api.MessageContext;
+import org.apache.myfaces.extensions.cdi.message.api.MessageContextConfig;
+import org.apache.myfaces.extensions.cdi.message.api.MessageContextConfigAware;
+import org.apache.myfaces.extensions.cdi.message.api.MessageInterpolator;
+import org.apache.myfaces.extensions.cdi.message.impl.DefaultMessageContext;
+import org.apache.myfaces.extensions.cdi.message.impl.NumberedArgumentAwareMessageInterpolator;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import org.junit.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Tests for the (read-only) config of created messages
+ */
+public class MessageContextConfigTest extends AbstractMessageContextAwareTest
+{
+    @Test
+    public void sharedConfigOfUnchangedContextTest()
+    {
+        Message message1 = this.messageContext.message().text("hello {0}").argument("world").create();
+        Message message2 = this.messageContext.message().text("hello {0}").argument("world").create();
+
+        assertSame(getConfig(message1), getConfig(message2));
+    }
+
+    @Test
+    public void changedContextTest()
+    {
+        Message message1 = this.messageContext.message().text("hello {0}").argument("world").create();
+
+        this.messageContext.config().change().messageInterpolator(new NumberedArgumentAwareMessageInterpolator());
+
+        Message message2 = this.messageContext.message().text("hello {0}").argument("world").create();
+
+        assertNotSame(getConfig(message1), getConfig(message2));
+
+        //the change doesn't affect messages which were created before
+        assertEquals("hello {0}", message1.toString());
+        assertEquals("hello world", message2.toString());
+    }
+
+    @Test
+    public void customMessageContextTest()
+    {
+        final int[] cloneCount = {0};
+
+        MessageContext customMessageContext = new DefaultMessageContext()
+        {
+            private static final long serialVersionUID = -6396224741862917421L;
+
+            @Override
+            public MessageContext cloneContext()
+            {
+                cloneCount[0]++;
+                return super.cloneContext();
+            }
+        };
+
+        //the shared snapshot is only used for the default implementation
+        customMessageContext.message().text("hello").create();
+
+        assertEquals(1, cloneCount[0]);
+    }
+
+    @Test
+    public void concurrentChangeTest() throws Exception
+    {
+        final AtomicBoolean changesFinished = new AtomicBoolean();
+        Thread[] messageCreators = new Thread[4];
+
+        for (int i = 0; i < messageCreators.length; i++)
+        {
+            messageCreators[i] = new Thread(new Runnable()
+            {
+                public void run()
+                {
+                    while (!changesFinished.get())
+                    {
+                        messageContext.message().text("hello").create();
+                    }
+                }
+            });
+            messageCreators[i].start();
+        }
+
+        try
+        {
+            for (int i = 0; i < 500; i++)
+            {
+                MessageInterpolator messageInterpolator = new NumberedArgumentAwareMessageInterpolator();
+                this.messageContext.config().change().messageInterpolator(messageInterpolator);
+
+                //a snapshot which was created concurrently with the old config mustn't be used
+                assertSame(messageInterpolator, getConfig(this.messageContext.message().text("hello").create())
+                        .getMessageInterpolator());
+            }
+        }
+        finally
+        {
+            changesFinished.set(true);
+
+            for (Thread messageCreator : messageCreators)
+            {
+                messageCreator.join(10000);
+            }
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void unmodifiableConfigTest()
+    {
+        getConfig(this.messageContext.message().text("hello").create()).change();
+    }
+
+    private MessageContextConfig getConfig(Message message)
+    {
+        return ((MessageContextConfigAware) message).getMessageContextConfig();
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.message.test;
+
+import org.apache.myfaces.extensions.cdi.message.api.MessageContext;
+import org.apache.myfaces.extensions.cdi.message.api.MessageInterpolator;
+import org.apache.myfaces.extensions.cdi.message.api.NamedArgument;
+import org.apache.myfaces.extensions.cdi.message.impl.NamedArgumentMessageInterpolator;
+import org.apache.myfaces.extensions.cdi.message.impl.NamedArguments;
+import org.apache.myfaces.extensions.cdi.message.impl.NumberedArgumentAwareMessageInterpolator;
+import static org.junit.Assert.assertEquals;
+import org.junit.Test;
+
+import java.io.Serializable;
+import java.math.BigDecimal;
+import java.text.MessageFormat;
+
+/**
+ * Tests for the message-interpolators (incl. a comparison with the former interpolation per message)
+ */
+public class MessageInterpolatorTest extends AbstractMessageContextAwareTest
+{
+    @Test
+    public void namedArgumentInterpolationTest()
+    {
+        MessageInterpolator messageInterpolator = new NamedArgumentMessageInterpolator();
+
+        Serializable[] arguments = NamedArguments.add("arg1", "x").add("arg2", 2).add("arg3", null).create();
+
+        assertEquals("x and 2 and x, null, {unknown}, {}, {arg1",
+                messageInterpolator.interpolate(this.messageContext,
+                        "{arg1} and {arg2} and {arg1}, {arg3}, {unknown}, {}, {arg1", arguments));
+
+        assertEquals("no arguments", messageInterpolator.interpolate(this.messageContext, "no arguments", arguments));
+    }
+
+    @Test
+    public void numberedArgumentInterpolationTest()
+    {
+        MessageInterpolator messageInterpolator = new NumberedArgumentAwareMessageInterpolator();
+
+        Serializable[] arguments = NamedArguments.add("arg1", "x").create();
+
+        assertEquals("1st: a, 2nd: b",
+                messageInterpolator.interpolate(this.messageContext, "1st: {0}, 2nd: {1}", "a", arguments[0], "b"));
+
+        //the same template is used for a different locale
+        MessageContext germanMessageContext =
+                this.messageContext.config().use().localeResolver(new TestGermanLocaleResolver()).create();
+
+        assertEquals("value: 7,654.321",
+                messageInterpolator.interpolate(this.messageContext, "value: {0}", new BigDecimal("7654.3210")));
+        assertEquals("value: 7.654,321",
+                messageInterpolator.interpolate(germanMessageContext, "value: {0}", new BigDecimal("7654.3210")));
+    }
+
+    @Test
+    public void compareWithUncachedInterpolationTest()
+    {
+        String numberedMessageText = "value #1: {0} and value #2: {1} - value #1 again: {0}";
+        String namedMessageText = "value #1: {arg1} and value #2: {arg2} - value #1 again: {arg1}";
+        Serializable[] numberedArguments = new Serializable[] {"test", "value"};
+        Serializable[] namedArguments = NamedArguments.add("arg1", "test").add("arg2", "value").create();
+
+        MessageInterpolator numberedArgumentInterpolator = new NumberedArgumentAwareMessageInterpolator();
+        MessageInterpolator namedArgumentInterpolator = new NamedArgumentMessageInterpolator();
+
+        String expectedResult = "value #1: test and value #2: value - value #1 again: test";
+        assertEquals(expectedResult, interpolateUncached(numberedMessageText, numberedArguments));
+        assertEquals(expectedResult, interpolateNamedArgumentsUncached(namedMessageText, namedArguments));
+
+        //the 2nd call uses the cached template
+        for (int i = 0; i < 2; i++)
+        {
+            assertEquals(expectedResult, numberedArgumentInterpolator
+                    .interpolate(this.messageContext, numberedMessageText, numberedArguments));
+            assertEquals(expectedResult, namedArgumentInterpolator
+                    .interpolate(this.messageContext, namedMessageText, namedArguments));
+        }
+
+        //a cached template is used with different arguments
+        Serializable[] otherArguments = new Serializable[] {"other", 2};
+        assertEquals(interpolateUncached(numberedMessageText, otherArguments),
+                numberedArgumentInterpolator.interpolate(this.messageContext, numberedMessageText, otherArguments));
+    }
+
+    private String interpolateUncached(String messageText, Serializable[] arguments)
+    {
+        return new MessageFormat(messageText, this.messageContext.getLocale()).format(arguments);
+    }
+
+    private String interpolateNamedArgumentsUncached(String messageText, Serializable[] arguments)
+    {
+        String name;
+        for (Serializable argument : arguments)
+        {
+            name = "{" + ((NamedArgument) argument).getName() + "}";
+
+            if (messageText.contains(name))
+            {
+                messageText = messageText.replace(name, String.valueOf(((NamedArgument) argument).getValue()));
+            }
+        }
+        return messageText;
+    }
+}
@@ -18,10 +18,12 @@
  */
 package org.apache.myfaces.extensions.cdi.message.test;
 
+import org.apache.myfaces.extensions.cdi.message.api.FormatterFactory;
 import org.apache.myfaces.extensions.cdi.message.api.MessageContextConfig;
 import org.apache.myfaces.extensions.cdi.message.impl.DefaultFormatterFactory;
 import org.apache.myfaces.extensions.cdi.message.impl.NumberedArgumentAwareMessageInterpolator;
 import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertEquals;
 import org.junit.Test;
 
 import java.util.Locale;
@@ -49,4 +51,19 @@ public class SerializationTest extends AbstractMessageContextAwareTest
         assertNotSame(this.messageContext.config(), clonedConfig);
     }
 
+    @Test
+    public void formatterFactorySerializationTest()
+    {
+        FormatterFactory formatterFactory = new DefaultFormatterFactory();
+        formatterFactory.add(new TestFormatter(String.class));
+
+        //fills the (transient) formatter-cache
+        assertEquals(TestFormatter.class, formatterFactory.findFormatter(String.class).getClass());
+
+        FormatterFactory clonedFormatterFactory = TestDeepObjectCloner.clone(formatterFactory, FormatterFactory.class);
+
+        assertNotSame(formatterFactory, clonedFormatterFactory);
+        assertEquals(TestFormatter.class, clonedFormatterFactory.findFormatter(String.class).getClass());
+    }
+
 }
\ No newline at end of file
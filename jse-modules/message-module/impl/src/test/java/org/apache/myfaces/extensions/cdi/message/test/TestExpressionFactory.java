@@ -0,0 +1,62 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.message.test;
+
+import javax.el.ELContext;
+import javax.el.ExpressionFactory;
+import javax.el.MethodExpression;
+import javax.el.ValueExpression;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Expression-factory which creates {@link TestValueExpression}s and counts the parsed expressions
+ */
+class TestExpressionFactory extends ExpressionFactory
+{
+    private AtomicInteger createdValueExpressionCount = new AtomicInteger();
+
+    public ValueExpression createValueExpression(ELContext elContext, String expression, Class<?> expectedType)
+    {
+        this.createdValueExpressionCount.incrementAndGet();
+        return new TestValueExpression(expression);
+    }
+
+    public ValueExpression createValueExpression(Object instance, Class<?> expectedType)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public MethodExpression createMethodExpression(ELContext elContext,
+                                                  String expression,
+                                                  Class<?> expectedReturnType,
+                                                  Class<?>[] expectedParamTypes)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public Object coerceToType(Object value, Class<?> targetType)
+    {
+        return value;
+    }
+
+    int getCreatedValueExpressionCount()
+    {
+        return this.createdValueExpressionCount.get();
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Licensed to the Apache Software Foundation (ASF) under one
+ * or more contributor license agreements.  See the NOTICE file
+ * distributed with this work for additional information
+ * regarding copyright ownership.  The ASF licenses this file
+ * to you under the Apache License, Version 2.0 (the
+ * "License"); you may not use this file except in compliance
+ * with the License.  You may obtain a copy of the License at
+ *
+ *   http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing,
+ * software distributed under the License is distributed on an
+ * "AS IS" BASIS, WITHOUT WARRANTIES OR CONDITIONS OF ANY
+ * KIND, either express or implied.  See the License for the
+ * specific language governing permissions and limitations
+ * under the License.
+ */
+package org.apache.myfaces.extensions.cdi.message.test;
+
+import javax.el.ELContext;
+import javax.el.ValueExpression;
+
+/**
+ * Supports simple expressions like ${0} or ${person.name}
+ */
+class TestValueExpression extends ValueExpression
+{
+    private static final long serialVersionUID = 3106470384826282562L;
+
+    private final String expression;
+    private final String[] properties;
+
+    TestValueExpression(String expression)
+    {
+        this.expression = expression;
+        this.properties = expression.substring(2, expression.length() - 1).split("\\.");
+    }
+
+    public Object getValue(ELContext elContext)
+    {
+        if (this.properties[0].matches("[0-9]+"))
+        {
+            return Long.valueOf(this.properties[0]);
+        }
+
+        Object result = null;
+        for (String property : this.properties)
+        {
+            elContext.setPropertyResolved(false);
+            result = elContext.getELResolver().getValue(elContext, result, property);
+
+            if (result == null)
+            {
+                return null;
+            }
+        }
+        return result;
+    }
+
+    public void setValue(ELContext elContext, Object value)
+    {
+        throw new UnsupportedOperationException();
+    }
+
+    public boolean isReadOnly(ELContext elContext)
+    {
+        return true;
+    }
+
+    public Class<?> getType(ELContext elContext)
+    {
+        return Object.class;
+    }
+
+    public Class<?> getExpectedType()
+    {
+        return Object.class;
+    }
+
+    public String getExpressionString()
+    {
+        return this.expression;
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        return o instanceof TestValueExpression && this.expression.equals(((TestValueExpression) o).expression);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return this.expression.hashCode();
+    }
+
+    public boolean isLiteralText()
+    {
+        return false;
+    }
+}
@@ -20,6 +20,7 @@ package org.apache.myfaces.extensions.cdi.scripting.impl.util;
 
 import org.apache.myfaces.extensions.cdi.core.impl.util.UnmodifiableMap;
 import org.apache.myfaces.extensions.cdi.core.impl.util.CodiUtils;
+import org.apache.myfaces.extensions.cdi.core.impl.util.CodiRequestState;
 import org.apache.myfaces.extensions.cdi.scripting.api.LanguageManager;
 import org.apache.myfaces.extensions.cdi.scripting.api.language.Language;
 import org.apache.myfaces.extensions.cdi.scripting.impl.spi.ExternalExpressionInterpreter;
@@ -38,7 +39,9 @@ public abstract class ScriptingUtils
     {
     }
 
-    private static ThreadLocal<ScriptEngineManager> scriptEngineManagerCache = new ThreadLocal<ScriptEngineManager>();
+    //not bound to the request - the creation scans all script-engine factories, therefore it's cached per thread
+    private static final CodiRequestState.Key<ScriptEngineManager> SCRIPT_ENGINE_MANAGER_KEY =
+            new CodiRequestState.Key<ScriptEngineManager>("current script-engine-manager", false);
 
     /**
      * Resolves the current {@link ScriptEngineManager}
@@ -46,12 +49,13 @@ public abstract class ScriptingUtils
      */
     public static ScriptEngineManager getCurrentScriptEngineManager()
     {
-        ScriptEngineManager scriptEngineManager = scriptEngineManagerCache.get();
+        CodiRequestState requestState = CodiRequestState.getCurrentRequestState();
+        ScriptEngineManager scriptEngineManager = requestState.get(SCRIPT_ENGINE_MANAGER_KEY);
 
         if(scriptEngineManager == null)
         {
             scriptEngineManager = new ScriptEngineManager();
-            scriptEngineManagerCache.set(scriptEngineManager);
+            requestState.set(SCRIPT_ENGINE_MANAGER_KEY, scriptEngineManager);
         }
 
         return scriptEngineManager;